@@ -54,6 +54,18 @@ public class Metrics {
     getOrCreate(key).addAndGet(-delta);
   }
 
+  /**
+   * Raises the metric identified by the given key to the specified value, if the value is greater
+   * than the current one. If the metric doesn't exist, it will be created with an initial value of
+   * 0 first. Useful to track high watermarks.
+   *
+   * @param key the metric key to identify which metric to update
+   * @param value the candidate value for the metric
+   */
+  public void max(MetricKey key, long value) {
+    getOrCreate(key).accumulateAndGet(value, Math::max);
+  }
+
   /**
    * Retrieves the current value of the specified metric. If the metric doesn't exist, it will be
    * created with an initial value of 0.
@@ -35,7 +35,25 @@ public enum MetricKey {
   /**
    * Tracks the number of cache misses. Incremented when requested block is not found in the cache
    */
-  CACHE_MISS("CacheMiss");
+  CACHE_MISS("CacheMiss"),
+
+  /**
+   * Tracks the highest memory usage in bytes observed so far. Used alongside {@link #MEMORY_USAGE}
+   * to size the memory budget of the blobstore.
+   */
+  MEMORY_USAGE_PEAK("MemoryUsagePeak"),
+
+  /**
+   * Tracks the number of blocks evicted from a blob to keep it within its memory capacity. Evicted
+   * blocks are fetched again if they are read.
+   */
+  BLOCK_EVICTION("BlockEviction"),
+
+  /**
+   * Tracks the number of bytes kept from block fetches which failed partway through. Only the rest
+   * of such a block is fetched again when it is retried.
+   */
+  BYTES_SALVAGED("BytesSalvaged");
 
   /** The string name representation of the metric. */
   private final String name;
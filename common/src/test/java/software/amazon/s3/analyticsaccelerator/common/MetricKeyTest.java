@@ -27,14 +27,20 @@ public class MetricKeyTest {
     assertEquals("MemoryUsage", MetricKey.MEMORY_USAGE.getName());
     assertEquals("CacheHit", MetricKey.CACHE_HIT.getName());
     assertEquals("CacheMiss", MetricKey.CACHE_MISS.getName());
+    assertEquals("MemoryUsagePeak", MetricKey.MEMORY_USAGE_PEAK.getName());
+    assertEquals("BlockEviction", MetricKey.BLOCK_EVICTION.getName());
+    assertEquals("BytesSalvaged", MetricKey.BYTES_SALVAGED.getName());
   }
 
   @Test
   public void testEnumValues() {
     MetricKey[] values = MetricKey.values();
-    assertEquals(3, values.length);
+    assertEquals(6, values.length);
     assertEquals(MetricKey.MEMORY_USAGE, values[0]);
     assertEquals(MetricKey.CACHE_HIT, values[1]);
     assertEquals(MetricKey.CACHE_MISS, values[2]);
+    assertEquals(MetricKey.MEMORY_USAGE_PEAK, values[3]);
+    assertEquals(MetricKey.BLOCK_EVICTION, values[4]);
+    assertEquals(MetricKey.BYTES_SALVAGED, values[5]);
   }
 }
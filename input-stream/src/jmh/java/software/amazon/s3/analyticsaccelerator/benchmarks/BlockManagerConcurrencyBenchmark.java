@@ -0,0 +1,135 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.benchmarks;
+
+import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_KB;
+import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.s3.analyticsaccelerator.common.Metrics;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.Block;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.BlockManager;
+import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
+import software.amazon.s3.analyticsaccelerator.request.ReadMode;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+/**
+ * Micro-benchmark for concurrent reads of a {@link BlockManager} shared by several threads, as
+ * happens when tasks read different row groups of the same object. Every block of the object is
+ * made available up front, so each read is a cache hit, and the throughput of the reads should
+ * scale with the number of threads rather than stay flat.
+ *
+ * <p>This benchmark does not talk to S3: blocks are filled from an in-memory object client.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BlockManagerConcurrencyBenchmark {
+  private static final long OBJECT_SIZE = 16 * ONE_MB;
+  private static final long BLOCK_SIZE = 64 * ONE_KB;
+  private static final int READ_SIZE = 4 * ONE_KB;
+  private static final ObjectKey OBJECT_KEY =
+      ObjectKey.builder().s3URI(S3URI.of("bucket", "key")).etag("etag").build();
+
+  private BlockManager blockManager;
+
+  /**
+   * Makes the whole object available in blocks of 64KB.
+   *
+   * @throws IOException thrown on IO error
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    ObjectMetadata metadata =
+        ObjectMetadata.builder().contentLength(OBJECT_SIZE).etag(OBJECT_KEY.getEtag()).build();
+    PhysicalIOConfiguration configuration =
+        PhysicalIOConfiguration.builder()
+            .readAheadBytes(BLOCK_SIZE)
+            .maxRangeSizeBytes(BLOCK_SIZE)
+            .partSizeBytes(BLOCK_SIZE)
+            .build();
+
+    this.blockManager =
+        new BlockManager(
+            OBJECT_KEY,
+            new InMemoryObjectClient(),
+            metadata,
+            Telemetry.NOOP,
+            configuration,
+            new Metrics());
+    for (long start = 0; start < OBJECT_SIZE; start += BLOCK_SIZE) {
+      blockManager.makeRangeAvailable(start, BLOCK_SIZE, ReadMode.ASYNC);
+    }
+  }
+
+  /** Closes the {@link BlockManager} */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.blockManager.close();
+  }
+
+  /**
+   * Reads from a random position with one thread.
+   *
+   * @return the block holding the position
+   * @throws IOException thrown on IO error
+   */
+  @Benchmark
+  @Threads(1)
+  public Block read1Thread() throws IOException {
+    return read();
+  }
+
+  /**
+   * Reads from a random position with four threads.
+   *
+   * @return the block holding the position
+   * @throws IOException thrown on IO error
+   */
+  @Benchmark
+  @Threads(4)
+  public Block read4Threads() throws IOException {
+    return read();
+  }
+
+  /**
+   * Reads from a random position with sixteen threads.
+   *
+   * @return the block holding the position
+   * @throws IOException thrown on IO error
+   */
+  @Benchmark
+  @Threads(16)
+  public Block read16Threads() throws IOException {
+    return read();
+  }
+
+  // Does what Blob does for a read: makes sure the range is available, then looks up its block
+  private Block read() throws IOException {
+    long pos = ThreadLocalRandom.current().nextLong(OBJECT_SIZE - READ_SIZE);
+    blockManager.makeRangeAvailable(pos, READ_SIZE, ReadMode.SYNC);
+    return blockManager.getOrFetchBlock(pos, READ_SIZE);
+  }
+}
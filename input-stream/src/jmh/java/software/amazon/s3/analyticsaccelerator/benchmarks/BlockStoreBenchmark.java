@@ -0,0 +1,131 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.benchmarks;
+
+import java.io.IOException;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import software.amazon.s3.analyticsaccelerator.common.Metrics;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.Block;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.BlockStore;
+import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
+import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
+import software.amazon.s3.analyticsaccelerator.request.ReadMode;
+import software.amazon.s3.analyticsaccelerator.util.BlockMetricsHandler;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+/**
+ * Micro-benchmark for {@link BlockStore} lookups. Every other block-sized slot of the object is
+ * populated, so that lookups hit both present blocks and gaps. The cost of each lookup is reported
+ * as the number of blocks in the store grows; it should grow logarithmically, not linearly.
+ *
+ * <p>This benchmark does not talk to S3: blocks are filled from an in-memory object client.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+  private static final int BLOCK_SIZE = 16;
+  private static final long READ_TIMEOUT = 30_000;
+  private static final int READ_RETRY_COUNT = 1;
+  private static final ObjectKey OBJECT_KEY =
+      ObjectKey.builder().s3URI(S3URI.of("bucket", "key")).etag("etag").build();
+
+  @Param({"16", "256", "4096"})
+  public int blockCount;
+
+  private BlockStore blockStore;
+  private long objectSize;
+
+  /**
+   * Populates the {@link BlockStore} with {@link BlockStoreBenchmark#blockCount} blocks.
+   *
+   * @throws IOException thrown on IO error
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    this.objectSize = 2L * blockCount * BLOCK_SIZE;
+    BlockMetricsHandler metricsHandler = new BlockMetricsHandler(new Metrics(), new Metrics());
+    ObjectMetadata metadata =
+        ObjectMetadata.builder().contentLength(objectSize).etag(OBJECT_KEY.getEtag()).build();
+    ObjectClient objectClient = new InMemoryObjectClient();
+
+    this.blockStore = new BlockStore(OBJECT_KEY, metadata, metricsHandler);
+    for (int i = 0; i < blockCount; i++) {
+      long start = 2L * i * BLOCK_SIZE;
+      blockStore.add(
+          new Block(
+              OBJECT_KEY,
+              objectClient,
+              Telemetry.NOOP,
+              start,
+              start + BLOCK_SIZE - 1,
+              0,
+              ReadMode.SYNC,
+              READ_TIMEOUT,
+              READ_RETRY_COUNT,
+              metricsHandler));
+    }
+  }
+
+  /** Closes the {@link BlockStore} */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.blockStore.close();
+  }
+
+  /**
+   * Looks up the block holding a random position.
+   *
+   * @return whether the position was present
+   */
+  @Benchmark
+  public boolean getBlock() {
+    return blockStore.getBlock(randomPosition()).isPresent();
+  }
+
+  /**
+   * Finds the next missing byte from a random position.
+   *
+   * @return the next missing byte
+   * @throws IOException thrown on IO error
+   */
+  @Benchmark
+  public OptionalLong findNextMissingByte() throws IOException {
+    return blockStore.findNextMissingByte(randomPosition());
+  }
+
+  /**
+   * Finds the next loaded byte from a random position.
+   *
+   * @return the next loaded byte
+   */
+  @Benchmark
+  public OptionalLong findNextLoadedByte() {
+    return blockStore.findNextLoadedByte(randomPosition());
+  }
+
+  private long randomPosition() {
+    return ThreadLocalRandom.current().nextLong(objectSize);
+  }
+}
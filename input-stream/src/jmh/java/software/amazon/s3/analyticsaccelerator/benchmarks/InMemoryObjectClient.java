@@ -0,0 +1,51 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import software.amazon.s3.analyticsaccelerator.request.GetRequest;
+import software.amazon.s3.analyticsaccelerator.request.HeadRequest;
+import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
+import software.amazon.s3.analyticsaccelerator.request.StreamContext;
+
+/** Object client serving zero-filled ranges from memory, for benchmarks which do not talk to S3 */
+final class InMemoryObjectClient implements ObjectClient {
+  @Override
+  public CompletableFuture<ObjectMetadata> headObject(HeadRequest headRequest) {
+    throw new UnsupportedOperationException("HEAD is not used by this benchmark");
+  }
+
+  @Override
+  public CompletableFuture<ObjectContent> getObject(GetRequest getRequest) {
+    return getObject(getRequest, null);
+  }
+
+  @Override
+  public CompletableFuture<ObjectContent> getObject(
+      GetRequest getRequest, StreamContext streamContext) {
+    byte[] content = new byte[(int) getRequest.getRange().getLength()];
+    return CompletableFuture.completedFuture(
+        ObjectContent.builder().stream(new ByteArrayInputStream(content)).build());
+  }
+
+  @Override
+  public void close() {
+    // noop
+  }
+}
@@ -17,6 +17,8 @@ package software.amazon.s3.analyticsaccelerator;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
 
 /** An InputStream-like entity implementing blocking random-access reads. */
@@ -50,6 +52,51 @@ public interface RandomAccessReadable extends Closeable {
    */
   int read(byte[] buf, int off, int len, long pos) throws IOException;
 
+  /**
+   * Reads request data into the provided {@link ByteBuffer}, starting at its current position and
+   * advancing it by the number of bytes read. At most {@link ByteBuffer#remaining()} bytes are
+   * read. The buffer may be a heap or a direct buffer.
+   *
+   * <p>The default implementation goes through {@link #read(byte[], int, int, long)}, copying via
+   * a temporary array when the buffer is not backed by one.
+   *
+   * @param buf buffer to read data into
+   * @param pos the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an error occurs while reading the file
+   */
+  default int read(ByteBuffer buf, long pos) throws IOException {
+    if (!buf.hasRemaining()) {
+      return 0;
+    }
+    if (buf.hasArray()) {
+      int bytesRead = read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining(), pos);
+      if (bytesRead > 0) {
+        buf.position(buf.position() + bytesRead);
+      }
+      return bytesRead;
+    }
+    byte[] bytes = new byte[buf.remaining()];
+    int bytesRead = read(bytes, 0, bytes.length, pos);
+    if (bytesRead > 0) {
+      buf.put(bytes, 0, bytesRead);
+    }
+    return bytesRead;
+  }
+
+  /**
+   * Returns a read-only view of a range of the object without copying it, if the data is already
+   * held in a way that allows this. The default implementation never does.
+   *
+   * @param pos the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range, or empty if the range cannot be served without a copy
+   * @throws IOException if an error occurs while reading the file
+   */
+  default Optional<ByteBuffer> readSlice(long pos, int len) throws IOException {
+    return Optional.empty();
+  }
+
   /**
    * Reads the last n bytes from the stream into a byte buffer. Blocks until end of stream is
    * reached. Leaves the position of the stream unaltered.
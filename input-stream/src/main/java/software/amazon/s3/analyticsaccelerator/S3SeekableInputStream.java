@@ -15,7 +15,10 @@
  */
 package software.amazon.s3.analyticsaccelerator;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import lombok.NonNull;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
@@ -43,6 +46,8 @@ public class S3SeekableInputStream extends SeekableInputStream {
   private static final String OPERATION_READ = "stream.read";
   private static final String FLAVOR_TAIL = "tail";
   private static final String FLAVOR_BYTE = "byte";
+  private static final String FLAVOR_BUFFER = "buffer";
+  private static final String FLAVOR_SLICE = "slice";
 
   private static final String OPERATION_STREAM_CLOSE = "seekablestream.close";
   private final long streamBirth = System.nanoTime();
@@ -157,6 +162,118 @@ public class S3SeekableInputStream extends SeekableInputStream {
         });
   }
 
+  /**
+   * Reads up to {@link ByteBuffer#remaining()} bytes from the current position of the stream into
+   * the provided buffer, advancing both the stream and the buffer by the number of bytes read. The
+   * buffer may be a heap or a direct buffer; in both cases data is copied straight from the cache
+   * into it.
+   *
+   * @param buffer the buffer to read data into
+   * @return the total number of bytes read into the buffer, or -1 if the end of the stream has
+   *     been reached
+   * @throws IOException if an I/O error occurs or the stream has been closed
+   */
+  @Override
+  public int read(@NonNull ByteBuffer buffer) throws IOException {
+    throwIfClosed("cannot read from closed stream");
+
+    if (!buffer.hasRemaining()) {
+      return 0;
+    } else if (this.position >= getContentLength()) {
+      return EOF;
+    }
+
+    final int length = buffer.remaining();
+    return this.telemetry.measureVerbose(
+        () ->
+            Operation.builder()
+                .name(OPERATION_READ)
+                .attribute(StreamAttributes.variant(FLAVOR_BUFFER))
+                .attribute(StreamAttributes.uri(this.s3URI))
+                .attribute(StreamAttributes.etag(this.logicalIO.metadata().getEtag()))
+                .attribute(StreamAttributes.range(position, position + length - 1))
+                .build(),
+        () -> advancePosition(this.logicalIO.read(buffer, position)));
+  }
+
+  /**
+   * Reads up to {@link ByteBuffer#remaining()} bytes starting at the given position into the
+   * provided buffer, advancing the buffer by the number of bytes read. Leaves the position of the
+   * stream unaltered.
+   *
+   * @param pos the position to begin reading from
+   * @param buffer the buffer to read data into
+   * @return the total number of bytes read into the buffer, or -1 if the position is at or past
+   *     the end of the stream
+   * @throws IOException if an I/O error occurs or the stream has been closed
+   */
+  @Override
+  public int read(long pos, @NonNull ByteBuffer buffer) throws IOException {
+    throwIfClosed("cannot read from closed stream");
+    Preconditions.checkArgument(pos >= 0, "Position is negative");
+
+    if (!buffer.hasRemaining()) {
+      return 0;
+    } else if (pos >= getContentLength()) {
+      return EOF;
+    }
+
+    final int length = buffer.remaining();
+    return this.telemetry.measureVerbose(
+        () ->
+            Operation.builder()
+                .name(OPERATION_READ)
+                .attribute(StreamAttributes.variant(FLAVOR_BUFFER))
+                .attribute(StreamAttributes.uri(this.s3URI))
+                .attribute(StreamAttributes.etag(this.logicalIO.metadata().getEtag()))
+                .attribute(StreamAttributes.range(pos, pos + length - 1))
+                .build(),
+        () -> this.logicalIO.read(buffer, pos));
+  }
+
+  /**
+   * Returns a read-only buffer holding {@code length} bytes starting at the given position. Leaves
+   * the position of the stream unaltered. When the range falls inside a single cached block held
+   * on-heap, the returned buffer is a view of the cached data and nothing is copied; otherwise the
+   * data is copied into a newly allocated buffer.
+   *
+   * @param pos the position to begin reading from
+   * @param length the number of bytes to read; the range must not extend past the end of the stream
+   * @return a read-only buffer holding the requested bytes
+   * @throws IOException if an I/O error occurs or the stream has been closed
+   */
+  @Override
+  public ByteBuffer readSlice(long pos, int length) throws IOException {
+    throwIfClosed("cannot read from closed stream");
+    Preconditions.checkArgument(pos >= 0, "Position is negative");
+    Preconditions.checkArgument(length >= 0, "Length is negative");
+
+    if (pos + length > getContentLength()) {
+      throw new EOFException(
+          String.format(
+              "Cannot read %s bytes at position %s past the end of the stream", length, pos));
+    }
+
+    return this.telemetry.measureVerbose(
+        () ->
+            Operation.builder()
+                .name(OPERATION_READ)
+                .attribute(StreamAttributes.variant(FLAVOR_SLICE))
+                .attribute(StreamAttributes.uri(this.s3URI))
+                .attribute(StreamAttributes.etag(this.logicalIO.metadata().getEtag()))
+                .attribute(StreamAttributes.range(pos, pos + length - 1))
+                .build(),
+        () -> {
+          Optional<ByteBuffer> slice = this.logicalIO.readSlice(pos, length);
+          if (slice.isPresent()) {
+            return slice.get();
+          }
+          // Only reached when the logical IO does not serve slices at all, so it has not yet seen
+          // this read
+          return super.readSlice(pos, length);
+        });
+  }
+
   /**
    * Sets the offset, measured from the beginning of this stream, at which the next read occurs. The
    * offset may be set beyond the end of the file. Setting the offset beyond the end of the file
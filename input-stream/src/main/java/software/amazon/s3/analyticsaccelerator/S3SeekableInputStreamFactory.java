@@ -36,6 +36,7 @@ import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
 import software.amazon.s3.analyticsaccelerator.util.ObjectFormatSelector;
 import software.amazon.s3.analyticsaccelerator.util.OpenStreamInformation;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
 
 /**
  * Initialises resources to prepare for reading from S3. Resources initialised in this class are
@@ -53,6 +54,7 @@ public class S3SeekableInputStreamFactory implements AutoCloseable {
   private final ParquetColumnPrefetchStore parquetColumnPrefetchStore;
   private final MetadataStore objectMetadataStore;
   private final BlobStore objectBlobStore;
+  private final StreamDrainExecutor drainExecutor;
   private final Telemetry telemetry;
   private final ObjectFormatSelector objectFormatSelector;
   private final Metrics metrics;
@@ -74,13 +76,21 @@ public class S3SeekableInputStreamFactory implements AutoCloseable {
     this.configuration = configuration;
     this.metrics = new Metrics();
     this.telemetry = Telemetry.createTelemetry(configuration.getTelemetryConfiguration());
+    this.drainExecutor =
+        new StreamDrainExecutor(configuration.getPhysicalIOConfiguration(), telemetry);
     this.parquetColumnPrefetchStore =
-        new ParquetColumnPrefetchStore(configuration.getLogicalIOConfiguration());
+        new ParquetColumnPrefetchStore(configuration.getLogicalIOConfiguration(), drainExecutor);
     this.objectMetadataStore =
-        new MetadataStore(objectClient, telemetry, configuration.getPhysicalIOConfiguration());
+        new MetadataStore(
+            objectClient, telemetry, configuration.getPhysicalIOConfiguration(), drainExecutor);
     this.objectFormatSelector = new ObjectFormatSelector(configuration.getLogicalIOConfiguration());
     this.objectBlobStore =
-        new BlobStore(objectClient, telemetry, configuration.getPhysicalIOConfiguration(), metrics);
+        new BlobStore(
+            objectClient,
+            telemetry,
+            configuration.getPhysicalIOConfiguration(),
+            metrics,
+            drainExecutor);
   }
 
   /**
@@ -180,8 +190,10 @@ public class S3SeekableInputStreamFactory implements AutoCloseable {
    */
   @Override
   public void close() throws IOException {
+    this.parquetColumnPrefetchStore.close();
     this.objectMetadataStore.close();
     this.objectBlobStore.close();
+    this.drainExecutor.close();
     this.telemetry.close();
   }
 }
@@ -15,8 +15,10 @@
  */
 package software.amazon.s3.analyticsaccelerator;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
 
 /**
@@ -59,6 +61,87 @@ public abstract class SeekableInputStream extends InputStream {
    */
   public abstract int readTail(byte[] buf, int off, int n) throws IOException;
 
+  /**
+   * Reads up to {@link ByteBuffer#remaining()} bytes from the current position of the stream into
+   * the provided buffer, advancing both the stream and the buffer by the number of bytes read. The
+   * buffer may be a heap or a direct buffer.
+   *
+   * <p>The default implementation copies through a byte array; subclasses are encouraged to
+   * override it.
+   *
+   * @param buf the buffer to read data into
+   * @return the total number of bytes read into the buffer, or -1 if the end of the stream has
+   *     been reached
+   * @throws IOException if an error occurs while reading the file
+   */
+  public int read(ByteBuffer buf) throws IOException {
+    Preconditions.checkNotNull(buf, "Null destination buffer");
+    if (!buf.hasRemaining()) {
+      return 0;
+    }
+    if (buf.hasArray()) {
+      int bytesRead = read(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+      if (bytesRead > 0) {
+        buf.position(buf.position() + bytesRead);
+      }
+      return bytesRead;
+    }
+    byte[] bytes = new byte[buf.remaining()];
+    int bytesRead = read(bytes, 0, bytes.length);
+    if (bytesRead > 0) {
+      buf.put(bytes, 0, bytesRead);
+    }
+    return bytesRead;
+  }
+
+  /**
+   * Reads up to {@link ByteBuffer#remaining()} bytes starting at the given position into the
+   * provided buffer, advancing the buffer by the number of bytes read. Leaves the position of the
+   * stream unaltered.
+   *
+   * <p>The default implementation seeks to the position, reads, and seeks back; subclasses are
+   * encouraged to override it.
+   *
+   * @param pos the position to begin reading from
+   * @param buf the buffer to read data into
+   * @return the total number of bytes read into the buffer, or -1 if the position is at or past
+   *     the end of the stream
+   * @throws IOException if an error occurs while reading the file
+   */
+  public int read(long pos, ByteBuffer buf) throws IOException {
+    long currentPos = getPos();
+    try {
+      seek(pos);
+      return read(buf);
+    } finally {
+      seek(currentPos);
+    }
+  }
+
+  /**
+   * Returns a read-only buffer holding {@code length} bytes starting at the given position. Leaves
+   * the position of the stream unaltered. Implementations backed by a cache may return a view of
+   * the cached data without copying it.
+   *
+   * <p>The default implementation copies the data into a newly allocated heap buffer.
+   *
+   * @param pos the position to begin reading from
+   * @param length the number of bytes to read; the range must not extend past the end of the stream
+   * @return a read-only buffer holding the requested bytes
+   * @throws IOException if an error occurs while reading the file
+   */
+  public ByteBuffer readSlice(long pos, int length) throws IOException {
+    Preconditions.checkArgument(length >= 0, "Length is negative");
+    ByteBuffer buf = ByteBuffer.allocate(length);
+    while (buf.hasRemaining()) {
+      if (read(pos + buf.position(), buf) < 0) {
+        throw new EOFException("Reached the end of stream before reading " + length + " bytes");
+      }
+    }
+    buf.flip();
+    return buf.asReadOnlyBuffer();
+  }
+
   /**
    * Validates the arguments for a read operation. This method is available to use in all subclasses
    * to ensure consistency.
@@ -42,6 +42,8 @@ public class LogicalIOConfiguration {
   private static final long DEFAULT_SMALL_OBJECT_SIZE_THRESHOLD = 3 * ONE_MB;
   private static final int DEFAULT_PARQUET_METADATA_STORE_SIZE = 45;
   private static final int DEFAULT_MAX_COLUMN_ACCESS_STORE_SIZE = 15;
+  private static final String DEFAULT_PARQUET_METADATA_DISK_STORE_DIRECTORY = "";
+  private static final int DEFAULT_PARQUET_METADATA_DISK_STORE_SIZE = 10000;
   private static final String DEFAULT_PARQUET_FORMAT_SELECTOR_REGEX = "^.*.(parquet|par)$";
   private static final String DEFAULT_CSV_FORMAT_SELECTOR_REGEX = "^.*\\.(csv|CSV)$";
   private static final String DEFAULT_JSON_FORMAT_SELECTOR_REGEX = "^.*\\.(json|JSON)$";
@@ -111,6 +113,18 @@ public class LogicalIOConfiguration {
 
   private static final String MAX_COLUMN_ACCESS_STORE_SIZE_KEY = "max.column.access.store.size";
 
+  @Builder.Default
+  private String parquetMetadataDiskStoreDirectory = DEFAULT_PARQUET_METADATA_DISK_STORE_DIRECTORY;
+
+  private static final String PARQUET_METADATA_DISK_STORE_DIRECTORY_KEY =
+      "parquet.metadata.disk.store.directory";
+
+  @Builder.Default
+  private int parquetMetadataDiskStoreSize = DEFAULT_PARQUET_METADATA_DISK_STORE_SIZE;
+
+  private static final String PARQUET_METADATA_DISK_STORE_SIZE_KEY =
+      "parquet.metadata.disk.store.size";
+
   @Builder.Default
   private String parquetFormatSelectorRegex = DEFAULT_PARQUET_FORMAT_SELECTOR_REGEX;
 
@@ -170,6 +184,13 @@ public class LogicalIOConfiguration {
         .maxColumnAccessCountStoreSize(
             configuration.getInt(
                 MAX_COLUMN_ACCESS_STORE_SIZE_KEY, DEFAULT_MAX_COLUMN_ACCESS_STORE_SIZE))
+        .parquetMetadataDiskStoreDirectory(
+            configuration.getString(
+                PARQUET_METADATA_DISK_STORE_DIRECTORY_KEY,
+                DEFAULT_PARQUET_METADATA_DISK_STORE_DIRECTORY))
+        .parquetMetadataDiskStoreSize(
+            configuration.getInt(
+                PARQUET_METADATA_DISK_STORE_SIZE_KEY, DEFAULT_PARQUET_METADATA_DISK_STORE_SIZE))
         .parquetFormatSelectorRegex(
             configuration.getString(
                 PARQUET_FORMAT_SELECTOR_REGEX, DEFAULT_PARQUET_FORMAT_SELECTOR_REGEX))
@@ -209,6 +230,9 @@ public class LogicalIOConfiguration {
     builder.append("\ttxtFormatSelectorRegex: " + txtFormatSelectorRegex + "\n");
     builder.append("\tprefetchingMode: " + prefetchingMode + "\n");
     builder.append("\tpartitionSize: " + partitionSize + "\n");
+    builder.append(
+        "\tparquetMetadataDiskStoreDirectory: " + parquetMetadataDiskStoreDirectory + "\n");
+    builder.append("\tparquetMetadataDiskStoreSize: " + parquetMetadataDiskStoreSize + "\n");
 
     return builder.toString();
   }
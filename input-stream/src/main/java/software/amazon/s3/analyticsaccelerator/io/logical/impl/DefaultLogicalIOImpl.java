@@ -16,6 +16,8 @@
 package software.amazon.s3.analyticsaccelerator.io.logical.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import lombok.NonNull;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
@@ -93,6 +95,46 @@ public class DefaultLogicalIOImpl implements LogicalIO {
         bytesRead -> bytesRead > 1);
   }
 
+  /**
+   * Reads data into the provided {@link ByteBuffer}, starting at its current position and
+   * advancing it.
+   *
+   * @param buf buffer to read data into
+   * @param position the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException IO error, if incurred.
+   */
+  @Override
+  public int read(ByteBuffer buf, long position) throws IOException {
+    int len = buf.remaining();
+    return telemetry.measureConditionally(
+        TelemetryLevel.VERBOSE,
+        () ->
+            Operation.builder()
+                .name(OPERATION_LOGICAL_READ)
+                .attribute(StreamAttributes.logicalReadPosition(position))
+                .attribute(StreamAttributes.logicalReadLength(len))
+                .attribute(StreamAttributes.uri(s3URI))
+                .attribute(
+                    StreamAttributes.logicalIORelativeTimestamp(System.nanoTime() - birthTimestamp))
+                .build(),
+        () -> physicalIO.read(buf, position),
+        bytesRead -> bytesRead > 1);
+  }
+
+  /**
+   * Returns a read-only view of a range of the object without copying it, if possible.
+   *
+   * @param position the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range, or empty if the range cannot be served without a copy
+   * @throws IOException IO error, if incurred.
+   */
+  @Override
+  public Optional<ByteBuffer> readSlice(long position, int len) throws IOException {
+    return physicalIO.readSlice(position, len);
+  }
+
   @Override
   public int readTail(byte[] buf, int off, int len) throws IOException {
     long contentLength = metadata().getContentLength();
@@ -16,6 +16,9 @@
 package software.amazon.s3.analyticsaccelerator.io.logical.impl;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.Closeable;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -23,14 +26,23 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import software.amazon.s3.analyticsaccelerator.io.logical.LogicalIOConfiguration;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMappers;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMetadata;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ParquetMetadataParsingTask;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ParquetPredictivePrefetchingTask;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.PrefetchMode;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
 
 /**
  * This class maintains a shared state required for Parquet prefetching operations that is required
@@ -39,11 +51,18 @@ import software.amazon.s3.analyticsaccelerator.util.S3URI;
  * streams as calling applications may open and close a stream to a file several times while
  * reading. For Spark, this was observed to happen as a stream to a Parquet file is first opened to
  * read the footer, and then a separate stream is opened to read the data.
+ *
+ * <p>When a {@link ParquetMetadataDiskStore} is configured, column mappers and recently read
+ * columns are also kept on local disk, so that they survive restarts of the process. The recently
+ * read columns are loaded from disk on first use. They are written back a while after column
+ * mappers are persisted, so that the footers parsed by a scan of many files share one write, and
+ * when the store is closed. Writes run on the drain executor rather than the thread parsing the
+ * footer.
  */
 @SuppressFBWarnings(
     value = "SE_BAD_FIELD",
     justification = "The closure classes trigger this. We never use serialization on this class")
-public class ParquetColumnPrefetchStore {
+public class ParquetColumnPrefetchStore implements Closeable {
 
   /**
    * * This is a mapping of S3 URI's of Parquet files to their {@link ColumnMappers}. When a stream
@@ -122,12 +141,57 @@ public class ParquetColumnPrefetchStore {
 
   private final LogicalIOConfiguration configuration;
 
+  /** Keeps the state on local disk, or null if it is only kept in memory */
+  private final ParquetMetadataDiskStore diskStore;
+
+  /** Runs the writes to the disk store */
+  private final StreamDrainExecutor drainExecutor;
+
+  /** Whether the recently read columns have been loaded from the disk store */
+  private boolean recentColumnsLoaded;
+
+  /** The pending write of the recently read columns, or null if none is scheduled */
+  private Future<?> recentColumnsCheckpoint;
+
+  /** How long the recently read columns are left to change before they are written to disk */
+  static final long RECENT_COLUMNS_CHECKPOINT_DELAY_MS = 10_000;
+
+  /** The maximum time a write to the disk store may take */
+  private static final long DISK_WRITE_TIMEOUT_MS = 30_000;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParquetColumnPrefetchStore.class);
+
   /**
    * Creates a new instance of ParquetMetadataStore.
    *
    * @param configuration object containing information about the metadata store size
    */
   public ParquetColumnPrefetchStore(LogicalIOConfiguration configuration) {
+    this(configuration, StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Creates a new instance of ParquetMetadataStore.
+   *
+   * @param configuration object containing information about the metadata store size
+   * @param drainExecutor runs the writes to the disk store
+   */
+  public ParquetColumnPrefetchStore(
+      LogicalIOConfiguration configuration, @NonNull StreamDrainExecutor drainExecutor) {
+    this(configuration, createDiskStore(configuration), drainExecutor);
+  }
+
+  /**
+   * Creates a new instance of ParquetMetadataStore.
+   *
+   * @param configuration object containing information about the metadata store size
+   * @param diskStore keeps the state on local disk, or null to keep it in memory only
+   * @param drainExecutor runs the writes to the disk store
+   */
+  public ParquetColumnPrefetchStore(
+      LogicalIOConfiguration configuration,
+      ParquetMetadataDiskStore diskStore,
+      @NonNull StreamDrainExecutor drainExecutor) {
     this(
         configuration,
         new LinkedHashMap<S3URI, ColumnMappers>() {
@@ -159,7 +223,9 @@ public class ParquetColumnPrefetchStore {
           protected boolean removeEldestEntry(final Map.Entry<S3URI, List<Integer>> eldest) {
             return this.size() > configuration.getParquetMetadataStoreSize();
           }
-        });
+        },
+        diskStore,
+        drainExecutor);
   }
 
   /**
@@ -182,12 +248,80 @@ public class ParquetColumnPrefetchStore {
       Map<Integer, LinkedList<String>> recentlyReadDictionariesPerSchema,
       Map<S3URI, List<Integer>> columnRowGroupsPrefetched,
       Map<S3URI, List<Integer>> dictionaryRowGroupsPrefetched) {
+    this(
+        configuration,
+        columnMappersStore,
+        recentlyReadColumnsPerSchema,
+        recentlyReadDictionariesPerSchema,
+        columnRowGroupsPrefetched,
+        dictionaryRowGroupsPrefetched,
+        null,
+        StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Creates a new instance of ParquetMetadataStore. This constructor is used for dependency
+   * injection.
+   *
+   * @param configuration LogicalIO configuration
+   * @param columnMappersStore Store of column mappings
+   * @param recentlyReadColumnsPerSchema List of recent read columns for each schema
+   * @param recentlyReadDictionariesPerSchema List of recent read dictionaries for each schema
+   * @param columnRowGroupsPrefetched Map of Parquet file URI to row groups that have been
+   *     prefetched for it
+   * @param dictionaryRowGroupsPrefetched Map of Parquet file URI to row groups that have been
+   *     prefetched for it
+   * @param diskStore keeps the state on local disk, or null to keep it in memory only
+   * @param drainExecutor runs the writes to the disk store
+   */
+  ParquetColumnPrefetchStore(
+      LogicalIOConfiguration configuration,
+      Map<S3URI, ColumnMappers> columnMappersStore,
+      Map<Integer, LinkedList<String>> recentlyReadColumnsPerSchema,
+      Map<Integer, LinkedList<String>> recentlyReadDictionariesPerSchema,
+      Map<S3URI, List<Integer>> columnRowGroupsPrefetched,
+      Map<S3URI, List<Integer>> dictionaryRowGroupsPrefetched,
+      ParquetMetadataDiskStore diskStore,
+      @NonNull StreamDrainExecutor drainExecutor) {
     this.configuration = configuration;
     this.columnMappersStore = columnMappersStore;
     this.recentlyReadColumnsPerSchema = recentlyReadColumnsPerSchema;
     this.columnRowGroupsPrefetched = columnRowGroupsPrefetched;
     this.recentlyReadDictionariesPerSchema = recentlyReadDictionariesPerSchema;
     this.dictionaryRowGroupsPrefetched = dictionaryRowGroupsPrefetched;
+    this.diskStore = diskStore;
+    this.drainExecutor = drainExecutor;
+  }
+
+  /**
+   * Creates the disk store if a directory is configured for it. A directory which cannot be used
+   * disables the disk store, as the metadata can always be read from S3.
+   *
+   * @param configuration the LogicalIO configuration
+   * @return the disk store, or null if it is disabled
+   */
+  private static ParquetMetadataDiskStore createDiskStore(LogicalIOConfiguration configuration) {
+    String directory = configuration.getParquetMetadataDiskStoreDirectory();
+    if (directory == null || directory.isEmpty()) {
+      return null;
+    }
+    try {
+      return new ParquetMetadataDiskStore(
+          Paths.get(directory), configuration.getParquetMetadataDiskStoreSize());
+    } catch (InvalidPathException | IllegalArgumentException e) {
+      LOG.warn(
+          "Parquet metadata directory {} cannot be used, disabling the disk store", directory, e);
+      return null;
+    }
+  }
+
+  /**
+   * Checks whether column mappers and recently read columns are kept on local disk.
+   *
+   * @return true if a disk store is configured
+   */
+  public boolean isPersistent() {
+    return diskStore != null;
   }
 
   /**
@@ -210,6 +344,76 @@ public class ParquetColumnPrefetchStore {
     columnMappersStore.put(s3URI, columnMappers);
   }
 
+  /**
+   * Loads column mappers for an object from the disk store, and stores them in memory if found.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @return the column mappers, or empty if they are not on disk
+   */
+  public Optional<ColumnMappers> loadColumnMappers(@NonNull ObjectKey objectKey) {
+    if (diskStore == null) {
+      return Optional.empty();
+    }
+    Optional<ColumnMappers> columnMappers = diskStore.loadColumnMappers(objectKey);
+    columnMappers.ifPresent(mappers -> putColumnMappers(objectKey.getS3URI(), mappers));
+    return columnMappers;
+  }
+
+  /**
+   * Writes column mappers for an object to the disk store on the drain executor, and schedules a
+   * write of the recently read columns unless one is already pending.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param columnMappers Parquet metadata column mappings
+   * @return a future completing once the column mappers are written
+   */
+  public CompletableFuture<Void> persistColumnMappers(
+      @NonNull ObjectKey objectKey, ColumnMappers columnMappers) {
+    if (diskStore == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    scheduleRecentColumnsCheckpoint();
+    return drainExecutor.submit(
+        () -> {
+          diskStore.storeColumnMappers(objectKey, columnMappers);
+          return null;
+        },
+        DISK_WRITE_TIMEOUT_MS);
+  }
+
+  /**
+   * Schedules a write of the recently read columns, so that all changes made until it runs are
+   * written together. The scheduler only hands the write over to a drain thread.
+   */
+  private synchronized void scheduleRecentColumnsCheckpoint() {
+    if (recentColumnsCheckpoint != null) {
+      return;
+    }
+    try {
+      recentColumnsCheckpoint =
+          drainExecutor.schedule(
+              () -> drainExecutor.submit(this::checkpointRecentColumns, DISK_WRITE_TIMEOUT_MS),
+              RECENT_COLUMNS_CHECKPOINT_DELAY_MS);
+    } catch (RejectedExecutionException e) {
+      // The executor is closed, the recently read columns are written when the store is closed
+      LOG.debug("Unable to schedule a write of the recently read columns", e);
+    }
+  }
+
+  /**
+   * Writes the recently read columns to the disk store. Clearing the pending checkpoint first lets
+   * changes made during the write schedule the next one.
+   *
+   * @return nothing
+   */
+  private Void checkpointRecentColumns() {
+    synchronized (this) {
+      recentColumnsCheckpoint = null;
+    }
+    diskStore.storeRecentColumns(snapshotRecentColumns());
+    return null;
+  }
+
   /**
    * Adds a column to the list of recent columns for a particular schema. This is a fixed sized
    * list, whose size is defined by maxColumnAccessCountStoreSize in {@link LogicalIOConfiguration}.
@@ -250,6 +454,7 @@ public class ParquetColumnPrefetchStore {
    * @param columnMetadata column to be added
    */
   public synchronized void addRecentColumn(ColumnMetadata columnMetadata) {
+    loadRecentColumns();
     updateColumnAccessList(columnMetadata, recentlyReadColumnsPerSchema);
   }
 
@@ -260,6 +465,7 @@ public class ParquetColumnPrefetchStore {
    * @param columnMetadata column dictionary to be added
    */
   public synchronized void addRecentDictionary(ColumnMetadata columnMetadata) {
+    loadRecentColumns();
     updateColumnAccessList(columnMetadata, recentlyReadDictionariesPerSchema);
   }
 
@@ -290,6 +496,7 @@ public class ParquetColumnPrefetchStore {
    * @return Unique set of recently read columns
    */
   public synchronized Set<String> getUniqueRecentColumnsForSchema(int schemaHash) {
+    loadRecentColumns();
     return getRecentAccessList(recentlyReadColumnsPerSchema, schemaHash);
   }
 
@@ -301,9 +508,49 @@ public class ParquetColumnPrefetchStore {
    * @return Unique set of recently read columns
    */
   public synchronized Set<String> getUniqueRecentDictionaryForSchema(int schemaHash) {
+    loadRecentColumns();
     return getRecentAccessList(recentlyReadDictionariesPerSchema, schemaHash);
   }
 
+  /** Loads the recently read columns from the disk store the first time they are needed */
+  private void loadRecentColumns() {
+    if (diskStore == null || recentColumnsLoaded) {
+      return;
+    }
+    recentColumnsLoaded = true;
+    ParquetMetadataDiskStore.RecentColumns recentColumns = diskStore.loadRecentColumns();
+    restoreRecentColumns(recentColumns.getColumns(), recentlyReadColumnsPerSchema);
+    restoreRecentColumns(recentColumns.getDictionaries(), recentlyReadDictionariesPerSchema);
+  }
+
+  private void restoreRecentColumns(
+      Map<Integer, List<String>> storedColumnsPerSchema,
+      Map<Integer, LinkedList<String>> recentlyReadColumnsPerSchema) {
+    storedColumnsPerSchema.forEach(
+        (schemaHash, storedColumns) -> {
+          LinkedList<String> schemaRecentColumns = new LinkedList<>(storedColumns);
+          while (schemaRecentColumns.size() > configuration.getMaxColumnAccessCountStoreSize()) {
+            schemaRecentColumns.removeFirst();
+          }
+          recentlyReadColumnsPerSchema.putIfAbsent(schemaHash, schemaRecentColumns);
+        });
+  }
+
+  private synchronized ParquetMetadataDiskStore.RecentColumns snapshotRecentColumns() {
+    loadRecentColumns();
+    return new ParquetMetadataDiskStore.RecentColumns(
+        copyRecentColumns(recentlyReadColumnsPerSchema),
+        copyRecentColumns(recentlyReadDictionariesPerSchema));
+  }
+
+  private static Map<Integer, List<String>> copyRecentColumns(
+      Map<Integer, LinkedList<String>> recentlyReadColumnsPerSchema) {
+    Map<Integer, List<String>> copy = new LinkedHashMap<>();
+    recentlyReadColumnsPerSchema.forEach(
+        (schemaHash, columns) -> copy.put(schemaHash, new ArrayList<>(columns)));
+    return copy;
+  }
+
   private Set<String> getRecentAccessList(
       Map<Integer, LinkedList<String>> recentlyReadColumnsPerSchema, int schemaHash) {
     List<String> schemaRecentColumns = recentlyReadColumnsPerSchema.get(schemaHash);
@@ -381,4 +628,20 @@ public class ParquetColumnPrefetchStore {
     rowGroupsPrefetchedForKey.add(rowGroupIndex);
     rowGroupsPrefetched.put(s3URI, rowGroupsPrefetchedForKey);
   }
+
+  /**
+   * Writes the recently read columns to the disk store, if one is configured, in place of any
+   * pending write.
+   */
+  @Override
+  public void close() {
+    if (diskStore != null) {
+      synchronized (this) {
+        if (recentColumnsCheckpoint != null) {
+          recentColumnsCheckpoint.cancel(false);
+        }
+      }
+      checkpointRecentColumns();
+    }
+  }
 }
@@ -0,0 +1,346 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.logical.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMappers;
+import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMetadata;
+import software.amazon.s3.analyticsaccelerator.util.LocalFileUtils;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+
+/**
+ * Keeps the state of {@link ParquetColumnPrefetchStore} in files on local disk, so that it outlives
+ * the process. A new process reading the same table files can then skip fetching and parsing their
+ * footers, and predict the columns to prefetch from the first read.
+ *
+ * <p>The {@link ColumnMappers} of each file are kept in a file named after a digest of the S3 URI
+ * and etag, so a new version of a file never sees the mappers of the old one. The most recently
+ * stored files are kept, up to the capacity. The recently read columns and dictionaries of all
+ * schemas are kept in a single file. Every file is written atomically, so a crash leaves either the
+ * previous or the new content behind.
+ *
+ * <p>Nothing is read from disk until the store is first used.
+ */
+public class ParquetMetadataDiskStore {
+  private final Path columnMappersDirectory;
+  private final Path recentColumnsFile;
+  private final int capacity;
+
+  // The names of the column mappers files in least recently used order, loaded on first use. It is
+  // guarded by `this`.
+  private LinkedHashMap<String, Boolean> columnMappersFiles;
+
+  private static final int MAGIC = 0x50415251;
+  private static final int VERSION = 1;
+  private static final String COLUMN_MAPPERS_DIRECTORY = "column-mappers";
+  private static final String RECENT_COLUMNS_FILE = "recent-columns";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParquetMetadataDiskStore.class);
+
+  /**
+   * Creates a new instance of {@link ParquetMetadataDiskStore}.
+   *
+   * @param directory the directory to keep the files in, created on first write
+   * @param capacity the maximum number of Parquet files to keep column mappers for
+   */
+  public ParquetMetadataDiskStore(@NonNull Path directory, int capacity) {
+    Preconditions.checkArgument(capacity > 0, "`capacity` must be positive; was: %s", capacity);
+
+    this.columnMappersDirectory = directory.resolve(COLUMN_MAPPERS_DIRECTORY);
+    this.recentColumnsFile = directory.resolve(RECENT_COLUMNS_FILE);
+    this.capacity = capacity;
+  }
+
+  /**
+   * Loads the column mappers of a Parquet file.
+   *
+   * @param objectKey the etag and S3 URI of the Parquet file
+   * @return the column mappers, or empty if none are stored or they cannot be read
+   */
+  public Optional<ColumnMappers> loadColumnMappers(@NonNull ObjectKey objectKey) {
+    String name = LocalFileUtils.fileNameOf(objectKey);
+    synchronized (this) {
+      if (!indexColumnMappersFiles().containsKey(name)) {
+        return Optional.empty();
+      }
+      // Moves the file to the most recently used end
+      columnMappersFiles.put(name, Boolean.TRUE);
+    }
+
+    try (DataInputStream in = open(columnMappersDirectory.resolve(name))) {
+      String key = in.readUTF();
+      if (!key.equals(keyOf(objectKey))) {
+        return Optional.empty();
+      }
+      Map<Long, ColumnMetadata> offsetIndexToColumnMap = new HashMap<>();
+      int offsets = in.readInt();
+      for (int i = 0; i < offsets; i++) {
+        offsetIndexToColumnMap.put(in.readLong(), readColumnMetadata(in));
+      }
+      Map<String, List<ColumnMetadata>> columnNameToColumnMap = new HashMap<>();
+      int names = in.readInt();
+      for (int i = 0; i < names; i++) {
+        String columnName = in.readUTF();
+        int columns = in.readInt();
+        List<ColumnMetadata> columnMetadataList = new ArrayList<>(columns);
+        for (int j = 0; j < columns; j++) {
+          columnMetadataList.add(readColumnMetadata(in));
+        }
+        columnNameToColumnMap.put(columnName, columnMetadataList);
+      }
+      return Optional.of(new ColumnMappers(offsetIndexToColumnMap, columnNameToColumnMap));
+    } catch (IOException e) {
+      LOG.debug("Unable to load column mappers for {}", objectKey.getS3URI(), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Stores the column mappers of a Parquet file, evicting the least recently used ones over the
+   * capacity. Failures are logged rather than thrown, as the footer can always be parsed again.
+   *
+   * @param objectKey the etag and S3 URI of the Parquet file
+   * @param columnMappers the column mappers of the file
+   */
+  public void storeColumnMappers(
+      @NonNull ObjectKey objectKey, @NonNull ColumnMappers columnMappers) {
+    String name = LocalFileUtils.fileNameOf(objectKey);
+    try {
+      LocalFileUtils.writeAtomically(
+          columnMappersDirectory.resolve(name),
+          out -> {
+            writeHeader(out);
+            out.writeUTF(keyOf(objectKey));
+            out.writeInt(columnMappers.getOffsetIndexToColumnMap().size());
+            for (Map.Entry<Long, ColumnMetadata> entry :
+                columnMappers.getOffsetIndexToColumnMap().entrySet()) {
+              out.writeLong(entry.getKey());
+              writeColumnMetadata(out, entry.getValue());
+            }
+            out.writeInt(columnMappers.getColumnNameToColumnMap().size());
+            for (Map.Entry<String, List<ColumnMetadata>> entry :
+                columnMappers.getColumnNameToColumnMap().entrySet()) {
+              out.writeUTF(entry.getKey());
+              out.writeInt(entry.getValue().size());
+              for (ColumnMetadata columnMetadata : entry.getValue()) {
+                writeColumnMetadata(out, columnMetadata);
+              }
+            }
+          });
+    } catch (IOException e) {
+      LOG.debug("Unable to store column mappers for {}", objectKey.getS3URI(), e);
+      return;
+    }
+
+    synchronized (this) {
+      indexColumnMappersFiles().put(name, Boolean.TRUE);
+      Iterator<String> eldest = columnMappersFiles.keySet().iterator();
+      while (columnMappersFiles.size() > capacity && eldest.hasNext()) {
+        String victim = eldest.next();
+        eldest.remove();
+        deleteQuietly(columnMappersDirectory.resolve(victim));
+      }
+    }
+  }
+
+  /**
+   * Loads the recently read columns and dictionaries of all schemas.
+   *
+   * @return the recently read columns and dictionaries, empty if none are stored or they cannot be
+   *     read
+   */
+  public RecentColumns loadRecentColumns() {
+    try (DataInputStream in = open(recentColumnsFile)) {
+      Map<Integer, List<String>> columns = readRecentColumns(in);
+      Map<Integer, List<String>> dictionaries = readRecentColumns(in);
+      return new RecentColumns(columns, dictionaries);
+    } catch (NoSuchFileException e) {
+      return RecentColumns.EMPTY;
+    } catch (IOException e) {
+      LOG.debug("Unable to load recently read columns", e);
+      return RecentColumns.EMPTY;
+    }
+  }
+
+  /**
+   * Stores the recently read columns and dictionaries of all schemas, replacing the stored ones.
+   * Failures are logged rather than thrown.
+   *
+   * @param recentColumns the recently read columns and dictionaries
+   */
+  public void storeRecentColumns(@NonNull RecentColumns recentColumns) {
+    try {
+      LocalFileUtils.writeAtomically(
+          recentColumnsFile,
+          out -> {
+            writeHeader(out);
+            writeRecentColumns(out, recentColumns.getColumns());
+            writeRecentColumns(out, recentColumns.getDictionaries());
+          });
+    } catch (IOException e) {
+      LOG.debug("Unable to store recently read columns", e);
+    }
+  }
+
+  /**
+   * Lists the column mappers files on first use, oldest first. Temporary files left behind by a
+   * crash are deleted.
+   *
+   * @return the names of the column mappers files
+   */
+  private LinkedHashMap<String, Boolean> indexColumnMappersFiles() {
+    if (columnMappersFiles != null) {
+      return columnMappersFiles;
+    }
+    columnMappersFiles = new LinkedHashMap<>(16, 0.75f, true);
+    if (!Files.isDirectory(columnMappersDirectory)) {
+      return columnMappersFiles;
+    }
+
+    List<Path> files = new ArrayList<>();
+    Map<Path, Long> modified = new HashMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(columnMappersDirectory)) {
+      for (Path file : stream) {
+        if (LocalFileUtils.isTempFile(file)) {
+          deleteQuietly(file);
+        } else {
+          files.add(file);
+          modified.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Unable to list stored column mappers in {}", columnMappersDirectory, e);
+    }
+    files.sort((a, b) -> Long.compare(modified.get(a), modified.get(b)));
+    for (Path file : files) {
+      columnMappersFiles.put(columnMappersDirectory.relativize(file).toString(), Boolean.TRUE);
+    }
+    return columnMappersFiles;
+  }
+
+  private static DataInputStream open(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    try {
+      if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+        throw new IOException("Unsupported format of " + file);
+      }
+      return data;
+    } catch (IOException e) {
+      data.close();
+      throw e;
+    }
+  }
+
+  private static void writeHeader(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+  }
+
+  private static String keyOf(ObjectKey objectKey) {
+    return objectKey.getS3URI() + "\n" + objectKey.getEtag();
+  }
+
+  private static ColumnMetadata readColumnMetadata(DataInputStream in) throws IOException {
+    return new ColumnMetadata(
+        in.readInt(),
+        in.readUTF(),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        in.readInt());
+  }
+
+  private static void writeColumnMetadata(DataOutputStream out, ColumnMetadata columnMetadata)
+      throws IOException {
+    out.writeInt(columnMetadata.getRowGroupIndex());
+    out.writeUTF(columnMetadata.getColumnName());
+    out.writeLong(columnMetadata.getDataPageOffset());
+    out.writeLong(columnMetadata.getDictionaryOffset());
+    out.writeLong(columnMetadata.getStartPos());
+    out.writeLong(columnMetadata.getCompressedSize());
+    out.writeInt(columnMetadata.getSchemaHash());
+  }
+
+  private static Map<Integer, List<String>> readRecentColumns(DataInputStream in)
+      throws IOException {
+    Map<Integer, List<String>> recentColumns = new LinkedHashMap<>();
+    int schemas = in.readInt();
+    for (int i = 0; i < schemas; i++) {
+      int schemaHash = in.readInt();
+      int columns = in.readInt();
+      List<String> columnNames = new ArrayList<>(columns);
+      for (int j = 0; j < columns; j++) {
+        columnNames.add(in.readUTF());
+      }
+      recentColumns.put(schemaHash, columnNames);
+    }
+    return recentColumns;
+  }
+
+  private static void writeRecentColumns(
+      DataOutputStream out, Map<Integer, List<String>> recentColumns) throws IOException {
+    out.writeInt(recentColumns.size());
+    for (Map.Entry<Integer, List<String>> entry : recentColumns.entrySet()) {
+      out.writeInt(entry.getKey());
+      out.writeInt(entry.getValue().size());
+      for (String columnName : entry.getValue()) {
+        out.writeUTF(columnName);
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete {}", file, e);
+    }
+  }
+
+  /** The recently read columns and dictionaries of each schema, oldest first */
+  @Value
+  public static class RecentColumns {
+    Map<Integer, List<String>> columns;
+    Map<Integer, List<String>> dictionaries;
+
+    /** No recently read columns */
+    public static final RecentColumns EMPTY =
+        new RecentColumns(Collections.emptyMap(), Collections.emptyMap());
+  }
+}
@@ -15,7 +15,9 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.logical.impl;
 
+import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -83,7 +85,7 @@ public class ParquetPrefetcher {
         logicalIOConfiguration,
         parquetColumnPrefetchStore,
         telemetry,
-        new ParquetMetadataParsingTask(s3Uri, parquetColumnPrefetchStore),
+        new ParquetMetadataParsingTask(s3Uri, () -> etagOf(physicalIO), parquetColumnPrefetchStore),
         new ParquetPrefetchTailTask(s3Uri, telemetry, logicalIOConfiguration, physicalIO),
         new ParquetReadTailTask(s3Uri, telemetry, logicalIOConfiguration, physicalIO),
         new ParquetPrefetchRemainingColumnTask(
@@ -92,6 +94,20 @@ public class ParquetPrefetcher {
             s3Uri, telemetry, logicalIOConfiguration, physicalIO, parquetColumnPrefetchStore));
   }
 
+  /**
+   * Gets the etag of the object, which identifies the column mappers kept on disk.
+   *
+   * @param physicalIO the PhysicalIO of the object
+   * @return the etag, or null if the metadata of the object cannot be fetched
+   */
+  private static String etagOf(PhysicalIO physicalIO) {
+    try {
+      return physicalIO.metadata().getEtag();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
   /**
    * Given a position and length, prefetches the remaining part of the Parquet column.
    *
@@ -161,8 +177,7 @@ public class ParquetPrefetcher {
     if (shouldPrefetch()) {
       // TODO: https://github.com/awslabs/analytics-accelerator-s3/issues/88
       CompletableFuture<ColumnMappers> columnMappersCompletableFuture =
-          CompletableFuture.supplyAsync(parquetReadTailTask::readFileTail)
-              .thenApply(parquetMetadataParsingTask::storeColumnMappers)
+          CompletableFuture.supplyAsync(this::loadOrParseColumnMappers)
               .exceptionally(
                   (e) -> new ColumnMappers(Collections.emptyMap(), Collections.emptyMap()));
 
@@ -173,6 +188,20 @@ public class ParquetPrefetcher {
         IOPlanExecution.builder().state(IOPlanState.SKIPPED).build());
   }
 
+  /**
+   * Loads the column mappers kept on disk by an earlier process if there are any, and otherwise
+   * reads and parses the footer.
+   *
+   * @return the column mappers of the object
+   */
+  private ColumnMappers loadOrParseColumnMappers() {
+    Optional<ColumnMappers> columnMappers = parquetMetadataParsingTask.loadColumnMappers();
+    if (columnMappers.isPresent()) {
+      return columnMappers.get();
+    }
+    return parquetMetadataParsingTask.storeColumnMappers(parquetReadTailTask.readFileTail());
+  }
+
   private CompletableFuture<IOPlanExecution> prefetchPredictedColumns(
       CompletableFuture<ColumnMappers> columnMappersCompletableFuture) {
 
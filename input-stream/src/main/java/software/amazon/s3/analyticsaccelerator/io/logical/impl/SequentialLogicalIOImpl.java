@@ -16,6 +16,8 @@
 package software.amazon.s3.analyticsaccelerator.io.logical.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import lombok.NonNull;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.logical.LogicalIOConfiguration;
@@ -65,6 +67,34 @@ public class SequentialLogicalIOImpl extends DefaultLogicalIOImpl {
     return super.read(buf, off, len, position);
   }
 
+  /**
+   * Reads data into the provided {@link ByteBuffer}
+   *
+   * @param buf buffer to read data into
+   * @param position the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException IO error, if incurred.
+   */
+  @Override
+  public int read(ByteBuffer buf, long position) throws IOException {
+    sequentialPrefetcher.prefetch(position);
+    return super.read(buf, position);
+  }
+
+  /**
+   * Returns a read-only view of a range of the object without copying it, if possible.
+   *
+   * @param position the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range, or empty if the range cannot be served without a copy
+   * @throws IOException IO error, if incurred.
+   */
+  @Override
+  public Optional<ByteBuffer> readSlice(long position, int len) throws IOException {
+    sequentialPrefetcher.prefetch(position);
+    return super.readSlice(position, len);
+  }
+
   @Override
   public void close() throws IOException {
     super.closeWithEviction(true);
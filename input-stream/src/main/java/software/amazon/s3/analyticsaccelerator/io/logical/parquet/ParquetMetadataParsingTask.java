@@ -18,7 +18,9 @@ package software.amazon.s3.analyticsaccelerator.io.logical.parquet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import lombok.NonNull;
 import org.apache.parquet.format.ColumnChunk;
 import org.apache.parquet.format.FileMetaData;
@@ -26,6 +28,7 @@ import org.apache.parquet.format.RowGroup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.s3.analyticsaccelerator.io.logical.impl.ParquetColumnPrefetchStore;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
 
 /**
@@ -35,6 +38,7 @@ import software.amazon.s3.analyticsaccelerator.util.S3URI;
  */
 public class ParquetMetadataParsingTask {
   private final S3URI s3URI;
+  private final Supplier<String> etag;
   private final ParquetParser parquetParser;
   private final ParquetColumnPrefetchStore parquetColumnPrefetchStore;
 
@@ -48,7 +52,20 @@ public class ParquetMetadataParsingTask {
    */
   public ParquetMetadataParsingTask(
       S3URI s3URI, ParquetColumnPrefetchStore parquetColumnPrefetchStore) {
-    this(s3URI, parquetColumnPrefetchStore, new ParquetParser());
+    this(s3URI, () -> null, parquetColumnPrefetchStore);
+  }
+
+  /**
+   * Creates a new instance of {@link ParquetMetadataParsingTask}, which can keep the column
+   * mappers it builds on disk, if the store is persistent.
+   *
+   * @param s3URI the S3Uri of the object
+   * @param etag supplies the etag of the object, which identifies the column mappers on disk
+   * @param parquetColumnPrefetchStore object containing Parquet usage information
+   */
+  public ParquetMetadataParsingTask(
+      S3URI s3URI, Supplier<String> etag, ParquetColumnPrefetchStore parquetColumnPrefetchStore) {
+    this(s3URI, etag, parquetColumnPrefetchStore, new ParquetParser());
   }
 
   /**
@@ -63,7 +80,25 @@ public class ParquetMetadataParsingTask {
       @NonNull S3URI s3URI,
       @NonNull ParquetColumnPrefetchStore parquetColumnPrefetchStore,
       @NonNull ParquetParser parquetParser) {
+    this(s3URI, () -> null, parquetColumnPrefetchStore, parquetParser);
+  }
+
+  /**
+   * Creates a new instance of {@link ParquetMetadataParsingTask}. This version of the constructor
+   * is useful for testing as it allows dependency injection.
+   *
+   * @param s3URI the S3Uri of the object
+   * @param etag supplies the etag of the object, which identifies the column mappers on disk
+   * @param parquetColumnPrefetchStore object containing Parquet usage information
+   * @param parquetParser parser for getting the file metadata
+   */
+  ParquetMetadataParsingTask(
+      @NonNull S3URI s3URI,
+      @NonNull Supplier<String> etag,
+      @NonNull ParquetColumnPrefetchStore parquetColumnPrefetchStore,
+      @NonNull ParquetParser parquetParser) {
     this.s3URI = s3URI;
+    this.etag = etag;
     this.parquetParser = parquetParser;
     this.parquetColumnPrefetchStore = parquetColumnPrefetchStore;
   }
@@ -81,6 +116,10 @@ public class ParquetMetadataParsingTask {
               fileTail.getFileTail(), fileTail.getFileTailLength(), this.s3URI);
       ColumnMappers columnMappers = buildColumnMaps(fileMetaData);
       parquetColumnPrefetchStore.putColumnMappers(this.s3URI, columnMappers);
+      if (parquetColumnPrefetchStore.isPersistent()) {
+        objectKey()
+            .ifPresent(key -> parquetColumnPrefetchStore.persistColumnMappers(key, columnMappers));
+      }
       return columnMappers;
     } catch (Exception e) {
       LOG.debug(
@@ -91,6 +130,32 @@ public class ParquetMetadataParsingTask {
     }
   }
 
+  /**
+   * Loads parquet metadata column mappings kept on disk by an earlier process, which saves fetching
+   * and parsing the footer again. Best effort only, any failure results in an empty result.
+   *
+   * @return Column mappings, or empty if they are not on disk
+   */
+  public Optional<ColumnMappers> loadColumnMappers() {
+    if (!parquetColumnPrefetchStore.isPersistent()) {
+      return Optional.empty();
+    }
+    try {
+      return objectKey().flatMap(parquetColumnPrefetchStore::loadColumnMappers);
+    } catch (Exception e) {
+      LOG.debug("Unable to load column mappers for {} from disk.", this.s3URI.getKey(), e);
+      return Optional.empty();
+    }
+  }
+
+  private Optional<ObjectKey> objectKey() {
+    String etag = this.etag.get();
+    if (etag == null) {
+      return Optional.empty();
+    }
+    return Optional.of(ObjectKey.builder().s3URI(this.s3URI).etag(etag).build());
+  }
+
   private ColumnMappers buildColumnMaps(FileMetaData fileMetaData) {
     HashMap<Long, ColumnMetadata> offsetIndexToColumnMap = new HashMap<>();
     HashMap<String, List<ColumnMetadata>> columnNameToColumnMap = new HashMap<>();
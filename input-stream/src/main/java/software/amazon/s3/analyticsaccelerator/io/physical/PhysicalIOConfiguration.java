@@ -15,6 +15,7 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.physical;
 
+import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_GB;
 import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_KB;
 import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
 
@@ -23,6 +24,7 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import software.amazon.s3.analyticsaccelerator.common.ConnectorConfiguration;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.SequentialProgressionMode;
 import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.SequentialReadProgression;
 
 /** Configuration for {@link PhysicalIO} */
@@ -31,6 +33,7 @@ import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.Sequential
 @EqualsAndHashCode
 public class PhysicalIOConfiguration {
   private static final int DEFAULT_CAPACITY_BLOB_STORE = 50;
+  private static final long DEFAULT_MEMORY_CAPACITY_BYTES = 0;
   private static final int DEFAULT_CAPACITY_METADATA_STORE = 50;
   private static final boolean DEFAULT_USE_SINGLE_CACHE = true;
   private static final long DEFAULT_BLOCK_SIZE_BYTES = 8 * ONE_MB;
@@ -41,12 +44,58 @@ public class PhysicalIOConfiguration {
   private static final double DEFAULT_SEQUENTIAL_PREFETCH_SPEED = 1.0;
   private static final long DEFAULT_BLOCK_READ_TIMEOUT = 30_000;
   private static final int DEFAULT_BLOCK_READ_RETRY_COUNT = 20;
+  private static final boolean DEFAULT_USE_OFF_HEAP_BLOCK_STORAGE = false;
+  private static final long DEFAULT_SLAB_SIZE_BYTES = 256 * ONE_KB;
+  private static final long DEFAULT_SLAB_POOL_CAPACITY_BYTES = 2 * ONE_GB;
+  private static final int DEFAULT_DRAIN_POOL_SIZE = 32;
+  private static final int DEFAULT_DRAIN_QUEUE_DEPTH = 1024;
+  private static final long DEFAULT_DRAIN_THREAD_KEEP_ALIVE_MS = 60_000;
+  private static final long DEFAULT_BLOB_MEMORY_CAPACITY_BYTES = 0;
+  private static final double DEFAULT_PREFETCH_DEFER_THRESHOLD = 0.7;
+  private static final double DEFAULT_PREFETCH_SHRINK_THRESHOLD = 0.85;
+  private static final double DEFAULT_PREFETCH_DROP_THRESHOLD = 0.95;
+  private static final long DEFAULT_PREFETCH_DEFER_TIMEOUT_MS = 1_000;
+  private static final String DEFAULT_DISK_CACHE_DIRECTORY = "";
+  private static final long DEFAULT_DISK_CACHE_CAPACITY_BYTES = 10 * ONE_GB;
+  private static final long DEFAULT_METADATA_STORE_TTL_MS = 0;
+  private static final long DEFAULT_METADATA_STORE_REFRESH_AHEAD_MS = 0;
+  private static final long DEFAULT_METADATA_STORE_NEGATIVE_TTL_MS = 0;
+  private static final boolean DEFAULT_ALIGN_TO_BLOCK_SIZE = false;
+  private static final long DEFAULT_MAX_RANGE_GAP_BYTES = 0;
+  private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 0;
+  private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_OBJECT = 0;
+  private static final double DEFAULT_HEDGE_BUDGET = 0;
+  private static final long DEFAULT_HEDGE_MIN_DELAY_MS = 50;
+  private static final long DEFAULT_MIN_BLOCK_READ_TIMEOUT = 0;
+  private static final long DEFAULT_RETRY_BASE_DELAY_MS = 0;
+  private static final long DEFAULT_RETRY_MAX_DELAY_MS = 1_000;
+  private static final double DEFAULT_RETRY_BUDGET = 0;
+  private static final int DEFAULT_HEAD_RETRY_COUNT = 0;
+  private static final double DEFAULT_STALL_THROUGHPUT_RATIO = 0;
+  private static final long DEFAULT_STALL_WINDOW_MS = 5_000;
+  private static final SequentialProgressionMode DEFAULT_SEQUENTIAL_PROGRESSION_MODE =
+      SequentialProgressionMode.EXPONENTIAL;
+  private static final long DEFAULT_SEQUENTIAL_PREFETCH_MIN_BYTES = 2 * ONE_MB;
+  private static final long DEFAULT_SEQUENTIAL_PREFETCH_MAX_BYTES = 128 * ONE_MB;
+  private static final int DEFAULT_READ_AHEAD_WINDOWS = 0;
+  private static final long DEFAULT_READ_AHEAD_WINDOW_BYTES = 8 * ONE_MB;
+  private static final double DEFAULT_READ_AHEAD_LOW_WATERMARK = 0.5;
 
   /** Capacity, in blobs. {@link PhysicalIOConfiguration#DEFAULT_CAPACITY_BLOB_STORE} by default. */
   @Builder.Default private int blobStoreCapacity = DEFAULT_CAPACITY_BLOB_STORE;
 
   private static final String BLOB_STORE_CAPACITY_KEY = "blobstore.capacity";
 
+  /**
+   * Maximum number of bytes of object data held by the BlobStore, or 0 for no limit. Once exceeded,
+   * least recently used blobs are evicted until the data held fits again. Prefetches are only
+   * throttled under memory pressure when there is a limit. {@link
+   * PhysicalIOConfiguration#DEFAULT_MEMORY_CAPACITY_BYTES} by default.
+   */
+  @Builder.Default private long memoryCapacityBytes = DEFAULT_MEMORY_CAPACITY_BYTES;
+
+  private static final String MEMORY_CAPACITY_BYTES_KEY = "blobstore.memorycapacitybytes";
+
   /**
    * Capacity, in blobs. {@link PhysicalIOConfiguration#DEFAULT_CAPACITY_METADATA_STORE} by default.
    */
@@ -105,6 +154,310 @@ public class PhysicalIOConfiguration {
 
   private static final String BLOCK_READ_RETRY_COUNT_KEY = "blockreadretrycount";
 
+  /**
+   * Whether block data is stored off-heap, in direct buffers leased from a pool shared by all
+   * blobs, rather than in on-heap byte arrays. {@link
+   * PhysicalIOConfiguration#DEFAULT_USE_OFF_HEAP_BLOCK_STORAGE} by default.
+   */
+  @Builder.Default private boolean useOffHeapBlockStorage = DEFAULT_USE_OFF_HEAP_BLOCK_STORAGE;
+
+  private static final String USE_OFF_HEAP_BLOCK_STORAGE_KEY = "offheap.enabled";
+
+  /**
+   * Size of a single off-heap slab, in bytes. Blocks lease as many slabs as they need to hold their
+   * data. {@link PhysicalIOConfiguration#DEFAULT_SLAB_SIZE_BYTES} by default.
+   */
+  @Builder.Default private long slabSizeBytes = DEFAULT_SLAB_SIZE_BYTES;
+
+  private static final String SLAB_SIZE_BYTES_KEY = "offheap.slabsizebytes";
+
+  /**
+   * Maximum number of bytes of off-heap slabs allocated by the pool. Must be at least {@link
+   * PhysicalIOConfiguration#memoryCapacityBytes}, which has to be set for off-heap storage, since
+   * the blob store only evicts once that is exceeded. {@link
+   * PhysicalIOConfiguration#DEFAULT_SLAB_POOL_CAPACITY_BYTES} by default.
+   */
+  @Builder.Default private long slabPoolCapacityBytes = DEFAULT_SLAB_POOL_CAPACITY_BYTES;
+
+  private static final String SLAB_POOL_CAPACITY_BYTES_KEY = "offheap.poolcapacitybytes";
+
+  /**
+   * Number of threads draining GET responses into blocks. The threads are shared by all streams
+   * of a factory. {@link PhysicalIOConfiguration#DEFAULT_DRAIN_POOL_SIZE} by default.
+   */
+  @Builder.Default private int drainPoolSize = DEFAULT_DRAIN_POOL_SIZE;
+
+  private static final String DRAIN_POOL_SIZE_KEY = "drain.poolsize";
+
+  /**
+   * Maximum number of GET responses waiting for a drain thread. Once the queue is full, responses
+   * are drained on the thread that received them. {@link
+   * PhysicalIOConfiguration#DEFAULT_DRAIN_QUEUE_DEPTH} by default.
+   */
+  @Builder.Default private int drainQueueDepth = DEFAULT_DRAIN_QUEUE_DEPTH;
+
+  private static final String DRAIN_QUEUE_DEPTH_KEY = "drain.queuedepth";
+
+  /**
+   * Time, in milliseconds, an idle drain thread is kept alive for reuse before it is retired.
+   * {@link PhysicalIOConfiguration#DEFAULT_DRAIN_THREAD_KEEP_ALIVE_MS} by default.
+   */
+  @Builder.Default private long drainThreadKeepAliveMs = DEFAULT_DRAIN_THREAD_KEEP_ALIVE_MS;
+
+  private static final String DRAIN_THREAD_KEEP_ALIVE_MS_KEY = "drain.threadkeepalivems";
+
+  /**
+   * Maximum number of bytes of block data a single blob holds, or 0 for no limit. Once exceeded,
+   * blocks readers have consumed, then blocks that were not used recently, are evicted and fetched
+   * again if needed. {@link PhysicalIOConfiguration#DEFAULT_BLOB_MEMORY_CAPACITY_BYTES} by default.
+   */
+  @Builder.Default private long blobMemoryCapacityBytes = DEFAULT_BLOB_MEMORY_CAPACITY_BYTES;
+
+  private static final String BLOB_MEMORY_CAPACITY_BYTES_KEY = "blob.memorycapacitybytes";
+
+  /**
+   * Fraction of the memory capacity above which asynchronous prefetches are deferred until memory
+   * is freed. {@link PhysicalIOConfiguration#DEFAULT_PREFETCH_DEFER_THRESHOLD} by default.
+   */
+  @Builder.Default private double prefetchDeferThreshold = DEFAULT_PREFETCH_DEFER_THRESHOLD;
+
+  private static final String PREFETCH_DEFER_THRESHOLD_KEY = "prefetch.deferthreshold";
+
+  /**
+   * Fraction of the memory capacity above which asynchronous prefetches are shrunk to the memory
+   * left below the drop threshold. {@link
+   * PhysicalIOConfiguration#DEFAULT_PREFETCH_SHRINK_THRESHOLD} by default.
+   */
+  @Builder.Default private double prefetchShrinkThreshold = DEFAULT_PREFETCH_SHRINK_THRESHOLD;
+
+  private static final String PREFETCH_SHRINK_THRESHOLD_KEY = "prefetch.shrinkthreshold";
+
+  /**
+   * Fraction of the memory capacity above which asynchronous prefetches are dropped. {@link
+   * PhysicalIOConfiguration#DEFAULT_PREFETCH_DROP_THRESHOLD} by default.
+   */
+  @Builder.Default private double prefetchDropThreshold = DEFAULT_PREFETCH_DROP_THRESHOLD;
+
+  private static final String PREFETCH_DROP_THRESHOLD_KEY = "prefetch.dropthreshold";
+
+  /**
+   * Time, in milliseconds, a deferred prefetch waits for memory to be freed before it is dropped.
+   * {@link PhysicalIOConfiguration#DEFAULT_PREFETCH_DEFER_TIMEOUT_MS} by default.
+   */
+  @Builder.Default private long prefetchDeferTimeoutMs = DEFAULT_PREFETCH_DEFER_TIMEOUT_MS;
+
+  private static final String PREFETCH_DEFER_TIMEOUT_MS_KEY = "prefetch.defertimeoutms";
+
+  /**
+   * Local directory block data is spilled to, so that it can be served from disk once it has been
+   * evicted from memory, or empty to disable the disk cache. {@link
+   * PhysicalIOConfiguration#DEFAULT_DISK_CACHE_DIRECTORY} by default.
+   */
+  @Builder.Default private String diskCacheDirectory = DEFAULT_DISK_CACHE_DIRECTORY;
+
+  private static final String DISK_CACHE_DIRECTORY_KEY = "diskcache.directory";
+
+  /**
+   * Maximum number of bytes of block data held by the disk cache. {@link
+   * PhysicalIOConfiguration#DEFAULT_DISK_CACHE_CAPACITY_BYTES} by default.
+   */
+  @Builder.Default private long diskCacheCapacityBytes = DEFAULT_DISK_CACHE_CAPACITY_BYTES;
+
+  private static final String DISK_CACHE_CAPACITY_BYTES_KEY = "diskcache.capacitybytes";
+
+  /**
+   * Time, in milliseconds, object metadata is cached for before it is fetched again, or 0 to keep
+   * it until it is evicted. {@link PhysicalIOConfiguration#DEFAULT_METADATA_STORE_TTL_MS} by
+   * default.
+   */
+  @Builder.Default private long metadataStoreTtlMs = DEFAULT_METADATA_STORE_TTL_MS;
+
+  private static final String METADATA_STORE_TTL_MS_KEY = "metadatastore.ttlms";
+
+  /**
+   * Time, in milliseconds, before cached object metadata expires from which a lookup refreshes it
+   * in the background, or 0 to disable background refreshes. {@link
+   * PhysicalIOConfiguration#DEFAULT_METADATA_STORE_REFRESH_AHEAD_MS} by default.
+   */
+  @Builder.Default
+  private long metadataStoreRefreshAheadMs = DEFAULT_METADATA_STORE_REFRESH_AHEAD_MS;
+
+  private static final String METADATA_STORE_REFRESH_AHEAD_MS_KEY = "metadatastore.refreshaheadms";
+
+  /**
+   * Time, in milliseconds, a lookup of an object which does not exist is cached for, or 0 to not
+   * cache such lookups. Other failed lookups are never cached. {@link
+   * PhysicalIOConfiguration#DEFAULT_METADATA_STORE_NEGATIVE_TTL_MS} by default.
+   */
+  @Builder.Default
+  private long metadataStoreNegativeTtlMs = DEFAULT_METADATA_STORE_NEGATIVE_TTL_MS;
+
+  private static final String METADATA_STORE_NEGATIVE_TTL_MS_KEY = "metadatastore.negativettlms";
+
+  /**
+   * Whether missing ranges are widened to multiples of the block size, so that blocks start and end
+   * at the same offsets whichever reads create them. {@link
+   * PhysicalIOConfiguration#DEFAULT_ALIGN_TO_BLOCK_SIZE} by default.
+   */
+  @Builder.Default private boolean alignToBlockSize = DEFAULT_ALIGN_TO_BLOCK_SIZE;
+
+  private static final String ALIGN_TO_BLOCK_SIZE_KEY = "aligntoblocksize";
+
+  /**
+   * Maximum gap, in bytes, between two ranges of an IOPlan for them to be fetched in a single
+   * request, or 0 to fetch every range on its own. Reading the gap costs less than the latency of
+   * another request. {@link PhysicalIOConfiguration#DEFAULT_MAX_RANGE_GAP_BYTES} by default.
+   */
+  @Builder.Default private long maxRangeGapBytes = DEFAULT_MAX_RANGE_GAP_BYTES;
+
+  private static final String MAX_RANGE_GAP_BYTES_KEY = "maxrangegapbytes";
+
+  /**
+   * Maximum number of GET requests in flight at once, across all objects, or 0 for no limit.
+   * Requests over the limit wait until another one is done. {@link
+   * PhysicalIOConfiguration#DEFAULT_MAX_IN_FLIGHT_REQUESTS} by default.
+   */
+  @Builder.Default private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+  private static final String MAX_IN_FLIGHT_REQUESTS_KEY = "requests.maxinflight";
+
+  /**
+   * Maximum number of GET requests in flight at once for a single object, or 0 for no limit. {@link
+   * PhysicalIOConfiguration#DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_OBJECT} by default.
+   */
+  @Builder.Default
+  private int maxInFlightRequestsPerObject = DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_OBJECT;
+
+  private static final String MAX_IN_FLIGHT_REQUESTS_PER_OBJECT_KEY =
+      "requests.maxinflightperobject";
+
+  /**
+   * Fraction of GET requests which may be hedged with a duplicate request when they are slow to
+   * respond, or 0 to never hedge. {@link PhysicalIOConfiguration#DEFAULT_HEDGE_BUDGET} by default.
+   */
+  @Builder.Default private double hedgeBudget = DEFAULT_HEDGE_BUDGET;
+
+  private static final String HEDGE_BUDGET_KEY = "hedge.budget";
+
+  /**
+   * Minimum time, in milliseconds, a GET request waits for a response before it is hedged. {@link
+   * PhysicalIOConfiguration#DEFAULT_HEDGE_MIN_DELAY_MS} by default.
+   */
+  @Builder.Default private long hedgeMinDelayMs = DEFAULT_HEDGE_MIN_DELAY_MS;
+
+  private static final String HEDGE_MIN_DELAY_MS_KEY = "hedge.mindelayms";
+
+  /**
+   * Minimum timeout, in milliseconds, for reading a block from S3, or 0 to always use the block
+   * read timeout. When set, the timeout of each read is estimated from its length and the latency
+   * and throughput of recent reads, and falls between this value and the block read timeout.
+   * {@link PhysicalIOConfiguration#DEFAULT_MIN_BLOCK_READ_TIMEOUT} by default.
+   */
+  @Builder.Default private long minBlockReadTimeout = DEFAULT_MIN_BLOCK_READ_TIMEOUT;
+
+  private static final String MIN_BLOCK_READ_TIMEOUT_KEY = "minblockreadtimeout";
+
+  /**
+   * Maximum wait, in milliseconds, before the first retry of a failed request, doubling with every
+   * further retry, or 0 to retry immediately. {@link
+   * PhysicalIOConfiguration#DEFAULT_RETRY_BASE_DELAY_MS} by default.
+   */
+  @Builder.Default private long retryBaseDelayMs = DEFAULT_RETRY_BASE_DELAY_MS;
+
+  private static final String RETRY_BASE_DELAY_MS_KEY = "retry.basedelayms";
+
+  /**
+   * Maximum wait, in milliseconds, before any retry of a failed request. {@link
+   * PhysicalIOConfiguration#DEFAULT_RETRY_MAX_DELAY_MS} by default.
+   */
+  @Builder.Default private long retryMaxDelayMs = DEFAULT_RETRY_MAX_DELAY_MS;
+
+  private static final String RETRY_MAX_DELAY_MS_KEY = "retry.maxdelayms";
+
+  /**
+   * Fraction of a retry each successful request earns in the process-wide retry budget, or 0 to
+   * not limit retries by a budget. {@link PhysicalIOConfiguration#DEFAULT_RETRY_BUDGET} by default.
+   */
+  @Builder.Default private double retryBudget = DEFAULT_RETRY_BUDGET;
+
+  private static final String RETRY_BUDGET_KEY = "retry.budget";
+
+  /**
+   * Number of retries for a failed HEAD request. {@link
+   * PhysicalIOConfiguration#DEFAULT_HEAD_RETRY_COUNT} by default.
+   */
+  @Builder.Default private int headRetryCount = DEFAULT_HEAD_RETRY_COUNT;
+
+  private static final String HEAD_RETRY_COUNT_KEY = "headretrycount";
+
+  /**
+   * Fraction of the throughput observed across all GET responses below which a response is deemed
+   * stalled, and is aborted and resumed on a new connection, or 0 to never abort responses. {@link
+   * PhysicalIOConfiguration#DEFAULT_STALL_THROUGHPUT_RATIO} by default.
+   */
+  @Builder.Default private double stallThroughputRatio = DEFAULT_STALL_THROUGHPUT_RATIO;
+
+  private static final String STALL_THROUGHPUT_RATIO_KEY = "stall.throughputratio";
+
+  /**
+   * Time, in milliseconds, a response has to stay below the stall throughput for to be aborted.
+   * {@link PhysicalIOConfiguration#DEFAULT_STALL_WINDOW_MS} by default.
+   */
+  @Builder.Default private long stallWindowMs = DEFAULT_STALL_WINDOW_MS;
+
+  private static final String STALL_WINDOW_MS_KEY = "stall.windowms";
+
+  /**
+   * Strategy sizing sequential prefetches: exponential growth with the generation of the read, or
+   * adaptive to the rate the data is read at. {@link
+   * PhysicalIOConfiguration#DEFAULT_SEQUENTIAL_PROGRESSION_MODE} by default.
+   */
+  @Builder.Default
+  private SequentialProgressionMode sequentialProgressionMode = DEFAULT_SEQUENTIAL_PROGRESSION_MODE;
+
+  private static final String SEQUENTIAL_PROGRESSION_MODE_KEY = "sequentialprefetch.mode";
+
+  /**
+   * Minimum size of a sequential prefetch sized by the adaptive progression. {@link
+   * PhysicalIOConfiguration#DEFAULT_SEQUENTIAL_PREFETCH_MIN_BYTES} by default.
+   */
+  @Builder.Default private long sequentialPrefetchMinBytes = DEFAULT_SEQUENTIAL_PREFETCH_MIN_BYTES;
+
+  private static final String SEQUENTIAL_PREFETCH_MIN_BYTES_KEY = "sequentialprefetch.minbytes";
+
+  /**
+   * Maximum size of a sequential prefetch, and of a prefetch behind backward reads. {@link
+   * PhysicalIOConfiguration#DEFAULT_SEQUENTIAL_PREFETCH_MAX_BYTES} by default.
+   */
+  @Builder.Default private long sequentialPrefetchMaxBytes = DEFAULT_SEQUENTIAL_PREFETCH_MAX_BYTES;
+
+  private static final String SEQUENTIAL_PREFETCH_MAX_BYTES_KEY = "sequentialprefetch.maxbytes";
+
+  /**
+   * Number of read-ahead windows a sequential reader keeps in flight ahead of the window it reads,
+   * or 0 to only prefetch when a sequential read misses. {@link
+   * PhysicalIOConfiguration#DEFAULT_READ_AHEAD_WINDOWS} by default.
+   */
+  @Builder.Default private int readAheadWindows = DEFAULT_READ_AHEAD_WINDOWS;
+
+  private static final String READ_AHEAD_WINDOWS_KEY = "readahead.windows";
+
+  /**
+   * Size, in bytes, of a read-ahead window. {@link
+   * PhysicalIOConfiguration#DEFAULT_READ_AHEAD_WINDOW_BYTES} by default.
+   */
+  @Builder.Default private long readAheadWindowBytes = DEFAULT_READ_AHEAD_WINDOW_BYTES;
+
+  private static final String READ_AHEAD_WINDOW_BYTES_KEY = "readahead.windowbytes";
+
+  /**
+   * Fraction of a read-ahead window a reader has to read past for the next window to be fetched.
+   * {@link PhysicalIOConfiguration#DEFAULT_READ_AHEAD_LOW_WATERMARK} by default.
+   */
+  @Builder.Default private double readAheadLowWatermark = DEFAULT_READ_AHEAD_LOW_WATERMARK;
+
+  private static final String READ_AHEAD_LOW_WATERMARK_KEY = "readahead.lowwatermark";
+
   /** Default set of settings for {@link PhysicalIO} */
   public static final PhysicalIOConfiguration DEFAULT = PhysicalIOConfiguration.builder().build();
 
@@ -118,6 +471,8 @@ public class PhysicalIOConfiguration {
     return PhysicalIOConfiguration.builder()
         .blobStoreCapacity(
             configuration.getInt(BLOB_STORE_CAPACITY_KEY, DEFAULT_CAPACITY_BLOB_STORE))
+        .memoryCapacityBytes(
+            configuration.getLong(MEMORY_CAPACITY_BYTES_KEY, DEFAULT_MEMORY_CAPACITY_BYTES))
         .metadataStoreCapacity(
             configuration.getInt(METADATA_STORE_CAPACITY_KEY, DEFAULT_CAPACITY_METADATA_STORE))
         .blockSizeBytes(configuration.getLong(BLOCK_SIZE_BYTES_KEY, DEFAULT_BLOCK_SIZE_BYTES))
@@ -132,6 +487,78 @@ public class PhysicalIOConfiguration {
         .blockReadTimeout(configuration.getLong(BLOCK_READ_TIMEOUT_KEY, DEFAULT_BLOCK_READ_TIMEOUT))
         .blockReadRetryCount(
             configuration.getInt(BLOCK_READ_RETRY_COUNT_KEY, DEFAULT_BLOCK_READ_RETRY_COUNT))
+        .useOffHeapBlockStorage(
+            configuration.getBoolean(
+                USE_OFF_HEAP_BLOCK_STORAGE_KEY, DEFAULT_USE_OFF_HEAP_BLOCK_STORAGE))
+        .slabSizeBytes(configuration.getLong(SLAB_SIZE_BYTES_KEY, DEFAULT_SLAB_SIZE_BYTES))
+        .slabPoolCapacityBytes(
+            configuration.getLong(SLAB_POOL_CAPACITY_BYTES_KEY, DEFAULT_SLAB_POOL_CAPACITY_BYTES))
+        .drainPoolSize(configuration.getInt(DRAIN_POOL_SIZE_KEY, DEFAULT_DRAIN_POOL_SIZE))
+        .drainQueueDepth(configuration.getInt(DRAIN_QUEUE_DEPTH_KEY, DEFAULT_DRAIN_QUEUE_DEPTH))
+        .drainThreadKeepAliveMs(
+            configuration.getLong(
+                DRAIN_THREAD_KEEP_ALIVE_MS_KEY, DEFAULT_DRAIN_THREAD_KEEP_ALIVE_MS))
+        .blobMemoryCapacityBytes(
+            configuration.getLong(
+                BLOB_MEMORY_CAPACITY_BYTES_KEY, DEFAULT_BLOB_MEMORY_CAPACITY_BYTES))
+        .prefetchDeferThreshold(
+            configuration.getDouble(PREFETCH_DEFER_THRESHOLD_KEY, DEFAULT_PREFETCH_DEFER_THRESHOLD))
+        .prefetchShrinkThreshold(
+            configuration.getDouble(
+                PREFETCH_SHRINK_THRESHOLD_KEY, DEFAULT_PREFETCH_SHRINK_THRESHOLD))
+        .prefetchDropThreshold(
+            configuration.getDouble(PREFETCH_DROP_THRESHOLD_KEY, DEFAULT_PREFETCH_DROP_THRESHOLD))
+        .prefetchDeferTimeoutMs(
+            configuration.getLong(PREFETCH_DEFER_TIMEOUT_MS_KEY, DEFAULT_PREFETCH_DEFER_TIMEOUT_MS))
+        .diskCacheDirectory(
+            configuration.getString(DISK_CACHE_DIRECTORY_KEY, DEFAULT_DISK_CACHE_DIRECTORY))
+        .diskCacheCapacityBytes(
+            configuration.getLong(DISK_CACHE_CAPACITY_BYTES_KEY, DEFAULT_DISK_CACHE_CAPACITY_BYTES))
+        .metadataStoreTtlMs(
+            configuration.getLong(METADATA_STORE_TTL_MS_KEY, DEFAULT_METADATA_STORE_TTL_MS))
+        .metadataStoreRefreshAheadMs(
+            configuration.getLong(
+                METADATA_STORE_REFRESH_AHEAD_MS_KEY, DEFAULT_METADATA_STORE_REFRESH_AHEAD_MS))
+        .metadataStoreNegativeTtlMs(
+            configuration.getLong(
+                METADATA_STORE_NEGATIVE_TTL_MS_KEY, DEFAULT_METADATA_STORE_NEGATIVE_TTL_MS))
+        .alignToBlockSize(
+            configuration.getBoolean(ALIGN_TO_BLOCK_SIZE_KEY, DEFAULT_ALIGN_TO_BLOCK_SIZE))
+        .maxRangeGapBytes(
+            configuration.getLong(MAX_RANGE_GAP_BYTES_KEY, DEFAULT_MAX_RANGE_GAP_BYTES))
+        .maxInFlightRequests(
+            configuration.getInt(MAX_IN_FLIGHT_REQUESTS_KEY, DEFAULT_MAX_IN_FLIGHT_REQUESTS))
+        .maxInFlightRequestsPerObject(
+            configuration.getInt(
+                MAX_IN_FLIGHT_REQUESTS_PER_OBJECT_KEY, DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_OBJECT))
+        .hedgeBudget(configuration.getDouble(HEDGE_BUDGET_KEY, DEFAULT_HEDGE_BUDGET))
+        .hedgeMinDelayMs(configuration.getLong(HEDGE_MIN_DELAY_MS_KEY, DEFAULT_HEDGE_MIN_DELAY_MS))
+        .minBlockReadTimeout(
+            configuration.getLong(MIN_BLOCK_READ_TIMEOUT_KEY, DEFAULT_MIN_BLOCK_READ_TIMEOUT))
+        .retryBaseDelayMs(
+            configuration.getLong(RETRY_BASE_DELAY_MS_KEY, DEFAULT_RETRY_BASE_DELAY_MS))
+        .retryMaxDelayMs(configuration.getLong(RETRY_MAX_DELAY_MS_KEY, DEFAULT_RETRY_MAX_DELAY_MS))
+        .retryBudget(configuration.getDouble(RETRY_BUDGET_KEY, DEFAULT_RETRY_BUDGET))
+        .headRetryCount(configuration.getInt(HEAD_RETRY_COUNT_KEY, DEFAULT_HEAD_RETRY_COUNT))
+        .stallThroughputRatio(
+            configuration.getDouble(STALL_THROUGHPUT_RATIO_KEY, DEFAULT_STALL_THROUGHPUT_RATIO))
+        .stallWindowMs(configuration.getLong(STALL_WINDOW_MS_KEY, DEFAULT_STALL_WINDOW_MS))
+        .sequentialProgressionMode(
+            SequentialProgressionMode.fromString(
+                configuration.getString(
+                    SEQUENTIAL_PROGRESSION_MODE_KEY,
+                    DEFAULT_SEQUENTIAL_PROGRESSION_MODE.toString())))
+        .sequentialPrefetchMinBytes(
+            configuration.getLong(
+                SEQUENTIAL_PREFETCH_MIN_BYTES_KEY, DEFAULT_SEQUENTIAL_PREFETCH_MIN_BYTES))
+        .sequentialPrefetchMaxBytes(
+            configuration.getLong(
+                SEQUENTIAL_PREFETCH_MAX_BYTES_KEY, DEFAULT_SEQUENTIAL_PREFETCH_MAX_BYTES))
+        .readAheadWindows(configuration.getInt(READ_AHEAD_WINDOWS_KEY, DEFAULT_READ_AHEAD_WINDOWS))
+        .readAheadWindowBytes(
+            configuration.getLong(READ_AHEAD_WINDOW_BYTES_KEY, DEFAULT_READ_AHEAD_WINDOW_BYTES))
+        .readAheadLowWatermark(
+            configuration.getDouble(READ_AHEAD_LOW_WATERMARK_KEY, DEFAULT_READ_AHEAD_LOW_WATERMARK))
         .build();
   }
 
@@ -139,6 +566,8 @@ public class PhysicalIOConfiguration {
    * Constructs {@link PhysicalIOConfiguration}.
    *
    * @param blobStoreCapacity The capacity of the BlobStore
+   * @param memoryCapacityBytes The maximum number of bytes of object data held by the BlobStore,
+   *     or 0 for no limit
    * @param metadataStoreCapacity The capacity of the MetadataStore
    * @param blockSizeBytes Block size, in bytes
    * @param readAheadBytes Read ahead, in bytes
@@ -150,10 +579,46 @@ public class PhysicalIOConfiguration {
    *     prefetched physical blocks.
    * @param blockReadTimeout Timeout duration (in milliseconds) for reading a block object from S3
    * @param blockReadRetryCount Number of retries for block read failure
+   * @param useOffHeapBlockStorage Whether block data is stored in pooled off-heap slabs
+   * @param slabSizeBytes Size of a single off-heap slab, in bytes
+   * @param slabPoolCapacityBytes Maximum number of bytes of off-heap slabs allocated by the pool
+   * @param drainPoolSize Number of threads draining GET responses into blocks
+   * @param drainQueueDepth Maximum number of GET responses waiting for a drain thread
+   * @param drainThreadKeepAliveMs Time an idle drain thread is kept alive for reuse
+   * @param blobMemoryCapacityBytes Maximum number of bytes of block data held by a blob, or 0
+   * @param prefetchDeferThreshold Fraction of the memory capacity to defer prefetches above
+   * @param prefetchShrinkThreshold Fraction of the memory capacity to shrink prefetches above
+   * @param prefetchDropThreshold Fraction of the memory capacity to drop prefetches above
+   * @param prefetchDeferTimeoutMs Time a deferred prefetch waits for memory before it is dropped
+   * @param diskCacheDirectory Local directory block data is spilled to, or empty to disable it
+   * @param diskCacheCapacityBytes Maximum number of bytes of block data held by the disk cache
+   * @param metadataStoreTtlMs Time object metadata is cached for, or 0 to keep it until evicted
+   * @param metadataStoreRefreshAheadMs Time before expiry from which metadata is refreshed
+   * @param metadataStoreNegativeTtlMs Time a lookup of a missing object is cached for
+   * @param alignToBlockSize Whether missing ranges are widened to the block size grid
+   * @param maxRangeGapBytes Maximum gap between two ranges of an IOPlan fetched in one request
+   * @param maxInFlightRequests Maximum number of GET requests in flight, or 0 for no limit
+   * @param maxInFlightRequestsPerObject Maximum number of GET requests in flight per object
+   * @param hedgeBudget Fraction of GET requests which may be hedged, or 0 to never hedge
+   * @param hedgeMinDelayMs Minimum time a GET request waits for a response before it is hedged
+   * @param minBlockReadTimeout Minimum timeout for reading a block, or 0 to not adapt timeouts
+   * @param retryBaseDelayMs Maximum wait before the first retry, or 0 to retry immediately
+   * @param retryMaxDelayMs Maximum wait before any retry
+   * @param retryBudget Fraction of a retry each successful request earns, or 0 for no budget
+   * @param headRetryCount Number of retries for a failed HEAD request
+   * @param stallThroughputRatio Fraction of the observed throughput below which a GET stalls
+   * @param stallWindowMs Time a GET has to stay below the stall throughput for to be aborted
+   * @param sequentialProgressionMode Strategy sizing sequential prefetches
+   * @param sequentialPrefetchMinBytes Minimum size of an adaptively sized sequential prefetch
+   * @param sequentialPrefetchMaxBytes Maximum size of a sequential or backward prefetch
+   * @param readAheadWindows Number of read-ahead windows kept in flight ahead of the reader
+   * @param readAheadWindowBytes Size of a read-ahead window
+   * @param readAheadLowWatermark Fraction of a window read before the next one is fetched
    */
   @Builder
   private PhysicalIOConfiguration(
       int blobStoreCapacity,
+      long memoryCapacityBytes,
       int metadataStoreCapacity,
       long blockSizeBytes,
       long readAheadBytes,
@@ -162,8 +627,45 @@ public class PhysicalIOConfiguration {
       double sequentialPrefetchBase,
       double sequentialPrefetchSpeed,
       long blockReadTimeout,
-      int blockReadRetryCount) {
+      int blockReadRetryCount,
+      boolean useOffHeapBlockStorage,
+      long slabSizeBytes,
+      long slabPoolCapacityBytes,
+      int drainPoolSize,
+      int drainQueueDepth,
+      long drainThreadKeepAliveMs,
+      long blobMemoryCapacityBytes,
+      double prefetchDeferThreshold,
+      double prefetchShrinkThreshold,
+      double prefetchDropThreshold,
+      long prefetchDeferTimeoutMs,
+      String diskCacheDirectory,
+      long diskCacheCapacityBytes,
+      long metadataStoreTtlMs,
+      long metadataStoreRefreshAheadMs,
+      long metadataStoreNegativeTtlMs,
+      boolean alignToBlockSize,
+      long maxRangeGapBytes,
+      int maxInFlightRequests,
+      int maxInFlightRequestsPerObject,
+      double hedgeBudget,
+      long hedgeMinDelayMs,
+      long minBlockReadTimeout,
+      long retryBaseDelayMs,
+      long retryMaxDelayMs,
+      double retryBudget,
+      int headRetryCount,
+      double stallThroughputRatio,
+      long stallWindowMs,
+      SequentialProgressionMode sequentialProgressionMode,
+      long sequentialPrefetchMinBytes,
+      long sequentialPrefetchMaxBytes,
+      int readAheadWindows,
+      long readAheadWindowBytes,
+      double readAheadLowWatermark) {
     Preconditions.checkArgument(blobStoreCapacity > 0, "`blobStoreCapacity` must be positive");
+    Preconditions.checkArgument(
+        memoryCapacityBytes >= 0, "`memoryCapacityBytes` must not be negative");
     Preconditions.checkArgument(
         metadataStoreCapacity > 0, "`metadataStoreCapacity` must be positive");
     Preconditions.checkArgument(blockSizeBytes > 0, "`blockSizeBytes` must be positive");
@@ -176,8 +678,77 @@ public class PhysicalIOConfiguration {
         sequentialPrefetchSpeed > 0, "`sequentialPrefetchSpeed` must be positive");
     Preconditions.checkArgument(blockReadTimeout > 0, "`blockReadTimeout` must be positive");
     Preconditions.checkArgument(blockReadRetryCount > 0, "`blockReadRetryCount` must be positive");
+    Preconditions.checkArgument(
+        0 < slabSizeBytes && slabSizeBytes <= Integer.MAX_VALUE,
+        "`slabSizeBytes` must be positive and fit into an int");
+    Preconditions.checkArgument(
+        !useOffHeapBlockStorage
+            || slabPoolCapacityBytes >= Math.max(maxRangeSizeBytes, partSizeBytes),
+        "`slabPoolCapacityBytes` must be able to hold the largest block");
+    Preconditions.checkArgument(
+        !useOffHeapBlockStorage
+            || (memoryCapacityBytes > 0 && slabPoolCapacityBytes >= memoryCapacityBytes),
+        "`memoryCapacityBytes` must be set and fit into `slabPoolCapacityBytes`; was: %s",
+        memoryCapacityBytes);
+    Preconditions.checkArgument(drainPoolSize > 0, "`drainPoolSize` must be positive");
+    Preconditions.checkArgument(drainQueueDepth > 0, "`drainQueueDepth` must be positive");
+    Preconditions.checkArgument(
+        drainThreadKeepAliveMs > 0, "`drainThreadKeepAliveMs` must be positive");
+    Preconditions.checkArgument(
+        blobMemoryCapacityBytes >= 0, "`blobMemoryCapacityBytes` must not be negative");
+    Preconditions.checkArgument(
+        0 < prefetchDeferThreshold
+            && prefetchDeferThreshold <= prefetchShrinkThreshold
+            && prefetchShrinkThreshold <= prefetchDropThreshold
+            && prefetchDropThreshold <= 1,
+        "Prefetch thresholds must be ordered as 0 < defer <= shrink <= drop <= 1");
+    Preconditions.checkArgument(
+        prefetchDeferTimeoutMs > 0, "`prefetchDeferTimeoutMs` must be positive");
+    Preconditions.checkArgument(
+        diskCacheDirectory != null, "`diskCacheDirectory` must not be null");
+    Preconditions.checkArgument(
+        diskCacheCapacityBytes > 0, "`diskCacheCapacityBytes` must be positive");
+    Preconditions.checkArgument(
+        metadataStoreTtlMs >= 0, "`metadataStoreTtlMs` must not be negative");
+    Preconditions.checkArgument(
+        metadataStoreRefreshAheadMs >= 0, "`metadataStoreRefreshAheadMs` must not be negative");
+    Preconditions.checkArgument(
+        metadataStoreNegativeTtlMs >= 0, "`metadataStoreNegativeTtlMs` must not be negative");
+    Preconditions.checkArgument(maxRangeGapBytes >= 0, "`maxRangeGapBytes` must not be negative");
+    Preconditions.checkArgument(
+        maxInFlightRequests >= 0, "`maxInFlightRequests` must not be negative");
+    Preconditions.checkArgument(
+        maxInFlightRequestsPerObject >= 0, "`maxInFlightRequestsPerObject` must not be negative");
+    Preconditions.checkArgument(
+        0 <= hedgeBudget && hedgeBudget <= 1, "`hedgeBudget` must be between 0 and 1");
+    Preconditions.checkArgument(hedgeMinDelayMs >= 0, "`hedgeMinDelayMs` must not be negative");
+    Preconditions.checkArgument(
+        0 <= minBlockReadTimeout && minBlockReadTimeout <= blockReadTimeout,
+        "`minBlockReadTimeout` must be between 0 and `blockReadTimeout`");
+    Preconditions.checkArgument(
+        0 <= retryBaseDelayMs && retryBaseDelayMs <= retryMaxDelayMs,
+        "`retryBaseDelayMs` must be between 0 and `retryMaxDelayMs`");
+    Preconditions.checkArgument(
+        0 <= retryBudget && retryBudget <= 1, "`retryBudget` must be between 0 and 1");
+    Preconditions.checkArgument(headRetryCount >= 0, "`headRetryCount` must not be negative");
+    Preconditions.checkArgument(
+        0 <= stallThroughputRatio && stallThroughputRatio <= 1,
+        "`stallThroughputRatio` must be between 0 and 1");
+    Preconditions.checkArgument(stallWindowMs > 0, "`stallWindowMs` must be positive");
+    Preconditions.checkArgument(
+        sequentialPrefetchMinBytes > 0, "`sequentialPrefetchMinBytes` must be positive");
+    Preconditions.checkArgument(
+        sequentialPrefetchMinBytes <= sequentialPrefetchMaxBytes,
+        "`sequentialPrefetchMinBytes` must not exceed `sequentialPrefetchMaxBytes`");
+    Preconditions.checkArgument(readAheadWindows >= 0, "`readAheadWindows` must not be negative");
+    Preconditions.checkArgument(
+        readAheadWindowBytes > 0, "`readAheadWindowBytes` must be positive");
+    Preconditions.checkArgument(
+        0 <= readAheadLowWatermark && readAheadLowWatermark <= 1,
+        "`readAheadLowWatermark` must be between 0 and 1");
 
     this.blobStoreCapacity = blobStoreCapacity;
+    this.memoryCapacityBytes = memoryCapacityBytes;
     this.metadataStoreCapacity = metadataStoreCapacity;
     this.blockSizeBytes = blockSizeBytes;
     this.readAheadBytes = readAheadBytes;
@@ -187,6 +758,41 @@ public class PhysicalIOConfiguration {
     this.sequentialPrefetchSpeed = sequentialPrefetchSpeed;
     this.blockReadTimeout = blockReadTimeout;
     this.blockReadRetryCount = blockReadRetryCount;
+    this.useOffHeapBlockStorage = useOffHeapBlockStorage;
+    this.slabSizeBytes = slabSizeBytes;
+    this.slabPoolCapacityBytes = slabPoolCapacityBytes;
+    this.drainPoolSize = drainPoolSize;
+    this.drainQueueDepth = drainQueueDepth;
+    this.drainThreadKeepAliveMs = drainThreadKeepAliveMs;
+    this.blobMemoryCapacityBytes = blobMemoryCapacityBytes;
+    this.prefetchDeferThreshold = prefetchDeferThreshold;
+    this.prefetchShrinkThreshold = prefetchShrinkThreshold;
+    this.prefetchDropThreshold = prefetchDropThreshold;
+    this.prefetchDeferTimeoutMs = prefetchDeferTimeoutMs;
+    this.diskCacheDirectory = diskCacheDirectory;
+    this.diskCacheCapacityBytes = diskCacheCapacityBytes;
+    this.metadataStoreTtlMs = metadataStoreTtlMs;
+    this.metadataStoreRefreshAheadMs = metadataStoreRefreshAheadMs;
+    this.metadataStoreNegativeTtlMs = metadataStoreNegativeTtlMs;
+    this.alignToBlockSize = alignToBlockSize;
+    this.maxRangeGapBytes = maxRangeGapBytes;
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.maxInFlightRequestsPerObject = maxInFlightRequestsPerObject;
+    this.hedgeBudget = hedgeBudget;
+    this.hedgeMinDelayMs = hedgeMinDelayMs;
+    this.minBlockReadTimeout = minBlockReadTimeout;
+    this.retryBaseDelayMs = retryBaseDelayMs;
+    this.retryMaxDelayMs = retryMaxDelayMs;
+    this.retryBudget = retryBudget;
+    this.headRetryCount = headRetryCount;
+    this.stallThroughputRatio = stallThroughputRatio;
+    this.stallWindowMs = stallWindowMs;
+    this.sequentialProgressionMode = sequentialProgressionMode;
+    this.sequentialPrefetchMinBytes = sequentialPrefetchMinBytes;
+    this.sequentialPrefetchMaxBytes = sequentialPrefetchMaxBytes;
+    this.readAheadWindows = readAheadWindows;
+    this.readAheadWindowBytes = readAheadWindowBytes;
+    this.readAheadLowWatermark = readAheadLowWatermark;
   }
 
   @Override
@@ -195,6 +801,7 @@ public class PhysicalIOConfiguration {
 
     builder.append("PhysicalIO configuration:\n");
     builder.append("\tblobStoreCapacity: " + blobStoreCapacity + "\n");
+    builder.append("\tmemoryCapacityBytes: " + memoryCapacityBytes + "\n");
     builder.append("\tmetadataStoreCapacity: " + metadataStoreCapacity + "\n");
     builder.append("\tblockSizeBytes: " + blockSizeBytes + "\n");
     builder.append("\treadAheadBytes: " + readAheadBytes + "\n");
@@ -204,6 +811,41 @@ public class PhysicalIOConfiguration {
     builder.append("\tsequentialPrefetchSpeed: " + sequentialPrefetchSpeed + "\n");
     builder.append("\tblockReadTimeout: " + blockReadTimeout + "\n");
     builder.append("\tblockReadRetryCount: " + blockReadRetryCount + "\n");
+    builder.append("\tuseOffHeapBlockStorage: " + useOffHeapBlockStorage + "\n");
+    builder.append("\tslabSizeBytes: " + slabSizeBytes + "\n");
+    builder.append("\tslabPoolCapacityBytes: " + slabPoolCapacityBytes + "\n");
+    builder.append("\tdrainPoolSize: " + drainPoolSize + "\n");
+    builder.append("\tdrainQueueDepth: " + drainQueueDepth + "\n");
+    builder.append("\tdrainThreadKeepAliveMs: " + drainThreadKeepAliveMs + "\n");
+    builder.append("\tblobMemoryCapacityBytes: " + blobMemoryCapacityBytes + "\n");
+    builder.append("\tprefetchDeferThreshold: " + prefetchDeferThreshold + "\n");
+    builder.append("\tprefetchShrinkThreshold: " + prefetchShrinkThreshold + "\n");
+    builder.append("\tprefetchDropThreshold: " + prefetchDropThreshold + "\n");
+    builder.append("\tprefetchDeferTimeoutMs: " + prefetchDeferTimeoutMs + "\n");
+    builder.append("\tdiskCacheDirectory: " + diskCacheDirectory + "\n");
+    builder.append("\tdiskCacheCapacityBytes: " + diskCacheCapacityBytes + "\n");
+    builder.append("\tmetadataStoreTtlMs: " + metadataStoreTtlMs + "\n");
+    builder.append("\tmetadataStoreRefreshAheadMs: " + metadataStoreRefreshAheadMs + "\n");
+    builder.append("\tmetadataStoreNegativeTtlMs: " + metadataStoreNegativeTtlMs + "\n");
+    builder.append("\talignToBlockSize: " + alignToBlockSize + "\n");
+    builder.append("\tmaxRangeGapBytes: " + maxRangeGapBytes + "\n");
+    builder.append("\tmaxInFlightRequests: " + maxInFlightRequests + "\n");
+    builder.append("\tmaxInFlightRequestsPerObject: " + maxInFlightRequestsPerObject + "\n");
+    builder.append("\thedgeBudget: " + hedgeBudget + "\n");
+    builder.append("\thedgeMinDelayMs: " + hedgeMinDelayMs + "\n");
+    builder.append("\tminBlockReadTimeout: " + minBlockReadTimeout + "\n");
+    builder.append("\tretryBaseDelayMs: " + retryBaseDelayMs + "\n");
+    builder.append("\tretryMaxDelayMs: " + retryMaxDelayMs + "\n");
+    builder.append("\tretryBudget: " + retryBudget + "\n");
+    builder.append("\theadRetryCount: " + headRetryCount + "\n");
+    builder.append("\tstallThroughputRatio: " + stallThroughputRatio + "\n");
+    builder.append("\tstallWindowMs: " + stallWindowMs + "\n");
+    builder.append("\tsequentialProgressionMode: " + sequentialProgressionMode + "\n");
+    builder.append("\tsequentialPrefetchMinBytes: " + sequentialPrefetchMinBytes + "\n");
+    builder.append("\tsequentialPrefetchMaxBytes: " + sequentialPrefetchMaxBytes + "\n");
+    builder.append("\treadAheadWindows: " + readAheadWindows + "\n");
+    builder.append("\treadAheadWindowBytes: " + readAheadWindowBytes + "\n");
+    builder.append("\treadAheadLowWatermark: " + readAheadLowWatermark + "\n");
 
     return builder.toString();
   }
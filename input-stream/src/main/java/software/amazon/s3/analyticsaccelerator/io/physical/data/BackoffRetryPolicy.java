@@ -0,0 +1,174 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+
+/**
+ * A {@link RetryPolicy} which waits longer before each retry, and stops retrying when a budget of
+ * retries is spent.
+ *
+ * <p>The wait before a retry is drawn at random up to a ceiling which doubles with every retry, up
+ * to a maximum. Drawing the wait at random spreads out the retries of requests which failed
+ * together, so they do not hit S3 together again. The ceiling is higher for throttled requests,
+ * and errors which a retry would not fix are never retried.
+ *
+ * <p>When a budget ratio is set, every successful request earns that fraction of a retry in a
+ * {@link RetryBudget}, and every retry spends one.
+ */
+public class BackoffRetryPolicy implements RetryPolicy {
+  private final long baseDelayMs;
+  private final long maxDelayMs;
+  private final double budgetRatio;
+  private final RetryBudget budget;
+  private final Telemetry telemetry;
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong throttledRetries = new AtomicLong();
+  private final AtomicLong backoffMs = new AtomicLong();
+  private final AtomicLong budgetRejections = new AtomicLong();
+
+  // How much longer throttled requests back off for than those which failed otherwise
+  private static final int THROTTLING_BACKOFF_FACTOR = 4;
+
+  private static final String METRIC_RETRIES = "retry.policy.retries";
+  private static final String METRIC_THROTTLED_RETRIES = "retry.policy.throttled.retries";
+  private static final String METRIC_BACKOFF_MS = "retry.policy.backoff.ms";
+  private static final String METRIC_BUDGET_REJECTIONS = "retry.policy.budget.rejections";
+
+  /**
+   * Creates a new instance of {@link BackoffRetryPolicy}.
+   *
+   * @param baseDelayMs the ceiling of the wait before the first retry in milliseconds, or 0 to
+   *     retry immediately
+   * @param maxDelayMs the maximum wait before a retry in milliseconds
+   * @param budgetRatio the fraction of a retry each successful request earns, or 0 for no budget
+   * @param budget the budget retries are paid from
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public BackoffRetryPolicy(
+      long baseDelayMs,
+      long maxDelayMs,
+      double budgetRatio,
+      @NonNull RetryBudget budget,
+      @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        0 <= baseDelayMs && baseDelayMs <= maxDelayMs,
+        "`baseDelayMs` must be between 0 and `maxDelayMs`; was: %s",
+        baseDelayMs);
+    Preconditions.checkArgument(
+        0 <= budgetRatio && budgetRatio <= 1,
+        "`budgetRatio` must be between 0 and 1; was: %s",
+        budgetRatio);
+
+    this.baseDelayMs = baseDelayMs;
+    this.maxDelayMs = maxDelayMs;
+    this.budgetRatio = budgetRatio;
+    this.budget = budget;
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Creates a new instance of {@link BackoffRetryPolicy} configured by the given configuration,
+   * which pays its retries from the process-wide budget.
+   *
+   * @param configuration the PhysicalIO configuration
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public BackoffRetryPolicy(
+      @NonNull PhysicalIOConfiguration configuration, @NonNull Telemetry telemetry) {
+    this(
+        configuration.getRetryBaseDelayMs(),
+        configuration.getRetryMaxDelayMs(),
+        configuration.getRetryBudget(),
+        RetryBudget.getDefault(),
+        telemetry);
+  }
+
+  @Override
+  public long backoffMs(Throwable error, int retry) {
+    ErrorClass errorClass = ErrorClass.of(error);
+    if (errorClass == ErrorClass.FATAL) {
+      return -1;
+    }
+    if (budgetRatio > 0 && !budget.tryWithdraw()) {
+      measure(METRIC_BUDGET_REJECTIONS, budgetRejections.incrementAndGet());
+      return -1;
+    }
+
+    double ceilingMs = baseDelayMs * Math.pow(2, Math.max(0, retry - 1));
+    if (errorClass == ErrorClass.THROTTLING) {
+      ceilingMs *= THROTTLING_BACKOFF_FACTOR;
+      measure(METRIC_THROTTLED_RETRIES, throttledRetries.incrementAndGet());
+    }
+    long delayMs = ThreadLocalRandom.current().nextLong((long) Math.min(ceilingMs, maxDelayMs) + 1);
+    measure(METRIC_RETRIES, retries.incrementAndGet());
+    measure(METRIC_BACKOFF_MS, backoffMs.addAndGet(delayMs));
+    return delayMs;
+  }
+
+  @Override
+  public void recordSuccess() {
+    if (budgetRatio > 0) {
+      budget.deposit(budgetRatio);
+    }
+  }
+
+  /**
+   * Returns the number of retries allowed.
+   *
+   * @return the number of retries
+   */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  /**
+   * Returns the number of retries allowed after a request was throttled.
+   *
+   * @return the number of throttled retries
+   */
+  public long getThrottledRetries() {
+    return throttledRetries.get();
+  }
+
+  /**
+   * Returns the total time retries were told to wait for, in milliseconds.
+   *
+   * @return the total backoff time
+   */
+  public long getBackoffMs() {
+    return backoffMs.get();
+  }
+
+  /**
+   * Returns the number of retries refused because the budget was spent.
+   *
+   * @return the number of budget rejections
+   */
+  public long getBudgetRejections() {
+    return budgetRejections.get();
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+}
@@ -17,6 +17,8 @@ package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +28,20 @@ import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlan;
 import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanExecution;
 import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanState;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.StreamPrefetchState;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
-import software.amazon.s3.analyticsaccelerator.request.Range;
 import software.amazon.s3.analyticsaccelerator.request.ReadMode;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.StreamAttributes;
 
-/** A Blob representing an object. */
+/**
+ * A Blob representing an object.
+ *
+ * <p>A blob is reference counted: the {@link BlobStore} holds a reference while the blob is cached,
+ * and readers hold one while they read it, see {@link BlobStore#acquire}. Closing the blob drops
+ * the reference of the BlobStore, and its blocks are only closed once the last reader released it,
+ * so that evicting a blob does not fail the reads still in progress on it.
+ */
 public class Blob implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(Blob.class);
   private static final String OPERATION_EXECUTE = "blob.execute";
@@ -41,6 +50,10 @@ public class Blob implements Closeable {
   private final BlockManager blockManager;
   private final ObjectMetadata metadata;
   private final Telemetry telemetry;
+  private final PrefetchAdmissionController admissionController;
+  private volatile boolean closed;
+  // Guarded by `this`
+  private int references = 1;
 
   /**
    * Construct a new Blob.
@@ -55,11 +68,30 @@ public class Blob implements Closeable {
       @NonNull ObjectMetadata metadata,
       @NonNull BlockManager blockManager,
       @NonNull Telemetry telemetry) {
+    this(objectKey, metadata, blockManager, telemetry, PrefetchAdmissionController.ADMIT_ALL);
+  }
+
+  /**
+   * Construct a new Blob.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param metadata the metadata for the object
+   * @param blockManager the BlockManager for this object
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @param admissionController decides whether prefetches may be executed
+   */
+  public Blob(
+      @NonNull ObjectKey objectKey,
+      @NonNull ObjectMetadata metadata,
+      @NonNull BlockManager blockManager,
+      @NonNull Telemetry telemetry,
+      @NonNull PrefetchAdmissionController admissionController) {
 
     this.objectKey = objectKey;
     this.metadata = metadata;
     this.blockManager = blockManager;
     this.telemetry = telemetry;
+    this.admissionController = admissionController;
   }
 
   /**
@@ -70,9 +102,21 @@ public class Blob implements Closeable {
    * @throws IOException if an I/O error occurs
    */
   public int read(long pos) throws IOException {
+    return read(pos, blockManager.getDefaultPrefetchState());
+  }
+
+  /**
+   * Reads a byte from the underlying object on behalf of a stream
+   *
+   * @param pos The position to read
+   * @param prefetchState the prefetching state of the stream reading
+   * @return an unsigned int representing the byte that was read
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(long pos, @NonNull StreamPrefetchState prefetchState) throws IOException {
     Preconditions.checkArgument(pos >= 0, "`pos` must be non-negative");
-    blockManager.makePositionAvailable(pos, ReadMode.SYNC);
-    return blockManager.getBlock(pos).get().read(pos);
+    blockManager.makePositionAvailable(pos, ReadMode.SYNC, prefetchState);
+    return blockManager.readBlock(pos, 1, prefetchState, block -> block.read(pos));
   }
 
   /**
@@ -96,30 +140,44 @@ public class Blob implements Closeable {
    * @throws IOException if an I/O error occurs
    */
   public int read(byte[] buf, int off, int len, long pos) throws IOException {
+    return read(buf, off, len, pos, blockManager.getDefaultPrefetchState());
+  }
+
+  /**
+   * Reads data into the provided buffer on behalf of a stream
+   *
+   * @param buf buffer to read data into
+   * @param off start position in buffer at which data is written
+   * @param len length of data to be read
+   * @param pos the position to begin reading from
+   * @param prefetchState the prefetching state of the stream reading
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(
+      byte[] buf, int off, int len, long pos, @NonNull StreamPrefetchState prefetchState)
+      throws IOException {
     Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
     Preconditions.checkArgument(pos < contentLength(), "`pos` must be less than content length");
     Preconditions.checkArgument(0 <= off, "`off` must not be negative");
     Preconditions.checkArgument(0 <= len, "`len` must not be negative");
     Preconditions.checkArgument(off < buf.length, "`off` must be less than size of buffer");
 
-    blockManager.makeRangeAvailable(pos, len, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(pos, len, ReadMode.SYNC, prefetchState);
 
     long nextPosition = pos;
     int numBytesRead = 0;
 
     while (numBytesRead < len && nextPosition < contentLength()) {
-      final long nextPositionFinal = nextPosition;
-      Block nextBlock =
-          blockManager
-              .getBlock(nextPosition)
-              .orElseThrow(
-                  () ->
-                      new IllegalStateException(
-                          String.format(
-                              "This block (for position %s) should have been available.",
-                              nextPositionFinal)));
-
-      int bytesRead = nextBlock.read(buf, off + numBytesRead, len - numBytesRead, nextPosition);
+      final long blockPosition = nextPosition;
+      final int bufferOffset = off + numBytesRead;
+      final int remaining = len - numBytesRead;
+      int bytesRead =
+          blockManager.readBlock(
+              blockPosition,
+              remaining,
+              prefetchState,
+              block -> block.read(buf, bufferOffset, remaining, blockPosition));
 
       if (bytesRead == -1) {
         return numBytesRead;
@@ -133,7 +191,123 @@ public class Blob implements Closeable {
   }
 
   /**
-   * Execute an IOPlan.
+   * Reads data into the provided {@link ByteBuffer}, starting at its current position and
+   * advancing it. The destination may be a heap or a direct buffer.
+   *
+   * @param dest buffer to read data into
+   * @param pos the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(@NonNull ByteBuffer dest, long pos) throws IOException {
+    return read(dest, pos, blockManager.getDefaultPrefetchState());
+  }
+
+  /**
+   * Reads data into the provided {@link ByteBuffer} on behalf of a stream, as {@link
+   * #read(ByteBuffer, long)} does.
+   *
+   * @param dest buffer to read data into
+   * @param pos the position to begin reading from
+   * @param prefetchState the prefetching state of the stream reading
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(
+      @NonNull ByteBuffer dest, long pos, @NonNull StreamPrefetchState prefetchState)
+      throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+    Preconditions.checkArgument(pos < contentLength(), "`pos` must be less than content length");
+
+    blockManager.makeRangeAvailable(pos, dest.remaining(), ReadMode.SYNC, prefetchState);
+    return readAvailable(dest, pos, prefetchState);
+  }
+
+  /**
+   * Copies data that has already been made available into the provided {@link ByteBuffer}.
+   *
+   * @param dest buffer to read data into
+   * @param pos the position to begin reading from
+   * @param prefetchState the prefetching state of the stream reading
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  private int readAvailable(ByteBuffer dest, long pos, StreamPrefetchState prefetchState)
+      throws IOException {
+    long nextPosition = pos;
+    int numBytesRead = 0;
+
+    while (dest.hasRemaining() && nextPosition < contentLength()) {
+      final long blockPosition = nextPosition;
+      int bytesRead =
+          blockManager.readBlock(
+              blockPosition,
+              dest.remaining(),
+              prefetchState,
+              block -> block.read(dest, blockPosition));
+
+      if (bytesRead == -1) {
+        return numBytesRead;
+      }
+
+      numBytesRead = numBytesRead + bytesRead;
+      nextPosition += bytesRead;
+    }
+
+    return numBytesRead;
+  }
+
+  /**
+   * Returns a read-only view of a range of the object. The view is taken without copying when the
+   * whole range falls inside a single block that holds its data on-heap; otherwise the blocks made
+   * available for the slice are copied into a new heap buffer, so that callers never have to fall
+   * back to a second read of the same range.
+   *
+   * @param pos the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range
+   * @throws IOException if an I/O error occurs
+   */
+  public Optional<ByteBuffer> readSlice(long pos, int len) throws IOException {
+    return readSlice(pos, len, blockManager.getDefaultPrefetchState());
+  }
+
+  /**
+   * Returns a read-only view of a range of the object on behalf of a stream, as {@link
+   * #readSlice(long, int)} does.
+   *
+   * @param pos the position the view starts at
+   * @param len the length of the view
+   * @param prefetchState the prefetching state of the stream reading
+   * @return a read-only view of the range
+   * @throws IOException if an I/O error occurs
+   */
+  public Optional<ByteBuffer> readSlice(
+      long pos, int len, @NonNull StreamPrefetchState prefetchState) throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+    Preconditions.checkArgument(0 <= len, "`len` must not be negative");
+    Preconditions.checkArgument(
+        pos + len <= contentLength(), "`pos + len` must not exceed content length");
+
+    if (len == 0) {
+      return Optional.of(ByteBuffer.allocate(0).asReadOnlyBuffer());
+    }
+
+    blockManager.makeRangeAvailable(pos, len, ReadMode.SYNC, prefetchState);
+    Optional<ByteBuffer> slice =
+        blockManager.readBlock(pos, len, prefetchState, block -> block.slice(pos, len));
+    if (slice.isPresent()) {
+      return slice;
+    }
+
+    ByteBuffer copy = ByteBuffer.allocate(len);
+    readAvailable(copy, pos, prefetchState);
+    copy.flip();
+    return Optional.of(copy.asReadOnlyBuffer());
+  }
+
+  /**
+   * Execute an IOPlan. The plan is only executed as far as the memory held allows for.
    *
    * @param plan the IOPlan to execute
    * @return the status of execution
@@ -147,27 +321,75 @@ public class Blob implements Closeable {
                 .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
                 .attribute(StreamAttributes.ioPlan(plan))
                 .build(),
-        () -> {
-          try {
-            for (Range range : plan.getPrefetchRanges()) {
-              this.blockManager.makeRangeAvailable(
-                  range.getStart(), range.getLength(), ReadMode.ASYNC);
-            }
+        () -> admissionController.submit(plan, this::submit));
+  }
 
-            return IOPlanExecution.builder().state(IOPlanState.SUBMITTED).build();
-          } catch (Exception e) {
-            LOG.error("Failed to submit IOPlan to PhysicalIO", e);
-            return IOPlanExecution.builder().state(IOPlanState.FAILED).build();
-          }
-        });
+  private IOPlanExecution submit(IOPlan plan) {
+    // A deferred plan may only be admitted once the blob is gone
+    if (closed || !retain()) {
+      return IOPlanExecution.builder().state(IOPlanState.SKIPPED).build();
+    }
+    try {
+      this.blockManager.makeRangesAvailable(plan.getPrefetchRanges(), ReadMode.ASYNC);
+
+      return IOPlanExecution.builder().state(IOPlanState.SUBMITTED).build();
+    } catch (Exception e) {
+      LOG.error("Failed to submit IOPlan to PhysicalIO", e);
+      return IOPlanExecution.builder().state(IOPlanState.FAILED).build();
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Takes a reference to the blob, keeping its blocks open until it is released.
+   *
+   * @return true if a reference was taken, false if the blob is already closed
+   */
+  public synchronized boolean retain() {
+    if (references == 0) {
+      return false;
+    }
+    references++;
+    return true;
+  }
+
+  /**
+   * Is the blob held by a reader, besides the BlobStore? Closing a blob nobody reads frees its
+   * memory right away, while the memory of a blob in use stays held until its readers are done.
+   *
+   * @return true if a reader holds a reference to the blob
+   */
+  public synchronized boolean isInUse() {
+    return references > (closed ? 0 : 1);
+  }
+
+  /** Releases a reference to the blob, closing its blocks if it was the last one. */
+  public void release() {
+    synchronized (this) {
+      Preconditions.checkState(references > 0, "The blob was released more often than retained");
+      if (--references > 0) {
+        return;
+      }
+    }
+    this.blockManager.close();
+    // The memory of the blob is freed, which may let deferred prefetches through
+    this.admissionController.runDeferred();
   }
 
   private long contentLength() {
     return metadata.getContentLength();
   }
 
+  /** Drops the reference of the BlobStore. The blob closes once the readers holding it are done. */
   @Override
   public void close() {
-    this.blockManager.close();
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      this.closed = true;
+    }
+    release();
   }
 }
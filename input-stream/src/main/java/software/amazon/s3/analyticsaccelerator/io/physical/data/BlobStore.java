@@ -15,11 +15,10 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.Closeable;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import lombok.Getter;
 import lombok.NonNull;
 import org.slf4j.Logger;
@@ -33,18 +32,31 @@ import software.amazon.s3.analyticsaccelerator.request.StreamContext;
 import software.amazon.s3.analyticsaccelerator.util.MetricComputationUtils;
 import software.amazon.s3.analyticsaccelerator.util.MetricKey;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+import software.amazon.s3.analyticsaccelerator.util.ShardedLruCache;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
 
-/** A BlobStore is a container for Blobs and functions as a data cache. */
-@SuppressFBWarnings(
-    value = "SIC_INNER_SHOULD_BE_STATIC_ANON",
-    justification =
-        "Inner class is created very infrequently, and fluency justifies the extra pointer")
+/**
+ * A BlobStore is a container for Blobs and functions as a data cache.
+ *
+ * <p>The cache is bounded both by the number of blobs and by the number of bytes they hold. Blobs
+ * are kept in least-recently-used order, and evicted blobs are closed, which releases the memory
+ * their blocks were charged for once no reader holds them any more. Blobs are kept in a {@link
+ * ShardedLruCache}, so streams reading different objects do not contend on a lock to look up their
+ * blobs.
+ *
+ * <p>When off-heap block storage is enabled, the BlobStore owns the {@link SlabAllocator} that all
+ * of its blocks lease their storage from. Likewise, it owns the {@link DiskBlockCache} that blocks
+ * are served from and spilled to when a disk cache directory is configured. The executor draining
+ * GET responses is shared with other BlobStores and owned by whoever created it.
+ */
 public class BlobStore implements Closeable {
-  private final Map<ObjectKey, Blob> blobMap;
+  private final ShardedLruCache<ObjectKey, Blob> blobMap;
   private static final Logger LOG = LoggerFactory.getLogger(BlobStore.class);
   private final ObjectClient objectClient;
   private final Telemetry telemetry;
-  private final PhysicalIOConfiguration configuration;
+  @Getter private final PhysicalIOConfiguration configuration;
+  private final BlockResources blockResources;
+  private final PrefetchAdmissionController admissionController;
 
   @Getter private final Metrics metrics;
 
@@ -61,29 +73,92 @@ public class BlobStore implements Closeable {
       @NonNull Telemetry telemetry,
       @NonNull PhysicalIOConfiguration configuration,
       @NonNull Metrics metrics) {
+    this(objectClient, telemetry, configuration, metrics, StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Construct an instance of BlobStore.
+   *
+   * @param objectClient object client capable of interacting with the underlying object store
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @param configuration the PhysicalIO configuration
+   * @param metrics an instance of {@link Metrics} to track metrics across the factory
+   * @param drainExecutor the executor draining GET responses into blocks
+   */
+  public BlobStore(
+      @NonNull ObjectClient objectClient,
+      @NonNull Telemetry telemetry,
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull Metrics metrics,
+      @NonNull StreamDrainExecutor drainExecutor) {
     this.objectClient = objectClient;
     this.telemetry = telemetry;
     this.metrics = metrics;
-    this.blobMap =
-        Collections.synchronizedMap(
-            new LinkedHashMap<ObjectKey, Blob>() {
-              @Override
-              protected boolean removeEldestEntry(final Map.Entry<ObjectKey, Blob> eldest) {
-                boolean shouldRemove = this.size() > configuration.getBlobStoreCapacity();
-                if (shouldRemove) {
-                  LOG.debug(
-                      "Current memory usage of blobMap in bytes before eviction is: {}",
-                      metrics.get(MetricKey.MEMORY_USAGE));
-                  Blob blobToRemove = eldest.getValue();
-                  metrics.reduce(MetricKey.MEMORY_USAGE, blobToRemove.getMemoryUsageOfBlob());
-                  LOG.debug(
-                      "Current memory usage of blobMap in bytes after eviction is: {}",
-                      metrics.get(MetricKey.MEMORY_USAGE));
-                }
-                return shouldRemove;
-              }
-            });
+    this.blobMap = new ShardedLruCache<>(configuration.getBlobStoreCapacity(), this::evict);
     this.configuration = configuration;
+    RequestScheduler requestScheduler =
+        new RequestScheduler(
+            configuration.getMaxInFlightRequests(),
+            configuration.getMaxInFlightRequestsPerObject(),
+            telemetry);
+    this.blockResources =
+        BlockResources.builder()
+            .slabAllocator(
+                configuration.isUseOffHeapBlockStorage()
+                    ? new SlabAllocator(
+                        (int) configuration.getSlabSizeBytes(),
+                        configuration.getSlabPoolCapacityBytes(),
+                        telemetry)
+                    : null)
+            .diskCache(createDiskCache(configuration, telemetry))
+            .drainExecutor(drainExecutor)
+            .requestScheduler(requestScheduler)
+            .requestHedger(
+                new RequestHedger(
+                    configuration.getHedgeBudget(),
+                    configuration.getHedgeMinDelayMs(),
+                    drainExecutor,
+                    requestScheduler,
+                    telemetry))
+            .readTimeoutEstimator(
+                new ReadTimeoutEstimator(configuration.getMinBlockReadTimeout(), telemetry))
+            .retryPolicy(new BackoffRetryPolicy(configuration, telemetry))
+            .stallDetector(
+                new StallDetector(
+                    configuration.getStallThroughputRatio(),
+                    configuration.getStallWindowMs(),
+                    telemetry))
+            .build();
+    this.admissionController =
+        new PrefetchAdmissionController(
+            configuration, () -> metrics.get(MetricKey.MEMORY_USAGE), this::reclaim, telemetry);
+  }
+
+  /**
+   * Creates the disk cache if a directory is configured for it. A directory which cannot be used
+   * disables the disk cache rather than failing the BlobStore, as all data can be fetched from S3.
+   *
+   * @param configuration the PhysicalIO configuration
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @return the disk cache, or null if it is disabled
+   */
+  private static DiskBlockCache createDiskCache(
+      PhysicalIOConfiguration configuration, Telemetry telemetry) {
+    if (configuration.getDiskCacheDirectory().isEmpty()) {
+      return null;
+    }
+    try {
+      return new DiskBlockCache(
+          Paths.get(configuration.getDiskCacheDirectory()),
+          configuration.getDiskCacheCapacityBytes(),
+          telemetry);
+    } catch (IOException | InvalidPathException e) {
+      LOG.warn(
+          "Disk cache directory {} cannot be used, disabling the disk cache",
+          configuration.getDiskCacheDirectory(),
+          e);
+      return null;
+    }
   }
 
   /**
@@ -95,15 +170,106 @@ public class BlobStore implements Closeable {
    * @return the blob representing the object from the BlobStore
    */
   public Blob get(ObjectKey objectKey, ObjectMetadata metadata, StreamContext streamContext) {
-    return blobMap.computeIfAbsent(
-        objectKey,
-        uri ->
-            new Blob(
-                uri,
-                metadata,
-                new BlockManager(
-                    uri, objectClient, metadata, telemetry, configuration, metrics, streamContext),
-                telemetry));
+    Blob blob =
+        blobMap.computeIfAbsent(
+            objectKey,
+            uri ->
+                new Blob(
+                    uri,
+                    metadata,
+                    new BlockManager(
+                        uri,
+                        objectClient,
+                        metadata,
+                        telemetry,
+                        configuration,
+                        metrics,
+                        streamContext,
+                        blockResources),
+                    telemetry,
+                    admissionController));
+    evictToMemoryCapacity(objectKey);
+    return blob;
+  }
+
+  /**
+   * Opens a blob as {@link #get} does, and takes a reference to it. The blob stays open until the
+   * reference is released with {@link Blob#release()}, even if it is evicted meanwhile.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param metadata the metadata for the object we are computing
+   * @param streamContext contains audit headers to be attached in the request header
+   * @return the blob representing the object, to be released once done with
+   */
+  public Blob acquire(ObjectKey objectKey, ObjectMetadata metadata, StreamContext streamContext) {
+    while (true) {
+      Blob blob = get(objectKey, metadata, streamContext);
+      if (blob.retain()) {
+        return blob;
+      }
+      // The blob was evicted and closed since it was looked up, the next lookup opens a new one
+    }
+  }
+
+  /**
+   * Evicts least recently used blobs until the bytes held by the BlobStore fit into the configured
+   * memory capacity, if there is one. Eviction is weighted by size: a single large blob may free up
+   * enough memory on its own, while many small ones may have to go. The blob that is being accessed
+   * is never evicted, even if it alone exceeds the capacity, and neither are blobs other streams
+   * are reading, as their memory would only be freed once their readers are done.
+   *
+   * @param keyInUse the key of the blob being accessed
+   */
+  private void evictToMemoryCapacity(ObjectKey keyInUse) {
+    if (configuration.getMemoryCapacityBytes() == 0) {
+      return;
+    }
+    long memoryUsage = metrics.get(MetricKey.MEMORY_USAGE);
+    while (memoryUsage > configuration.getMemoryCapacityBytes()) {
+      if (!blobMap.evictEldest(
+          (key, blob) ->
+              key.equals(keyInUse) || blob.isInUse() || blob.getMemoryUsageOfBlob() == 0)) {
+        return;
+      }
+      // Stop once evictions free nothing, as when concurrent reads charge memory as fast
+      long remaining = metrics.get(MetricKey.MEMORY_USAGE);
+      if (remaining >= memoryUsage) {
+        return;
+      }
+      memoryUsage = remaining;
+    }
+  }
+
+  /**
+   * Evicts least recently used blobs that no stream is reading until at most the given number of
+   * bytes are held. This makes room for prefetches before memory is considered short, as blobs are
+   * otherwise only evicted once the memory capacity is exceeded. Blobs being read are kept, as
+   * their memory would only be freed once their readers are done, and so are blobs holding no
+   * memory.
+   *
+   * @param targetBytes the number of bytes to reclaim memory down to
+   */
+  private void reclaim(long targetBytes) {
+    while (metrics.get(MetricKey.MEMORY_USAGE) > targetBytes) {
+      if (!blobMap.evictEldest(
+          (key, blob) -> blob.isInUse() || blob.getMemoryUsageOfBlob() == 0)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Closes a blob evicted from the cache, either to stay within the number of blobs or within the
+   * memory capacity.
+   *
+   * @param blob the evicted blob
+   */
+  private void evict(Blob blob) {
+    LOG.debug(
+        "Evicting blob of {} bytes, memory usage of the BlobStore is {} bytes",
+        blob.getMemoryUsageOfBlob(),
+        metrics.get(MetricKey.MEMORY_USAGE));
+    safeClose(blob);
   }
 
   /**
@@ -113,7 +279,12 @@ public class BlobStore implements Closeable {
    * @return a boolean stating if the object existed or not
    */
   public boolean evictKey(ObjectKey objectKey) {
-    return this.blobMap.remove(objectKey) != null;
+    Blob blob = this.blobMap.remove(objectKey);
+    if (blob == null) {
+      return false;
+    }
+    safeClose(blob);
+    return true;
   }
 
   /**
@@ -125,6 +296,14 @@ public class BlobStore implements Closeable {
     return this.blobMap.size();
   }
 
+  private void safeClose(Blob blob) {
+    try {
+      blob.close();
+    } catch (Exception e) {
+      LOG.error("Exception when closing Blob in the BlobStore", e);
+    }
+  }
+
   /** Closes the {@link BlobStore} and frees up all resources it holds. */
   @Override
   public void close() {
@@ -133,6 +312,12 @@ public class BlobStore implements Closeable {
     LOG.debug(
         "Cache Hits: {}, Misses: {}, Hit Rate: {}%",
         hits, miss, MetricComputationUtils.computeCacheHitRate(hits, miss));
-    blobMap.forEach((k, v) -> v.close());
+    blobMap.values().forEach(this::safeClose);
+    if (blockResources.getSlabAllocator() != null) {
+      blockResources.getSlabAllocator().close();
+    }
+    if (blockResources.getDiskCache() != null) {
+      blockResources.getDiskCache().close();
+    }
   }
 }
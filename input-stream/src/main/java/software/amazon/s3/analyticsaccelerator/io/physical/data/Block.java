@@ -17,14 +17,26 @@ package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.s3.analyticsaccelerator.S3SdkObjectClient;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.request.GetRequest;
@@ -39,10 +51,21 @@ import software.amazon.s3.analyticsaccelerator.util.*;
 /**
  * A Block holding part of an object's data and owning its own async process for fetching part of
  * the object.
+ *
+ * <p>The data of the block becomes readable progressively: as soon as the response arrives, its
+ * bytes are drained into a {@link FillableBlockBuffer}, and reads return once the bytes they need
+ * have landed rather than once the whole block has.
+ *
+ * <p>When a fetch from S3 fails partway through, the bytes which already landed are kept, and the
+ * retry only requests the rest of the block. This includes a response aborted because it stalled.
  */
 public class Block implements Closeable {
-  private CompletableFuture<ObjectContent> source;
-  private CompletableFuture<byte[]> data;
+  // Replaced by every fetch of the data, which a retry may issue from the drain executor
+  private volatile CompletableFuture<ObjectContent> source;
+  // The permit of the request fetching the data from S3, or null if it is read from disk
+  private volatile CompletableFuture<RequestScheduler.Permit> permit;
+  private volatile CompletableFuture<FillableBlockBuffer> filling;
+  private volatile CompletableFuture<BlockBuffer> data;
   private final ObjectKey objectKey;
   @Getter private final Range range;
   private final Telemetry telemetry;
@@ -52,13 +75,48 @@ public class Block implements Closeable {
   private final Referrer referrer;
   private final long readTimeout;
   private final int readRetryCount;
+  // The number of retries of the fetch made so far, shared by failures to issue it and to read it,
+  // so that together they make at most readRetryCount attempts
+  private volatile int fetchRetries;
+  // The timeout of the current fetch, estimated from the length of the block when it is fetched
+  // from S3, and the time its request was issued at
+  private volatile long fetchTimeout;
+  private volatile long fetchIssuedAtNanos;
+  // Whether a response of this block stalled since its data was last fetched in full, and when
+  private volatile boolean stalled;
+  private volatile long stalledAtNanos;
 
   @Getter private final long start;
   @Getter private final long end;
   @Getter private final long generation;
   private final BlockMetricsHandler metricsHandler;
+  private final BlockResources resources;
+  // Whether a reader has read up to the end of the block, so it is unlikely to be read again
+  @Getter private volatile boolean consumed;
+  // The number of reads in progress, which keep the block from being evicted
+  private final AtomicInteger pins = new AtomicInteger();
+  // Whether the data is read back from the disk cache rather than fetched from S3, and the number
+  // of reads which had to wait for data fetched from S3 to land
+  private volatile boolean fromDiskCache;
+  private final AtomicLong s3Waits = new AtomicLong();
+
+  // The buffer the data of this block lands in, the bytes charged to MEMORY_USAGE on its behalf,
+  // and whether the block was closed. All are guarded by `this`.
+  private FillableBlockBuffer buffer;
+  private long chargedBytes;
+  private boolean closed;
+  // The buffer of a failed fetch from S3 holding part of the data, which the next fetch resumes
+  // filling, or null. Guarded by `this`.
+  private FillableBlockBuffer salvaged;
+  // Whether the data was looked up in the disk cache, so a retry after a failed read from disk
+  // fetches it from S3 instead
+  private boolean diskCacheLookedUp;
+
   private static final String OPERATION_BLOCK_GET_ASYNC = "block.get.async";
   private static final String OPERATION_BLOCK_GET_JOIN = "block.get.join";
+  private static final String OPERATION_BLOCK_GET_PARTIAL = "block.get.partial";
+  private static final int DISK_READ_CHUNK_SIZE = 64 * 1024;
+  private static final String METRIC_BYTES_SALVAGED = "block.bytes.salvaged";
 
   private static final Logger LOG = LoggerFactory.getLogger(Block.class);
 
@@ -132,6 +190,52 @@ public class Block implements Closeable {
       StreamContext streamContext)
       throws IOException {
 
+    this(
+        objectKey,
+        objectClient,
+        telemetry,
+        start,
+        end,
+        generation,
+        readMode,
+        readTimeout,
+        readRetryCount,
+        metricsHandler,
+        streamContext,
+        BlockResources.DEFAULT);
+  }
+
+  /**
+   * Constructs a Block data.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param objectClient the object client to use to interact with the object store
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @param start start of the block
+   * @param end end of the block
+   * @param generation generation of the block in a sequential read pattern (should be 0 by default)
+   * @param readMode read mode describing whether this is a sync or async fetch
+   * @param readTimeout Timeout duration (in milliseconds) for reading a block object from S3
+   * @param readRetryCount Number of retries for block read failure
+   * @param metricsHandler metrics callback
+   * @param streamContext contains audit headers to be attached in the request header
+   * @param resources resources shared with the other blocks, used to fetch and hold the data
+   */
+  public Block(
+      @NonNull ObjectKey objectKey,
+      @NonNull ObjectClient objectClient,
+      @NonNull Telemetry telemetry,
+      long start,
+      long end,
+      long generation,
+      @NonNull ReadMode readMode,
+      long readTimeout,
+      int readRetryCount,
+      @NonNull BlockMetricsHandler metricsHandler,
+      StreamContext streamContext,
+      @NonNull BlockResources resources)
+      throws IOException {
+
     Preconditions.checkArgument(
         0 <= generation, "`generation` must be non-negative; was: %s", generation);
     Preconditions.checkArgument(0 <= start, "`start` must be non-negative; was: %s", start);
@@ -156,67 +260,275 @@ public class Block implements Closeable {
     this.readTimeout = readTimeout;
     this.readRetryCount = readRetryCount;
     this.metricsHandler = metricsHandler;
+    this.resources = resources;
 
     generateSourceAndData();
   }
 
   /** Method to help construct source and data */
   private void generateSourceAndData() throws IOException {
+    generateSourceAndData(0);
+  }
 
-    int retries = 0;
-    while (retries < this.readRetryCount) {
-      try {
-        GetRequest getRequest =
-            GetRequest.builder()
-                .s3Uri(this.objectKey.getS3URI())
-                .range(this.range)
-                .etag(this.objectKey.getEtag())
-                .referrer(referrer)
-                .build();
-
-        this.source =
-            this.telemetry.measureCritical(
-                () ->
-                    Operation.builder()
-                        .name(OPERATION_BLOCK_GET_ASYNC)
-                        .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
-                        .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
-                        .attribute(StreamAttributes.range(this.range))
-                        .attribute(StreamAttributes.generation(generation))
-                        .build(),
-                objectClient.getObject(getRequest, streamContext));
+  /**
+   * Issues the fetch of the data of this block. If issuing it fails, it is retried as the retry
+   * policy allows. The backoff is not waited for on the calling thread, which may hold the lock of
+   * the {@link BlockManager}: the retry is scheduled on the drain executor instead, and readers
+   * wait for its data meanwhile.
+   *
+   * @param retries the number of retries of the fetch made so far
+   * @throws IOException if issuing the fetch failed and may not be retried
+   */
+  private void generateSourceAndData(int retries) throws IOException {
+    this.fetchRetries = retries;
+    FillableBlockBuffer resumed = null;
+    try {
+      // Completed with the buffer as soon as the data starts landing in it
+      CompletableFuture<FillableBlockBuffer> filling = new CompletableFuture<>();
+      this.filling = filling;
 
+      Optional<ObjectContent> cached = lookUpDiskCache();
+      this.fromDiskCache = cached.isPresent();
+      if (cached.isPresent()) {
+        this.permit = null;
+        this.fetchTimeout = this.readTimeout;
+        this.source = CompletableFuture.completedFuture(cached.get());
+        this.data =
+            this.resources
+                .getDrainExecutor()
+                .submit(
+                    () -> readFromDisk(cached.get(), filling),
+                    this.readTimeout,
+                    cached.get().getStream());
+      } else {
+        // Keep the bytes a failed fetch already landed, and only fetch the rest of the block
+        resumed = takeSalvaged();
+        FillableBlockBuffer resumedBuffer = resumed;
+        Range fetchRange =
+            resumed == null ? this.range : new Range(this.start + resumed.length(), this.end);
+        this.fetchTimeout =
+            this.resources
+                .getReadTimeoutEstimator()
+                .timeoutMs(fetchRange.getLength(), this.readTimeout);
+        this.source = scheduleFetchFromS3(fetchRange);
+        if (resumed != null) {
+          recordSalvaged(resumed.length());
+          filling.complete(resumed);
+        }
         // Handle IOExceptions when converting stream to byte array
         this.data =
             this.source.thenApply(
                 objectContent -> {
                   try {
-                    this.metricsHandler.updateMetrics(MetricKey.MEMORY_USAGE, range.getLength());
-                    return StreamUtils.toByteArray(
-                        objectContent, this.objectKey, this.range, this.readTimeout);
+                    return readBlockBuffer(objectContent, fetchRange, filling, resumedBuffer);
                   } catch (IOException | TimeoutException e) {
                     throw new RuntimeException(
                         "Error while converting InputStream to byte array", e);
                   }
                 });
+      }
+      // Wake up readers waiting for the buffer if the data never starts landing, and let the
+      // next request through once this one is done
+      CompletableFuture<RequestScheduler.Permit> permit = this.permit;
+      this.data.whenComplete(
+          (content, error) -> {
+            if (error != null) {
+              filling.completeExceptionally(error);
+            }
+            if (permit != null) {
+              permit.thenAccept(RequestScheduler.Permit::release);
+              if (error == null) {
+                this.resources.getRetryPolicy().recordSuccess();
+              }
+            }
+          });
+    } catch (RuntimeException e) {
+      if (resumed != null) {
+        // The fetch was never issued, so the next attempt can still resume filling the buffer
+        salvage(resumed);
+      }
+      int retry = retries + 1;
+      LOG.debug(
+          "Retry {}/{} - Failed to fetch block data due to: {}",
+          retry,
+          this.readRetryCount,
+          e.getMessage());
 
-        return; // Successfully generated source and data, exit loop
-      } catch (RuntimeException e) {
-        retries++;
-        LOG.debug(
-            "Retry {}/{} - Failed to fetch block data due to: {}",
-            retries,
-            this.readRetryCount,
-            e.getMessage());
-
-        if (retries >= this.readRetryCount) {
-          LOG.error("Max retries reached. Unable to fetch block data.");
-          throw new IOException("Failed to fetch block data after retries", e);
-        }
+      long backoffMs =
+          retry < this.readRetryCount ? this.resources.getRetryPolicy().backoffMs(e, retry) : -1;
+      if (backoffMs < 0) {
+        LOG.error("Max retries reached. Unable to fetch block data.");
+        throw new IOException("Failed to fetch block data after retries", e);
       }
+      retryFetch(retry, backoffMs, e);
     }
   }
 
+  /**
+   * Issues the fetch again, right away if there is no backoff and from the drain executor once it
+   * has passed otherwise.
+   *
+   * @param retry the number of the retry
+   * @param backoffMs the time to wait before retrying, in milliseconds
+   * @param error the error the previous attempt failed with
+   * @throws IOException if the retry cannot be issued or scheduled
+   */
+  private void retryFetch(int retry, long backoffMs, Exception error) throws IOException {
+    if (backoffMs == 0) {
+      generateSourceAndData(retry);
+    } else {
+      scheduleRetry(retry, backoffMs, error);
+    }
+  }
+
+  /**
+   * Retries issuing the fetch of the data of this block once the backoff has passed, on the
+   * scheduler thread of the drain executor. Meanwhile, the block holds futures completing with the
+   * outcome of the retry, and closing the block cancels it.
+   *
+   * @param retry the number of the retry
+   * @param backoffMs the time to wait before retrying, in milliseconds
+   * @param error the error the previous attempt failed with
+   * @throws IOException if the retry cannot be scheduled
+   */
+  private void scheduleRetry(int retry, long backoffMs, Exception error) throws IOException {
+    CompletableFuture<FillableBlockBuffer> pendingFilling = new CompletableFuture<>();
+    CompletableFuture<ObjectContent> pendingSource = new CompletableFuture<>();
+    CompletableFuture<BlockBuffer> pendingData = new CompletableFuture<>();
+    pendingSource.whenComplete(
+        (content, cancelled) -> {
+          if (cancelled != null) {
+            pendingFilling.completeExceptionally(cancelled);
+            pendingData.completeExceptionally(cancelled);
+          }
+        });
+    this.fetchRetries = retry;
+    this.permit = null;
+    // Readers waiting for the retry wait out the backoff too
+    this.fetchTimeout = this.readTimeout + backoffMs;
+    this.filling = pendingFilling;
+    this.source = pendingSource;
+    this.data = pendingData;
+
+    try {
+      this.resources
+          .getDrainExecutor()
+          .schedule(
+              () -> {
+                if (pendingSource.isDone()) {
+                  return;
+                }
+                try {
+                  generateSourceAndData(retry);
+                } catch (IOException e) {
+                  pendingSource.completeExceptionally(e);
+                  return;
+                }
+                // Readers may already wait on the futures of the retry
+                forward(this.filling, pendingFilling);
+                forward(this.data, pendingData);
+              },
+              backoffMs);
+    } catch (RejectedExecutionException e) {
+      throw new IOException("Failed to fetch block data after retries", error);
+    }
+  }
+
+  private static <T> void forward(CompletableFuture<? extends T> from, CompletableFuture<T> to) {
+    from.whenComplete(
+        (value, error) -> {
+          if (error != null) {
+            to.completeExceptionally(error);
+          } else {
+            to.complete(value);
+          }
+        });
+  }
+
+  /**
+   * Looks up the data of this block in the disk cache, the first time it is fetched. The lookup
+   * only consults the index the cache holds in memory, so it is cheap enough to run while the
+   * {@link BlockManager} lock is held; the file is opened and read on a drain thread.
+   *
+   * @return the cached data, or empty if it has to be fetched from S3
+   */
+  private Optional<ObjectContent> lookUpDiskCache() {
+    DiskBlockCache diskCache = this.resources.getDiskCache();
+    if (diskCache == null || diskCacheLookedUp) {
+      return Optional.empty();
+    }
+    diskCacheLookedUp = true;
+    return diskCache.get(this.objectKey, this.range);
+  }
+
+  /**
+   * Issues the {@link GetRequest} for the data of this block once the request scheduler lets it
+   * through. The permit is held until the response has been drained.
+   *
+   * @param fetchRange the part of the block to fetch
+   * @return a future completing with the response
+   */
+  private CompletableFuture<ObjectContent> scheduleFetchFromS3(Range fetchRange) {
+    CompletableFuture<RequestScheduler.Permit> permit =
+        this.resources.getRequestScheduler().acquire(this.objectKey.getS3URI(), this.readMode);
+    this.permit = permit;
+    if (!permit.isDone()) {
+      return permit.thenCompose(granted -> fetchFromS3(fetchRange));
+    }
+    try {
+      return fetchFromS3(fetchRange);
+    } catch (RuntimeException e) {
+      permit.join().release();
+      throw e;
+    }
+  }
+
+  /**
+   * Issues the {@link GetRequest} for the data of this block, hedging it if it is slow to respond.
+   *
+   * @param fetchRange the part of the block to fetch
+   * @return a future completing with the first response
+   */
+  private CompletableFuture<ObjectContent> fetchFromS3(Range fetchRange) {
+    this.fetchIssuedAtNanos = System.nanoTime();
+    return this.resources
+        .getRequestHedger()
+        .fetch(
+            this.objectKey.getS3URI(),
+            fetchRange.getLength(),
+            () -> issueGetRequest(fetchRange));
+  }
+
+  /**
+   * Issues the {@link GetRequest} for the data of this block.
+   *
+   * @param fetchRange the part of the block to fetch
+   * @return a future completing with the response
+   */
+  private CompletableFuture<ObjectContent> issueGetRequest(Range fetchRange) {
+    GetRequest getRequest =
+        GetRequest.builder()
+            .s3Uri(this.objectKey.getS3URI())
+            .range(fetchRange)
+            .etag(this.objectKey.getEtag())
+            .referrer(
+                fetchRange == this.range
+                    ? referrer
+                    : new Referrer(fetchRange.toHttpString(), this.readMode))
+            .build();
+
+    return this.telemetry.measureCritical(
+        () ->
+            Operation.builder()
+                .name(OPERATION_BLOCK_GET_ASYNC)
+                .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
+                .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
+                .attribute(StreamAttributes.range(fetchRange))
+                .attribute(StreamAttributes.generation(generation))
+                .build(),
+        objectClient.getObject(getRequest, streamContext));
+  }
+
   /**
    * Reads a byte from the underlying object
    *
@@ -227,8 +539,14 @@ public class Block implements Closeable {
   public int read(long pos) throws IOException {
     Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
 
-    byte[] content = this.getDataWithRetries();
-    return Byte.toUnsignedInt(content[posToOffset(pos)]);
+    BlockBuffer content = acquire(posToOffset(pos) + 1);
+    try {
+      int value = content.get(posToOffset(pos));
+      markRead(pos, 1);
+      return value;
+    } finally {
+      content.release();
+    }
   }
 
   /**
@@ -247,16 +565,108 @@ public class Block implements Closeable {
     Preconditions.checkArgument(0 <= len, "`len` must not be negative");
     Preconditions.checkArgument(off < buf.length, "`off` must be less than size of buffer");
 
-    byte[] content = this.getDataWithRetries();
-    int contentOffset = posToOffset(pos);
-    int available = content.length - contentOffset;
-    int bytesToCopy = Math.min(len, available);
+    BlockBuffer content = acquire(landedLength(pos, len));
+    try {
+      int contentOffset = posToOffset(pos);
+      int available = content.length() - contentOffset;
+      int bytesToCopy = Math.min(len, available);
+      content.get(contentOffset, buf, off, bytesToCopy);
+      markRead(pos, bytesToCopy);
+      return bytesToCopy;
+    } finally {
+      content.release();
+    }
+  }
 
-    for (int i = 0; i < bytesToCopy; ++i) {
-      buf[off + i] = content[contentOffset + i];
+  /**
+   * Reads data into the provided {@link ByteBuffer}, starting at its current position and
+   * advancing it. The destination may be a heap or a direct buffer.
+   *
+   * @param dest buffer to read data into
+   * @param pos the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  public int read(@NonNull ByteBuffer dest, long pos) throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+
+    BlockBuffer content = acquire(landedLength(pos, dest.remaining()));
+    try {
+      int contentOffset = posToOffset(pos);
+      int available = content.length() - contentOffset;
+      int bytesToCopy = Math.min(dest.remaining(), available);
+      content.get(contentOffset, dest, bytesToCopy);
+      markRead(pos, bytesToCopy);
+      return bytesToCopy;
+    } finally {
+      content.release();
+    }
+  }
+
+  /**
+   * Returns a read-only view of a range of this block without copying it. This is only possible
+   * when the whole range falls inside the block and the data is held on-heap.
+   *
+   * @param pos the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range, or empty if the range cannot be served without a copy
+   * @throws IOException if an I/O error occurs
+   */
+  public Optional<ByteBuffer> slice(long pos, int len) throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+    Preconditions.checkArgument(0 <= len, "`len` must not be negative");
+
+    if (!contains(pos) || pos + len - 1 > end) {
+      return Optional.empty();
+    }
+
+    BlockBuffer content = acquire(posToOffset(pos) + len);
+    try {
+      int contentOffset = posToOffset(pos);
+      if (contentOffset + len > content.length()) {
+        return Optional.empty();
+      }
+      Optional<ByteBuffer> slice = content.slice(contentOffset, len);
+      if (slice.isPresent()) {
+        markRead(pos, len);
+      }
+      return slice;
+    } finally {
+      content.release();
     }
+  }
+
+  /**
+   * Returns the number of reads of this block which had to wait for its data to arrive from S3.
+   * Reads of data which had already landed, or which is read back from the disk cache, do not
+   * count.
+   *
+   * @return the number of reads which waited for S3
+   */
+  public long getS3Waits() {
+    return s3Waits.get();
+  }
+
+  /**
+   * Keeps the block from being evicted until {@link #unpin()} is called. Readers pin the block
+   * while holding the lock of the {@link BlockManager} they looked it up in.
+   */
+  public void pin() {
+    pins.incrementAndGet();
+  }
+
+  /** Allows the block to be evicted again once the read it was pinned for is done. */
+  public void unpin() {
+    pins.decrementAndGet();
+  }
 
-    return bytesToCopy;
+  /**
+   * Is a read of this block in progress?
+   *
+   * @return true if the block must not be evicted
+   */
+  public boolean isPinned() {
+    return pins.get() > 0;
   }
 
   /**
@@ -281,32 +691,152 @@ public class Block implements Closeable {
     return (int) (pos - start);
   }
 
+  /**
+   * Records that a read was served from this block, marking the block as consumed once a reader has
+   * read its last byte.
+   *
+   * @param pos the position the read started at
+   * @param len the number of bytes read
+   */
+  private void markRead(long pos, int len) {
+    if (pos + len - 1 >= end) {
+      consumed = true;
+    }
+  }
+
+  /**
+   * Determines how many bytes of the block need to have landed to read from a position.
+   *
+   * @param pos the position to read from
+   * @param len the number of bytes to read
+   * @return the length of the prefix of the block that has to have landed
+   */
+  private int landedLength(long pos, int len) {
+    return (int) Math.min((long) posToOffset(pos) + len, this.range.getLength());
+  }
+
+  /**
+   * Acquires a reference to a buffer holding at least the given number of bytes, or all of the
+   * data of the block if it holds fewer. While the block is still being fetched, this only waits
+   * for the bytes to land, and counts the wait unless they are read back from the disk cache.
+   *
+   * @param minLength the number of bytes of the block the read needs
+   * @return a retained buffer, to be released once the read is done
+   * @throws IOException if an I/O error occurs
+   */
+  private BlockBuffer acquire(int minLength) throws IOException {
+    if (!this.data.isDone()) {
+      if (!this.fromDiskCache && !hasLanded(minLength)) {
+        s3Waits.incrementAndGet();
+      }
+      BlockBuffer landed = awaitLanded(minLength);
+      if (landed != null) {
+        return landed;
+      }
+    }
+    return retain(this.getDataWithRetries());
+  }
+
+  /**
+   * Have the given number of bytes already landed in the buffer being filled?
+   *
+   * @param minLength the number of bytes the read needs
+   * @return true if a read of the bytes does not have to wait for them
+   */
+  private boolean hasLanded(int minLength) {
+    CompletableFuture<FillableBlockBuffer> currentFilling = this.filling;
+    return currentFilling.isDone()
+        && !currentFilling.isCompletedExceptionally()
+        && currentFilling.join().length() >= minLength;
+  }
+
+  /**
+   * Waits for the given number of bytes to land in the buffer being filled.
+   *
+   * @param minLength the number of bytes to wait for
+   * @return a retained buffer holding the bytes, or null if they did not land in time, in which
+   *     case the caller should wait for the whole block
+   * @throws IOException if the thread is interrupted while waiting
+   */
+  private BlockBuffer awaitLanded(int minLength) throws IOException {
+    CompletableFuture<FillableBlockBuffer> currentFilling = this.filling;
+    return this.telemetry.measureStandard(
+        () ->
+            Operation.builder()
+                .name(OPERATION_BLOCK_GET_PARTIAL)
+                .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
+                .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
+                .attribute(StreamAttributes.range(this.range))
+                .attribute(StreamAttributes.rangeLength(minLength))
+                .build(),
+        () -> {
+          try {
+            FillableBlockBuffer content = currentFilling.get(joinTimeout(), TimeUnit.MILLISECONDS);
+            if (!content.retain()) {
+              return null;
+            }
+            if (content.awaitLength(minLength, this.fetchTimeout) >= minLength) {
+              return content;
+            }
+            content.release();
+            return null;
+          } catch (ExecutionException | TimeoutException | CancellationException e) {
+            return null;
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for block data");
+          }
+        });
+  }
+
   /**
    * Returns the bytes fetched by the issued {@link GetRequest}. If it receives an IOException from
-   * {@link S3SdkObjectClient}, retries for MAX_RETRIES count.
+   * {@link S3SdkObjectClient}, retries as the retry policy allows, up to readRetryCount attempts in
+   * total. The retry is issued the same way as when issuing the fetch fails, so the backoff is
+   * waited for on the drain executor while this thread waits for the data of the retry.
    *
    * @return the bytes fetched by the issued {@link GetRequest}.
    * @throws IOException if an I/O error occurs after maximum retry counts
    */
-  private byte[] getDataWithRetries() throws IOException {
-    for (int i = 0; i < this.readRetryCount; i++) {
+  private BlockBuffer getDataWithRetries() throws IOException {
+    while (true) {
       try {
         return this.getData();
       } catch (IOException ex) {
-        if (ex.getClass() == IOException.class) {
-          if (i < this.readRetryCount - 1) {
-            LOG.debug("Get data failed. Retrying. Retry Count {}", i);
-            generateSourceAndData();
-          } else {
-            LOG.error("Cannot read block file. Retry reached the limit");
-            throw new IOException("Cannot read block file", ex.getCause());
-          }
-        } else {
+        if (ex.getClass() != IOException.class) {
           throw ex;
         }
+        int retry = this.fetchRetries + 1;
+        long backoffMs =
+            retry < this.readRetryCount ? this.resources.getRetryPolicy().backoffMs(ex, retry) : -1;
+        if (backoffMs < 0) {
+          LOG.error("Cannot read block file. Retry reached the limit");
+          throw new IOException("Cannot read block file", ex.getCause());
+        }
+        LOG.debug("Get data failed. Retrying in {}ms. Retry Count {}", backoffMs, retry);
+        if (isTimeout(ex)) {
+          this.resources.getReadTimeoutEstimator().recordTimeoutRetry();
+        }
+        // Keeps a retry still scheduled for the failed fetch from replacing this one
+        this.source.cancel(false);
+        retryFetch(retry, backoffMs, ex);
       }
     }
-    throw new IOException("Cannot read block file", new IOException("Error while getting block"));
+  }
+
+  /**
+   * Tells whether a read failed because it timed out.
+   *
+   * @param error the error the read failed with
+   * @return true if there is a {@link TimeoutException} among the causes of the error
+   */
+  private static boolean isTimeout(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -316,7 +846,7 @@ public class Block implements Closeable {
    * @return the bytes fetched by the issued {@link GetRequest}.
    * @throws IOException if an I/O error occurs
    */
-  private byte[] getData() throws IOException {
+  private BlockBuffer getData() throws IOException {
     return this.telemetry.measureJoinCritical(
         () ->
             Operation.builder()
@@ -327,13 +857,301 @@ public class Block implements Closeable {
                 .attribute(StreamAttributes.rangeLength(this.range.getLength()))
                 .build(),
         this.data,
-        this.readTimeout);
+        joinTimeout());
+  }
+
+  /**
+   * Returns how long to wait for the current fetch. A request still waiting for a permit has not
+   * been issued yet, so its estimated timeout does not apply until it is.
+   *
+   * @return the timeout in milliseconds
+   */
+  private long joinTimeout() {
+    CompletableFuture<RequestScheduler.Permit> currentPermit = this.permit;
+    if (currentPermit == null || currentPermit.isDone()) {
+      return this.fetchTimeout;
+    }
+    return this.readTimeout;
+  }
+
+  /**
+   * Drains the content of the GET response into a buffer, leasing off-heap slabs for it if an
+   * allocator is configured. The buffer is handed to waiting readers before the data is drained.
+   * If the copy fails, the bytes which landed are kept for the next fetch to resume from.
+   *
+   * @param objectContent the response of the issued {@link GetRequest}
+   * @param fetchRange the part of the block the response holds
+   * @param filling completed with the buffer once the data starts landing in it
+   * @param resumed the buffer holding the bytes before the fetched range, or null if the whole
+   *     block was fetched
+   * @return a sealed buffer holding the data of the block
+   */
+  private BlockBuffer readBlockBuffer(
+      ObjectContent objectContent,
+      Range fetchRange,
+      CompletableFuture<FillableBlockBuffer> filling,
+      FillableBlockBuffer resumed)
+      throws IOException, TimeoutException {
+    long firstByteAtNanos = System.nanoTime();
+    FillableBlockBuffer content = resumed != null ? resumed : startFilling(objectContent, filling);
+    ObjectContent monitored =
+        ObjectContent.builder()
+            .stream(
+                this.resources
+                    .getStallDetector()
+                    .monitor(objectContent.getStream(), this::recordStall))
+            .build();
+    try {
+      StreamUtils.copy(
+          monitored,
+          content.writer(),
+          this.objectKey,
+          fetchRange,
+          this.fetchTimeout,
+          this.resources.getDrainExecutor());
+      content.seal();
+      this.resources
+          .getReadTimeoutEstimator()
+          .record(
+              fetchRange.getLength(),
+              firstByteAtNanos - this.fetchIssuedAtNanos,
+              System.nanoTime() - firstByteAtNanos);
+      if (this.stalled) {
+        this.stalled = false;
+        this.resources.getStallDetector().recordRecovery(System.nanoTime() - this.stalledAtNanos);
+      }
+    } catch (IOException | TimeoutException | RuntimeException e) {
+      salvage(content);
+      throw e;
+    }
+    if (this.resources.getDiskCache() != null) {
+      spill(content);
+    }
+    return content;
+  }
+
+  /** Records that a response of this block stalled, unless an earlier one already did. */
+  private void recordStall() {
+    if (!this.stalled) {
+      this.stalledAtNanos = System.nanoTime();
+      this.stalled = true;
+    }
+  }
+
+  /**
+   * Reads the data of the block from the disk cache into a buffer. The file is local, so it is read
+   * on the calling thread rather than handed to another drain thread.
+   *
+   * @param objectContent a stream over the cached data
+   * @param filling completed with the buffer once the data starts landing in it
+   * @return a sealed buffer holding the data of the block
+   */
+  private BlockBuffer readFromDisk(
+      ObjectContent objectContent, CompletableFuture<FillableBlockBuffer> filling)
+      throws IOException {
+    FillableBlockBuffer content = startFilling(objectContent, filling);
+    try (InputStream inStream = objectContent.getStream()) {
+      OutputStream outStream = content.writer();
+      byte[] chunk = new byte[DISK_READ_CHUNK_SIZE];
+      int numBytesRead;
+      while ((numBytesRead = inStream.read(chunk, 0, chunk.length)) != -1) {
+        outStream.write(chunk, 0, numBytesRead);
+      }
+      if (content.length() != this.range.getLength()) {
+        throw new IOException("Cached block data is incomplete");
+      }
+      content.seal();
+      return content;
+    } catch (IOException | RuntimeException e) {
+      discard(content);
+      throw e;
+    }
+  }
+
+  /**
+   * Allocates the buffer the data of the block lands in and hands it to waiting readers.
+   *
+   * @param objectContent the data of the block, closed if no buffer can be allocated
+   * @param filling completed with the buffer
+   * @return the empty buffer
+   * @throws IOException if the buffer cannot be allocated or the block is closed
+   */
+  private FillableBlockBuffer startFilling(
+      ObjectContent objectContent, CompletableFuture<FillableBlockBuffer> filling)
+      throws IOException {
+    FillableBlockBuffer content;
+    try {
+      content = allocate();
+      adopt(content);
+    } catch (IOException e) {
+      objectContent.getStream().close();
+      throw e;
+    }
+    filling.complete(content);
+    return content;
+  }
+
+  /**
+   * Writes the data of this block to the disk cache on a drain thread, so that readers do not wait
+   * for the disk. The buffer is retained until the write is done.
+   *
+   * @param content a sealed buffer holding the data of the block
+   */
+  private void spill(BlockBuffer content) {
+    if (!content.retain()) {
+      return;
+    }
+    this.resources
+        .getDrainExecutor()
+        .submit(
+            () -> {
+              try {
+                this.resources.getDiskCache().put(this.objectKey, this.range, content);
+              } finally {
+                content.release();
+              }
+              return null;
+            },
+            this.readTimeout);
+  }
+
+  /**
+   * Allocates an empty buffer large enough for the data of this block.
+   *
+   * @return the buffer
+   * @throws IOException if off-heap storage could not be leased
+   */
+  private FillableBlockBuffer allocate() throws IOException {
+    SlabAllocator slabAllocator = this.resources.getSlabAllocator();
+    if (slabAllocator == null) {
+      return new HeapBlockBuffer((int) this.range.getLength());
+    }
+    return slabAllocator.lease((int) this.range.getLength(), this.readTimeout);
+  }
+
+  /**
+   * Takes ownership of the buffer the data of this block lands in and charges its capacity to the
+   * memory usage metric. The charge is absolute rather than incremental, so data landing again
+   * after a retry does not count twice. A buffer this block previously owned is sealed and
+   * released.
+   *
+   * @param newBuffer the buffer the data of this block lands in
+   * @throws IOException if the block is already closed, in which case the buffer is released
+   */
+  private synchronized void adopt(FillableBlockBuffer newBuffer) throws IOException {
+    if (closed) {
+      newBuffer.release();
+      throw new IOException("Block has been closed");
+    }
+    if (buffer != null) {
+      buffer.seal();
+      buffer.release();
+    }
+    buffer = newBuffer;
+    salvaged = null;
+
+    long delta = newBuffer.capacity() - chargedBytes;
+    chargedBytes = newBuffer.capacity();
+    if (delta != 0) {
+      this.metricsHandler.updateMetrics(MetricKey.MEMORY_USAGE, delta);
+    }
+  }
+
+  /**
+   * Gives up a buffer the data failed to land in. It is sealed, so that a timed out copy cannot
+   * write into storage that is handed out again, and released unless the block no longer owns it.
+   *
+   * @param failed the buffer the data failed to land in
+   */
+  private synchronized void discard(FillableBlockBuffer failed) {
+    failed.seal();
+    if (buffer == failed) {
+      buffer = null;
+      salvaged = null;
+      failed.release();
+      if (chargedBytes != 0) {
+        this.metricsHandler.updateMetrics(MetricKey.MEMORY_USAGE, -chargedBytes);
+        chargedBytes = 0;
+      }
+    }
+  }
+
+  /**
+   * Keeps the bytes a fetch from S3 landed before it failed, so that the next fetch only requests
+   * the rest of the block. The writer of the failed fetch is fenced off first, as it may still be
+   * running after a timeout. A buffer holding none of the data, or all of it, is discarded instead.
+   *
+   * @param failed the buffer the fetch failed to fill
+   */
+  private synchronized void salvage(FillableBlockBuffer failed) {
+    int landed = failed.fence();
+    if (buffer == failed && 0 < landed && landed < this.range.getLength()) {
+      salvaged = failed;
+    } else {
+      discard(failed);
+    }
+  }
+
+  /**
+   * Takes the buffer salvaged from a failed fetch, for the next fetch to resume filling.
+   *
+   * @return the salvaged buffer, or null if there is none
+   */
+  private synchronized FillableBlockBuffer takeSalvaged() {
+    FillableBlockBuffer resumed = salvaged;
+    salvaged = null;
+    return resumed;
+  }
+
+  /**
+   * Reports the bytes a fetch did not have to request again, as they were salvaged from a failed
+   * one.
+   *
+   * @param bytes the number of bytes salvaged
+   */
+  private void recordSalvaged(long bytes) {
+    this.metricsHandler.updateMetrics(MetricKey.BYTES_SALVAGED, bytes);
+    this.telemetry.measure(Metric.builder().name(METRIC_BYTES_SALVAGED).build(), bytes);
+  }
+
+  /**
+   * Acquires a reference to the buffer for the duration of a read.
+   *
+   * @param content the buffer to read from
+   * @return the buffer
+   * @throws IOException if the buffer has already been released because the block was closed
+   */
+  private static BlockBuffer retain(BlockBuffer content) throws IOException {
+    if (!content.retain()) {
+      throw new IOException("Block data has been released");
+    }
+    return content;
+  }
+
+  /** Releases the buffer and whatever this block has charged to the memory usage metric, once. */
+  private synchronized void releaseBuffer() {
+    closed = true;
+    salvaged = null;
+    if (buffer != null) {
+      buffer.seal();
+      buffer.release();
+      buffer = null;
+    }
+    if (chargedBytes != 0) {
+      this.metricsHandler.updateMetrics(MetricKey.MEMORY_USAGE, -chargedBytes);
+      chargedBytes = 0;
+    }
   }
 
   /** Closes the {@link Block} and frees up all resources it holds */
   @Override
   public void close() {
-    // Only the source needs to be canceled, the continuation will cancel on its own
+    // Only the source needs to be canceled, the continuation will cancel on its own. A request
+    // still waiting for a permit gives up its place in the queue.
+    if (this.permit != null) {
+      this.permit.cancel(false);
+    }
     this.source.cancel(false);
+    releaseBuffer();
   }
 }
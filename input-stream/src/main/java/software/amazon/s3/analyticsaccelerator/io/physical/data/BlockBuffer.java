@@ -0,0 +1,85 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Storage holding the bytes of a {@link Block} once they have been fetched.
+ *
+ * <p>Buffers are reference counted: the owning {@link Block} holds one reference, and readers
+ * {@link #retain()} the buffer for the duration of a read so that storage returned to a pool on
+ * {@link Block#close()} is never read after being handed out again.
+ */
+public interface BlockBuffer {
+
+  /**
+   * Returns the number of bytes held by the buffer.
+   *
+   * @return the number of bytes held by the buffer
+   */
+  int length();
+
+  /**
+   * Reads a byte from the buffer.
+   *
+   * @param offset the offset of the byte in the buffer
+   * @return an unsigned int representing the byte that was read
+   */
+  int get(int offset);
+
+  /**
+   * Copies bytes from the buffer into the provided array.
+   *
+   * @param offset the offset in the buffer to start copying from
+   * @param buf the array to copy into
+   * @param off the position in the array at which data is written
+   * @param len the number of bytes to copy
+   */
+  void get(int offset, byte[] buf, int off, int len);
+
+  /**
+   * Copies bytes from the buffer into the provided {@link ByteBuffer}, starting at its current
+   * position and advancing it. The destination may be a heap or a direct buffer.
+   *
+   * @param offset the offset in the buffer to start copying from
+   * @param dest the buffer to copy into
+   * @param len the number of bytes to copy
+   */
+  void get(int offset, ByteBuffer dest, int len);
+
+  /**
+   * Returns a read-only view of a range of the buffer without copying it. Only buffers whose
+   * storage stays valid after they are released can be sliced, as the slice is not reference
+   * counted.
+   *
+   * @param offset the offset in the buffer the slice starts at
+   * @param len the length of the slice
+   * @return a read-only view of the range, or empty if the buffer cannot be sliced
+   */
+  Optional<ByteBuffer> slice(int offset, int len);
+
+  /**
+   * Acquires a reference to the buffer.
+   *
+   * @return true if the reference was acquired, false if the buffer was already released
+   */
+  boolean retain();
+
+  /** Releases a reference to the buffer, freeing its storage when no references are left. */
+  void release();
+}
@@ -17,17 +17,27 @@ package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import lombok.NonNull;
 import software.amazon.s3.analyticsaccelerator.common.Metrics;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.AccessPattern;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.AccessPatternDetector;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.AdaptiveReadProgression;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.ReadAheadWindows;
 import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.SequentialPatternDetector;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.SequentialProgressionMode;
 import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.SequentialReadProgression;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.StreamPrefetchState;
 import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
 import software.amazon.s3.analyticsaccelerator.request.Range;
@@ -38,7 +48,24 @@ import software.amazon.s3.analyticsaccelerator.util.MetricKey;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.StreamAttributes;
 
-/** Implements a Block Manager responsible for planning and scheduling reads on a key. */
+/**
+ * Implements a Block Manager responsible for planning and scheduling reads on a key.
+ *
+ * <p>The blocks of the key are guarded by a read/write lock. Lookups of blocks and of ranges which
+ * are already available only take the read lock, so readers of the same key served from the blocks
+ * it already holds do not wait for each other. Planning reads, creating blocks and evicting them
+ * take the write lock.
+ *
+ * <p>Reads continuing the bytes held by a block are prefetched ahead, following the sequential read
+ * progression. The {@link AccessPatternDetector} also recognizes other patterns from the last reads
+ * of the stream: backward reads are prefetched behind, strided reads a few strides ahead, and each
+ * of several forward cursors ahead of itself. Each stream passes its own {@link
+ * StreamPrefetchState}, reads made without one share the state of the block manager.
+ *
+ * <p>With read-ahead on, a forward sequential read starts the {@link ReadAheadWindows} of its
+ * stream instead of following the progression, and the windows after it are fetched asynchronously
+ * as the reader moves through them.
+ */
 public class BlockManager implements Closeable {
   private final ObjectKey objectKey;
   private final ObjectMetadata metadata;
@@ -46,6 +73,8 @@ public class BlockManager implements Closeable {
   private final ObjectClient objectClient;
   private final Telemetry telemetry;
   private final SequentialPatternDetector patternDetector;
+  // The prefetching state of reads made without a stream of their own
+  private final StreamPrefetchState defaultPrefetchState;
   private final SequentialReadProgression sequentialReadProgression;
   private final IOPlanner ioPlanner;
   private final PhysicalIOConfiguration configuration;
@@ -53,7 +82,13 @@ public class BlockManager implements Closeable {
   private StreamContext streamContext;
   private final Metrics blobMetrics;
   private final BlockMetricsHandler metricsHandler;
+  private final BlockResources resources;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
   private static final String OPERATION_MAKE_RANGE_AVAILABLE = "block.manager.make.range.available";
+  private static final String METRIC_COALESCE_REQUESTS_SAVED = "range.coalesce.requests.saved";
+  private static final String METRIC_COALESCE_BYTES_OVER_READ = "range.coalesce.bytes.overread";
+  // How many strides ahead of a strided read are prefetched
+  private static final int STRIDES_AHEAD = 4;
 
   /**
    * Constructs a new BlockManager.
@@ -94,6 +129,38 @@ public class BlockManager implements Closeable {
       @NonNull PhysicalIOConfiguration configuration,
       @NonNull Metrics aggregatingMetrics,
       StreamContext streamContext) {
+    this(
+        objectKey,
+        objectClient,
+        metadata,
+        telemetry,
+        configuration,
+        aggregatingMetrics,
+        streamContext,
+        BlockResources.DEFAULT);
+  }
+
+  /**
+   * Constructs a new BlockManager.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param objectClient object client capable of interacting with the underlying object store
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @param metadata the metadata for the object
+   * @param configuration the physicalIO configuration
+   * @param aggregatingMetrics factory metrics
+   * @param streamContext contains audit headers to be attached in the request header
+   * @param resources resources shared by the blocks of all blobs
+   */
+  public BlockManager(
+      @NonNull ObjectKey objectKey,
+      @NonNull ObjectClient objectClient,
+      @NonNull ObjectMetadata metadata,
+      @NonNull Telemetry telemetry,
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull Metrics aggregatingMetrics,
+      StreamContext streamContext,
+      @NonNull BlockResources resources) {
     this.objectKey = objectKey;
     this.objectClient = objectClient;
     this.metadata = metadata;
@@ -101,12 +168,21 @@ public class BlockManager implements Closeable {
     this.configuration = configuration;
     this.blobMetrics = new Metrics();
     this.metricsHandler = new BlockMetricsHandler(blobMetrics, aggregatingMetrics);
-    this.blockStore = new BlockStore(objectKey, metadata, metricsHandler);
+    this.blockStore =
+        new BlockStore(
+            objectKey, metadata, metricsHandler, configuration.getBlobMemoryCapacityBytes());
     this.patternDetector = new SequentialPatternDetector(blockStore);
-    this.sequentialReadProgression = new SequentialReadProgression(configuration);
-    this.ioPlanner = new IOPlanner(blockStore);
+    this.defaultPrefetchState = new StreamPrefetchState(configuration, telemetry);
+    this.sequentialReadProgression =
+        configuration.getSequentialProgressionMode() == SequentialProgressionMode.ADAPTIVE
+            ? new AdaptiveReadProgression(configuration, resources.getReadTimeoutEstimator())
+            : new SequentialReadProgression(configuration);
+    this.ioPlanner =
+        new IOPlanner(
+            blockStore, configuration.isAlignToBlockSize() ? configuration.getBlockSizeBytes() : 0);
     this.rangeOptimiser = new RangeOptimiser(configuration);
     this.streamContext = streamContext;
+    this.resources = resources;
   }
 
   /**
@@ -124,8 +200,115 @@ public class BlockManager implements Closeable {
    * @param pos the position of a byte
    * @return the Block holding the byte or empty if the byte is not in the BlockStore
    */
-  public synchronized Optional<Block> getBlock(long pos) {
-    return this.blockStore.getBlock(pos);
+  public Optional<Block> getBlock(long pos) {
+    lock.readLock().lock();
+    try {
+      return this.blockStore.getBlock(pos);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Given the position of a byte, return the block holding it. If the block has been evicted since
+   * the range was made available, the range is fetched again.
+   *
+   * @param pos the position of a byte
+   * @param len the length of the read the byte is the start of
+   * @return the Block holding the byte
+   * @throws IOException if an I/O error occurs
+   */
+  public Block getOrFetchBlock(long pos, long len) throws IOException {
+    return getOrFetchBlock(pos, len, false, defaultPrefetchState);
+  }
+
+  /**
+   * Reads from the block holding the byte at a given position, fetching it again if it has been
+   * evicted. The block is pinned for the duration of the read, so that a concurrent reader making
+   * another range available cannot evict and close it under this one. Reads of windows fetched
+   * ahead of the reader are recorded, along with whether they had to wait for S3.
+   *
+   * @param pos the position of a byte
+   * @param len the length of the read the byte is the start of
+   * @param read the read to run on the block
+   * @return the result of the read
+   * @param <T> the type of the result of the read
+   * @throws IOException if an I/O error occurs
+   */
+  public <T> T readBlock(long pos, long len, BlockRead<T> read) throws IOException {
+    return readBlock(pos, len, defaultPrefetchState, read);
+  }
+
+  /**
+   * Reads from the block holding the byte at a given position on behalf of a stream, as {@link
+   * #readBlock(long, long, BlockRead)} does.
+   *
+   * @param pos the position of a byte
+   * @param len the length of the read the byte is the start of
+   * @param prefetchState the prefetching state of the stream reading
+   * @param read the read to run on the block
+   * @return the result of the read
+   * @param <T> the type of the result of the read
+   * @throws IOException if an I/O error occurs
+   */
+  public <T> T readBlock(
+      long pos, long len, @NonNull StreamPrefetchState prefetchState, BlockRead<T> read)
+      throws IOException {
+    Block block = getOrFetchBlock(pos, len, true, prefetchState);
+    long s3Waits = block.getS3Waits();
+    try {
+      return read.apply(block);
+    } finally {
+      block.unpin();
+      ReadAheadWindows readAheadWindows = prefetchState.getReadAheadWindows();
+      if (readAheadWindows.isFetchedAhead(pos)) {
+        // A window is read by the one reader it is fetched ahead of, so the waits are its own
+        readAheadWindows.recordRead(block.getS3Waits() > s3Waits);
+      }
+    }
+  }
+
+  private Block getOrFetchBlock(
+      long pos, long len, boolean pin, StreamPrefetchState prefetchState) throws IOException {
+    // The block is pinned under the lock, as eviction only happens under the write lock
+    lock.readLock().lock();
+    try {
+      Optional<Block> block = this.blockStore.getBlock(pos);
+      if (block.isPresent()) {
+        return pinIf(block.get(), pin);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    lock.writeLock().lock();
+    try {
+      // The read was recorded when its range was first made available
+      makeRangeAvailable(
+          pos,
+          Math.max(1, len),
+          ReadMode.SYNC,
+          AccessPatternDetector.Detection.RANDOM,
+          prefetchState);
+      Block block =
+          this.blockStore
+              .getBlock(pos)
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          String.format(
+                              "This block (for position %s) should have been available.", pos)));
+      return pinIf(block, pin);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static Block pinIf(Block block, boolean pin) {
+    if (pin) {
+      block.pin();
+    }
+    return block;
   }
 
   /**
@@ -135,21 +318,38 @@ public class BlockManager implements Closeable {
    * @param readMode whether this ask corresponds to a sync or async read
    * @throws IOException if an I/O error occurs
    */
-  public synchronized void makePositionAvailable(long pos, ReadMode readMode) throws IOException {
-    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+  public void makePositionAvailable(long pos, ReadMode readMode) throws IOException {
+    makePositionAvailable(pos, readMode, defaultPrefetchState);
+  }
 
-    // Position is already available --> return corresponding block
-    if (getBlock(pos).isPresent()) {
-      return;
-    }
+  /**
+   * Make sure that the byte at a given position is in the BlockStore, on behalf of a stream. The
+   * read is recorded even if the byte is already available, as it is still part of the pattern of
+   * the stream.
+   *
+   * @param pos the position of the byte
+   * @param readMode whether this ask corresponds to a sync or async read
+   * @param prefetchState the prefetching state of the stream reading
+   * @throws IOException if an I/O error occurs
+   */
+  public void makePositionAvailable(
+      long pos, ReadMode readMode, @NonNull StreamPrefetchState prefetchState)
+      throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
 
-    makeRangeAvailable(pos, 1, readMode);
+    makeRangeAvailable(pos, 1, readMode, prefetchState);
   }
 
   private boolean isRangeAvailable(long pos, long len) throws IOException {
-    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
-    Preconditions.checkArgument(0 <= len, "`len` must not be negative");
+    lock.readLock().lock();
+    try {
+      return isRangeAvailableLocked(pos, len);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
 
+  private boolean isRangeAvailableLocked(long pos, long len) throws IOException {
     long lastByteOfRange = pos + len - 1;
 
     OptionalLong nextMissingByte = blockStore.findNextMissingByte(pos);
@@ -161,6 +361,30 @@ public class BlockManager implements Closeable {
     return true;
   }
 
+  /**
+   * Makes the ranges of an IOPlan available, as {@link #makeRangeAvailable} does for each of them.
+   * Ranges separated by small gaps are coalesced first, so that they are fetched in fewer
+   * requests; the requests saved and the bytes read in the gaps are reported as metrics.
+   *
+   * @param ranges the ranges to make available
+   * @param readMode whether this ask corresponds to a sync or async read
+   * @throws IOException if an I/O error occurs
+   */
+  public void makeRangesAvailable(@NonNull List<Range> ranges, ReadMode readMode)
+      throws IOException {
+    List<Range> coalesced = rangeOptimiser.coalesceRanges(ranges);
+    if (coalesced.size() < ranges.size()) {
+      measure(METRIC_COALESCE_REQUESTS_SAVED, ranges.size() - coalesced.size());
+      measure(
+          METRIC_COALESCE_BYTES_OVER_READ,
+          RangeOptimiser.coveredBytes(coalesced) - RangeOptimiser.coveredBytes(ranges));
+    }
+
+    for (Range range : coalesced) {
+      makeRangeAvailable(range.getStart(), range.getLength(), readMode);
+    }
+  }
+
   /**
    * Method that ensures that a range is fully available in the object store. After calling this
    * method the BlockStore should contain all bytes in the range and we should be able to service a
@@ -171,35 +395,169 @@ public class BlockManager implements Closeable {
    * @param readMode whether this ask corresponds to a sync or async read
    * @throws IOException if an I/O error occurs
    */
-  public synchronized void makeRangeAvailable(long pos, long len, ReadMode readMode)
+  public void makeRangeAvailable(long pos, long len, ReadMode readMode) throws IOException {
+    makeRangeAvailable(pos, len, readMode, defaultPrefetchState);
+  }
+
+  /**
+   * Makes a range available on behalf of a stream, as {@link #makeRangeAvailable(long, long,
+   * ReadMode)} does. The read is recorded in the access pattern of the stream.
+   *
+   * @param pos start of a read
+   * @param len length of the read
+   * @param readMode whether this ask corresponds to a sync or async read
+   * @param prefetchState the prefetching state of the stream reading
+   * @throws IOException if an I/O error occurs
+   */
+  public void makeRangeAvailable(
+      long pos, long len, ReadMode readMode, @NonNull StreamPrefetchState prefetchState)
       throws IOException {
     Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
     Preconditions.checkArgument(0 <= len, "`len` must not be negative");
 
+    // Only the reads of the stream tell its access pattern, not the prefetches of the logical IO
+    AccessPatternDetector.Detection detection =
+        readMode == ReadMode.ASYNC
+            ? AccessPatternDetector.Detection.RANDOM
+            : prefetchState.getAccessPatternDetector().recordRead(pos, len);
+    makeRangeAvailable(pos, len, readMode, detection, prefetchState);
+
+    ReadAheadWindows readAheadWindows = prefetchState.getReadAheadWindows();
+    if (readMode != ReadMode.ASYNC && readAheadWindows.isEnabled()) {
+      for (Range window : readAheadWindows.advance(pos, len, getLastObjectByte())) {
+        makeRangeAvailable(
+            window.getStart(),
+            window.getLength(),
+            ReadMode.ASYNC,
+            AccessPatternDetector.Detection.RANDOM,
+            prefetchState);
+      }
+    }
+  }
+
+  /**
+   * Returns the prefetching state of the reads of the key made without a stream of their own.
+   *
+   * @return the default prefetching state
+   */
+  public StreamPrefetchState getDefaultPrefetchState() {
+    return defaultPrefetchState;
+  }
+
+  /**
+   * Returns the detector of the access pattern of the reads of the key made without a stream of
+   * their own.
+   *
+   * @return the access pattern detector
+   */
+  public AccessPatternDetector getAccessPatternDetector() {
+    return defaultPrefetchState.getAccessPatternDetector();
+  }
+
+  /**
+   * Returns the read-ahead windows of the sequential reads of the key made without a stream of
+   * their own.
+   *
+   * @return the read-ahead windows
+   */
+  public ReadAheadWindows getReadAheadWindows() {
+    return defaultPrefetchState.getReadAheadWindows();
+  }
+
+  private void makeRangeAvailable(
+      long pos,
+      long len,
+      ReadMode readMode,
+      AccessPatternDetector.Detection detection,
+      StreamPrefetchState prefetchState)
+      throws IOException {
     if (isRangeAvailable(pos, len)) {
       return;
     }
 
+    lock.writeLock().lock();
+    try {
+      // Another thread may have made the range available while this one waited for the lock
+      if (isRangeAvailableLocked(pos, len)) {
+        return;
+      }
+      planAndFetchRange(pos, len, readMode, detection, prefetchState);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void planAndFetchRange(
+      long pos,
+      long len,
+      ReadMode readMode,
+      AccessPatternDetector.Detection detection,
+      StreamPrefetchState prefetchState)
+      throws IOException {
     // In case of a sequential reading pattern, calculate the generation and adjust the requested
-    // effectiveEnd of the requested range
+    // effectiveEnd of the requested range. Backward reads move effectiveStart back instead, and
+    // strided reads add the next strides to the ranges fetched
+    long effectiveStart = pos;
     long effectiveEnd = pos + Math.max(len, configuration.getReadAheadBytes()) - 1;
+    List<Range> strides = new ArrayList<>();
 
     // Check sequential prefetching. If read mode is ASYNC, that is the request is from the parquet
     // prefetch path, then do not extend the request.
     // TODO: Improve readModes, as tracked in
     // https://github.com/awslabs/analytics-accelerator-s3/issues/195
+    final ReadAheadWindows readAheadWindows = prefetchState.getReadAheadWindows();
     final long generation;
+    final AccessPattern pattern;
+    boolean startsReadAhead = false;
     if (readMode != ReadMode.ASYNC && patternDetector.isSequentialRead(pos)) {
       generation = patternDetector.getGeneration(pos);
-      effectiveEnd =
-          Math.max(
-              effectiveEnd,
-              truncatePos(pos + sequentialReadProgression.getSizeForGeneration(generation)));
+      pattern =
+          detection.getPattern() == AccessPattern.MULTI_CURSOR
+              ? AccessPattern.MULTI_CURSOR
+              : AccessPattern.FORWARD;
+      // Windows follow a single reader, interleaved cursors keep to the progression
+      startsReadAhead = readAheadWindows.isEnabled() && pattern == AccessPattern.FORWARD;
+      long sequentialEnd =
+          startsReadAhead
+              ? pos + readAheadWindows.getWindowBytes() - 1
+              : pos + sequentialReadProgression.getSizeForRead(pos, generation);
+      effectiveEnd = Math.max(effectiveEnd, truncatePos(sequentialEnd));
     } else {
-      generation = 0;
+      pattern = detection.getPattern();
+      switch (pattern) {
+        case FORWARD:
+        case MULTI_CURSOR:
+          // The blocks this read continues were evicted, the detector still knows its generation
+          generation = detection.getSteps();
+          effectiveEnd =
+              Math.max(
+                  effectiveEnd,
+                  truncatePos(pos + sequentialReadProgression.getSizeForRead(pos, generation)));
+          break;
+        case BACKWARD:
+          generation = detection.getSteps();
+          long size = sequentialReadProgression.getSizeForGeneration(generation);
+          effectiveEnd = truncatePos(pos + Math.max(len, 1) - 1);
+          effectiveStart = Math.max(0, Math.min(pos, effectiveEnd + 1 - size));
+          break;
+        case STRIDED:
+          generation = 0;
+          for (int i = 1; i <= STRIDES_AHEAD; i++) {
+            long start = pos + i * detection.getStride();
+            if (start < 0 || start > getLastObjectByte()) {
+              break;
+            }
+            strides.add(new Range(start, truncatePos(start + Math.max(len, 1) - 1)));
+          }
+          break;
+        default:
+          generation = 0;
+          break;
+      }
     }
 
-    // Fix "effectiveEnd", so we can pass it into the lambda
+    // Fix "effectiveStart" and "effectiveEnd", so we can pass them into the lambda
+    final long effectiveStartFinal = effectiveStart;
     final long effectiveEndFinal = effectiveEnd;
     this.telemetry.measureStandard(
         () ->
@@ -208,31 +566,59 @@ public class BlockManager implements Closeable {
                 .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
                 .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
                 .attribute(StreamAttributes.range(pos, pos + len - 1))
-                .attribute(StreamAttributes.effectiveRange(pos, effectiveEndFinal))
+                .attribute(StreamAttributes.effectiveRange(effectiveStartFinal, effectiveEndFinal))
                 .attribute(StreamAttributes.generation(generation))
                 .build(),
         () -> {
           // Determine the missing ranges and fetch them
-          List<Range> missingRanges =
-              ioPlanner.planRead(pos, effectiveEndFinal, getLastObjectByte());
-          List<Range> splits = rangeOptimiser.splitRanges(missingRanges);
-          for (Range r : splits) {
-            Block block =
-                new Block(
-                    objectKey,
-                    objectClient,
-                    telemetry,
-                    r.getStart(),
-                    r.getEnd(),
-                    generation,
-                    readMode,
-                    this.configuration.getBlockReadTimeout(),
-                    this.configuration.getBlockReadRetryCount(),
-                    metricsHandler,
-                    streamContext);
-            blockStore.add(block);
+          fetchMissingRanges(effectiveStartFinal, effectiveEndFinal, generation, readMode);
+          long protectedStart = effectiveStartFinal;
+          long protectedEnd = effectiveEndFinal;
+          // The next strides are speculative, they are fetched as prefetches
+          for (Range stride : strides) {
+            fetchMissingRanges(stride.getStart(), stride.getEnd(), 0, ReadMode.ASYNC);
+            protectedStart = Math.min(protectedStart, stride.getStart());
+            protectedEnd = Math.max(protectedEnd, stride.getEnd());
           }
+          blockStore.evictToCapacity(protectedStart, protectedEnd);
         });
+
+    if (startsReadAhead) {
+      readAheadWindows.start(effectiveStart, effectiveEnd);
+    }
+
+    if (pattern != AccessPattern.RANDOM) {
+      AccessPatternDetector accessPatternDetector = prefetchState.getAccessPatternDetector();
+      if (strides.isEmpty()) {
+        accessPatternDetector.recordPrefetch(pattern, effectiveStart, effectiveEnd);
+      }
+      for (Range stride : strides) {
+        accessPatternDetector.recordPrefetch(pattern, stride.getStart(), stride.getEnd());
+      }
+    }
+  }
+
+  private void fetchMissingRanges(long start, long end, long generation, ReadMode readMode)
+      throws IOException {
+    List<Range> missingRanges = ioPlanner.planRead(start, end, getLastObjectByte());
+    List<Range> splits = rangeOptimiser.splitRanges(missingRanges);
+    for (Range r : splits) {
+      Block block =
+          new Block(
+              objectKey,
+              objectClient,
+              telemetry,
+              r.getStart(),
+              r.getEnd(),
+              generation,
+              readMode,
+              this.configuration.getBlockReadTimeout(),
+              this.configuration.getBlockReadRetryCount(),
+              metricsHandler,
+              streamContext,
+              resources);
+      blockStore.add(block);
+    }
   }
 
   /*private void updateMetricsCallback(MetricKey metricKey, long value) {
@@ -242,6 +628,10 @@ public class BlockManager implements Closeable {
     aggregatingMetrics.add(metricKey, value);
   }*/
 
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
   private long getLastObjectByte() {
     return this.metadata.getContentLength() - 1;
   }
@@ -255,6 +645,28 @@ public class BlockManager implements Closeable {
   /** Closes the {@link BlockManager} and frees up all resources it holds */
   @Override
   public void close() {
-    blockStore.close();
+    lock.writeLock().lock();
+    try {
+      blockStore.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * A read of a pinned block
+   *
+   * @param <T> the type of the result of the read
+   */
+  @FunctionalInterface
+  public interface BlockRead<T> {
+    /**
+     * Reads from the block.
+     *
+     * @param block the block to read from
+     * @return the result of the read
+     * @throws IOException if an I/O error occurs
+     */
+    T apply(Block block) throws IOException;
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
+
+/**
+ * Resources shared by all the blocks of a {@link BlobStore}, which blocks use to fetch and hold
+ * their data.
+ */
+@Value
+@Builder
+public class BlockResources {
+  /** Allocator to store block data off-heap with, or null to store it on-heap */
+  SlabAllocator slabAllocator;
+
+  /** Local disk cache to serve block data from and spill it to, or null to only use S3 */
+  DiskBlockCache diskCache;
+
+  /** Executor draining GET responses into blocks */
+  @NonNull @Builder.Default StreamDrainExecutor drainExecutor = StreamDrainExecutor.getDefault();
+
+  /** Scheduler bounding the number of GET requests blocks have in flight */
+  @NonNull @Builder.Default RequestScheduler requestScheduler = RequestScheduler.UNBOUNDED;
+
+  /** Hedger issuing a second GET request when the first is slow to respond */
+  @NonNull @Builder.Default RequestHedger requestHedger = RequestHedger.DISABLED;
+
+  /** Estimator of the timeout of each block read from S3 */
+  @NonNull @Builder.Default
+  ReadTimeoutEstimator readTimeoutEstimator = ReadTimeoutEstimator.FIXED;
+
+  /** Policy deciding whether and when failed block reads are retried */
+  @NonNull @Builder.Default RetryPolicy retryPolicy = RetryPolicy.IMMEDIATE;
+
+  /** Detector aborting GET responses which stall */
+  @NonNull @Builder.Default StallDetector stallDetector = StallDetector.DISABLED;
+
+  /**
+   * Resources storing data on-heap, draining it on the process-wide executor, neither bounding nor
+   * hedging requests, using the fixed read timeout of each block, retrying reads immediately and
+   * never aborting stalled responses
+   */
+  public static final BlockResources DEFAULT = BlockResources.builder().build();
+}
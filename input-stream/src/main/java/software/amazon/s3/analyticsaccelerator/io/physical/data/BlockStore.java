@@ -17,10 +17,15 @@ package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
@@ -29,15 +34,38 @@ import software.amazon.s3.analyticsaccelerator.util.BlockMetricsHandler;
 import software.amazon.s3.analyticsaccelerator.util.MetricKey;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 
-/** A BlockStore, which is a collection of Blocks. */
+/**
+ * A BlockStore, which is a collection of Blocks.
+ *
+ * <p>Blocks are indexed by their start position in a {@link NavigableMap}. Blocks in the store
+ * never overlap (this is guaranteed by {@link IOPlanner}), so the block holding a byte, if any, is
+ * always the one with the greatest start position less than or equal to that byte. This makes
+ * lookups and gap finding logarithmic in the number of blocks rather than linear.
+ *
+ * <p>The store can be given a memory capacity, in which case blocks are evicted once the blocks it
+ * holds exceed it. Blocks readers have read to the end are evicted first. After that, victims are
+ * chosen with the CLOCK algorithm: a hand sweeps the blocks in position order, giving blocks that
+ * were used since it last passed a second chance. Blocks overlapping the range being made available
+ * and blocks {@link Block#pin() pinned} by a read in progress are never evicted, and evicted blocks
+ * are fetched again if their range is read.
+ *
+ * <p>The store is not synchronized: lookups may run concurrently with each other, but not with
+ * changes to the blocks it holds. {@link BlockManager} guards it with a read/write lock.
+ */
 public class BlockStore implements Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(BlockStore.class);
 
   private final ObjectKey s3URI;
   private final ObjectMetadata metadata;
-  private final List<Block> blocks;
+  private final NavigableMap<Long, Block> blocks;
   private final BlockMetricsHandler metricsHandler;
+  private final long memoryCapacityBytes;
+  // Blocks used since the clock hand last passed them. Blocks compare by identity, and lookups
+  // running concurrently under a read lock add to the set.
+  private final Set<Block> referenced = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private long clockHand;
+  private long heldBytes;
 
   /**
    * Constructs a new instance of a BlockStore.
@@ -48,13 +76,34 @@ public class BlockStore implements Closeable {
    */
   public BlockStore(
       ObjectKey objectKey, ObjectMetadata metadata, BlockMetricsHandler metricsHandler) {
+    this(objectKey, metadata, metricsHandler, 0);
+  }
+
+  /**
+   * Constructs a new instance of a BlockStore.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param metadata the metadata for the object
+   * @param metricsHandler callback to update metrics
+   * @param memoryCapacityBytes the maximum number of bytes held by the blocks, or 0 for no limit
+   */
+  public BlockStore(
+      ObjectKey objectKey,
+      ObjectMetadata metadata,
+      BlockMetricsHandler metricsHandler,
+      long memoryCapacityBytes) {
     Preconditions.checkNotNull(objectKey, "`objectKey` must not be null");
     Preconditions.checkNotNull(metadata, "`metadata` must not be null");
+    Preconditions.checkArgument(
+        memoryCapacityBytes >= 0,
+        "`memoryCapacityBytes` must not be negative; was: %s",
+        memoryCapacityBytes);
 
     this.s3URI = objectKey;
     this.metadata = metadata;
-    this.blocks = new LinkedList<>();
+    this.blocks = new TreeMap<>();
     this.metricsHandler = metricsHandler;
+    this.memoryCapacityBytes = memoryCapacityBytes;
   }
 
   /**
@@ -67,8 +116,9 @@ public class BlockStore implements Closeable {
   public Optional<Block> getBlock(long pos) {
     Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
 
-    Optional<Block> block = blocks.stream().filter(b -> b.contains(pos)).findFirst();
+    Optional<Block> block = findBlock(pos);
     if (block.isPresent()) {
+      referenced.add(block.get());
       metricsHandler.updateMetrics(MetricKey.CACHE_HIT, 1L);
     } else {
       metricsHandler.updateMetrics(MetricKey.CACHE_MISS, 1L);
@@ -91,7 +141,8 @@ public class BlockStore implements Closeable {
       return OptionalLong.of(pos);
     }
 
-    return blocks.stream().mapToLong(Block::getStart).filter(startPos -> pos < startPos).min();
+    Long nextStart = blocks.higherKey(pos);
+    return nextStart == null ? OptionalLong.empty() : OptionalLong.of(nextStart);
   }
 
   /**
@@ -118,14 +169,140 @@ public class BlockStore implements Closeable {
   }
 
   /**
-   * Add a Block to the BlockStore.
+   * Add a Block to the BlockStore. If a block starting at the same position is already present, it
+   * is replaced and closed.
    *
    * @param block the block to add to the BlockStore
    */
   public void add(Block block) {
     Preconditions.checkNotNull(block, "`block` must not be null");
 
-    this.blocks.add(block);
+    Block replaced = this.blocks.put(block.getStart(), block);
+    if (replaced == block) {
+      return;
+    }
+    if (replaced != null) {
+      forget(replaced);
+      safeClose(replaced);
+    }
+    heldBytes += length(block);
+    referenced.add(block);
+  }
+
+  /**
+   * Evicts blocks until the blocks held fit into the memory capacity of the store. Blocks
+   * overlapping the given range and pinned blocks are kept, even if this leaves the store over its
+   * capacity.
+   *
+   * @param protectedStart the first byte of the range whose blocks must be kept
+   * @param protectedEnd the last byte of the range whose blocks must be kept
+   * @return the number of blocks evicted
+   */
+  public int evictToCapacity(long protectedStart, long protectedEnd) {
+    if (memoryCapacityBytes == 0) {
+      return 0;
+    }
+
+    int evicted = 0;
+    // Blocks which have been read to the end go first, they are the least likely to be read again
+    Iterator<Block> iterator = blocks.values().iterator();
+    while (heldBytes > memoryCapacityBytes && iterator.hasNext()) {
+      Block block = iterator.next();
+      if (block.isConsumed() && isEvictable(block, protectedStart, protectedEnd)) {
+        iterator.remove();
+        evict(block);
+        evicted++;
+      }
+    }
+
+    Block victim;
+    while (heldBytes > memoryCapacityBytes
+        && (victim = nextClockVictim(protectedStart, protectedEnd)) != null) {
+      blocks.remove(victim.getStart());
+      evict(victim);
+      evicted++;
+    }
+    return evicted;
+  }
+
+  /**
+   * Returns the number of bytes held by the blocks of the store.
+   *
+   * @return the number of bytes held by the blocks
+   */
+  public long getHeldBytes() {
+    return heldBytes;
+  }
+
+  /**
+   * Returns the number of blocks currently held by the BlockStore.
+   *
+   * @return the number of blocks
+   */
+  public int size() {
+    return this.blocks.size();
+  }
+
+  private Optional<Block> findBlock(long pos) {
+    Map.Entry<Long, Block> candidate = blocks.floorEntry(pos);
+    if (candidate != null && candidate.getValue().contains(pos)) {
+      return Optional.of(candidate.getValue());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Advances the clock hand to the next block which was not used since the hand last passed it,
+   * clearing the reference of every block passed on the way.
+   *
+   * @return the block to evict, or null if every block is protected
+   */
+  private Block nextClockVictim(long protectedStart, long protectedEnd) {
+    // Two laps are enough: the first one clears all references
+    int remaining = 2 * blocks.size();
+    Map.Entry<Long, Block> entry = blocks.ceilingEntry(clockHand);
+    while (remaining-- > 0) {
+      if (entry == null) {
+        entry = blocks.firstEntry();
+      }
+      Block block = entry.getValue();
+      boolean wasReferenced = referenced.remove(block);
+      if (!wasReferenced && isEvictable(block, protectedStart, protectedEnd)) {
+        clockHand = block.getEnd() + 1;
+        return block;
+      }
+      entry = blocks.higherEntry(entry.getKey());
+    }
+    return null;
+  }
+
+  private static long length(Block block) {
+    return block.getEnd() - block.getStart() + 1;
+  }
+
+  private static boolean isEvictable(Block block, long protectedStart, long protectedEnd) {
+    return !block.isPinned() && !overlaps(block, protectedStart, protectedEnd);
+  }
+
+  private static boolean overlaps(Block block, long start, long end) {
+    return block.getStart() <= end && start <= block.getEnd();
+  }
+
+  private void evict(Block block) {
+    LOG.debug(
+        "Evicting block {}-{} of {} to stay within {} bytes",
+        block.getStart(),
+        block.getEnd(),
+        s3URI.getS3URI(),
+        memoryCapacityBytes);
+    forget(block);
+    safeClose(block);
+    metricsHandler.updateMetrics(MetricKey.BLOCK_EVICTION, 1L);
+  }
+
+  private void forget(Block block) {
+    heldBytes -= length(block);
+    referenced.remove(block);
   }
 
   private long getLastObjectByte() {
@@ -142,6 +319,6 @@ public class BlockStore implements Closeable {
 
   @Override
   public void close() {
-    blocks.forEach(this::safeClose);
+    blocks.values().forEach(this::safeClose);
   }
 }
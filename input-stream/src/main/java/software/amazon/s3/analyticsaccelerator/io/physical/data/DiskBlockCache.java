@@ -0,0 +1,548 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+import software.amazon.s3.analyticsaccelerator.util.LocalFileUtils;
+import software.amazon.s3.analyticsaccelerator.util.MetricComputationUtils;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+
+/**
+ * A second-tier cache holding block data in files on local disk, so that data evicted from memory
+ * can be served again without a round trip to S3.
+ *
+ * <p>Each object has a directory named after a digest of its {@link ObjectKey}, holding one file
+ * per cached range, named after the range. Files are written under a temporary name and atomically
+ * renamed into place, so a file under a range name is always complete while the process runs. The
+ * directory is therefore the index: on start, it is scanned to recover the cached ranges, and
+ * temporary files left behind by a crash are deleted once they are old enough not to belong to a
+ * write still in progress in another process sharing the directory.
+ *
+ * <p>Files are not forced to disk, as that would cost a sync per block. Instead, each file ends
+ * with a checksum of its data. A range whose file does not have the length of the range is rejected
+ * on recovery, and a recovered range whose data does not match its checksum, as after a crash of
+ * the OS left part of it unwritten, is dropped the first time it is read.
+ *
+ * <p>The cache is bounded by the number of bytes it holds, evicting the least recently used ranges
+ * first. Lookups only consult the index held in memory; hits are served through positional {@link
+ * FileChannel} reads of a file that is only opened once it is first read.
+ */
+public class DiskBlockCache implements Closeable {
+  private final Path directory;
+  private final long capacityBytes;
+  private final Telemetry telemetry;
+
+  // All state below is guarded by `this`
+  private final Map<String, NavigableMap<Long, CachedRange>> index = new HashMap<>();
+  private final LinkedHashMap<Path, CachedRange> recency = new LinkedHashMap<>(16, 0.75f, true);
+  private long heldBytes;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong bytesFromDisk = new AtomicLong();
+  private final AtomicLong bytesFromS3 = new AtomicLong();
+
+  private static final String TEMP_FILE_PREFIX = "block";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final Pattern RANGE_FILE_NAME = Pattern.compile("(\\d+)-(\\d+)");
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int CHECKSUM_BYTES = Long.BYTES;
+  // Temporary files younger than this may belong to a write of another process in progress
+  private static final long TEMP_FILE_GRACE_MS = 10 * 60 * 1000;
+
+  private static final String METRIC_HELD_BYTES = "disk.cache.held.bytes";
+  private static final String METRIC_HIT_RATE = "disk.cache.hit.rate";
+  private static final String METRIC_BYTES_FROM_DISK = "disk.cache.bytes.disk";
+  private static final String METRIC_BYTES_FROM_S3 = "disk.cache.bytes.s3";
+
+  private static final Logger LOG = LoggerFactory.getLogger(DiskBlockCache.class);
+
+  /**
+   * Creates a new instance of {@link DiskBlockCache}, recovering the ranges already cached in the
+   * directory.
+   *
+   * @param directory the directory to hold the cached data in, created if it does not exist
+   * @param capacityBytes the maximum number of bytes held by the cache
+   * @param telemetry an instance of {@link Telemetry} to use
+   * @throws IOException if the directory cannot be created or scanned
+   */
+  public DiskBlockCache(@NonNull Path directory, long capacityBytes, @NonNull Telemetry telemetry)
+      throws IOException {
+    Preconditions.checkArgument(
+        capacityBytes > 0, "`capacityBytes` must be positive; was: %s", capacityBytes);
+
+    this.directory = directory;
+    this.capacityBytes = capacityBytes;
+    this.telemetry = telemetry;
+
+    Files.createDirectories(directory);
+    recover();
+  }
+
+  /**
+   * Looks up a cached range. Only a single file is consulted, the one holding the closest range
+   * starting at or before the requested one. The lookup does no I/O: the file is opened once the
+   * returned stream is first read, and a file that cannot be opened then is dropped from the cache
+   * and fails the read.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param range the range to read
+   * @return a stream over the range, or empty if the range is not cached
+   */
+  public Optional<ObjectContent> get(@NonNull ObjectKey objectKey, @NonNull Range range) {
+    CachedRange cached;
+    synchronized (this) {
+      cached = covering(LocalFileUtils.fileNameOf(objectKey), range);
+      if (cached != null) {
+        // Moves the range to the most recently used end
+        recency.put(cached.file, cached);
+      }
+    }
+
+    if (cached != null) {
+      hits.incrementAndGet();
+      bytesFromDisk.addAndGet(range.getLength());
+      recordUsage();
+      CachedRange opened = cached;
+      return Optional.of(
+          ObjectContent.builder()
+              .stream(
+                  new ChannelInputStream(
+                      cached,
+                      range.getStart() - cached.start,
+                      range.getLength(),
+                      () -> forget(opened)))
+              .build());
+    }
+
+    misses.incrementAndGet();
+    bytesFromS3.addAndGet(range.getLength());
+    recordUsage();
+    return Optional.empty();
+  }
+
+  /**
+   * Writes the data of a block to the cache, unless its range is already cached. Failures are
+   * logged rather than thrown, as the data can always be fetched from S3 again.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @param range the range of the block
+   * @param content a sealed buffer holding the data of the block
+   */
+  public void put(
+      @NonNull ObjectKey objectKey, @NonNull Range range, @NonNull BlockBuffer content) {
+    if (range.getLength() > capacityBytes || content.length() != range.getLength()) {
+      return;
+    }
+    String name = LocalFileUtils.fileNameOf(objectKey);
+    synchronized (this) {
+      if (covering(name, range) != null) {
+        return;
+      }
+    }
+
+    Path objectDirectory = directory.resolve(name);
+    Path temp = null;
+    try {
+      Files.createDirectories(objectDirectory);
+      temp = Files.createTempFile(objectDirectory, TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        CRC32 checksum = new CRC32();
+        int written = 0;
+        while (written < content.length()) {
+          int toWrite = Math.min(chunk.capacity(), content.length() - written);
+          chunk.clear();
+          content.get(written, chunk, toWrite);
+          chunk.flip();
+          checksum.update(chunk.array(), 0, toWrite);
+          while (chunk.hasRemaining()) {
+            channel.write(chunk);
+          }
+          written += toWrite;
+        }
+        chunk.clear();
+        chunk.putLong(checksum.getValue()).flip();
+        while (chunk.hasRemaining()) {
+          channel.write(chunk);
+        }
+      }
+      Path file = objectDirectory.resolve(fileNameOf(range));
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      temp = null;
+      CachedRange cached = new CachedRange(name, range.getStart(), range.getEnd(), file);
+      // Written by this process, so the data is intact as long as the process runs
+      cached.verified = true;
+      add(cached);
+    } catch (IOException e) {
+      LOG.debug("Failed to write range {} of {} to the disk cache", range, objectKey, e);
+    } finally {
+      if (temp != null) {
+        deleteQuietly(temp);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes held by the cache.
+   *
+   * @return the number of bytes held
+   */
+  public synchronized long getHeldBytes() {
+    return heldBytes;
+  }
+
+  /**
+   * Returns the share of lookups served from disk, as a percentage.
+   *
+   * @return the hit rate, from 0 to 100
+   */
+  public double getHitRate() {
+    return MetricComputationUtils.computeCacheHitRate(hits.get(), misses.get());
+  }
+
+  /**
+   * Returns the number of bytes served from disk.
+   *
+   * @return the number of bytes served from disk
+   */
+  public long getBytesFromDisk() {
+    return bytesFromDisk.get();
+  }
+
+  /**
+   * Returns the number of bytes that were not cached and had to be fetched from S3.
+   *
+   * @return the number of bytes fetched from S3
+   */
+  public long getBytesFromS3() {
+    return bytesFromS3.get();
+  }
+
+  /** Rebuilds the index from the files in the directory, oldest first. */
+  private void recover() throws IOException {
+    List<CachedRange> recovered = new ArrayList<>();
+    long tempFileCutoff = System.currentTimeMillis() - TEMP_FILE_GRACE_MS;
+    try (DirectoryStream<Path> objectDirectories = Files.newDirectoryStream(directory)) {
+      for (Path objectDirectory : objectDirectories) {
+        if (!Files.isDirectory(objectDirectory)) {
+          continue;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(objectDirectory)) {
+          for (Path file : files) {
+            CachedRange cached = parse(directory.relativize(objectDirectory).toString(), file);
+            if (cached == null) {
+              // Left behind by a write which did not complete, or which may still be in progress
+              if (!file.toString().endsWith(TEMP_FILE_SUFFIX)
+                  || isModifiedBefore(file, tempFileCutoff)) {
+                deleteQuietly(file);
+              }
+            } else {
+              recovered.add(cached);
+            }
+          }
+        }
+      }
+    }
+
+    Map<Path, Long> modified = new HashMap<>();
+    for (CachedRange cached : recovered) {
+      modified.put(cached.file, Files.getLastModifiedTime(cached.file).toMillis());
+    }
+    recovered.sort((a, b) -> Long.compare(modified.get(a.file), modified.get(b.file)));
+    for (CachedRange cached : recovered) {
+      add(cached);
+    }
+    LOG.debug("Recovered {} cached ranges holding {} bytes", recovered.size(), getHeldBytes());
+  }
+
+  /**
+   * Parses the range held by a file found in the directory.
+   *
+   * @param name the name of the directory of the object
+   * @param file the file
+   * @return the range, or null if the file is not a complete range file
+   */
+  private CachedRange parse(String name, Path file) throws IOException {
+    Matcher matcher = RANGE_FILE_NAME.matcher(directory.resolve(name).relativize(file).toString());
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      long start = Long.parseLong(matcher.group(1));
+      long end = Long.parseLong(matcher.group(2));
+      if (start > end || Files.size(file) != end - start + 1 + CHECKSUM_BYTES) {
+        return null;
+      }
+      return new CachedRange(name, start, end, file);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Indexes a range, replacing one with the same start, and evicts down to the capacity. */
+  private synchronized void add(CachedRange cached) {
+    CachedRange previous =
+        index.computeIfAbsent(cached.name, key -> new TreeMap<>()).put(cached.start, cached);
+    if (previous != null) {
+      recency.remove(previous.file);
+      heldBytes -= previous.length();
+      if (!previous.file.equals(cached.file)) {
+        deleteQuietly(previous.file);
+      }
+    }
+    recency.put(cached.file, cached);
+    heldBytes += cached.length();
+
+    Iterator<CachedRange> eldest = recency.values().iterator();
+    while (heldBytes > capacityBytes && eldest.hasNext()) {
+      CachedRange victim = eldest.next();
+      if (victim == cached) {
+        continue;
+      }
+      eldest.remove();
+      unindex(victim);
+      deleteQuietly(victim.file);
+    }
+    recordUsage();
+  }
+
+  /** Removes a range whose file could not be read from the cache. */
+  private synchronized void forget(CachedRange cached) {
+    if (recency.remove(cached.file, cached)) {
+      unindex(cached);
+      deleteQuietly(cached.file);
+    }
+  }
+
+  private void unindex(CachedRange cached) {
+    NavigableMap<Long, CachedRange> ranges = index.get(cached.name);
+    if (ranges != null && ranges.remove(cached.start, cached)) {
+      heldBytes -= cached.length();
+      if (ranges.isEmpty()) {
+        index.remove(cached.name);
+      }
+    }
+  }
+
+  private CachedRange covering(String name, Range range) {
+    NavigableMap<Long, CachedRange> ranges = index.get(name);
+    if (ranges == null) {
+      return null;
+    }
+    Map.Entry<Long, CachedRange> floor = ranges.floorEntry(range.getStart());
+    if (floor == null || floor.getValue().end < range.getEnd()) {
+      return null;
+    }
+    return floor.getValue();
+  }
+
+  private static boolean isModifiedBefore(Path file, long cutoffMillis) {
+    try {
+      return Files.getLastModifiedTime(file).compareTo(FileTime.fromMillis(cutoffMillis)) < 0;
+    } catch (IOException e) {
+      // The file is gone already
+      return false;
+    }
+  }
+
+  /**
+   * Checks the data of a cached range against the checksum at the end of its file.
+   *
+   * @param channel the file of the range, open for reading
+   * @param cached the range
+   * @throws IOException if the file cannot be read or its data does not match its checksum
+   */
+  private static void verify(FileChannel channel, CachedRange cached) throws IOException {
+    ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    CRC32 checksum = new CRC32();
+    long position = 0;
+    while (position < cached.length()) {
+      chunk.clear();
+      chunk.limit((int) Math.min(chunk.capacity(), cached.length() - position));
+      int read = channel.read(chunk, position);
+      if (read < 0) {
+        throw new IOException("Cached range " + cached.file + " is truncated");
+      }
+      checksum.update(chunk.array(), 0, read);
+      position += read;
+    }
+    chunk.clear();
+    chunk.limit(CHECKSUM_BYTES);
+    while (chunk.hasRemaining()) {
+      if (channel.read(chunk, position + chunk.position()) < 0) {
+        throw new IOException("Cached range " + cached.file + " is truncated");
+      }
+    }
+    if (chunk.getLong(0) != checksum.getValue()) {
+      throw new IOException("Cached range " + cached.file + " does not match its checksum");
+    }
+  }
+
+  private static String fileNameOf(Range range) {
+    return range.getStart() + "-" + range.getEnd();
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOG.debug("Failed to delete {} from the disk cache", file, e);
+    }
+  }
+
+  private void recordUsage() {
+    measure(METRIC_HELD_BYTES, getHeldBytes());
+    measure(METRIC_HIT_RATE, getHitRate());
+    measure(METRIC_BYTES_FROM_DISK, bytesFromDisk.get());
+    measure(METRIC_BYTES_FROM_S3, bytesFromS3.get());
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** Logs how the cache performed. The cached data stays on disk for the next process. */
+  @Override
+  public void close() {
+    LOG.debug(
+        "Disk cache hit rate: {}%, bytes from disk: {}, bytes from S3: {}",
+        getHitRate(), bytesFromDisk.get(), bytesFromS3.get());
+  }
+
+  /** A range of an object held in a file */
+  private static final class CachedRange {
+    private final String name;
+    private final long start;
+    private final long end;
+    private final Path file;
+    // Whether the data of the file was checked against its checksum, or written by this process
+    private volatile boolean verified;
+
+    private CachedRange(String name, long start, long end, Path file) {
+      this.name = name;
+      this.start = start;
+      this.end = end;
+      this.file = file;
+    }
+
+    private long length() {
+      return end - start + 1;
+    }
+  }
+
+  /**
+   * Streams part of the file of a cached range through positional reads. The file is opened on the
+   * first read, when a recovered range is also verified, and closed once the stream is closed.
+   */
+  private static final class ChannelInputStream extends InputStream {
+    private final CachedRange cached;
+    private final Runnable onOpenFailure;
+    private final long end;
+    private FileChannel channel;
+    private long position;
+
+    private ChannelInputStream(
+        CachedRange cached, long offset, long length, Runnable onOpenFailure) {
+      this.cached = cached;
+      this.onOpenFailure = onOpenFailure;
+      this.position = offset;
+      this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      int toRead = (int) Math.min(len, end - position);
+      int read = open().read(ByteBuffer.wrap(b, off, toRead), position);
+      if (read > 0) {
+        position += read;
+      }
+      return read;
+    }
+
+    private FileChannel open() throws IOException {
+      if (channel == null) {
+        FileChannel opened = null;
+        try {
+          opened = FileChannel.open(cached.file, StandardOpenOption.READ);
+          if (!cached.verified) {
+            verify(opened, cached);
+            cached.verified = true;
+          }
+          channel = opened;
+        } catch (IOException e) {
+          LOG.debug("Failed to open cached range {}, dropping it", cached.file, e);
+          if (opened != null) {
+            opened.close();
+          }
+          onOpenFailure.run();
+          throw e;
+        }
+      }
+      return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+}
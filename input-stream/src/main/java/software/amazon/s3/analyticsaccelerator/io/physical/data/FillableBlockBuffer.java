@@ -0,0 +1,178 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link BlockBuffer} that is filled sequentially while readers may already consume the bytes
+ * that have landed. The number of bytes written acts as a watermark: readers wait for it to pass
+ * the bytes they need and are woken up whenever it advances, rather than waiting for the whole
+ * block.
+ *
+ * <p>Once the data has been written, or writing has failed, the buffer is sealed and its length
+ * never changes again. Bytes below the watermark are never overwritten, so they can be read
+ * without holding the lock.
+ *
+ * <p>A writer which failed partway through can instead be fenced off, keeping the bytes it wrote,
+ * so that a new writer appends the rest.
+ */
+public abstract class FillableBlockBuffer implements BlockBuffer {
+  private final int capacity;
+  // The watermark, whether writes are over, the number of writers created or fenced off so far,
+  // which identifies the only writer allowed to append, and the number of writers fenced off. All
+  // are guarded by `this`
+  private int length;
+  private boolean sealed;
+  private int currentWriter;
+  private int fences;
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity the maximum number of bytes the buffer can hold
+   */
+  protected FillableBlockBuffer(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Creates a buffer, which is sealed straight away if its storage already holds all of its data.
+   *
+   * @param capacity the maximum number of bytes the buffer can hold
+   * @param filled whether the storage already holds {@code capacity} bytes
+   */
+  protected FillableBlockBuffer(int capacity, boolean filled) {
+    this.capacity = capacity;
+    this.length = filled ? capacity : 0;
+    this.sealed = filled;
+  }
+
+  @Override
+  public synchronized int length() {
+    return length;
+  }
+
+  /**
+   * Returns the maximum number of bytes the buffer can hold.
+   *
+   * @return the capacity of the buffer
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Waits until the buffer holds at least the given number of bytes, the buffer is sealed, its
+   * writer is fenced off, or the timeout elapses, whichever happens first.
+   *
+   * @param minLength the number of bytes to wait for
+   * @param timeoutMs the maximum time to wait, in milliseconds
+   * @return the number of bytes held by the buffer, which may be fewer than requested
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public synchronized int awaitLength(int minLength, long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    int fencesBefore = fences;
+    while (length < minLength && !sealed && fences == fencesBefore) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        break;
+      }
+      wait(remaining);
+    }
+    return length;
+  }
+
+  /**
+   * Stops any further writes to the buffer and wakes up waiting readers. This also guarantees that
+   * a writer which is still running, for instance after its copy timed out, cannot write into
+   * storage that has been released.
+   */
+  public synchronized void seal() {
+    sealed = true;
+    notifyAll();
+  }
+
+  /**
+   * Stops the current writer while keeping the bytes it wrote, so that a writer created afterwards
+   * can append the rest. Unlike {@link #seal()}, the buffer stays open, but waiting readers are
+   * woken up so that they can have the rest of the data fetched.
+   *
+   * @return the number of bytes held by the buffer, where the next writer resumes
+   */
+  public synchronized int fence() {
+    currentWriter++;
+    fences++;
+    notifyAll();
+    return length;
+  }
+
+  /**
+   * Returns an {@link OutputStream} which appends to the buffer, fencing off any writer created
+   * before it. Writing past the capacity, after the buffer is sealed, or after the writer is fenced
+   * off, fails with an {@link IOException}.
+   *
+   * @return an output stream filling the buffer
+   */
+  public OutputStream writer() {
+    int writer;
+    synchronized (this) {
+      writer = ++currentWriter;
+    }
+    return new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        append(writer, b, off, len);
+      }
+    };
+  }
+
+  private synchronized void append(int writer, byte[] b, int off, int len) throws IOException {
+    if (sealed) {
+      throw new IOException("Cannot write into a sealed block buffer");
+    }
+    if (writer != currentWriter) {
+      throw new IOException("Cannot write into a block buffer after being fenced off");
+    }
+    if (length + len > capacity) {
+      throw new IOException(
+          String.format(
+              "Cannot write %s bytes into a block buffer of capacity %s holding %s bytes",
+              len, capacity, length));
+    }
+    put(length, b, off, len);
+    length += len;
+    notifyAll();
+  }
+
+  /**
+   * Copies bytes into the storage of the buffer. Only called while holding the lock, and never
+   * past the capacity.
+   *
+   * @param position the offset in the buffer to write at
+   * @param b the bytes to write
+   * @param off the position in the array to start writing from
+   * @param len the number of bytes to write
+   */
+  protected abstract void put(int position, byte[] b, int off, int len);
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import lombok.NonNull;
+
+/**
+ * A {@link BlockBuffer} backed by an on-heap byte array. The array is reclaimed by the garbage
+ * collector, so reference counting is a no-op.
+ */
+public class HeapBlockBuffer extends FillableBlockBuffer {
+  private final byte[] content;
+
+  /**
+   * Creates a new instance of {@link HeapBlockBuffer} holding the given bytes.
+   *
+   * @param content the bytes of the block
+   */
+  public HeapBlockBuffer(byte @NonNull [] content) {
+    super(content.length, true);
+    this.content = content;
+  }
+
+  /**
+   * Creates a new, empty instance of {@link HeapBlockBuffer} to be filled through {@link
+   * #writer()}.
+   *
+   * @param capacity the number of bytes the buffer can hold
+   */
+  public HeapBlockBuffer(int capacity) {
+    super(capacity);
+    this.content = new byte[capacity];
+  }
+
+  @Override
+  public int get(int offset) {
+    return Byte.toUnsignedInt(content[offset]);
+  }
+
+  @Override
+  public void get(int offset, byte[] buf, int off, int len) {
+    System.arraycopy(content, offset, buf, off, len);
+  }
+
+  @Override
+  public void get(int offset, ByteBuffer dest, int len) {
+    dest.put(content, offset, len);
+  }
+
+  @Override
+  public Optional<ByteBuffer> slice(int offset, int len) {
+    return Optional.of(ByteBuffer.wrap(content, offset, len).slice().asReadOnlyBuffer());
+  }
+
+  @Override
+  protected void put(int position, byte[] b, int off, int len) {
+    System.arraycopy(b, off, content, position, len);
+  }
+
+  @Override
+  public boolean retain() {
+    return true;
+  }
+
+  @Override
+  public void release() {
+    // Nothing to free, the array is garbage collected
+  }
+}
@@ -26,9 +26,15 @@ import software.amazon.s3.analyticsaccelerator.request.Range;
 /**
  * Class responsible for implementing how to plan reads over a BlockStore. Today its main
  * responsibility is ensuring that there are no overlapping ranges in the BlockStore.
+ *
+ * <p>When given a block size, the planner aligns reads to a grid of that size: the read is widened
+ * to the grid boundaries around it, and every missing range is cut at those boundaries. Blocks then
+ * start and end at the same offsets no matter which reads create them, so that reads of different
+ * streams over the same data reuse each other's blocks.
  */
 public class IOPlanner {
   private final BlockStore blockStore;
+  private final long alignmentBytes;
 
   /**
    * Creates a new instance of {@link IOPlanner}.
@@ -36,12 +42,27 @@ public class IOPlanner {
    * @param blockStore the {@link BlobStore} to use
    */
   public IOPlanner(@NonNull BlockStore blockStore) {
+    this(blockStore, 0);
+  }
+
+  /**
+   * Creates a new instance of {@link IOPlanner} aligning reads to a grid.
+   *
+   * @param blockStore the {@link BlobStore} to use
+   * @param alignmentBytes the size of the grid cells reads are aligned to, or 0 to not align reads
+   */
+  public IOPlanner(@NonNull BlockStore blockStore, long alignmentBytes) {
+    Preconditions.checkArgument(
+        alignmentBytes >= 0, "`alignmentBytes` must not be negative; was: %s", alignmentBytes);
     this.blockStore = blockStore;
+    this.alignmentBytes = alignmentBytes;
   }
 
   /**
    * Given the start and end of a range, return which ranges to fetch from the object store to have
-   * coverage over the whole range.
+   * coverage over the whole range. When reads are aligned, the ranges returned may extend past
+   * {@code pos} and {@code end} to the grid boundaries around them, but never past the last byte of
+   * the object.
    *
    * @param pos the starting position of a read
    * @param end the end of a read
@@ -55,6 +76,12 @@ public class IOPlanner {
     Preconditions.checkArgument(
         pos <= lastObjectByte, "`pos` must be less than or equal to `lastObjectByte`");
 
+    if (alignmentBytes > 0) {
+      pos -= pos % alignmentBytes;
+      end = Math.min(end, lastObjectByte);
+      end = Math.min(end - end % alignmentBytes + alignmentBytes - 1, lastObjectByte);
+    }
+
     List<Range> missingRanges = new LinkedList<>();
 
     OptionalLong nextMissingByte = blockStore.findNextMissingByte(pos);
@@ -70,9 +97,22 @@ public class IOPlanner {
         endOfRange = Math.min(end, lastObjectByte);
       }
 
-      missingRanges.add(new Range(nextMissingByte.getAsLong(), endOfRange));
+      addAligned(missingRanges, nextMissingByte.getAsLong(), endOfRange);
       nextMissingByte = blockStore.findNextMissingByte(endOfRange + 1);
     }
     return missingRanges;
   }
+
+  /** Adds a missing range, cut at the grid boundaries it crosses if reads are aligned. */
+  private void addAligned(List<Range> missingRanges, long start, long end) {
+    if (alignmentBytes == 0) {
+      missingRanges.add(new Range(start, end));
+      return;
+    }
+    while (start <= end) {
+      long cellEnd = Math.min(start - start % alignmentBytes + alignmentBytes - 1, end);
+      missingRanges.add(new Range(start, cellEnd));
+      start = cellEnd + 1;
+    }
+  }
 }
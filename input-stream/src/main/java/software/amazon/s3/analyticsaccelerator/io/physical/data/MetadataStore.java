@@ -15,40 +15,79 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.Closeable;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
 import software.amazon.s3.analyticsaccelerator.request.HeadRequest;
 import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
+import software.amazon.s3.analyticsaccelerator.util.MetricComputationUtils;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.ShardedLruCache;
 import software.amazon.s3.analyticsaccelerator.util.StreamAttributes;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
 
-/** Class responsible for fetching and potentially caching object metadata. */
-@SuppressFBWarnings(
-    value = "SIC_INNER_SHOULD_BE_STATIC_ANON",
-    justification =
-        "Inner class is created very infrequently, and fluency justifies the extra pointer")
+/**
+ * Class responsible for fetching and potentially caching object metadata. Metadata is kept in a
+ * {@link ShardedLruCache}, so lookups for different objects do not contend on a lock, while
+ * concurrent lookups for the same object still share a single HEAD request.
+ *
+ * <p>Metadata expires after {@link PhysicalIOConfiguration#getMetadataStoreTtlMs()}, and a lookup
+ * made within {@link PhysicalIOConfiguration#getMetadataStoreRefreshAheadMs()} of the expiry
+ * refreshes it in the background, so that hot objects never wait for a HEAD. A lookup of an object
+ * which does not exist is remembered for {@link
+ * PhysicalIOConfiguration#getMetadataStoreNegativeTtlMs()}; any other failed lookup is removed as
+ * soon as it fails, so that the next one retries it.
+ *
+ * <p>A failed HEAD is retried up to {@link PhysicalIOConfiguration#getHeadRetryCount()} times, as
+ * its {@link RetryPolicy} allows, before the lookup fails.
+ */
 public class MetadataStore implements Closeable {
   private final ObjectClient objectClient;
   private final Telemetry telemetry;
-  private final Map<S3URI, CompletableFuture<ObjectMetadata>> cache;
+  private final ShardedLruCache<S3URI, Entry> cache;
   private final PhysicalIOConfiguration configuration;
+  private final LongSupplier nanoClock;
+  private final long ttlNanos;
+  private final long refreshAheadNanos;
+  private final long negativeTtlNanos;
+  private final int headRetryCount;
+  private final RetryPolicy retryPolicy;
+  private final StreamDrainExecutor timer;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong expiries = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+  private final AtomicLong negatives = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
 
   private static final Logger LOG = LoggerFactory.getLogger(MetadataStore.class);
   private static final String OPERATION_METADATA_HEAD_ASYNC = "metadata.store.head.async";
   private static final String OPERATION_METADATA_HEAD_JOIN = "metadata.store.head.join";
 
+  private static final String METRIC_HIT_RATE = "metadata.store.hit.rate";
+  private static final String METRIC_HITS = "metadata.store.hits";
+  private static final String METRIC_MISSES = "metadata.store.misses";
+  private static final String METRIC_EXPIRIES = "metadata.store.expiries";
+  private static final String METRIC_REFRESHES = "metadata.store.refreshes";
+  private static final String METRIC_NEGATIVES = "metadata.store.negatives";
+  private static final String METRIC_FAILURES = "metadata.store.failures";
+
   /**
    * Constructs a new MetadataStore.
    *
@@ -60,18 +99,60 @@ public class MetadataStore implements Closeable {
       @NonNull ObjectClient objectClient,
       @NonNull Telemetry telemetry,
       @NonNull PhysicalIOConfiguration configuration) {
+    this(objectClient, telemetry, configuration, StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Constructs a new MetadataStore.
+   *
+   * @param objectClient the object client to use for object store interactions.
+   * @param telemetry The {@link Telemetry} to use to report measurements.
+   * @param configuration a configuration of PhysicalIO.
+   * @param timer the executor whose scheduler thread issues HEAD retries after backing off
+   */
+  public MetadataStore(
+      @NonNull ObjectClient objectClient,
+      @NonNull Telemetry telemetry,
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull StreamDrainExecutor timer) {
+    this(objectClient, telemetry, configuration, timer, System::nanoTime);
+  }
+
+  /**
+   * Constructs a new MetadataStore with the given clock. This is used by tests to control time.
+   *
+   * @param objectClient the object client to use for object store interactions.
+   * @param telemetry The {@link Telemetry} to use to report measurements.
+   * @param configuration a configuration of PhysicalIO.
+   * @param nanoClock returns the current time, in nanoseconds, as {@link System#nanoTime()} does
+   */
+  MetadataStore(
+      @NonNull ObjectClient objectClient,
+      @NonNull Telemetry telemetry,
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull LongSupplier nanoClock) {
+    this(objectClient, telemetry, configuration, StreamDrainExecutor.getDefault(), nanoClock);
+  }
+
+  private MetadataStore(
+      ObjectClient objectClient,
+      Telemetry telemetry,
+      PhysicalIOConfiguration configuration,
+      StreamDrainExecutor timer,
+      LongSupplier nanoClock) {
     this.objectClient = objectClient;
     this.telemetry = telemetry;
-    this.cache =
-        Collections.synchronizedMap(
-            new LinkedHashMap<S3URI, CompletableFuture<ObjectMetadata>>() {
-              @Override
-              protected boolean removeEldestEntry(
-                  final Map.Entry<S3URI, CompletableFuture<ObjectMetadata>> eldest) {
-                return this.size() > configuration.getMetadataStoreCapacity();
-              }
-            });
+    this.cache = new ShardedLruCache<>(configuration.getMetadataStoreCapacity(), evicted -> {});
     this.configuration = configuration;
+    this.nanoClock = nanoClock;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getMetadataStoreTtlMs());
+    this.refreshAheadNanos =
+        TimeUnit.MILLISECONDS.toNanos(configuration.getMetadataStoreRefreshAheadMs());
+    this.negativeTtlNanos =
+        TimeUnit.MILLISECONDS.toNanos(configuration.getMetadataStoreNegativeTtlMs());
+    this.headRetryCount = configuration.getHeadRetryCount();
+    this.retryPolicy = new BackoffRetryPolicy(configuration, telemetry);
+    this.timer = timer;
   }
 
   /**
@@ -110,17 +191,35 @@ public class MetadataStore implements Closeable {
    * @param s3URI the object to fetch the metadata for
    * @return returns the {@link CompletableFuture} that holds object's metadata.
    */
-  public synchronized CompletableFuture<ObjectMetadata> asyncGet(S3URI s3URI) {
-    return this.cache.computeIfAbsent(
-        s3URI,
-        uri ->
-            telemetry.measureCritical(
-                () ->
-                    Operation.builder()
-                        .name(OPERATION_METADATA_HEAD_ASYNC)
-                        .attribute(StreamAttributes.uri(s3URI))
-                        .build(),
-                objectClient.headObject(HeadRequest.builder().s3Uri(s3URI).build())));
+  public CompletableFuture<ObjectMetadata> asyncGet(S3URI s3URI) {
+    Entry entry = this.cache.get(s3URI);
+    if (entry != null) {
+      long now = nanoClock.getAsLong();
+      if (!entry.isExpired(now)) {
+        hits.incrementAndGet();
+        refreshIfExpiringSoon(s3URI, entry, now);
+        recordUsage();
+        return entry.future;
+      }
+      expiries.incrementAndGet();
+      this.cache.remove(s3URI, entry);
+    }
+
+    entry =
+        this.cache.computeIfAbsent(
+            s3URI,
+            uri -> {
+              misses.incrementAndGet();
+              return new Entry(head(uri), Entry.NEVER);
+            });
+    // The completion handler is attached outside of computeIfAbsent: a HEAD which has already
+    // failed would otherwise try to remove its entry before the entry is added
+    if (entry.tracked.compareAndSet(false, true)) {
+      Entry fetched = entry;
+      fetched.future.whenComplete((metadata, throwable) -> onFetched(s3URI, fetched, throwable));
+    }
+    recordUsage();
+    return entry.future;
   }
 
   /**
@@ -130,12 +229,193 @@ public class MetadataStore implements Closeable {
    * @param s3URI the object to store metadata for
    * @param objectMetadata Object metadata
    */
-  public synchronized void storeObjectMetadata(S3URI s3URI, ObjectMetadata objectMetadata) {
+  public void storeObjectMetadata(S3URI s3URI, ObjectMetadata objectMetadata) {
     if (objectMetadata != null) {
-      this.cache.put(s3URI, CompletableFuture.completedFuture(objectMetadata));
+      this.cache.put(s3URI, Entry.completed(objectMetadata, expiryAfter(ttlNanos)));
+    }
+  }
+
+  /**
+   * Returns the number of lookups served from the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups which issued a HEAD request.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of lookups which found expired metadata.
+   *
+   * @return the number of expiries
+   */
+  public long getExpiries() {
+    return expiries.get();
+  }
+
+  /**
+   * Returns the number of background refreshes issued.
+   *
+   * @return the number of refreshes
+   */
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  /**
+   * Returns the percentage of lookups served from the cache.
+   *
+   * @return the hit rate, between 0 and 100
+   */
+  public double getHitRate() {
+    return MetricComputationUtils.computeCacheHitRate(hits.get(), misses.get());
+  }
+
+  /**
+   * Issues a HEAD for an object, retrying it if it fails and the retry policy allows. Cancelling
+   * the returned future cancels the HEAD in flight.
+   */
+  private CompletableFuture<ObjectMetadata> head(S3URI s3URI) {
+    if (headRetryCount == 0) {
+      return issueHead(s3URI);
+    }
+    CompletableFuture<ObjectMetadata> result = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<ObjectMetadata>> attempt = new AtomicReference<>();
+    result.whenComplete(
+        (metadata, throwable) -> {
+          CompletableFuture<ObjectMetadata> current = attempt.get();
+          if (result.isCancelled() && current != null) {
+            current.cancel(false);
+          }
+        });
+    headWithRetries(s3URI, 0, result, attempt);
+    return result;
+  }
+
+  private void headWithRetries(
+      S3URI s3URI,
+      int retry,
+      CompletableFuture<ObjectMetadata> result,
+      AtomicReference<CompletableFuture<ObjectMetadata>> attempt) {
+    if (result.isDone()) {
+      return;
+    }
+    CompletableFuture<ObjectMetadata> head;
+    try {
+      head = issueHead(s3URI);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+      return;
+    }
+    attempt.set(head);
+    head.whenComplete(
+        (metadata, throwable) -> {
+          if (throwable == null) {
+            retryPolicy.recordSuccess();
+            result.complete(metadata);
+            return;
+          }
+          long backoffMs =
+              retry < headRetryCount ? retryPolicy.backoffMs(throwable, retry + 1) : -1;
+          if (backoffMs < 0) {
+            result.completeExceptionally(throwable);
+          } else if (backoffMs == 0) {
+            headWithRetries(s3URI, retry + 1, result, attempt);
+          } else {
+            try {
+              timer.schedule(() -> headWithRetries(s3URI, retry + 1, result, attempt), backoffMs);
+            } catch (RejectedExecutionException e) {
+              result.completeExceptionally(throwable);
+            }
+          }
+        });
+  }
+
+  private CompletableFuture<ObjectMetadata> issueHead(S3URI s3URI) {
+    return telemetry.measureCritical(
+        () ->
+            Operation.builder()
+                .name(OPERATION_METADATA_HEAD_ASYNC)
+                .attribute(StreamAttributes.uri(s3URI))
+                .build(),
+        objectClient.headObject(HeadRequest.builder().s3Uri(s3URI).build()));
+  }
+
+  private void onFetched(S3URI s3URI, Entry entry, Throwable throwable) {
+    if (throwable == null) {
+      entry.expiresAtNanos = expiryAfter(ttlNanos);
+    } else if (negativeTtlNanos > 0 && isNotFound(throwable)) {
+      negatives.incrementAndGet();
+      entry.expiresAtNanos = expiryAfter(negativeTtlNanos);
+    } else {
+      failures.incrementAndGet();
+      this.cache.remove(s3URI, entry);
     }
   }
 
+  /**
+   * Issues a HEAD in the background when the metadata expires within the refresh-ahead window.
+   * The entry keeps serving lookups until the refreshed metadata replaces it, and is left as it is
+   * if the refresh fails.
+   */
+  private void refreshIfExpiringSoon(S3URI s3URI, Entry entry, long now) {
+    if (refreshAheadNanos == 0
+        || entry.expiresAtNanos == Entry.NEVER
+        || entry.expiresAtNanos - now > refreshAheadNanos
+        || entry.future.isCompletedExceptionally()
+        || !entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    refreshes.incrementAndGet();
+    head(s3URI)
+        .whenComplete(
+            (metadata, throwable) -> {
+              if (throwable == null) {
+                this.cache.replace(s3URI, entry, Entry.completed(metadata, expiryAfter(ttlNanos)));
+              } else {
+                LOG.debug("Failed to refresh metadata of {}", s3URI, throwable);
+                entry.refreshing.set(false);
+              }
+            });
+  }
+
+  private long expiryAfter(long nanos) {
+    return nanos == 0 ? Entry.NEVER : nanoClock.getAsLong() + nanos;
+  }
+
+  private static boolean isNotFound(Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (cause instanceof FileNotFoundException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void recordUsage() {
+    measure(METRIC_HIT_RATE, getHitRate());
+    measure(METRIC_HITS, hits.get());
+    measure(METRIC_MISSES, misses.get());
+    measure(METRIC_EXPIRIES, expiries.get());
+    measure(METRIC_REFRESHES, refreshes.get());
+    measure(METRIC_NEGATIVES, negatives.get());
+    measure(METRIC_FAILURES, failures.get());
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
   /**
    * Utility method that cancels a {@link CompletableFuture} ignoring any exceptions.
    *
@@ -154,6 +434,32 @@ public class MetadataStore implements Closeable {
   /** Closes the {@link MetadataStore} and frees up all resources it holds. */
   @Override
   public void close() {
-    this.cache.values().forEach(this::safeCancel);
+    this.cache.values().forEach(entry -> safeCancel(entry.future));
+  }
+
+  /** Metadata of an object, or the HEAD fetching it, and when it expires */
+  private static final class Entry {
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final CompletableFuture<ObjectMetadata> future;
+    // Pending and failed lookups never expire: they are completed or removed first
+    private volatile long expiresAtNanos;
+    private final AtomicBoolean tracked = new AtomicBoolean();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private Entry(CompletableFuture<ObjectMetadata> future, long expiresAtNanos) {
+      this.future = future;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    private static Entry completed(ObjectMetadata metadata, long expiresAtNanos) {
+      Entry entry = new Entry(CompletableFuture.completedFuture(metadata), expiresAtNanos);
+      entry.tracked.set(true);
+      return entry;
+    }
+
+    private boolean isExpired(long now) {
+      return expiresAtNanos != NEVER && now - expiresAtNanos >= 0;
+    }
   }
 }
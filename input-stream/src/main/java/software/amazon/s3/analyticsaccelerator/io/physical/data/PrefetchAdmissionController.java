@@ -0,0 +1,283 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlan;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanExecution;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanState;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+
+/**
+ * Decides whether asynchronous prefetches may be executed, based on how much of the memory capacity
+ * is in use. Synchronous reads never go through the controller, so they are always admitted.
+ *
+ * <p>As memory fills up, prefetches are first deferred until memory is freed, then shrunk to the
+ * memory left below the drop threshold, and finally dropped. Deferred prefetches are retried
+ * whenever a prefetch is submitted or memory is released, and dropped once they have waited for too
+ * long. Reads do not consult the controller.
+ *
+ * <p>Memory held by data nobody is reading is not pressure: the controller first asks for such
+ * data to be reclaimed down to the defer threshold, and only then measures what is left. Otherwise
+ * a cache filled with idle blobs, which are only evicted once the memory capacity is exceeded,
+ * would keep every prefetch out.
+ *
+ * <p>Without a memory capacity, every prefetch is admitted.
+ */
+public class PrefetchAdmissionController {
+  private final LongSupplier memoryUsage;
+  private final LongConsumer reclaimer;
+  private final long memoryCapacityBytes;
+  private final double deferThreshold;
+  private final double shrinkThreshold;
+  private final double dropThreshold;
+  private final long deferTimeoutMs;
+  private final Telemetry telemetry;
+
+  // Guarded by `deferred`. The size is also kept outside of it, so that releasing memory while no
+  // prefetch is deferred does not contend on the lock
+  private final Deque<DeferredPlan> deferred = new ArrayDeque<>();
+  private final AtomicInteger deferredSize = new AtomicInteger();
+
+  private final AtomicLong submittedCount = new AtomicLong();
+  private final AtomicLong deferredCount = new AtomicLong();
+  private final AtomicLong throttledCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  private static final int MAX_DEFERRED_PLANS = 64;
+
+  private static final String METRIC_SUBMITTED = "prefetch.admission.submitted";
+  private static final String METRIC_DEFERRED = "prefetch.admission.deferred";
+  private static final String METRIC_THROTTLED = "prefetch.admission.throttled";
+  private static final String METRIC_DROPPED = "prefetch.admission.dropped";
+  private static final String METRIC_MEMORY_UTILIZATION = "prefetch.admission.memory.utilization";
+
+  /** A controller which admits every prefetch, for blobs which do not share a memory capacity */
+  public static final PrefetchAdmissionController ADMIT_ALL =
+      new PrefetchAdmissionController(PhysicalIOConfiguration.DEFAULT, () -> 0, Telemetry.NOOP);
+
+  /**
+   * Creates a new instance of {@link PrefetchAdmissionController}.
+   *
+   * @param configuration the PhysicalIO configuration, holding the memory capacity and thresholds
+   * @param memoryUsage supplies the number of bytes currently held
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public PrefetchAdmissionController(
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull LongSupplier memoryUsage,
+      @NonNull Telemetry telemetry) {
+    this(configuration, memoryUsage, targetBytes -> {}, telemetry);
+  }
+
+  /**
+   * Creates a new instance of {@link PrefetchAdmissionController}.
+   *
+   * @param configuration the PhysicalIO configuration, holding the memory capacity and thresholds
+   * @param memoryUsage supplies the number of bytes currently held
+   * @param reclaimer frees memory held by data nobody is reading, until at most the given number
+   *     of bytes are held or nothing more can be freed
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public PrefetchAdmissionController(
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull LongSupplier memoryUsage,
+      @NonNull LongConsumer reclaimer,
+      @NonNull Telemetry telemetry) {
+    this.memoryUsage = memoryUsage;
+    this.reclaimer = reclaimer;
+    this.memoryCapacityBytes = configuration.getMemoryCapacityBytes();
+    this.deferThreshold = configuration.getPrefetchDeferThreshold();
+    this.shrinkThreshold = configuration.getPrefetchShrinkThreshold();
+    this.dropThreshold = configuration.getPrefetchDropThreshold();
+    this.deferTimeoutMs = configuration.getPrefetchDeferTimeoutMs();
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Submits a prefetch, or part of it, if memory allows.
+   *
+   * @param plan the prefetch to submit
+   * @param submitter executes the admitted plan
+   * @return the execution of the plan, whose state is {@link IOPlanState#DEFERRED}, {@link
+   *     IOPlanState#THROTTLED} or {@link IOPlanState#DROPPED} if the plan was not fully submitted
+   */
+  public IOPlanExecution submit(@NonNull IOPlan plan, @NonNull PlanSubmitter submitter) {
+    if (memoryCapacityBytes == 0) {
+      return count(submittedCount, METRIC_SUBMITTED, submitter.submit(plan));
+    }
+    long usage = reclaimedMemoryUsage();
+    runDeferred(usage);
+
+    double utilization = (double) usage / memoryCapacityBytes;
+    measure(METRIC_MEMORY_UTILIZATION, utilization);
+
+    if (utilization < deferThreshold) {
+      return count(submittedCount, METRIC_SUBMITTED, submitter.submit(plan));
+    }
+    if (utilization < shrinkThreshold && defer(plan, submitter)) {
+      return count(deferredCount, METRIC_DEFERRED, execution(IOPlanState.DEFERRED));
+    }
+    if (utilization < dropThreshold) {
+      IOPlan shrunk = shrink(plan, (long) (dropThreshold * memoryCapacityBytes) - usage);
+      if (!shrunk.getPrefetchRanges().isEmpty()) {
+        IOPlanExecution execution = submitter.submit(shrunk);
+        return execution.getState() == IOPlanState.SUBMITTED
+            ? count(throttledCount, METRIC_THROTTLED, execution(IOPlanState.THROTTLED))
+            : execution;
+      }
+    }
+    return count(droppedCount, METRIC_DROPPED, execution(IOPlanState.DROPPED));
+  }
+
+  /**
+   * Submits the deferred prefetches memory now allows for, and drops those that waited for too
+   * long. Prefetches are submitted in the order they were deferred in. This is meant to be called
+   * once memory has been released, and returns right away if no prefetch is deferred.
+   */
+  public void runDeferred() {
+    if (deferredSize.get() == 0) {
+      return;
+    }
+    runDeferred(memoryUsage.getAsLong());
+  }
+
+  private void runDeferred(long usage) {
+    if (deferredSize.get() == 0) {
+      return;
+    }
+    boolean admitted = (double) usage / memoryCapacityBytes < deferThreshold;
+    List<DeferredPlan> ready = new ArrayList<>();
+    synchronized (deferred) {
+      long now = System.currentTimeMillis();
+      while (!deferred.isEmpty()) {
+        DeferredPlan next = deferred.peekFirst();
+        if (now - next.deferredAt > deferTimeoutMs) {
+          deferred.pollFirst();
+          increment(droppedCount, METRIC_DROPPED);
+        } else if (admitted) {
+          ready.add(deferred.pollFirst());
+        } else {
+          break;
+        }
+      }
+      deferredSize.set(deferred.size());
+    }
+    for (DeferredPlan plan : ready) {
+      count(submittedCount, METRIC_SUBMITTED, plan.submitter.submit(plan.plan));
+    }
+  }
+
+  /**
+   * Returns the number of prefetches currently deferred.
+   *
+   * @return the number of deferred prefetches
+   */
+  public int getDeferredPlans() {
+    return deferredSize.get();
+  }
+
+  /**
+   * Returns the number of bytes held once memory held by idle data has been reclaimed down to the
+   * defer threshold, if that is exceeded.
+   */
+  private long reclaimedMemoryUsage() {
+    long lowWatermark = (long) (deferThreshold * memoryCapacityBytes);
+    if (memoryUsage.getAsLong() >= lowWatermark) {
+      reclaimer.accept(lowWatermark - 1);
+    }
+    return memoryUsage.getAsLong();
+  }
+
+  private boolean defer(IOPlan plan, PlanSubmitter submitter) {
+    synchronized (deferred) {
+      if (deferred.size() >= MAX_DEFERRED_PLANS) {
+        return false;
+      }
+      deferred.addLast(new DeferredPlan(plan, submitter, System.currentTimeMillis()));
+      deferredSize.set(deferred.size());
+      return true;
+    }
+  }
+
+  /** Keeps the leading ranges of the plan which fit into the given number of bytes */
+  private static IOPlan shrink(IOPlan plan, long budgetBytes) {
+    List<Range> ranges = new ArrayList<>();
+    long remaining = budgetBytes;
+    for (Range range : plan.getPrefetchRanges()) {
+      if (remaining <= 0) {
+        break;
+      }
+      long length = Math.min(range.getLength(), remaining);
+      ranges.add(new Range(range.getStart(), range.getStart() + length - 1));
+      remaining -= length;
+    }
+    return new IOPlan(ranges);
+  }
+
+  private IOPlanExecution count(AtomicLong counter, String metric, IOPlanExecution execution) {
+    increment(counter, metric);
+    return execution;
+  }
+
+  private void increment(AtomicLong counter, String metric) {
+    measure(metric, counter.incrementAndGet());
+  }
+
+  private static IOPlanExecution execution(IOPlanState state) {
+    return IOPlanExecution.builder().state(state).build();
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** Executes a plan once it has been admitted */
+  @FunctionalInterface
+  public interface PlanSubmitter {
+    /**
+     * Executes the plan.
+     *
+     * @param plan the plan to execute
+     * @return the execution of the plan
+     */
+    IOPlanExecution submit(IOPlan plan);
+  }
+
+  /** A prefetch waiting for memory to be freed */
+  private static final class DeferredPlan {
+    private final IOPlan plan;
+    private final PlanSubmitter submitter;
+    private final long deferredAt;
+
+    private DeferredPlan(IOPlan plan, PlanSubmitter submitter, long deferredAt) {
+      this.plan = plan;
+      this.submitter = submitter;
+      this.deferredAt = deferredAt;
+    }
+  }
+}
@@ -15,6 +15,8 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import lombok.Value;
@@ -27,7 +29,8 @@ import software.amazon.s3.analyticsaccelerator.request.Range;
  * of an object is needed with high confidence, then we should not fetch this in a single request.
  *
  * <p>This class is capable of implementing heuristics on how to fetch ranges of different sizes
- * optimally.
+ * optimally. Conversely, small ranges separated by small gaps, such as the column chunks of a
+ * prefetch, are coalesced so that they are fetched in fewer requests.
  */
 @Value
 public class RangeOptimiser {
@@ -53,6 +56,62 @@ public class RangeOptimiser {
     return splits;
   }
 
+  /**
+   * Given a list of ranges, return the ranges to fetch instead, with ranges separated by no more
+   * than {@link PhysicalIOConfiguration#getMaxRangeGapBytes()} merged into one, as long as the
+   * merged range is no longer than {@link PhysicalIOConfiguration#getMaxRangeSizeBytes()}. Each
+   * merge saves a request at the cost of reading the bytes in the gap.
+   *
+   * @param ranges a list of ranges
+   * @return the ranges to fetch, sorted by their start, or the ranges given if coalescing is off
+   */
+  public List<Range> coalesceRanges(List<Range> ranges) {
+    if (configuration.getMaxRangeGapBytes() == 0 || ranges.size() < 2) {
+      return ranges;
+    }
+
+    List<Range> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingLong(Range::getStart));
+    List<Range> coalesced = new LinkedList<>();
+    Range current = sorted.get(0);
+    for (Range next : sorted.subList(1, sorted.size())) {
+      long gap = next.getStart() - current.getEnd() - 1;
+      long end = Math.max(current.getEnd(), next.getEnd());
+      if (gap <= configuration.getMaxRangeGapBytes()
+          && end - current.getStart() + 1 <= configuration.getMaxRangeSizeBytes()) {
+        current = new Range(current.getStart(), end);
+      } else {
+        coalesced.add(current);
+        current = next;
+      }
+    }
+    coalesced.add(current);
+
+    return coalesced;
+  }
+
+  /**
+   * Returns the number of distinct bytes in a list of ranges, counting the bytes of overlapping
+   * ranges once.
+   *
+   * @param ranges a list of ranges
+   * @return the number of bytes covered by the ranges
+   */
+  public static long coveredBytes(List<Range> ranges) {
+    List<Range> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingLong(Range::getStart));
+    long covered = 0;
+    long coveredEnd = -1;
+    for (Range range : sorted) {
+      long start = Math.max(range.getStart(), coveredEnd + 1);
+      if (start <= range.getEnd()) {
+        covered += range.getEnd() - start + 1;
+        coveredEnd = range.getEnd();
+      }
+    }
+    return covered;
+  }
+
   private List<Range> splitRange(long start, long end) {
     long nextRangeStart = start;
     List<Range> generatedRanges = new LinkedList<>();
@@ -0,0 +1,146 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+
+/**
+ * Estimates the timeout of each block read from its length, rather than applying the same timeout
+ * to every block whatever its size. It keeps running averages of the time S3 takes to return the
+ * first byte of a response and of the time it then takes per byte, and gives a read a multiple of
+ * the time those predict for its length.
+ *
+ * <p>Estimated timeouts never go below a minimum, so a burst of fast reads cannot make timeouts
+ * fire on ordinary jitter, nor above the read timeout of the block, which stays the ceiling. Until
+ * a read has been observed, the ceiling is used.
+ *
+ * <p>The averages are kept even when timeouts are fixed, as the time to the first byte is also used
+ * to size sequential prefetches.
+ */
+public class ReadTimeoutEstimator {
+  private final long minTimeoutMs;
+  private final Telemetry telemetry;
+  private final AtomicLong timeoutRetries = new AtomicLong();
+
+  // Running averages, guarded by `this`; negative until a read has been observed
+  private double firstByteNanos = -1;
+  private double nanosPerByte = -1;
+
+  // Weight of a new observation in the running averages
+  private static final double SMOOTHING = 0.2;
+  // How many times longer than predicted a read may take before it times out
+  private static final double SLACK = 4;
+
+  private static final String METRIC_TIMEOUT_MS = "read.timeout.estimate.ms";
+  private static final String METRIC_TIMEOUT_RETRIES = "read.timeout.retries";
+
+  /** An estimator which always uses the read timeout of the block */
+  public static final ReadTimeoutEstimator FIXED = new ReadTimeoutEstimator(0, Telemetry.NOOP);
+
+  /**
+   * Creates a new instance of {@link ReadTimeoutEstimator}.
+   *
+   * @param minTimeoutMs the minimum timeout in milliseconds, or 0 to always use the read timeout of
+   *     the block
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public ReadTimeoutEstimator(long minTimeoutMs, @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        minTimeoutMs >= 0, "`minTimeoutMs` must not be negative; was: %s", minTimeoutMs);
+
+    this.minTimeoutMs = minTimeoutMs;
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Returns the timeout for reading a range of the given length.
+   *
+   * @param length the number of bytes to read
+   * @param maxTimeoutMs the read timeout of the block, which the timeout never exceeds
+   * @return the timeout in milliseconds
+   */
+  public long timeoutMs(long length, long maxTimeoutMs) {
+    if (minTimeoutMs == 0) {
+      return maxTimeoutMs;
+    }
+    double predictedNanos;
+    synchronized (this) {
+      if (firstByteNanos < 0) {
+        return maxTimeoutMs;
+      }
+      predictedNanos = firstByteNanos + nanosPerByte * length;
+    }
+    long timeoutMs = (long) Math.ceil(SLACK * predictedNanos / TimeUnit.MILLISECONDS.toNanos(1));
+    timeoutMs = Math.min(maxTimeoutMs, Math.max(minTimeoutMs, timeoutMs));
+    measure(METRIC_TIMEOUT_MS, timeoutMs);
+    return timeoutMs;
+  }
+
+  /**
+   * Records a completed read.
+   *
+   * @param length the number of bytes read
+   * @param firstByteNanos the time until the first byte of the response arrived, in nanoseconds
+   * @param transferNanos the time the rest of the response then took, in nanoseconds
+   */
+  public void record(long length, long firstByteNanos, long transferNanos) {
+    if (length <= 0) {
+      return;
+    }
+    double observedNanosPerByte = (double) transferNanos / length;
+    synchronized (this) {
+      if (this.firstByteNanos < 0) {
+        this.firstByteNanos = firstByteNanos;
+        this.nanosPerByte = observedNanosPerByte;
+      } else {
+        this.firstByteNanos += SMOOTHING * (firstByteNanos - this.firstByteNanos);
+        this.nanosPerByte += SMOOTHING * (observedNanosPerByte - this.nanosPerByte);
+      }
+    }
+  }
+
+  /**
+   * Returns the running average of the time S3 takes to return the first byte of a response.
+   *
+   * @return the time in nanoseconds, or a negative number until a read has been observed
+   */
+  public synchronized double getFirstByteNanos() {
+    return firstByteNanos;
+  }
+
+  /** Records that a block read is retried because it timed out. */
+  public void recordTimeoutRetry() {
+    measure(METRIC_TIMEOUT_RETRIES, timeoutRetries.incrementAndGet());
+  }
+
+  /**
+   * Returns the number of block reads retried because they timed out.
+   *
+   * @return the number of timeout retries
+   */
+  public long getTimeoutRetries() {
+    return timeoutRetries.get();
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+}
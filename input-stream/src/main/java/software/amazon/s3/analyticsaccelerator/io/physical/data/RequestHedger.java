@@ -0,0 +1,353 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
+
+/**
+ * Cuts the tail latency of GET requests by hedging them: a request which has not responded once
+ * most requests of its size would have is issued a second time, the first response wins and the
+ * other request is cancelled.
+ *
+ * <p>Requests are grouped into size classes by the power of two of their length, and the hedging
+ * delay of a class is the 95th percentile of the time its recent requests took to respond, but no
+ * less than a configured floor. A class is not hedged until enough of its requests were observed.
+ *
+ * <p>Hedges are issued only while they stay within a budget, a fraction of all the requests made,
+ * so that hedging can never multiply the load on S3. A hedge also needs a permit of the {@link
+ * RequestScheduler}, which it only gets if no other request is waiting for one, and is skipped
+ * otherwise. The permit is released once the hedged request has been decided and the losing
+ * request cancelled.
+ */
+public class RequestHedger {
+  private final double budget;
+  private final long minDelayMs;
+  private final StreamDrainExecutor timer;
+  private final RequestScheduler requestScheduler;
+  private final Telemetry telemetry;
+  private final LatencyWindow[] windows = new LatencyWindow[Long.SIZE];
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong hedgesIssued = new AtomicLong();
+  private final AtomicLong hedgesWon = new AtomicLong();
+
+  private static final int WINDOW_SIZE = 128;
+  private static final int MIN_SAMPLES = 32;
+  private static final double PERCENTILE = 0.95;
+
+  private static final String METRIC_HEDGES_ISSUED = "request.hedger.hedges.issued";
+  private static final String METRIC_HEDGES_WON = "request.hedger.hedges.won";
+  private static final String METRIC_DELAY_MS = "request.hedger.delay.ms";
+
+  private static final Logger LOG = LoggerFactory.getLogger(RequestHedger.class);
+
+  /** A hedger which never hedges requests */
+  public static final RequestHedger DISABLED =
+      new RequestHedger(0, 0, StreamDrainExecutor.getDefault(), Telemetry.NOOP);
+
+  /**
+   * Creates a new instance of {@link RequestHedger}.
+   *
+   * @param budget the fraction of requests which may be hedged, or 0 to never hedge
+   * @param minDelayMs the minimum time a request waits for a response before it is hedged
+   * @param timer the executor whose scheduler thread issues the hedges
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public RequestHedger(
+      double budget,
+      long minDelayMs,
+      @NonNull StreamDrainExecutor timer,
+      @NonNull Telemetry telemetry) {
+    this(budget, minDelayMs, timer, RequestScheduler.UNBOUNDED, telemetry);
+  }
+
+  /**
+   * Creates a new instance of {@link RequestHedger}.
+   *
+   * @param budget the fraction of requests which may be hedged, or 0 to never hedge
+   * @param minDelayMs the minimum time a request waits for a response before it is hedged
+   * @param timer the executor whose scheduler thread issues the hedges
+   * @param requestScheduler the scheduler hedges take a permit from
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public RequestHedger(
+      double budget,
+      long minDelayMs,
+      @NonNull StreamDrainExecutor timer,
+      @NonNull RequestScheduler requestScheduler,
+      @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        0 <= budget && budget <= 1, "`budget` must be between 0 and 1; was: %s", budget);
+    Preconditions.checkArgument(
+        minDelayMs >= 0, "`minDelayMs` must not be negative; was: %s", minDelayMs);
+
+    this.budget = budget;
+    this.minDelayMs = minDelayMs;
+    this.timer = timer;
+    this.requestScheduler = requestScheduler;
+    this.telemetry = telemetry;
+    for (int i = 0; i < windows.length; i++) {
+      windows[i] = new LatencyWindow();
+    }
+  }
+
+  /**
+   * Issues a request, and issues it a second time if it is slow to respond. Cancelling the
+   * returned future cancels every request issued.
+   *
+   * @param s3URI the object requested, which the hedge takes a permit for
+   * @param length the number of bytes requested, which selects the size class of the request
+   * @param request issues the request and returns a future completing with its response
+   * @return a future completing with the first response
+   */
+  public CompletableFuture<ObjectContent> fetch(
+      @NonNull S3URI s3URI,
+      long length,
+      @NonNull Supplier<CompletableFuture<ObjectContent>> request) {
+    if (budget == 0) {
+      return request.get();
+    }
+    requests.incrementAndGet();
+    LatencyWindow window = windows[63 - Long.numberOfLeadingZeros(Math.max(1, length))];
+    long thresholdNanos = window.getThresholdNanos();
+    if (thresholdNanos < 0) {
+      return issue(request, window);
+    }
+
+    HedgedRequest hedgedRequest = new HedgedRequest(s3URI, request, window);
+    long delayMs = Math.max(minDelayMs, TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+    measure(METRIC_DELAY_MS, delayMs);
+    hedgedRequest.start(delayMs);
+    return hedgedRequest.result;
+  }
+
+  /**
+   * Returns the number of hedges issued.
+   *
+   * @return the number of hedges issued
+   */
+  public long getHedgesIssued() {
+    return hedgesIssued.get();
+  }
+
+  /**
+   * Returns the number of hedges which responded before the request they duplicated.
+   *
+   * @return the number of hedges won
+   */
+  public long getHedgesWon() {
+    return hedgesWon.get();
+  }
+
+  /**
+   * Issues a request, recording the time it takes to respond in the window of its size class.
+   *
+   * @param request issues the request
+   * @param window the latency window of the size class of the request
+   * @return a future completing with the response
+   */
+  private static CompletableFuture<ObjectContent> issue(
+      Supplier<CompletableFuture<ObjectContent>> request, LatencyWindow window) {
+    long startNanos = System.nanoTime();
+    CompletableFuture<ObjectContent> response = request.get();
+    response.thenRun(() -> window.add(System.nanoTime() - startNanos));
+    return response;
+  }
+
+  /**
+   * Takes a hedge out of the budget, unless it is used up.
+   *
+   * @return true if a hedge may be issued
+   */
+  private boolean tryTakeBudget() {
+    long issued = hedgesIssued.get();
+    while (issued + 1 <= budget * requests.get()) {
+      if (hedgesIssued.compareAndSet(issued, issued + 1)) {
+        return true;
+      }
+      issued = hedgesIssued.get();
+    }
+    return false;
+  }
+
+  /**
+   * Drops a response which lost to another one: cancels it if it has not arrived yet, and closes
+   * its stream if it has.
+   *
+   * @param response the losing response, or null if the request was never issued
+   */
+  private static void discard(CompletableFuture<ObjectContent> response) {
+    if (response == null) {
+      return;
+    }
+    response.cancel(false);
+    response.thenAccept(
+        content -> {
+          InputStream stream = content.getStream();
+          try {
+            if (stream != null) {
+              stream.close();
+            }
+          } catch (IOException e) {
+            LOG.debug("Failed to close the stream of a losing hedged request", e);
+          }
+        });
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** A request together with its hedge, whose first response completes the result */
+  private final class HedgedRequest {
+    private final S3URI s3URI;
+    private final Supplier<CompletableFuture<ObjectContent>> request;
+    private final LatencyWindow window;
+    private final CompletableFuture<ObjectContent> result = new CompletableFuture<>();
+    private final AtomicInteger issued = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile CompletableFuture<ObjectContent> primary;
+    private volatile CompletableFuture<ObjectContent> hedge;
+
+    private HedgedRequest(
+        S3URI s3URI, Supplier<CompletableFuture<ObjectContent>> request, LatencyWindow window) {
+      this.s3URI = s3URI;
+      this.request = request;
+      this.window = window;
+    }
+
+    private void start(long delayMs) {
+      issued.incrementAndGet();
+      CompletableFuture<ObjectContent> response = issue(request, window);
+      this.primary = response;
+      response.whenComplete((content, error) -> onResponse(content, error, false));
+      if (result.isDone()) {
+        return;
+      }
+
+      Future<?> scheduled;
+      try {
+        scheduled = timer.schedule(this::hedge, delayMs);
+      } catch (RejectedExecutionException e) {
+        // The executor is closed, wait for the request without a hedge
+        scheduled = null;
+      }
+      Future<?> hedgeTimer = scheduled;
+      result.whenComplete(
+          (content, error) -> {
+            if (hedgeTimer != null) {
+              hedgeTimer.cancel(false);
+            }
+            if (result.isCancelled()) {
+              discard(this.primary);
+              discard(this.hedge);
+            }
+          });
+    }
+
+    private void hedge() {
+      if (result.isDone()) {
+        return;
+      }
+      Optional<RequestScheduler.Permit> permit = requestScheduler.tryAcquire(s3URI);
+      if (!permit.isPresent()) {
+        return;
+      }
+      if (!tryTakeBudget()) {
+        permit.get().release();
+        return;
+      }
+      // Once the request is decided, the losing one is cancelled and the winner is covered by the
+      // permit of the original request
+      result.whenComplete((content, error) -> permit.get().release());
+      if (result.isDone()) {
+        return;
+      }
+      issued.incrementAndGet();
+      measure(METRIC_HEDGES_ISSUED, hedgesIssued.get());
+      CompletableFuture<ObjectContent> response;
+      try {
+        response = issue(request, window);
+      } catch (RuntimeException e) {
+        onResponse(null, e, true);
+        return;
+      }
+      this.hedge = response;
+      response.whenComplete((content, error) -> onResponse(content, error, true));
+      // The request may have responded while the hedge was being issued
+      if (result.isDone() && !response.isDone()) {
+        discard(response);
+      }
+    }
+
+    private void onResponse(ObjectContent content, Throwable error, boolean fromHedge) {
+      if (error == null) {
+        if (result.complete(content)) {
+          if (fromHedge) {
+            hedgesWon.incrementAndGet();
+            measure(METRIC_HEDGES_WON, hedgesWon.get());
+          }
+          discard(fromHedge ? primary : hedge);
+        } else {
+          discard(CompletableFuture.completedFuture(content));
+        }
+      } else if (failed.incrementAndGet() == issued.get()) {
+        // Only fail once no other request can still respond
+        result.completeExceptionally(error);
+      }
+    }
+  }
+
+  /** The response times of the most recent requests of a size class */
+  private static final class LatencyWindow {
+    // Guarded by `this`
+    private final long[] samples = new long[WINDOW_SIZE];
+    private long added;
+    // The hedging threshold, or -1 until enough requests were observed
+    private volatile long thresholdNanos = -1;
+
+    private synchronized void add(long latencyNanos) {
+      samples[(int) (added++ % WINDOW_SIZE)] = latencyNanos;
+      if (added >= MIN_SAMPLES) {
+        long[] sorted = Arrays.copyOf(samples, (int) Math.min(added, WINDOW_SIZE));
+        Arrays.sort(sorted);
+        thresholdNanos = sorted[(int) Math.ceil(PERCENTILE * sorted.length) - 1];
+      }
+    }
+
+    private long getThresholdNanos() {
+      return thresholdNanos;
+    }
+  }
+}
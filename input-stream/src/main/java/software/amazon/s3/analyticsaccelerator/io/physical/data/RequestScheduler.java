@@ -0,0 +1,249 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.request.ReadMode;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+/**
+ * Bounds the number of GET requests in flight, both in total and per object. A block acquires a
+ * permit before it issues its GET and releases it once the response has been drained, so that a
+ * permit stands for a connection in use.
+ *
+ * <p>Requests over either limit wait in a queue, and are let through in the order they arrived in
+ * as permits are released. A request waiting on the limit of its own object does not hold up the
+ * requests for other objects queued behind it.
+ *
+ * <p>Requests of {@link ReadMode#SYNC} reads, which a reader is blocked on, are let through before
+ * any waiting request of an {@link ReadMode#ASYNC} prefetch, so that speculative prefetches never
+ * delay the data a reader needs now.
+ */
+public class RequestScheduler {
+  private final int maxInFlight;
+  private final int maxInFlightPerObject;
+  private final Telemetry telemetry;
+
+  // All state below is guarded by `this`
+  private final Map<ReadMode, LinkedList<Waiter>> waiting = new EnumMap<>(ReadMode.class);
+  private final Map<S3URI, Integer> inFlightPerObject = new HashMap<>();
+  private int inFlight;
+
+  // Read modes in the order their waiting requests are let through in
+  private static final ReadMode[] PRIORITIES = {ReadMode.SYNC, ReadMode.ASYNC};
+
+  private static final String METRIC_IN_FLIGHT = "request.scheduler.in.flight";
+  private static final String METRIC_QUEUE_DEPTH = "request.scheduler.queue.depth";
+  private static final Map<ReadMode, String> METRIC_WAIT_MS = new EnumMap<>(ReadMode.class);
+
+  static {
+    METRIC_WAIT_MS.put(ReadMode.SYNC, "request.scheduler.wait.ms.sync");
+    METRIC_WAIT_MS.put(ReadMode.ASYNC, "request.scheduler.wait.ms.async");
+  }
+
+  /** A scheduler which lets every request through as soon as it is made */
+  public static final RequestScheduler UNBOUNDED = new RequestScheduler(0, 0, Telemetry.NOOP);
+
+  /**
+   * Creates a new instance of {@link RequestScheduler}.
+   *
+   * @param maxInFlight the maximum number of requests in flight, or 0 for no limit
+   * @param maxInFlightPerObject the maximum number of requests in flight per object, or 0 for no
+   *     limit
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public RequestScheduler(int maxInFlight, int maxInFlightPerObject, @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        maxInFlight >= 0, "`maxInFlight` must not be negative; was: %s", maxInFlight);
+    Preconditions.checkArgument(
+        maxInFlightPerObject >= 0,
+        "`maxInFlightPerObject` must not be negative; was: %s",
+        maxInFlightPerObject);
+
+    this.maxInFlight = maxInFlight;
+    this.maxInFlightPerObject = maxInFlightPerObject;
+    this.telemetry = telemetry;
+    for (ReadMode readMode : PRIORITIES) {
+      waiting.put(readMode, new LinkedList<>());
+    }
+  }
+
+  /**
+   * Acquires a permit to issue a request for an object. Cancelling the future before it completes
+   * gives up the place of the request in the queue.
+   *
+   * @param s3URI the object the request is for
+   * @param readMode whether the request is for a sync read or an async prefetch
+   * @return a future completing with the permit once the request may be issued
+   */
+  public CompletableFuture<Permit> acquire(@NonNull S3URI s3URI, @NonNull ReadMode readMode) {
+    Waiter waiter;
+    synchronized (this) {
+      // Waiting requests are all over a limit, so a request that is not can go ahead of them
+      if (isBelowLimits(s3URI)) {
+        take(s3URI);
+        measure(METRIC_IN_FLIGHT, inFlight);
+        measure(METRIC_WAIT_MS.get(readMode), 0);
+        return CompletableFuture.completedFuture(new Permit(s3URI));
+      }
+      waiter = new Waiter(s3URI, readMode, System.nanoTime());
+      waiting.get(readMode).addLast(waiter);
+      measure(METRIC_QUEUE_DEPTH, getQueueDepth());
+    }
+    waiter.future.whenComplete(
+        (permit, error) -> {
+          if (error != null) {
+            forget(waiter);
+          }
+        });
+    return waiter.future;
+  }
+
+  /**
+   * Acquires a permit to issue a request for an object only if one is available right away. This is
+   * for requests that are only worth making if they delay nobody, such as hedges: they rank below
+   * {@link ReadMode#ASYNC} prefetches, so no permit is handed out while any request is waiting.
+   *
+   * @param s3URI the object the request is for
+   * @return the permit, or empty if the request would have to wait
+   */
+  public synchronized Optional<Permit> tryAcquire(@NonNull S3URI s3URI) {
+    if (getQueueDepth() > 0 || !isBelowLimits(s3URI)) {
+      return Optional.empty();
+    }
+    take(s3URI);
+    measure(METRIC_IN_FLIGHT, inFlight);
+    return Optional.of(new Permit(s3URI));
+  }
+
+  /**
+   * Returns the number of requests in flight.
+   *
+   * @return the number of requests in flight
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the number of requests waiting for a permit.
+   *
+   * @return the number of waiting requests
+   */
+  public synchronized int getQueueDepth() {
+    int queueDepth = 0;
+    for (LinkedList<Waiter> waiters : waiting.values()) {
+      queueDepth += waiters.size();
+    }
+    return queueDepth;
+  }
+
+  private void release(S3URI s3URI) {
+    List<Waiter> ready = new ArrayList<>();
+    synchronized (this) {
+      inFlight--;
+      inFlightPerObject.computeIfPresent(s3URI, (key, count) -> count == 1 ? null : count - 1);
+
+      for (ReadMode readMode : PRIORITIES) {
+        Iterator<Waiter> waiters = waiting.get(readMode).iterator();
+        while (waiters.hasNext() && (maxInFlight == 0 || inFlight < maxInFlight)) {
+          Waiter waiter = waiters.next();
+          if (isBelowLimits(waiter.s3URI)) {
+            waiters.remove();
+            take(waiter.s3URI);
+            ready.add(waiter);
+          }
+        }
+      }
+      measure(METRIC_IN_FLIGHT, inFlight);
+      measure(METRIC_QUEUE_DEPTH, getQueueDepth());
+    }
+
+    // Completing a permit issues its request, which must not happen under the lock
+    for (Waiter waiter : ready) {
+      measure(
+          METRIC_WAIT_MS.get(waiter.readMode),
+          (System.nanoTime() - waiter.queuedAtNanos) / 1_000_000.0);
+      Permit permit = new Permit(waiter.s3URI);
+      if (!waiter.future.complete(permit)) {
+        permit.release();
+      }
+    }
+  }
+
+  private synchronized void forget(Waiter waiter) {
+    waiting.get(waiter.readMode).remove(waiter);
+  }
+
+  private boolean isBelowLimits(S3URI s3URI) {
+    return (maxInFlight == 0 || inFlight < maxInFlight)
+        && (maxInFlightPerObject == 0
+            || inFlightPerObject.getOrDefault(s3URI, 0) < maxInFlightPerObject);
+  }
+
+  private void take(S3URI s3URI) {
+    inFlight++;
+    inFlightPerObject.merge(s3URI, 1, Integer::sum);
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** Permission to have one request for an object in flight, to be released once it is done */
+  public final class Permit {
+    private final S3URI s3URI;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(S3URI s3URI) {
+      this.s3URI = s3URI;
+    }
+
+    /** Releases the permit, letting a waiting request through. Only the first call has effect. */
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        RequestScheduler.this.release(s3URI);
+      }
+    }
+  }
+
+  /** A request waiting for a permit */
+  private static final class Waiter {
+    private final S3URI s3URI;
+    private final ReadMode readMode;
+    private final long queuedAtNanos;
+    private final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+    private Waiter(S3URI s3URI, ReadMode readMode, long queuedAtNanos) {
+      this.s3URI = s3URI;
+      this.readMode = readMode;
+      this.queuedAtNanos = queuedAtNanos;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+
+/**
+ * Tokens retries are paid with, earned back by successful requests. Retries are allowed while more
+ * than half of the tokens are left, so that once the initial allowance is spent, retries cannot
+ * outnumber the share of successful requests which earned them. This stops failing requests from
+ * being retried into a storm which makes the failure worse, as throttling does.
+ */
+public class RetryBudget {
+  private final double maxTokens;
+  // Guarded by `this`
+  private double tokens;
+
+  private static final double DEFAULT_MAX_TOKENS = 100;
+
+  /**
+   * Creates a new instance of {@link RetryBudget} holding all of its tokens.
+   *
+   * @param maxTokens the maximum number of tokens, of which half can be spent without earning any
+   */
+  public RetryBudget(double maxTokens) {
+    Preconditions.checkArgument(maxTokens > 0, "`maxTokens` must be positive; was: %s", maxTokens);
+
+    this.maxTokens = maxTokens;
+    this.tokens = maxTokens;
+  }
+
+  /**
+   * Returns the process-wide budget, shared by all the retry policies which were not handed one.
+   *
+   * @return the default {@link RetryBudget}
+   */
+  public static RetryBudget getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Takes a token for a retry, unless the budget is spent.
+   *
+   * @return true if the retry is allowed
+   */
+  public synchronized boolean tryWithdraw() {
+    if (tokens <= maxTokens / 2) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  /**
+   * Adds the tokens earned by a successful request.
+   *
+   * @param earned the number of tokens earned
+   */
+  public synchronized void deposit(double earned) {
+    tokens = Math.min(maxTokens, tokens + earned);
+  }
+
+  /**
+   * Returns the number of tokens left.
+   *
+   * @return the number of tokens
+   */
+  public synchronized double getTokens() {
+    return tokens;
+  }
+
+  /** Lazily creates the default budget on first use */
+  private static final class DefaultHolder {
+    private static final RetryBudget INSTANCE = new RetryBudget(DEFAULT_MAX_TOKENS);
+  }
+}
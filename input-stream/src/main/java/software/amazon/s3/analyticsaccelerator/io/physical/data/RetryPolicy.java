@@ -0,0 +1,83 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.FileNotFoundException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import software.amazon.s3.analyticsaccelerator.exceptions.ThrottlingException;
+
+/** Decides whether, and after how long, a failed request to S3 is retried. */
+public interface RetryPolicy {
+  /** A policy which retries every error that may go away immediately, without a budget */
+  RetryPolicy IMMEDIATE =
+      new RetryPolicy() {
+        @Override
+        public long backoffMs(Throwable error, int retry) {
+          return ErrorClass.of(error) == ErrorClass.FATAL ? -1 : 0;
+        }
+
+        @Override
+        public void recordSuccess() {}
+      };
+
+  /**
+   * Decides whether a failed request is retried. The caller bounds the number of retries, the
+   * policy may refuse a retry before that.
+   *
+   * @param error the error the request failed with
+   * @param retry the number of the retry, starting at 1 for the first one
+   * @return the time to wait before retrying in milliseconds, or -1 if the request must not be
+   *     retried
+   */
+  long backoffMs(Throwable error, int retry);
+
+  /** Records a request which succeeded, from which retries may earn their budget. */
+  void recordSuccess();
+
+  /** The classes of errors a request may fail with, which decide how it is retried */
+  enum ErrorClass {
+    /** S3 asks for requests to slow down, so a retry has to back off for longer */
+    THROTTLING,
+    /** The error may go away when the request is retried */
+    TRANSIENT,
+    /** Retrying the request would fail the same way, or the request is no longer wanted */
+    FATAL;
+
+    /**
+     * Classifies an error by the first of its causes which tells its class.
+     *
+     * @param error the error
+     * @return the class of the error, {@link #TRANSIENT} if none of its causes tells otherwise
+     */
+    public static ErrorClass of(Throwable error) {
+      for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+        if (cause instanceof ThrottlingException) {
+          return THROTTLING;
+        }
+        if (cause instanceof FileNotFoundException
+            || (cause instanceof InterruptedIOException
+                && !(cause instanceof SocketTimeoutException))
+            || cause instanceof InterruptedException
+            || cause instanceof CancellationException) {
+          return FATAL;
+        }
+      }
+      return TRANSIENT;
+    }
+  }
+}
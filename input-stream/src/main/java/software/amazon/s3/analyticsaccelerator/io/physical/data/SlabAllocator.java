@@ -0,0 +1,207 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.util.StreamAttributes;
+
+/**
+ * A pool of fixed-size, off-heap slabs that block data is stored in. Slabs are allocated lazily up
+ * to the capacity of the pool and are recycled between blocks rather than returned to the
+ * operating system, so steady-state reads neither churn the heap nor trigger direct memory
+ * allocation.
+ *
+ * <p>When the pool is exhausted, a lease waits for slabs to be freed for at most the given timeout,
+ * after which it fails with an {@link IOException}.
+ */
+public class SlabAllocator implements Closeable {
+  private final int slabSizeBytes;
+  private final int maxSlabs;
+  private final Telemetry telemetry;
+
+  // All state below is guarded by `this`
+  private final Deque<ByteBuffer> freeSlabs = new ArrayDeque<>();
+  private int allocatedSlabs;
+  private int leasedSlabs;
+  private long leasedBytes;
+  private boolean closed;
+
+  private static final String OPERATION_SLAB_LEASE = "slab.allocator.lease";
+  private static final String METRIC_SLAB_OCCUPANCY = "slab.allocator.occupancy";
+  private static final String METRIC_SLAB_FRAGMENTATION = "slab.allocator.fragmentation";
+
+  /**
+   * Creates a new instance of {@link SlabAllocator}.
+   *
+   * @param slabSizeBytes the size of each slab
+   * @param poolCapacityBytes the maximum number of bytes held by the pool
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public SlabAllocator(int slabSizeBytes, long poolCapacityBytes, @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        slabSizeBytes > 0, "`slabSizeBytes` must be positive; was: %s", slabSizeBytes);
+    Preconditions.checkArgument(
+        poolCapacityBytes >= slabSizeBytes,
+        "`poolCapacityBytes` must be at least `slabSizeBytes`; was: %s",
+        poolCapacityBytes);
+
+    this.slabSizeBytes = slabSizeBytes;
+    this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, poolCapacityBytes / slabSizeBytes);
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Leases enough slabs to hold the given number of bytes, waiting for slabs to be freed if the
+   * pool is exhausted.
+   *
+   * @param length the number of bytes the buffer needs to hold
+   * @param timeoutMs the maximum time to wait for slabs, in milliseconds
+   * @return a {@link SlabBlockBuffer} with a single reference held by the caller
+   * @throws IOException if the slabs could not be leased within the timeout
+   */
+  public SlabBlockBuffer lease(int length, long timeoutMs) throws IOException {
+    Preconditions.checkArgument(0 <= length, "`length` must not be negative; was: %s", length);
+    int slabCount = Math.max(1, (int) ((length + (long) slabSizeBytes - 1) / slabSizeBytes));
+    if (slabCount > maxSlabs) {
+      throw new IOException(
+          String.format(
+              "Cannot lease %s bytes from a slab pool of %s slabs of %s bytes",
+              length, maxSlabs, slabSizeBytes));
+    }
+
+    SlabBlockBuffer buffer =
+        this.telemetry.measureStandard(
+            () ->
+                Operation.builder()
+                    .name(OPERATION_SLAB_LEASE)
+                    .attribute(StreamAttributes.rangeLength(length))
+                    .build(),
+            () ->
+                new SlabBlockBuffer(
+                    this, leaseSlabs(slabCount, length, timeoutMs), slabSizeBytes, length));
+    recordUsage();
+    return buffer;
+  }
+
+  /**
+   * Returns the number of slabs currently leased out.
+   *
+   * @return the number of leased slabs
+   */
+  public synchronized int getLeasedSlabs() {
+    return leasedSlabs;
+  }
+
+  /**
+   * Returns the number of slabs allocated so far, whether leased or free.
+   *
+   * @return the number of allocated slabs
+   */
+  public synchronized int getAllocatedSlabs() {
+    return allocatedSlabs;
+  }
+
+  private synchronized ByteBuffer[] leaseSlabs(int slabCount, int length, long timeoutMs)
+      throws IOException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (!closed && maxSlabs - leasedSlabs < slabCount) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        throw new IOException(
+            String.format(
+                "Timed out after %s ms waiting for %s free slabs; %s of %s slabs are leased",
+                timeoutMs, slabCount, leasedSlabs, maxSlabs));
+      }
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for free slabs", e);
+      }
+    }
+    if (closed) {
+      throw new IOException("Slab allocator is closed");
+    }
+
+    ByteBuffer[] slabs = new ByteBuffer[slabCount];
+    for (int i = 0; i < slabCount; i++) {
+      ByteBuffer slab = freeSlabs.pollFirst();
+      if (slab == null) {
+        slab = ByteBuffer.allocateDirect(slabSizeBytes);
+        allocatedSlabs++;
+      }
+      slabs[i] = slab;
+    }
+    leasedSlabs += slabCount;
+    leasedBytes += length;
+    return slabs;
+  }
+
+  /**
+   * Returns slabs to the pool. Called by {@link SlabBlockBuffer} once its last reference is
+   * released.
+   *
+   * @param slabs the slabs to return
+   * @param length the number of bytes the slabs were leased for
+   */
+  void free(@NonNull ByteBuffer[] slabs, int length) {
+    synchronized (this) {
+      for (ByteBuffer slab : slabs) {
+        slab.clear();
+        if (!closed) {
+          freeSlabs.addFirst(slab);
+        }
+      }
+      leasedSlabs -= slabs.length;
+      leasedBytes -= length;
+      notifyAll();
+    }
+    recordUsage();
+  }
+
+  /** Reports how full the pool is and how much of the leased space is wasted to slab rounding */
+  private void recordUsage() {
+    double occupancy;
+    double fragmentation;
+    synchronized (this) {
+      occupancy = (double) leasedSlabs / maxSlabs;
+      long leasedCapacity = (long) leasedSlabs * slabSizeBytes;
+      fragmentation = leasedCapacity == 0 ? 0 : 1 - (double) leasedBytes / leasedCapacity;
+    }
+    this.telemetry.measure(Metric.builder().name(METRIC_SLAB_OCCUPANCY).build(), occupancy);
+    this.telemetry.measure(Metric.builder().name(METRIC_SLAB_FRAGMENTATION).build(), fragmentation);
+  }
+
+  /**
+   * Closes the allocator. Free slabs are dropped so that their memory can be reclaimed, as are
+   * leased slabs once they are freed. Pending and future leases fail.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    freeSlabs.clear();
+    notifyAll();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+
+/**
+ * A {@link BlockBuffer} backed by off-heap slabs leased from a {@link SlabAllocator}. The slabs are
+ * returned to the allocator once the last reference to the buffer is released.
+ *
+ * <p>The buffer is filled once, sequentially, through {@link #writer()}. Reads and writes use
+ * duplicates of the slabs, so readers can consume the bytes that have landed while the buffer is
+ * still being filled.
+ */
+public class SlabBlockBuffer extends FillableBlockBuffer {
+  private final SlabAllocator allocator;
+  private final ByteBuffer[] slabs;
+  private final int slabSize;
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  /**
+   * Creates a new instance of {@link SlabBlockBuffer}.
+   *
+   * @param allocator the allocator the slabs were leased from
+   * @param slabs the leased slabs
+   * @param slabSize the size of each slab
+   * @param capacity the number of bytes the buffer was leased for
+   */
+  SlabBlockBuffer(
+      @NonNull SlabAllocator allocator, @NonNull ByteBuffer[] slabs, int slabSize, int capacity) {
+    super(capacity);
+    this.allocator = allocator;
+    this.slabs = slabs;
+    this.slabSize = slabSize;
+  }
+
+  @Override
+  public int get(int offset) {
+    return Byte.toUnsignedInt(slabs[offset / slabSize].get(offset % slabSize));
+  }
+
+  @Override
+  public void get(int offset, byte[] buf, int off, int len) {
+    int copied = 0;
+    while (copied < len) {
+      int position = offset + copied;
+      ByteBuffer slab = slabs[position / slabSize].duplicate();
+      slab.position(position % slabSize);
+      int toCopy = Math.min(len - copied, slabSize - slab.position());
+      slab.get(buf, off + copied, toCopy);
+      copied += toCopy;
+    }
+  }
+
+  @Override
+  public void get(int offset, ByteBuffer dest, int len) {
+    int copied = 0;
+    while (copied < len) {
+      int position = offset + copied;
+      ByteBuffer slab = slabs[position / slabSize].duplicate();
+      slab.position(position % slabSize);
+      int toCopy = Math.min(len - copied, slabSize - slab.position());
+      slab.limit(slab.position() + toCopy);
+      dest.put(slab);
+      copied += toCopy;
+    }
+  }
+
+  @Override
+  public Optional<ByteBuffer> slice(int offset, int len) {
+    // Slabs are reused as soon as the buffer is released, so a view which outlives the reference
+    // count could expose the data of another block. Off-heap data is always copied instead.
+    return Optional.empty();
+  }
+
+  @Override
+  public boolean retain() {
+    int current;
+    do {
+      current = references.get();
+      if (current == 0) {
+        return false;
+      }
+    } while (!references.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  @Override
+  public void release() {
+    if (references.decrementAndGet() == 0) {
+      allocator.free(slabs, capacity());
+    }
+  }
+
+  @Override
+  protected void put(int position, byte[] b, int off, int len) {
+    int written = 0;
+    while (written < len) {
+      int slabPosition = position + written;
+      ByteBuffer slab = slabs[slabPosition / slabSize].duplicate();
+      slab.position(slabPosition % slabSize);
+      int toWrite = Math.min(len - written, slabSize - slab.position());
+      slab.put(b, off + written, toWrite);
+      written += toWrite;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+
+/**
+ * Aborts GET responses which are still alive but trickle their data far slower than responses
+ * usually do, rather than waiting for their read to time out.
+ *
+ * <p>It keeps a running average of the throughput of the responses drained so far, across all
+ * objects. A response whose throughput stays below a fraction of that average for a whole window
+ * is deemed stalled: its stream is closed and reading it fails, so that the rest of the block is
+ * fetched again on a new connection. Nothing is aborted until a throughput has been observed.
+ */
+public class StallDetector {
+  private final double minThroughputRatio;
+  private final long windowNanos;
+  private final Telemetry telemetry;
+  private final AtomicLong stalls = new AtomicLong();
+  private final AtomicLong recoveries = new AtomicLong();
+
+  // Running average of the throughput in bytes per nanosecond, guarded by `this`; negative until a
+  // response has been observed
+  private double bytesPerNano = -1;
+
+  // Weight of a new observation in the running average
+  private static final double SMOOTHING = 0.2;
+  // Smaller responses are not observed, as their throughput tells more about latency than about
+  // the connection
+  private static final long MIN_OBSERVED_BYTES = 256 * 1024;
+
+  private static final String METRIC_STALLS = "stall.detector.stalls";
+  private static final String METRIC_RECOVERY_MS = "stall.detector.recovery.ms";
+
+  private static final Logger LOG = LoggerFactory.getLogger(StallDetector.class);
+
+  /** A detector which never aborts responses */
+  public static final StallDetector DISABLED = new StallDetector(0, 1, Telemetry.NOOP);
+
+  /**
+   * Creates a new instance of {@link StallDetector}.
+   *
+   * @param minThroughputRatio the fraction of the average throughput below which a response
+   *     stalls, or 0 to never abort responses
+   * @param windowMs the time a response has to stay below that throughput for to be aborted
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public StallDetector(double minThroughputRatio, long windowMs, @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(
+        0 <= minThroughputRatio && minThroughputRatio <= 1,
+        "`minThroughputRatio` must be between 0 and 1; was: %s",
+        minThroughputRatio);
+    Preconditions.checkArgument(windowMs > 0, "`windowMs` must be positive; was: %s", windowMs);
+
+    this.minThroughputRatio = minThroughputRatio;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Wraps the stream of a response, so that reading it fails once it stalls.
+   *
+   * @param stream the stream of the response
+   * @param onStall called before the stream is aborted because it stalled
+   * @return the monitored stream, or the stream itself if stalls are not detected
+   */
+  public InputStream monitor(@NonNull InputStream stream, @NonNull Runnable onStall) {
+    if (minThroughputRatio == 0) {
+      return stream;
+    }
+    return new MonitoredStream(stream, onStall);
+  }
+
+  /**
+   * Records a response which was drained to its end.
+   *
+   * @param bytes the number of bytes of the response
+   * @param transferNanos the time from its first to its last byte, in nanoseconds
+   */
+  public void record(long bytes, long transferNanos) {
+    if (bytes < MIN_OBSERVED_BYTES || transferNanos <= 0) {
+      return;
+    }
+    double observedBytesPerNano = (double) bytes / transferNanos;
+    synchronized (this) {
+      if (this.bytesPerNano < 0) {
+        this.bytesPerNano = observedBytesPerNano;
+      } else {
+        this.bytesPerNano += SMOOTHING * (observedBytesPerNano - this.bytesPerNano);
+      }
+    }
+  }
+
+  /**
+   * Records that a block whose response stalled has been fetched in full.
+   *
+   * @param recoveryNanos the time from the stall until the block was fetched, in nanoseconds
+   */
+  public void recordRecovery(long recoveryNanos) {
+    recoveries.incrementAndGet();
+    measure(METRIC_RECOVERY_MS, TimeUnit.NANOSECONDS.toMillis(recoveryNanos));
+  }
+
+  /**
+   * Returns the number of responses aborted because they stalled.
+   *
+   * @return the number of stalls
+   */
+  public long getStalls() {
+    return stalls.get();
+  }
+
+  /**
+   * Returns the number of blocks fetched in full after their response stalled.
+   *
+   * @return the number of recoveries
+   */
+  public long getRecoveries() {
+    return recoveries.get();
+  }
+
+  /**
+   * Returns the throughput below which a response stalls.
+   *
+   * @return the throughput in bytes per nanosecond, or a negative number until one is observed
+   */
+  private synchronized double minBytesPerNano() {
+    return bytesPerNano < 0 ? -1 : minThroughputRatio * bytesPerNano;
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** The stream of a response, whose throughput is checked over every window as it is read */
+  private final class MonitoredStream extends FilterInputStream {
+    private final Runnable onStall;
+    // When the first bytes arrived, or -1 until they have
+    private long firstReadNanos = -1;
+    private long windowStartNanos;
+    private long windowBytes;
+    private long totalBytes;
+
+    private MonitoredStream(InputStream stream, Runnable onStall) {
+      super(stream);
+      this.onStall = onStall;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int numBytesRead = super.read(b, off, len);
+      long now = System.nanoTime();
+      if (numBytesRead == -1) {
+        if (firstReadNanos >= 0) {
+          record(totalBytes, now - firstReadNanos);
+          firstReadNanos = -1;
+        }
+        return numBytesRead;
+      }
+
+      totalBytes += numBytesRead;
+      if (firstReadNanos < 0) {
+        // The window starts once the first bytes arrived, so the latency of the request is not
+        // taken for a stall
+        firstReadNanos = now;
+        windowStartNanos = now;
+        return numBytesRead;
+      }
+      windowBytes += numBytesRead;
+      long elapsedNanos = now - windowStartNanos;
+      if (elapsedNanos >= windowNanos) {
+        double minBytesPerNano = minBytesPerNano();
+        if (minBytesPerNano > 0 && windowBytes < minBytesPerNano * elapsedNanos) {
+          abort(elapsedNanos);
+        }
+        windowStartNanos = now;
+        windowBytes = 0;
+      }
+      return numBytesRead;
+    }
+
+    private void abort(long elapsedNanos) throws IOException {
+      measure(METRIC_STALLS, stalls.incrementAndGet());
+      onStall.run();
+      try {
+        in.close();
+      } catch (IOException e) {
+        LOG.debug("Failed to close the stream of a stalled response", e);
+      }
+      throw new IOException(
+          String.format(
+              "Response stalled after %s bytes, receiving %s bytes in %s ms",
+              totalBytes, windowBytes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos)));
+    }
+  }
+}
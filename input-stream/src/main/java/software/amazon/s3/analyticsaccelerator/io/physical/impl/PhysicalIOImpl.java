@@ -16,15 +16,19 @@
 package software.amazon.s3.analyticsaccelerator.io.physical.impl;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import lombok.NonNull;
 import software.amazon.s3.analyticsaccelerator.common.Preconditions;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Operation;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIO;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.Blob;
 import software.amazon.s3.analyticsaccelerator.io.physical.data.BlobStore;
 import software.amazon.s3.analyticsaccelerator.io.physical.data.MetadataStore;
 import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlan;
 import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanExecution;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.StreamPrefetchState;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
 import software.amazon.s3.analyticsaccelerator.request.StreamContext;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
@@ -39,6 +43,8 @@ public class PhysicalIOImpl implements PhysicalIO {
   private final StreamContext streamContext;
   private ObjectKey objectKey;
   private final ObjectMetadata metadata;
+  // The access pattern and read-ahead windows of this stream, kept apart from other streams
+  private final StreamPrefetchState prefetchState;
 
   private final long physicalIOBirth = System.nanoTime();
 
@@ -46,6 +52,8 @@ public class PhysicalIOImpl implements PhysicalIO {
   private static final String OPERATION_EXECUTE = "physical.io.execute";
   private static final String FLAVOR_TAIL = "tail";
   private static final String FLAVOR_BYTE = "byte";
+  private static final String FLAVOR_BUFFER = "buffer";
+  private static final String FLAVOR_SLICE = "slice";
 
   /**
    * Construct a new instance of PhysicalIOV2.
@@ -86,6 +94,7 @@ public class PhysicalIOImpl implements PhysicalIO {
     this.streamContext = streamContext;
     this.metadata = this.metadataStore.get(s3URI);
     this.objectKey = ObjectKey.builder().s3URI(s3URI).etag(metadata.getEtag()).build();
+    this.prefetchState = new StreamPrefetchState(blobStore.getConfiguration(), telemetry);
   }
 
   /**
@@ -122,7 +131,7 @@ public class PhysicalIOImpl implements PhysicalIO {
                       StreamAttributes.physicalIORelativeTimestamp(
                           System.nanoTime() - physicalIOBirth))
                   .build(),
-          () -> blobStore.get(this.objectKey, this.metadata, streamContext).read(pos));
+          () -> withBlob(blob -> blob.read(pos, prefetchState)));
     } catch (Exception e) {
       handleOperationExceptions(e);
       throw e;
@@ -159,7 +168,78 @@ public class PhysicalIOImpl implements PhysicalIO {
                       StreamAttributes.physicalIORelativeTimestamp(
                           System.nanoTime() - physicalIOBirth))
                   .build(),
-          () -> blobStore.get(objectKey, this.metadata, streamContext).read(buf, off, len, pos));
+          () -> withBlob(blob -> blob.read(buf, off, len, pos, prefetchState)));
+    } catch (Exception e) {
+      handleOperationExceptions(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Reads request data into the provided {@link ByteBuffer}, starting at its current position and
+   * advancing it. The buffer may be a heap or a direct buffer.
+   *
+   * @param buf buffer to read data into
+   * @param pos the position to begin reading from
+   * @return the total number of bytes read into the buffer
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public int read(@NonNull ByteBuffer buf, long pos) throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+    Preconditions.checkArgument(pos < contentLength(), "`pos` must be less than content length");
+
+    int len = buf.remaining();
+    try {
+      return this.telemetry.measureVerbose(
+          () ->
+              Operation.builder()
+                  .name(OPERATION_READ)
+                  .attribute(StreamAttributes.variant(FLAVOR_BUFFER))
+                  .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
+                  .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
+                  .attribute(StreamAttributes.range(pos, pos + len - 1))
+                  .attribute(
+                      StreamAttributes.physicalIORelativeTimestamp(
+                          System.nanoTime() - physicalIOBirth))
+                  .build(),
+          () -> withBlob(blob -> blob.read(buf, pos, prefetchState)));
+    } catch (Exception e) {
+      handleOperationExceptions(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns a read-only view of a range of the object. The view is taken without copying when the
+   * whole range falls inside a single block that holds its data on-heap, and copied otherwise.
+   *
+   * @param pos the position the view starts at
+   * @param len the length of the view
+   * @return a read-only view of the range
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public Optional<ByteBuffer> readSlice(long pos, int len) throws IOException {
+    Preconditions.checkArgument(0 <= pos, "`pos` must not be negative");
+    Preconditions.checkArgument(0 <= len, "`len` must not be negative");
+    Preconditions.checkArgument(
+        pos + len <= contentLength(), "`pos + len` must not exceed content length");
+
+    try {
+      return this.telemetry.measureVerbose(
+          () ->
+              Operation.builder()
+                  .name(OPERATION_READ)
+                  .attribute(StreamAttributes.variant(FLAVOR_SLICE))
+                  .attribute(StreamAttributes.uri(this.objectKey.getS3URI()))
+                  .attribute(StreamAttributes.etag(this.objectKey.getEtag()))
+                  .attribute(StreamAttributes.range(pos, pos + len - 1))
+                  .attribute(
+                      StreamAttributes.physicalIORelativeTimestamp(
+                          System.nanoTime() - physicalIOBirth))
+                  .build(),
+          () -> withBlob(blob -> blob.readSlice(pos, len, prefetchState)));
     } catch (Exception e) {
       handleOperationExceptions(e);
       throw e;
@@ -193,10 +273,7 @@ public class PhysicalIOImpl implements PhysicalIO {
                       StreamAttributes.physicalIORelativeTimestamp(
                           System.nanoTime() - physicalIOBirth))
                   .build(),
-          () ->
-              blobStore
-                  .get(objectKey, this.metadata, streamContext)
-                  .read(buf, off, len, contentLength - len));
+          () -> withBlob(blob -> blob.read(buf, off, len, contentLength - len, prefetchState)));
     } catch (Exception e) {
       handleOperationExceptions(e);
       throw e;
@@ -222,7 +299,31 @@ public class PhysicalIOImpl implements PhysicalIO {
                     StreamAttributes.physicalIORelativeTimestamp(
                         System.nanoTime() - physicalIOBirth))
                 .build(),
-        () -> blobStore.get(objectKey, this.metadata, streamContext).execute(ioPlan));
+        () -> withBlob(blob -> blob.execute(ioPlan)));
+  }
+
+  /**
+   * Runs an operation on the blob of the object, holding a reference to it so that the blob is not
+   * closed under the operation if another stream evicts it meanwhile.
+   *
+   * @param operation the operation to run
+   * @param <T> the type of the result of the operation
+   * @return the result of the operation
+   * @throws IOException if an I/O error occurs
+   */
+  private <T> T withBlob(BlobOperation<T> operation) throws IOException {
+    Blob blob = blobStore.acquire(objectKey, this.metadata, streamContext);
+    try {
+      return operation.apply(blob);
+    } finally {
+      blob.release();
+    }
+  }
+
+  /** An operation on a blob */
+  @FunctionalInterface
+  private interface BlobOperation<T> {
+    T apply(Blob blob) throws IOException;
   }
 
   private void handleOperationExceptions(Exception e) {
@@ -25,5 +25,14 @@ public enum IOPlanState {
   SKIPPED,
 
   /** Failed to submit IOPlan to PhysicalIO */
-  FAILED
+  FAILED,
+
+  /** IOPlan was held back because memory is filling up, and is executed once memory is freed */
+  DEFERRED,
+
+  /** Only part of the IOPlan was submitted, as memory is running short */
+  THROTTLED,
+
+  /** IOPlan was dropped, as memory is running short */
+  DROPPED
 }
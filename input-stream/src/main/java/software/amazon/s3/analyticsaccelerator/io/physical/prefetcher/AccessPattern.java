@@ -0,0 +1,40 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/** The patterns of reads recognized by the {@link AccessPatternDetector}. */
+public enum AccessPattern {
+  /** Reads with no recognized pattern */
+  RANDOM("random"),
+  /** Each read continues where the previous one ended */
+  FORWARD("forward"),
+  /** Each read ends where the previous one started */
+  BACKWARD("backward"),
+  /** Reads start a fixed distance apart, leaving gaps between them */
+  STRIDED("strided"),
+  /** Reads alternate between several forward cursors */
+  MULTI_CURSOR("multicursor");
+
+  @Getter(AccessLevel.PACKAGE)
+  private final String name;
+
+  AccessPattern(String name) {
+    this.name = name;
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import lombok.NonNull;
+import lombok.Value;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+
+/**
+ * Class recognizing the pattern of the reads of an object from a short history of their offsets.
+ *
+ * <p>The {@link SequentialPatternDetector} only recognizes a read continuing bytes which are still
+ * held by a block. This detector keeps the last few reads, and also recognizes reads walking the
+ * object backward, reads a fixed stride apart, and several forward cursors interleaving their
+ * reads. Backward and strided reads are only reported as such once the step between them repeated,
+ * so that a single jump is not mistaken for a pattern.
+ *
+ * <p>The ranges prefetched for a pattern are recorded as predictions of the next reads. A read
+ * covered by a prediction is a hit for the pattern of that prediction, while a read covered by none
+ * is a miss for the pattern of the latest one, and drops all predictions. The hit rate of each
+ * pattern is reported as a metric.
+ */
+public class AccessPatternDetector {
+  private final Telemetry telemetry;
+  // The last reads, in the order they were recorded, and the ranges prefetched for the patterns,
+  // latest first. All are guarded by `this`
+  private final Read[] history = new Read[HISTORY_SIZE];
+  private long reads;
+  private final Deque<Prediction> predictions = new ArrayDeque<>();
+  private final long[] hits = new long[AccessPattern.values().length];
+  private final long[] misses = new long[AccessPattern.values().length];
+
+  private static final int HISTORY_SIZE = 8;
+  // How many steps in a row backward and strided reads must take before they are reported
+  private static final long MIN_STEPS = 2;
+
+  private static final String METRIC_HIT_RATE = "access.pattern.%s.hit.rate";
+
+  /**
+   * Creates a new instance of {@link AccessPatternDetector}.
+   *
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public AccessPatternDetector(@NonNull Telemetry telemetry) {
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Records a read, scoring the predictions made for it, and returns the pattern it is part of.
+   *
+   * @param pos the position the read starts at
+   * @param len the length of the read
+   * @return the pattern of the read, {@link Detection#RANDOM} if it follows none
+   */
+  public synchronized Detection recordRead(long pos, long len) {
+    Preconditions.checkArgument(0 <= pos, "`pos` must be non-negative");
+    Preconditions.checkArgument(0 <= len, "`len` must be non-negative");
+
+    long end = pos + Math.max(1, len);
+    scorePredictions(pos, end - 1);
+    Read read = classify(pos, end);
+    history[(int) (reads++ % HISTORY_SIZE)] = read;
+
+    boolean repeated = read.steps >= MIN_STEPS;
+    switch (read.pattern) {
+      case FORWARD:
+      case MULTI_CURSOR:
+        return new Detection(read.pattern, read.steps, 0);
+      case BACKWARD:
+        return repeated ? new Detection(read.pattern, read.steps, 0) : Detection.RANDOM;
+      case STRIDED:
+        return repeated ? new Detection(read.pattern, read.steps, read.stride) : Detection.RANDOM;
+      default:
+        return Detection.RANDOM;
+    }
+  }
+
+  /**
+   * Records a range prefetched because reads follow a pattern, as a prediction of the next reads.
+   *
+   * @param pattern the pattern the range was prefetched for
+   * @param start the first byte of the range
+   * @param end the last byte of the range
+   */
+  public synchronized void recordPrefetch(@NonNull AccessPattern pattern, long start, long end) {
+    Preconditions.checkArgument(0 <= start, "`start` must be non-negative");
+    Preconditions.checkArgument(start <= end, "`start` must not be bigger than `end`");
+
+    predictions.addFirst(new Prediction(pattern, start, end));
+    if (predictions.size() > HISTORY_SIZE) {
+      predictions.removeLast();
+    }
+  }
+
+  /**
+   * Returns the number of reads covered by a range prefetched for a pattern.
+   *
+   * @param pattern the pattern
+   * @return the number of hits of the pattern
+   */
+  public synchronized long getHits(@NonNull AccessPattern pattern) {
+    return hits[pattern.ordinal()];
+  }
+
+  /**
+   * Returns the number of reads missing the ranges prefetched, when a pattern made the latest one.
+   *
+   * @param pattern the pattern
+   * @return the number of misses of the pattern
+   */
+  public synchronized long getMisses(@NonNull AccessPattern pattern) {
+    return misses[pattern.ordinal()];
+  }
+
+  private void scorePredictions(long first, long last) {
+    if (predictions.isEmpty()) {
+      return;
+    }
+
+    AccessPattern pattern = predictions.getFirst().pattern;
+    boolean hit = false;
+    for (Prediction prediction : predictions) {
+      if (prediction.start <= first && last <= prediction.end) {
+        pattern = prediction.pattern;
+        hit = true;
+        break;
+      }
+    }
+
+    int i = pattern.ordinal();
+    if (hit) {
+      hits[i]++;
+    } else {
+      misses[i]++;
+      predictions.clear();
+    }
+    double hitRate = (double) hits[i] / (hits[i] + misses[i]);
+    measure(String.format(METRIC_HIT_RATE, pattern.getName()), hitRate);
+  }
+
+  private Read classify(long start, long end) {
+    if (reads == 0) {
+      return new Read(start, end, AccessPattern.RANDOM, 0, 0);
+    }
+
+    // A read continuing the latest one is forward, and one continuing an earlier one belongs to
+    // another cursor
+    Read last = getRead(0);
+    if (continues(last, start)) {
+      return new Read(start, end, AccessPattern.FORWARD, forwardSteps(last) + 1, 0);
+    }
+    for (int i = 1; i < Math.min(reads, HISTORY_SIZE); i++) {
+      Read cursor = getRead(i);
+      if (continues(cursor, start)) {
+        return new Read(start, end, AccessPattern.MULTI_CURSOR, forwardSteps(cursor) + 1, 0);
+      }
+    }
+
+    // A read ending where the latest one started, give or take its own length, walks backward
+    if (start < last.start && end <= last.end && last.start - end <= end - start) {
+      long steps = last.pattern == AccessPattern.BACKWARD ? last.steps + 1 : 1;
+      return new Read(start, end, AccessPattern.BACKWARD, steps, 0);
+    }
+
+    // A read leaving a gap after or before the latest one may be a step of a stride
+    if (start > last.end || end <= last.start) {
+      long stride = start - last.start;
+      long steps =
+          last.pattern == AccessPattern.STRIDED && last.stride == stride ? last.steps + 1 : 1;
+      return new Read(start, end, AccessPattern.STRIDED, steps, stride);
+    }
+
+    return new Read(start, end, AccessPattern.RANDOM, 0, 0);
+  }
+
+  private Read getRead(int age) {
+    return history[(int) ((reads - 1 - age) % HISTORY_SIZE)];
+  }
+
+  private static boolean continues(Read read, long start) {
+    return read.start < start && start <= read.end;
+  }
+
+  private static long forwardSteps(Read read) {
+    boolean forward =
+        read.pattern == AccessPattern.FORWARD || read.pattern == AccessPattern.MULTI_CURSOR;
+    return forward ? read.steps : 0;
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** The pattern a read was recognized as part of */
+  @Value
+  public static class Detection {
+    /** A read following no pattern */
+    public static final Detection RANDOM = new Detection(AccessPattern.RANDOM, 0, 0);
+
+    /** The pattern of the read */
+    AccessPattern pattern;
+    /** How many steps in a row, up to the read, followed the pattern */
+    long steps;
+    /** The distance between the starts of consecutive strided reads, or 0 for other patterns */
+    long stride;
+  }
+
+  /** A recorded read, with the pattern it may be part of. The end is exclusive */
+  @Value
+  private static class Read {
+    long start;
+    long end;
+    AccessPattern pattern;
+    long steps;
+    long stride;
+  }
+
+  /** A range prefetched for a pattern */
+  @Value
+  private static class Prediction {
+    AccessPattern pattern;
+    long start;
+    long end;
+  }
+}
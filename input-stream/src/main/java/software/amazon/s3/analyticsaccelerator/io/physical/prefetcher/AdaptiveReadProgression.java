@@ -0,0 +1,116 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.ReadTimeoutEstimator;
+
+/**
+ * A {@link SequentialReadProgression} sizing each sequential prefetch from the rate the reader
+ * consumes the data at and the time S3 takes to start returning it, rather than from the generation
+ * of the read alone. This is the {@link SequentialProgressionMode#ADAPTIVE} progression.
+ *
+ * <p>A prefetch covers what the reader consumes over a few fetch latencies, the bandwidth-delay
+ * product of the read. A slow reader thus does not pull in data far ahead of its use, while the
+ * prefetches of a reader outrunning S3 settle at a few times the bandwidth-delay product of the
+ * connection, as the time it waits for data slows down its measured rate.
+ *
+ * <p>The rate of the reader is measured between consecutive prefetches of the same sequential read.
+ * Until it and the latency of S3 have been observed, the exponential progression is used. Sizes
+ * always stay between {@link PhysicalIOConfiguration#getSequentialPrefetchMinBytes()} and {@link
+ * PhysicalIOConfiguration#getSequentialPrefetchMaxBytes()}.
+ */
+public class AdaptiveReadProgression extends SequentialReadProgression {
+  private final long minBytes;
+  private final long maxBytes;
+  private final ReadTimeoutEstimator latencyEstimator;
+  private final LongSupplier nanoClock;
+
+  // The last prefetch of the sequential read, and the running average of the rate the reader
+  // consumes data at in bytes per nanosecond, negative until it has been measured. All are guarded
+  // by `this`
+  private long lastPos = -1;
+  private long lastGeneration;
+  private long lastNanos;
+  private double bytesPerNano = -1;
+
+  // Weight of a new measurement in the running average
+  private static final double SMOOTHING = 0.3;
+  // How many fetch latencies worth of reading a prefetch covers
+  private static final double LATENCIES_AHEAD = 4;
+
+  /**
+   * Creates a new instance of {@link AdaptiveReadProgression}.
+   *
+   * @param configuration the PhysicalIO configuration, bounding the sizes of prefetches
+   * @param latencyEstimator the running average of the time S3 takes to return the first byte
+   */
+  public AdaptiveReadProgression(
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull ReadTimeoutEstimator latencyEstimator) {
+    this(configuration, latencyEstimator, System::nanoTime);
+  }
+
+  /**
+   * Creates a new instance of {@link AdaptiveReadProgression}.
+   *
+   * @param configuration the PhysicalIO configuration, bounding the sizes of prefetches
+   * @param latencyEstimator the running average of the time S3 takes to return the first byte
+   * @param nanoClock the clock the rate of the reader is measured with
+   */
+  AdaptiveReadProgression(
+      @NonNull PhysicalIOConfiguration configuration,
+      @NonNull ReadTimeoutEstimator latencyEstimator,
+      @NonNull LongSupplier nanoClock) {
+    super(configuration);
+    this.minBytes = configuration.getSequentialPrefetchMinBytes();
+    this.maxBytes = configuration.getSequentialPrefetchMaxBytes();
+    this.latencyEstimator = latencyEstimator;
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public synchronized long getSizeForRead(long pos, long generation) {
+    Preconditions.checkArgument(0 <= pos, "`pos` must be non-negative");
+    Preconditions.checkArgument(0 <= generation, "`generation` must be non-negative");
+
+    long now = nanoClock.getAsLong();
+    // Only the prefetch following the last one in the same read tells the rate of the reader
+    if (lastPos >= 0 && generation == lastGeneration + 1 && pos > lastPos && now > lastNanos) {
+      double measured = (double) (pos - lastPos) / (now - lastNanos);
+      if (bytesPerNano < 0) {
+        bytesPerNano = measured;
+      } else {
+        bytesPerNano += SMOOTHING * (measured - bytesPerNano);
+      }
+    }
+    lastPos = pos;
+    lastGeneration = generation;
+    lastNanos = now;
+
+    double latencyNanos = latencyEstimator.getFirstByteNanos();
+    long size;
+    if (bytesPerNano < 0 || latencyNanos < 0) {
+      size = getSizeForGeneration(generation);
+    } else {
+      size = (long) (LATENCIES_AHEAD * bytesPerNano * latencyNanos);
+    }
+    return Math.min(maxBytes, Math.max(minBytes, size));
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+
+/**
+ * Class sliding the read-ahead windows of a sequential reader.
+ *
+ * <p>Read-ahead starts at a sequential read, whose own fetch is the first window. The bytes after
+ * it are split into windows of a fixed size, and once the reader is past the low watermark of the
+ * window it is in, the windows after it are fetched asynchronously, until the configured number of
+ * them are in flight ahead of it. In steady state, the window a reader moves into has thus already
+ * been fetched, and the reader does not wait for S3.
+ *
+ * <p>A read outside of the windows stops read-ahead, until the next sequential read starts it
+ * again. Reads of the windows fetched ahead are counted, along with those which had to wait for
+ * their window to arrive, and the waits are reported as a metric.
+ */
+public class ReadAheadWindows {
+  private final int windows;
+  @Getter private final long windowBytes;
+  private final double lowWatermark;
+  private final Telemetry telemetry;
+
+  // The window the reader is in, the first byte fetched ahead of the reader and the last byte of
+  // the last window fetched, all -1 while read-ahead is stopped. All are guarded by `this`
+  private long windowStart = -1;
+  private long windowEnd = -1;
+  private long aheadStart = -1;
+  private long fetchedEnd = -1;
+  private long windowsFetched;
+  private long reads;
+  private long waits;
+
+  private static final String METRIC_WINDOWS_FETCHED = "readahead.windows.fetched";
+  private static final String METRIC_READER_WAITS = "readahead.reader.waits";
+
+  /**
+   * Creates a new instance of {@link ReadAheadWindows}.
+   *
+   * @param configuration the PhysicalIO configuration, sizing the windows
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public ReadAheadWindows(
+      @NonNull PhysicalIOConfiguration configuration, @NonNull Telemetry telemetry) {
+    this.windows = configuration.getReadAheadWindows();
+    this.windowBytes = configuration.getReadAheadWindowBytes();
+    this.lowWatermark = configuration.getReadAheadLowWatermark();
+    this.telemetry = telemetry;
+  }
+
+  /**
+   * Is read-ahead on? When it is not, sequential reads are only prefetched when they miss.
+   *
+   * @return true if windows are kept in flight ahead of sequential readers
+   */
+  public boolean isEnabled() {
+    return windows > 0;
+  }
+
+  /**
+   * Starts read-ahead at a sequential read, whose fetch is the first window.
+   *
+   * @param start the first byte fetched for the read
+   * @param end the last byte fetched for the read
+   */
+  public synchronized void start(long start, long end) {
+    Preconditions.checkArgument(0 <= start, "`start` must be non-negative");
+    Preconditions.checkArgument(start <= end, "`start` must not be bigger than `end`");
+
+    if (!isEnabled()) {
+      return;
+    }
+    this.windowStart = start;
+    this.windowEnd = end;
+    this.aheadStart = -1;
+    this.fetchedEnd = end;
+  }
+
+  /**
+   * Slides the windows to a read, and returns the windows to fetch ahead of it. These are empty
+   * unless the read crosses the low watermark of its window.
+   *
+   * @param pos the position the read starts at
+   * @param len the length of the read
+   * @param lastObjectByte the last byte of the object
+   * @return the windows to fetch asynchronously
+   */
+  public synchronized List<Range> advance(long pos, long len, long lastObjectByte) {
+    Preconditions.checkArgument(0 <= pos, "`pos` must be non-negative");
+    Preconditions.checkArgument(0 <= len, "`len` must be non-negative");
+
+    if (windowStart < 0) {
+      return Collections.emptyList();
+    }
+    if (pos < windowStart || pos > fetchedEnd) {
+      stop();
+      return Collections.emptyList();
+    }
+
+    // Windows after the first are fetched windowBytes at a time, so their bounds follow from it
+    while (pos > windowEnd) {
+      windowStart = windowEnd + 1;
+      windowEnd = Math.min(windowStart + windowBytes - 1, fetchedEnd);
+    }
+    long watermark = windowStart + (long) (lowWatermark * (windowEnd - windowStart + 1));
+    if (pos + Math.max(1, len) - 1 < watermark) {
+      return Collections.emptyList();
+    }
+
+    List<Range> ahead = new ArrayList<>();
+    long target = Math.min(lastObjectByte, windowEnd + windows * windowBytes);
+    while (fetchedEnd < target) {
+      long start = fetchedEnd + 1;
+      fetchedEnd = Math.min(start + windowBytes - 1, lastObjectByte);
+      ahead.add(new Range(start, fetchedEnd));
+      if (aheadStart < 0) {
+        aheadStart = start;
+      }
+    }
+    if (!ahead.isEmpty()) {
+      windowsFetched += ahead.size();
+      measure(METRIC_WINDOWS_FETCHED, windowsFetched);
+    }
+    return ahead;
+  }
+
+  /**
+   * Is the byte at a position in a window fetched ahead of the reader?
+   *
+   * @param pos the position of a byte
+   * @return true if the byte was fetched by read-ahead
+   */
+  public synchronized boolean isFetchedAhead(long pos) {
+    return 0 <= aheadStart && aheadStart <= pos && pos <= fetchedEnd;
+  }
+
+  /**
+   * Records a read of a window fetched ahead of the reader.
+   *
+   * @param waited whether the reader had to wait for the data of the window
+   */
+  public synchronized void recordRead(boolean waited) {
+    reads++;
+    if (waited) {
+      waits++;
+      measure(METRIC_READER_WAITS, waits);
+    }
+  }
+
+  /**
+   * Returns the number of reads of windows fetched ahead of the reader.
+   *
+   * @return the number of reads
+   */
+  public synchronized long getReads() {
+    return reads;
+  }
+
+  /**
+   * Returns the number of reads which had to wait for the window fetched ahead of them.
+   *
+   * @return the number of waits
+   */
+  public synchronized long getWaits() {
+    return waits;
+  }
+
+  private void stop() {
+    windowStart = -1;
+    windowEnd = -1;
+    aheadStart = -1;
+    fetchedEnd = -1;
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+}
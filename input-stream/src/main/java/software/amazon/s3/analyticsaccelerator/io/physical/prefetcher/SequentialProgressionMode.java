@@ -0,0 +1,53 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** The strategies sizing sequential prefetches. */
+public enum SequentialProgressionMode {
+  /** Sizes grow geometrically with the generation, see {@link SequentialReadProgression} */
+  EXPONENTIAL("exponential"),
+  /** Sizes follow the rate data is read at, see {@link AdaptiveReadProgression} */
+  ADAPTIVE("adaptive");
+
+  private final String name;
+
+  private static final Logger LOG = LoggerFactory.getLogger(SequentialProgressionMode.class);
+
+  SequentialProgressionMode(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Converts user supplied configuration to enum. Defaults to EXPONENTIAL if user input is not
+   * recognised.
+   *
+   * @param mode user supplied progression mode
+   * @return SequentialProgressionMode enum to use
+   */
+  public static SequentialProgressionMode fromString(String mode) {
+    for (SequentialProgressionMode value : values()) {
+      if (value.name.equalsIgnoreCase(mode)) {
+        return value;
+      }
+    }
+    LOG.debug("Unknown sequential progression mode {}, using default exponential mode.", mode);
+
+    return EXPONENTIAL;
+  }
+}
@@ -23,7 +23,7 @@ import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfigurati
 
 /**
  * Class that implements a mathematical function telling us the size of blocks we should prefetch in
- * a sequential read.
+ * a sequential read. This is the {@link SequentialProgressionMode#EXPONENTIAL} progression.
  */
 @AllArgsConstructor
 public class SequentialReadProgression {
@@ -32,7 +32,8 @@ public class SequentialReadProgression {
 
   /**
    * Given a generation, returns the size of a sequential prefetch block for that generation. This
-   * function is effectively a geometric series today but can be fine-tuned later.
+   * function is effectively a geometric series today but can be fine-tuned later, and is capped at
+   * {@link PhysicalIOConfiguration#getSequentialPrefetchMaxBytes()}.
    *
    * @param generation zero-indexed integer representing the generation of a read
    * @return a block size in bytes
@@ -41,11 +42,30 @@ public class SequentialReadProgression {
     Preconditions.checkArgument(0 <= generation, "`generation` must be non-negative");
 
     // 2, 8, 32, 64
-    return 2
-        * ONE_MB
-        * (long)
+    long factor =
+        (long)
             Math.pow(
                 configuration.getSequentialPrefetchBase(),
                 Math.floor(configuration.getSequentialPrefetchSpeed() * generation));
+    long maxBytes = configuration.getSequentialPrefetchMaxBytes();
+    // The factor saturates for long sequential reads, check it before multiplying
+    if (factor > maxBytes / (2 * ONE_MB)) {
+      return maxBytes;
+    }
+    return Math.min(maxBytes, 2 * ONE_MB * factor);
+  }
+
+  /**
+   * Given a sequential read about to be fetched, returns the size of the prefetch for it. This is
+   * the size for its generation, unless a progression sizes prefetches from more than that.
+   *
+   * @param pos the position the read starts at
+   * @param generation zero-indexed integer representing the generation of the read
+   * @return a block size in bytes
+   */
+  public long getSizeForRead(long pos, long generation) {
+    Preconditions.checkArgument(0 <= pos, "`pos` must be non-negative");
+
+    return getSizeForGeneration(generation);
   }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import lombok.Getter;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+
+/**
+ * The prefetching state of a single stream. The pattern of reads is recognized from the reads of
+ * each stream on its own, so that several streams reading the same object sequentially do not look
+ * random when their reads interleave, and each sequential stream keeps its own read-ahead windows
+ * in flight. The blocks fetched are still shared by all streams.
+ */
+public class StreamPrefetchState {
+  @Getter private final AccessPatternDetector accessPatternDetector;
+  @Getter private final ReadAheadWindows readAheadWindows;
+
+  /**
+   * Creates a new instance of {@link StreamPrefetchState}.
+   *
+   * @param configuration the PhysicalIO configuration, sizing the read-ahead windows
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public StreamPrefetchState(
+      @NonNull PhysicalIOConfiguration configuration, @NonNull Telemetry telemetry) {
+    this.accessPatternDetector = new AccessPatternDetector(telemetry);
+    this.readAheadWindows = new ReadAheadWindows(configuration, telemetry);
+  }
+}
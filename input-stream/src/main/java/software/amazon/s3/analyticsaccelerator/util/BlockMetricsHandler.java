@@ -43,9 +43,9 @@ public class BlockMetricsHandler {
 
   /**
    * Updates both blob-specific and aggregated metrics with the provided value. For memory usage
-   * metrics, updates both blob-specific and aggregated metrics. For other metrics, updates only the
-   * aggregated metrics. This method is thread-safe as it relies on the thread safety of the
-   * underlying {@link Metrics} implementation.
+   * metrics, updates both blob-specific and aggregated metrics, and raises the aggregated peak
+   * memory usage if needed. For other metrics, updates only the aggregated metrics. This method is
+   * thread-safe as it relies on the thread safety of the underlying {@link Metrics} implementation.
    *
    * @param key the metric key to be updated
    * @param value the value to add to the metric
@@ -55,5 +55,8 @@ public class BlockMetricsHandler {
       blobMetrics.add(key, value);
     }
     aggregatingMetrics.add(key, value);
+    if (key.equals(MetricKey.MEMORY_USAGE) && value > 0) {
+      aggregatingMetrics.max(MetricKey.MEMORY_USAGE_PEAK, aggregatingMetrics.get(key));
+    }
   }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.util;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import lombok.NonNull;
+
+/** Utility methods for the caches which keep state in files on local disk. */
+public final class LocalFileUtils {
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  /** Prevent instantiation, this is meant to be a facade */
+  private LocalFileUtils() {}
+
+  /**
+   * Returns a name for an object which is safe to use as a file name. It is a digest of the S3 URI
+   * and etag, so a new version of the object gets a new name.
+   *
+   * @param objectKey the etag and S3 URI of the object
+   * @return a file name for the object
+   */
+  public static String fileNameOf(@NonNull ObjectKey objectKey) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(objectKey.getS3URI().toString().getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) '\n');
+      digest.update(objectKey.getEtag().getBytes(StandardCharsets.UTF_8));
+      StringBuilder name = new StringBuilder();
+      for (byte b : digest.digest()) {
+        name.append(String.format("%02x", b));
+      }
+      return name.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns whether a file is a temporary file left behind by {@link #writeAtomically}.
+   *
+   * @param file the file
+   * @return true if the file is a temporary file
+   */
+  public static boolean isTempFile(@NonNull Path file) {
+    return file.toString().endsWith(TEMP_FILE_SUFFIX);
+  }
+
+  /**
+   * Writes a file under a temporary name, flushes it to disk and atomically renames it into place,
+   * so that the file is either absent or complete even if the process crashes while writing it.
+   *
+   * @param file the file to write
+   * @param writer writes the content of the file
+   * @throws IOException if the file cannot be written
+   */
+  public static void writeAtomically(@NonNull Path file, @NonNull ContentWriter writer)
+      throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory == null) {
+      throw new IOException("Cannot write to " + file + " without a parent directory");
+    }
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, "write", TEMP_FILE_SUFFIX);
+    try {
+      try (FileOutputStream out = new FileOutputStream(temp.toFile());
+          DataOutputStream data = new DataOutputStream(out)) {
+        writer.write(data);
+        data.flush();
+        out.getFD().sync();
+      }
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /** Writes the content of a file */
+  @FunctionalInterface
+  public interface ContentWriter {
+    /**
+     * Writes the content of a file.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the content cannot be written
+     */
+    void write(DataOutputStream out) throws IOException;
+  }
+}
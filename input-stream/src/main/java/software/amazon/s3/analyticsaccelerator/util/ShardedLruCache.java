@@ -0,0 +1,336 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+
+/**
+ * A bounded cache which evicts its least recently used entries, split into shards that are locked
+ * independently. Threads using keys in different shards do not contend on a lock, which a single
+ * synchronized map would make them do on every access.
+ *
+ * <p>Each shard keeps its entries in access order, and every access stamps the entry from a
+ * cache-wide clock. The capacity applies to the whole cache: when it is exceeded, the heads of all
+ * shards are compared and the entry with the oldest stamp is evicted, so eviction follows the same
+ * order as a single least-recently-used map would.
+ *
+ * <p>{@link #computeIfAbsent} runs the mapping function under the lock of the shard of the key, so
+ * concurrent callers for the same key create a single value.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ShardedLruCache<K, V> {
+  private final List<Shard<K, V>> shards;
+  private final int capacity;
+  private final Consumer<V> evictionListener;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicLong clock = new AtomicLong();
+
+  private static final int MAX_SHARD_COUNT = 64;
+
+  /**
+   * Creates a new cache with a shard count suited to the number of processors.
+   *
+   * @param capacity the maximum number of entries
+   * @param evictionListener called with every value the cache evicts to stay within its capacity
+   */
+  public ShardedLruCache(int capacity, @NonNull Consumer<V> evictionListener) {
+    this(capacity, defaultShardCount(), evictionListener);
+  }
+
+  /**
+   * Creates a new cache.
+   *
+   * @param capacity the maximum number of entries
+   * @param shardCount the number of shards, a power of two
+   * @param evictionListener called with every value the cache evicts to stay within its capacity
+   */
+  public ShardedLruCache(int capacity, int shardCount, @NonNull Consumer<V> evictionListener) {
+    Preconditions.checkArgument(capacity > 0, "`capacity` must be positive; was: %s", capacity);
+    Preconditions.checkArgument(
+        shardCount > 0 && Integer.bitCount(shardCount) == 1,
+        "`shardCount` must be a positive power of two; was: %s",
+        shardCount);
+
+    this.capacity = capacity;
+    this.evictionListener = evictionListener;
+    this.shards = new ArrayList<>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new Shard<>());
+    }
+  }
+
+  /**
+   * Returns the value of a key, marking it as recently used.
+   *
+   * @param key the key
+   * @return the value, or null if the key is not in the cache
+   */
+  public V get(@NonNull K key) {
+    Shard<K, V> shard = shardOf(key);
+    synchronized (shard) {
+      Node<V> node = shard.entries.get(key);
+      if (node == null) {
+        return null;
+      }
+      node.stamp = clock.incrementAndGet();
+      return node.value;
+    }
+  }
+
+  /**
+   * Returns the value of a key, marking it as recently used, or computes and adds it if the key is
+   * not in the cache. Adding a value may evict the least recently used one.
+   *
+   * @param key the key
+   * @param mappingFunction computes the value of the key, called at most once per absent key
+   * @return the value of the key, or null if the mapping function returned null
+   */
+  public V computeIfAbsent(
+      @NonNull K key, @NonNull Function<? super K, ? extends V> mappingFunction) {
+    Shard<K, V> shard = shardOf(key);
+    V value;
+    synchronized (shard) {
+      Node<V> node = shard.entries.get(key);
+      if (node != null) {
+        node.stamp = clock.incrementAndGet();
+        return node.value;
+      }
+      value = mappingFunction.apply(key);
+      if (value == null) {
+        return null;
+      }
+      shard.entries.put(key, new Node<>(value, clock.incrementAndGet()));
+    }
+    size.incrementAndGet();
+    evictToCapacity(key);
+    return value;
+  }
+
+  /**
+   * Sets the value of a key, replacing the existing one. Adding a value may evict the least
+   * recently used one.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the value replaced, or null if the key was not in the cache
+   */
+  public V put(@NonNull K key, @NonNull V value) {
+    Shard<K, V> shard = shardOf(key);
+    Node<V> replaced;
+    synchronized (shard) {
+      replaced = shard.entries.put(key, new Node<>(value, clock.incrementAndGet()));
+    }
+    if (replaced != null) {
+      return replaced.value;
+    }
+    size.incrementAndGet();
+    evictToCapacity(key);
+    return null;
+  }
+
+  /**
+   * Removes a key. The eviction listener is not called for the value removed.
+   *
+   * @param key the key
+   * @return the value removed, or null if the key was not in the cache
+   */
+  public V remove(@NonNull K key) {
+    Shard<K, V> shard = shardOf(key);
+    Node<V> removed;
+    synchronized (shard) {
+      removed = shard.entries.remove(key);
+    }
+    if (removed == null) {
+      return null;
+    }
+    size.decrementAndGet();
+    return removed.value;
+  }
+
+  /**
+   * Removes a key only if it is mapped to the given value. The eviction listener is not called for
+   * the value removed.
+   *
+   * @param key the key
+   * @param value the value expected for the key
+   * @return true if the key was removed
+   */
+  public boolean remove(@NonNull K key, @NonNull V value) {
+    Shard<K, V> shard = shardOf(key);
+    synchronized (shard) {
+      Node<V> node = shard.entries.get(key);
+      if (node == null || node.value != value) {
+        return false;
+      }
+      shard.entries.remove(key);
+    }
+    size.decrementAndGet();
+    return true;
+  }
+
+  /**
+   * Replaces the value of a key only if it is mapped to the given value, marking it as recently
+   * used.
+   *
+   * @param key the key
+   * @param oldValue the value expected for the key
+   * @param newValue the value to set
+   * @return true if the value was replaced
+   */
+  public boolean replace(@NonNull K key, @NonNull V oldValue, @NonNull V newValue) {
+    Shard<K, V> shard = shardOf(key);
+    synchronized (shard) {
+      Node<V> node = shard.entries.get(key);
+      if (node == null || node.value != oldValue) {
+        return false;
+      }
+      shard.entries.put(key, new Node<>(newValue, clock.incrementAndGet()));
+      return true;
+    }
+  }
+
+  /**
+   * Evicts the least recently used entry whose key is not pinned, and calls the eviction listener
+   * with its value.
+   *
+   * @param pinned tells the keys which must not be evicted
+   * @return true if an entry was evicted, false if every entry is pinned
+   */
+  public boolean evictEldest(@NonNull Predicate<? super K> pinned) {
+    return evictEldest((key, value) -> pinned.test(key));
+  }
+
+  /**
+   * Evicts the least recently used entry which is not pinned, and calls the eviction listener with
+   * its value.
+   *
+   * @param pinned tells the entries which must not be evicted
+   * @return true if an entry was evicted, false if every entry is pinned
+   */
+  public boolean evictEldest(@NonNull BiPredicate<? super K, ? super V> pinned) {
+    while (true) {
+      Shard<K, V> victimShard = null;
+      K victimKey = null;
+      Node<V> victim = null;
+      long victimStamp = 0;
+      for (Shard<K, V> shard : shards) {
+        synchronized (shard) {
+          for (Map.Entry<K, Node<V>> entry : shard.entries.entrySet()) {
+            if (pinned.test(entry.getKey(), entry.getValue().value)) {
+              continue;
+            }
+            if (victim == null || entry.getValue().stamp < victimStamp) {
+              victimShard = shard;
+              victimKey = entry.getKey();
+              victim = entry.getValue();
+              victimStamp = victim.stamp;
+            }
+            break;
+          }
+        }
+      }
+      if (victim == null) {
+        return false;
+      }
+
+      boolean removed;
+      synchronized (victimShard) {
+        // The victim may have been used or removed since its shard was looked at
+        removed = victim.stamp == victimStamp && victimShard.entries.remove(victimKey, victim);
+      }
+      if (removed) {
+        size.decrementAndGet();
+        evictionListener.accept(victim.value);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of entries in the cache.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Returns a snapshot of the values in the cache.
+   *
+   * @return the values
+   */
+  public List<V> values() {
+    List<V> values = new ArrayList<>(size());
+    for (Shard<K, V> shard : shards) {
+      synchronized (shard) {
+        shard.entries.values().forEach(node -> values.add(node.value));
+      }
+    }
+    return values;
+  }
+
+  private void evictToCapacity(K keyInUse) {
+    while (size.get() > capacity) {
+      if (!evictEldest(keyInUse::equals)) {
+        return;
+      }
+    }
+  }
+
+  private Shard<K, V> shardOf(K key) {
+    int hash = key.hashCode();
+    return shards.get((hash ^ (hash >>> 16)) & (shards.size() - 1));
+  }
+
+  private static int defaultShardCount() {
+    int processors = Runtime.getRuntime().availableProcessors();
+    int shardCount = 1;
+    while (shardCount < processors && shardCount < MAX_SHARD_COUNT) {
+      shardCount <<= 1;
+    }
+    return shardCount;
+  }
+
+  /** Entries of a shard in least recently used order, guarded by the shard itself */
+  private static final class Shard<K, V> {
+    private final LinkedHashMap<K, Node<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /** A value and the clock reading of its last use */
+  private static final class Node<V> {
+    private final V value;
+    private long stamp;
+
+    private Node(V value, long stamp) {
+      this.value = value;
+      this.stamp = stamp;
+    }
+  }
+}
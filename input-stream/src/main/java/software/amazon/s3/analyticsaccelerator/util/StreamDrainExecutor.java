@@ -0,0 +1,300 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import software.amazon.s3.analyticsaccelerator.common.Preconditions;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Metric;
+import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+
+/**
+ * A bounded pool of named daemon threads that drain GET responses into blocks, together with a
+ * single scheduler thread that enforces read timeouts and runs other short delayed actions. It
+ * replaces a thread per block read, so the number of threads stays constant however many blocks are
+ * being fetched.
+ *
+ * <p>Tasks that do not fit into the queue are run on the submitting thread. A task's timeout starts
+ * when it is submitted, so time spent waiting in the queue counts against it. A task timing out has
+ * the resource it reads from closed, which unblocks it wherever it runs.
+ */
+public class StreamDrainExecutor implements Closeable {
+  private final ThreadPoolExecutor executor;
+  private final ScheduledExecutorService scheduler;
+  private final Telemetry telemetry;
+  private final AtomicLong threadsCreated = new AtomicLong();
+  private final AtomicLong callerRuns = new AtomicLong();
+
+  private static final String THREAD_NAME_PREFIX = "s3-analytics-accelerator-drain-";
+  private static final String SCHEDULER_THREAD_NAME = "s3-analytics-accelerator-drain-timer";
+
+  private static final String METRIC_POOL_SIZE = "drain.executor.pool.size";
+  private static final String METRIC_ACTIVE_THREADS = "drain.executor.active.threads";
+  private static final String METRIC_QUEUE_DEPTH = "drain.executor.queue.depth";
+  private static final String METRIC_THREADS_CREATED = "drain.executor.threads.created";
+  private static final String METRIC_CALLER_RUNS = "drain.executor.caller.runs";
+
+  /**
+   * Creates a new instance of {@link StreamDrainExecutor}.
+   *
+   * @param poolSize the number of drain threads
+   * @param queueDepth the maximum number of tasks waiting for a drain thread
+   * @param keepAliveMs the time an idle drain thread is kept alive for reuse, in milliseconds
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public StreamDrainExecutor(
+      int poolSize, int queueDepth, long keepAliveMs, @NonNull Telemetry telemetry) {
+    Preconditions.checkArgument(poolSize > 0, "`poolSize` must be positive; was: %s", poolSize);
+    Preconditions.checkArgument(
+        queueDepth > 0, "`queueDepth` must be positive; was: %s", queueDepth);
+    Preconditions.checkArgument(
+        keepAliveMs > 0, "`keepAliveMs` must be positive; was: %s", keepAliveMs);
+
+    this.telemetry = telemetry;
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            keepAliveMs,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueDepth),
+            daemonThreadFactory());
+    this.executor.allowCoreThreadTimeOut(true);
+
+    ScheduledThreadPoolExecutor timer =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, SCHEDULER_THREAD_NAME);
+              thread.setDaemon(true);
+              return thread;
+            });
+    // Timeouts are cancelled once the drain completes, don't keep them queued until they'd fire
+    timer.setRemoveOnCancelPolicy(true);
+    this.scheduler = timer;
+  }
+
+  /**
+   * Creates a new instance of {@link StreamDrainExecutor} sized by the given configuration.
+   *
+   * @param configuration the PhysicalIO configuration
+   * @param telemetry an instance of {@link Telemetry} to use
+   */
+  public StreamDrainExecutor(
+      @NonNull PhysicalIOConfiguration configuration, @NonNull Telemetry telemetry) {
+    this(
+        configuration.getDrainPoolSize(),
+        configuration.getDrainQueueDepth(),
+        configuration.getDrainThreadKeepAliveMs(),
+        telemetry);
+  }
+
+  /**
+   * Returns the process-wide executor used by blocks which were not handed one by their factory.
+   *
+   * @return the default {@link StreamDrainExecutor}
+   */
+  public static StreamDrainExecutor getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Runs a task on a drain thread. The returned future completes exceptionally with a {@link
+   * TimeoutException} if the task has not completed once the timeout has passed since it was
+   * submitted, in which case the task is interrupted.
+   *
+   * @param task the task to run
+   * @param timeoutMs the maximum time the task may take, in milliseconds
+   * @param <T> the result type of the task
+   * @return a future completing with the result of the task
+   */
+  public <T> CompletableFuture<T> submit(@NonNull Callable<T> task, long timeoutMs) {
+    return submit(task, timeoutMs, () -> {});
+  }
+
+  /**
+   * Runs a task reading from a resource on a drain thread. The returned future completes
+   * exceptionally with a {@link TimeoutException} if the task has not completed once the timeout
+   * has passed since it was submitted, in which case the task is interrupted and the resource is
+   * closed. Closing it fails a read blocked on a stalled response, which interrupting alone does
+   * not, and also reaches a task run on the submitting thread.
+   *
+   * @param task the task to run
+   * @param timeoutMs the maximum time the task may take, in milliseconds
+   * @param resource the resource the task reads from, closed if the task times out
+   * @param <T> the result type of the task
+   * @return a future completing with the result of the task
+   */
+  public <T> CompletableFuture<T> submit(
+      @NonNull Callable<T> task, long timeoutMs, @NonNull Closeable resource) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    TimedTask<T> timedTask = new TimedTask<>(task, result, resource);
+    timedTask.armTimeout(timeoutMs);
+    try {
+      timedTask.future = executor.submit(timedTask);
+    } catch (RejectedExecutionException e) {
+      // The queue is full: apply back pressure by draining on the submitting thread
+      callerRuns.incrementAndGet();
+      timedTask.run();
+    }
+    recordUsage();
+    return result;
+  }
+
+  /**
+   * Runs a short action on the scheduler thread once a delay has passed. The action must not block,
+   * as it holds up the timeouts of the reads being drained.
+   *
+   * @param action the action to run
+   * @param delayMs the delay before the action runs, in milliseconds
+   * @return a future which cancels the action if it has not run yet
+   * @throws RejectedExecutionException if the executor is closed
+   */
+  public Future<?> schedule(@NonNull Runnable action, long delayMs) {
+    return scheduler.schedule(action, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the number of drain threads created so far. Comparing it to the number of tasks run
+   * shows how well threads are reused.
+   *
+   * @return the number of drain threads created
+   */
+  public long getThreadsCreated() {
+    return threadsCreated.get();
+  }
+
+  /**
+   * Returns the number of tasks that were run on the submitting thread because the queue was full.
+   *
+   * @return the number of tasks run on the submitting thread
+   */
+  public long getCallerRuns() {
+    return callerRuns.get();
+  }
+
+  /**
+   * Returns the number of drain threads currently alive.
+   *
+   * @return the number of drain threads
+   */
+  public int getPoolSize() {
+    return executor.getPoolSize();
+  }
+
+  private ThreadFactory daemonThreadFactory() {
+    return runnable -> {
+      Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadsCreated.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private void recordUsage() {
+    measure(METRIC_POOL_SIZE, executor.getPoolSize());
+    measure(METRIC_ACTIVE_THREADS, executor.getActiveCount());
+    measure(METRIC_QUEUE_DEPTH, executor.getQueue().size());
+    measure(METRIC_THREADS_CREATED, threadsCreated.get());
+    measure(METRIC_CALLER_RUNS, callerRuns.get());
+  }
+
+  private void measure(String name, double value) {
+    this.telemetry.measure(Metric.builder().name(name).build(), value);
+  }
+
+  /** Stops the drain and timer threads. Tasks that are already running are interrupted. */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  /** A task whose timeout is armed on the shared scheduler when it is submitted */
+  private final class TimedTask<T> implements Runnable {
+    private final Callable<T> task;
+    private final CompletableFuture<T> result;
+    private final Closeable resource;
+    private volatile Future<?> future;
+    private volatile ScheduledFuture<?> timeout;
+
+    private TimedTask(Callable<T> task, CompletableFuture<T> result, Closeable resource) {
+      this.task = task;
+      this.result = result;
+      this.resource = resource;
+    }
+
+    private void armTimeout(long timeoutMs) {
+      try {
+        timeout = scheduler.schedule(this::timeOut, timeoutMs, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // The executor is closed, run the task without a timeout rather than failing it
+      }
+    }
+
+    @Override
+    public void run() {
+      // A task which timed out while queued has had its resource closed already
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        result.complete(task.call());
+      } catch (Throwable t) {
+        result.completeExceptionally(t);
+      } finally {
+        ScheduledFuture<?> armed = timeout;
+        if (armed != null) {
+          armed.cancel(false);
+        }
+      }
+    }
+
+    private void timeOut() {
+      if (result.completeExceptionally(new TimeoutException("Read operation timed out"))) {
+        Future<?> running = future;
+        if (running != null) {
+          running.cancel(true);
+        }
+        try {
+          resource.close();
+        } catch (IOException e) {
+          // The task fails on its own once its resource is gone
+        }
+      }
+    }
+  }
+
+  /** Lazily creates the default executor on first use */
+  private static final class DefaultHolder {
+    private static final StreamDrainExecutor INSTANCE =
+        new StreamDrainExecutor(PhysicalIOConfiguration.DEFAULT, Telemetry.NOOP);
+  }
+}
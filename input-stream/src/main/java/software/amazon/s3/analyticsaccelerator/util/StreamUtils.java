@@ -20,6 +20,7 @@ import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_KB;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.concurrent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,13 +45,76 @@ public class StreamUtils {
   public static byte[] toByteArray(
       ObjectContent objectContent, ObjectKey objectKey, Range range, long timeoutMs)
       throws IOException, TimeoutException {
-    InputStream inStream = objectContent.getStream();
+    return toByteArray(
+        objectContent, objectKey, range, timeoutMs, StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Convert an InputStream from the underlying object to a byte array.
+   *
+   * @param objectContent the part of the object
+   * @param objectKey container for S3 object to read
+   * @param range range of the S3 object to read
+   * @param timeoutMs read timeout in milliseconds
+   * @param drainExecutor the executor to drain the stream on
+   * @return a byte array
+   */
+  public static byte[] toByteArray(
+      ObjectContent objectContent,
+      ObjectKey objectKey,
+      Range range,
+      long timeoutMs,
+      StreamDrainExecutor drainExecutor)
+      throws IOException, TimeoutException {
     ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    copy(objectContent, outStream, objectKey, range, timeoutMs, drainExecutor);
+    return outStream.toByteArray();
+  }
+
+  /**
+   * Copy an InputStream from the underlying object into the provided OutputStream.
+   *
+   * @param objectContent the part of the object
+   * @param outStream the stream to copy the bytes into
+   * @param objectKey container for S3 object to read
+   * @param range range of the S3 object to read
+   * @param timeoutMs read timeout in milliseconds
+   */
+  public static void copy(
+      ObjectContent objectContent,
+      OutputStream outStream,
+      ObjectKey objectKey,
+      Range range,
+      long timeoutMs)
+      throws IOException, TimeoutException {
+    copy(objectContent, outStream, objectKey, range, timeoutMs, StreamDrainExecutor.getDefault());
+  }
+
+  /**
+   * Copy an InputStream from the underlying object into the provided OutputStream. The stream is
+   * drained on a thread of the given executor, which also enforces the timeout from the time the
+   * drain is submitted, closing the stream if it stalls.
+   *
+   * @param objectContent the part of the object
+   * @param outStream the stream to copy the bytes into
+   * @param objectKey container for S3 object to read
+   * @param range range of the S3 object to read
+   * @param timeoutMs read timeout in milliseconds
+   * @param drainExecutor the executor to drain the stream on
+   */
+  public static void copy(
+      ObjectContent objectContent,
+      OutputStream outStream,
+      ObjectKey objectKey,
+      Range range,
+      long timeoutMs,
+      StreamDrainExecutor drainExecutor)
+      throws IOException, TimeoutException {
+    InputStream inStream = objectContent.getStream();
     byte[] buffer = new byte[BUFFER_SIZE];
 
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
-    Future<Void> future =
-        executorService.submit(
+    CompletableFuture<Void> future =
+        drainExecutor.submit(
             () -> {
               try {
                 int numBytesRead;
@@ -74,26 +138,38 @@ public class StreamUtils {
               } finally {
                 inStream.close();
               }
-            });
+            },
+            timeoutMs,
+            inStream);
 
     try {
       future.get(timeoutMs, TimeUnit.MILLISECONDS);
-
     } catch (TimeoutException e) {
-      future.cancel(true);
-      LOG.debug(
-          "Reading from InputStream has timed out for Block s3URI={}, etag={}, start={}, end={}",
-          objectKey.s3URI,
-          objectKey.etag,
-          range.getStart(),
-          range.getEnd());
-      throw new TimeoutException("Read operation timed out");
-    } catch (Exception e) {
+      // The executor times the drain out on its own, this only guards against its timer lagging
+      try {
+        inStream.close();
+      } catch (IOException closeError) {
+        // The drain fails on its own once the stream is gone
+      }
+      throw timedOut(objectKey, range);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TimeoutException) {
+        throw timedOut(objectKey, range);
+      }
+      throw new IOException("Error reading stream", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new IOException("Error reading stream", e);
-    } finally {
-      executorService.shutdown();
     }
+  }
 
-    return outStream.toByteArray();
+  private static TimeoutException timedOut(ObjectKey objectKey, Range range) {
+    LOG.debug(
+        "Reading from InputStream has timed out for Block s3URI={}, etag={}, start={}, end={}",
+        objectKey.s3URI,
+        objectKey.etag,
+        range.getStart(),
+        range.getEnd());
+    return new TimeoutException("Read operation timed out");
   }
 }
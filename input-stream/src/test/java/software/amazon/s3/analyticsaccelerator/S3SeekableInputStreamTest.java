@@ -20,6 +20,7 @@ import static org.mockito.Mockito.*;
 import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -243,6 +244,59 @@ public class S3SeekableInputStreamTest extends S3SeekableInputStreamTestBase {
     }
   }
 
+  @Test
+  void testReadWithByteBufferAdvancesPosition() throws IOException {
+    try (S3SeekableInputStream stream = getTestStream()) {
+
+      ByteBuffer heap = ByteBuffer.allocate(4);
+      assertEquals(4, stream.read(heap));
+      assertEquals(4, stream.getPos());
+      assertEquals("test", new String(heap.array(), StandardCharsets.UTF_8));
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(TEST_DATA.length());
+      assertEquals(TEST_DATA.length() - 4, stream.read(direct));
+      assertEquals(TEST_DATA.length(), stream.getPos());
+      direct.flip();
+      byte[] rest = new byte[direct.remaining()];
+      direct.get(rest);
+      assertEquals(TEST_DATA.substring(4), new String(rest, StandardCharsets.UTF_8));
+
+      // All data has been read, and pos is current at EOF. Next read should return -1.
+      assertEquals(-1, stream.read(ByteBuffer.allocate(1)));
+    }
+  }
+
+  @Test
+  void testPositionedReadWithByteBufferDoesNotAlterPosition() throws IOException {
+    try (S3SeekableInputStream stream = getTestStream()) {
+      stream.seek(2);
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+      assertEquals(4, stream.read(5, buffer));
+      assertEquals(2, stream.getPos());
+      assertEquals('d', buffer.get(0));
+
+      assertEquals(-1, stream.read(TEST_DATA.length(), ByteBuffer.allocate(1)));
+      assertThrows(IllegalArgumentException.class, () -> stream.read(-1, buffer));
+    }
+  }
+
+  @Test
+  void testReadSliceReturnsReadOnlyBuffer() throws IOException {
+    try (S3SeekableInputStream stream = getTestStream()) {
+
+      ByteBuffer slice = stream.readSlice(5, 4);
+      assertTrue(slice.isReadOnly());
+      assertEquals(4, slice.remaining());
+      byte[] bytes = new byte[4];
+      slice.get(bytes);
+      assertEquals("data", new String(bytes, StandardCharsets.UTF_8));
+      assertEquals(0, stream.getPos());
+
+      assertThrows(EOFException.class, () -> stream.readSlice(TEST_DATA.length() - 1, 2));
+    }
+  }
+
   @Test
   void testReadWithBufferOutOfBounds() throws IOException {
     try (S3SeekableInputStream stream = getTestStream()) {
@@ -17,8 +17,18 @@ package software.amazon.s3.analyticsaccelerator.io.logical.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -26,12 +36,20 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import software.amazon.s3.analyticsaccelerator.io.logical.LogicalIOConfiguration;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMappers;
 import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMetadata;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
 
 public class ParquetColumnPrefetchStoreTest {
 
@@ -40,6 +58,72 @@ public class ParquetColumnPrefetchStoreTest {
     assertNotNull(new ParquetColumnPrefetchStore(mock(LogicalIOConfiguration.class)));
   }
 
+  @Test
+  void testStateIsPersistedToDisk(@TempDir Path directory) {
+    LogicalIOConfiguration configuration =
+        LogicalIOConfiguration.builder()
+            .parquetMetadataDiskStoreDirectory(directory.toString())
+            .build();
+    ObjectKey objectKey =
+        ObjectKey.builder().s3URI(S3URI.of("foo", "bar.parquet")).etag("etag").build();
+    ColumnMetadata ssA = new ColumnMetadata(0, "ss_a", 100, 0, 100, 500, 42);
+    ColumnMappers columnMappers =
+        new ColumnMappers(
+            Collections.singletonMap(100L, ssA),
+            Collections.singletonMap("ss_a", Collections.singletonList(ssA)));
+
+    ParquetColumnPrefetchStore store = new ParquetColumnPrefetchStore(configuration);
+    assertTrue(store.isPersistent());
+    store.addRecentColumn(ssA);
+    store.persistColumnMappers(objectKey, columnMappers).join();
+    store.close();
+
+    ParquetColumnPrefetchStore restarted = new ParquetColumnPrefetchStore(configuration);
+    assertNull(restarted.getColumnMappers(objectKey.getS3URI()));
+    assertEquals(Optional.of(columnMappers), restarted.loadColumnMappers(objectKey));
+    assertEquals(columnMappers, restarted.getColumnMappers(objectKey.getS3URI()));
+    assertEquals(Collections.singleton("ss_a"), restarted.getUniqueRecentColumnsForSchema(42));
+  }
+
+  @Test
+  void testRecentColumnsOfManyFootersAreWrittenTogether() {
+    ParquetMetadataDiskStore diskStore = mock(ParquetMetadataDiskStore.class);
+    StreamDrainExecutor drainExecutor = mock(StreamDrainExecutor.class);
+    when(drainExecutor.submit(any(), anyLong()))
+        .thenAnswer(
+            invocation -> {
+              Callable<?> task = invocation.getArgument(0);
+              task.call();
+              return CompletableFuture.completedFuture(null);
+            });
+    ArgumentCaptor<Runnable> checkpoint = ArgumentCaptor.forClass(Runnable.class);
+    when(drainExecutor.schedule(checkpoint.capture(), anyLong())).thenReturn(mock(Future.class));
+    ParquetColumnPrefetchStore store =
+        new ParquetColumnPrefetchStore(LogicalIOConfiguration.DEFAULT, diskStore, drainExecutor);
+    ColumnMappers columnMappers = new ColumnMappers(Collections.emptyMap(), Collections.emptyMap());
+
+    // When: the footers of several files are persisted
+    for (int i = 0; i < 3; i++) {
+      ObjectKey objectKey =
+          ObjectKey.builder().s3URI(S3URI.of("foo", "bar" + i + ".parquet")).etag("etag").build();
+      store.persistColumnMappers(objectKey, columnMappers);
+    }
+
+    // Then: the column mappers of each file are written, but the recent columns only once
+    verify(diskStore, times(3)).storeColumnMappers(any(), any());
+    verify(drainExecutor, times(1))
+        .schedule(any(), eq(ParquetColumnPrefetchStore.RECENT_COLUMNS_CHECKPOINT_DELAY_MS));
+    verify(diskStore, never()).storeRecentColumns(any());
+    checkpoint.getValue().run();
+    verify(diskStore, times(1)).storeRecentColumns(any());
+
+    // When: another footer is persisted after the write, another write is scheduled
+    ObjectKey objectKey =
+        ObjectKey.builder().s3URI(S3URI.of("foo", "baz.parquet")).etag("etag").build();
+    store.persistColumnMappers(objectKey, columnMappers);
+    verify(drainExecutor, times(2)).schedule(any(), anyLong());
+  }
+
   @Test
   void addRecentColumn() {
     StringBuilder concatedColumnString =
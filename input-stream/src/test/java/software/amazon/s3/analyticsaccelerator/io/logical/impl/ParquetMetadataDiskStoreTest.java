@@ -0,0 +1,141 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.logical.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMappers;
+import software.amazon.s3.analyticsaccelerator.io.logical.parquet.ColumnMetadata;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class ParquetMetadataDiskStoreTest {
+  private static final ObjectKey OBJECT_KEY =
+      ObjectKey.builder().s3URI(S3URI.of("foo", "bar.parquet")).etag("etag").build();
+
+  @TempDir Path directory;
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(IllegalArgumentException.class, () -> new ParquetMetadataDiskStore(directory, 0));
+    assertThrows(NullPointerException.class, () -> new ParquetMetadataDiskStore(null, 10));
+  }
+
+  @Test
+  void testNothingIsWrittenUntilUsed() {
+    ParquetMetadataDiskStore store = new ParquetMetadataDiskStore(directory.resolve("store"), 10);
+
+    assertFalse(store.loadColumnMappers(OBJECT_KEY).isPresent());
+    assertEquals(ParquetMetadataDiskStore.RecentColumns.EMPTY, store.loadRecentColumns());
+    assertFalse(Files.exists(directory.resolve("store")));
+  }
+
+  @Test
+  void testColumnMappersAreLoadedByAnotherInstance() {
+    ColumnMappers columnMappers = createColumnMappers();
+    new ParquetMetadataDiskStore(directory, 10).storeColumnMappers(OBJECT_KEY, columnMappers);
+
+    ParquetMetadataDiskStore store = new ParquetMetadataDiskStore(directory, 10);
+    Optional<ColumnMappers> loaded = store.loadColumnMappers(OBJECT_KEY);
+
+    assertTrue(loaded.isPresent());
+    assertEquals(columnMappers, loaded.get());
+    ObjectKey otherEtag = ObjectKey.builder().s3URI(OBJECT_KEY.getS3URI()).etag("other").build();
+    assertFalse(store.loadColumnMappers(otherEtag).isPresent());
+  }
+
+  @SneakyThrows
+  @Test
+  void testCorruptColumnMappersAreIgnored() {
+    ParquetMetadataDiskStore store = new ParquetMetadataDiskStore(directory, 10);
+    store.storeColumnMappers(OBJECT_KEY, createColumnMappers());
+
+    Path columnMappersDirectory = directory.resolve("column-mappers");
+    try (Stream<Path> files = Files.list(columnMappersDirectory)) {
+      Files.write(files.findFirst().get(), new byte[] {1, 2, 3});
+    }
+
+    assertFalse(store.loadColumnMappers(OBJECT_KEY).isPresent());
+  }
+
+  @SneakyThrows
+  @Test
+  void testLeastRecentlyUsedColumnMappersAreEvictedOverCapacity() {
+    ParquetMetadataDiskStore store = new ParquetMetadataDiskStore(directory, 2);
+    ObjectKey first = objectKey("first.parquet");
+    ObjectKey second = objectKey("second.parquet");
+    ObjectKey third = objectKey("third.parquet");
+
+    store.storeColumnMappers(first, createColumnMappers());
+    store.storeColumnMappers(second, createColumnMappers());
+    assertTrue(store.loadColumnMappers(first).isPresent());
+    store.storeColumnMappers(third, createColumnMappers());
+
+    assertTrue(store.loadColumnMappers(first).isPresent());
+    assertFalse(store.loadColumnMappers(second).isPresent());
+    assertTrue(store.loadColumnMappers(third).isPresent());
+    try (Stream<Path> files = Files.list(directory.resolve("column-mappers"))) {
+      assertEquals(2, files.count());
+    }
+  }
+
+  @Test
+  void testRecentColumnsAreLoadedByAnotherInstance() {
+    Map<Integer, List<String>> columns = new HashMap<>();
+    columns.put(1, Arrays.asList("ss_a", "ss_b", "ss_a"));
+    columns.put(2, Collections.singletonList("cs_a"));
+    Map<Integer, List<String>> dictionaries = new HashMap<>();
+    dictionaries.put(1, Collections.singletonList("ss_c"));
+    ParquetMetadataDiskStore.RecentColumns recentColumns =
+        new ParquetMetadataDiskStore.RecentColumns(columns, dictionaries);
+
+    new ParquetMetadataDiskStore(directory, 10).storeRecentColumns(recentColumns);
+
+    assertEquals(recentColumns, new ParquetMetadataDiskStore(directory, 10).loadRecentColumns());
+  }
+
+  private static ObjectKey objectKey(String key) {
+    return ObjectKey.builder().s3URI(S3URI.of("foo", key)).etag("etag").build();
+  }
+
+  private static ColumnMappers createColumnMappers() {
+    ColumnMetadata ssA = new ColumnMetadata(0, "ss_a", 100, 0, 100, 500, 42);
+    ColumnMetadata ssB = new ColumnMetadata(0, "ss_b", 700, 600, 600, 300, 42);
+    Map<Long, ColumnMetadata> offsetIndexToColumnMap = new HashMap<>();
+    offsetIndexToColumnMap.put(100L, ssA);
+    offsetIndexToColumnMap.put(600L, ssB);
+    Map<String, List<ColumnMetadata>> columnNameToColumnMap = new HashMap<>();
+    columnNameToColumnMap.put("ss_a", Collections.singletonList(ssA));
+    columnNameToColumnMap.put("ss_b", Collections.singletonList(ssB));
+    return new ColumnMappers(offsetIndexToColumnMap, columnNameToColumnMap);
+  }
+}
@@ -55,6 +55,29 @@ public class PhysicalIOConfigurationTest {
         physicalIOConfiguration.getBlobStoreCapacity());
   }
 
+  @Test
+  void testOffHeapPoolMustHoldMemoryCapacity() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PhysicalIOConfiguration.builder()
+                .useOffHeapBlockStorage(true)
+                .memoryCapacityBytes(64 * 1024 * 1024)
+                .slabPoolCapacityBytes(32 * 1024 * 1024)
+                .build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PhysicalIOConfiguration.builder().useOffHeapBlockStorage(true).build());
+    assertEquals(
+        64 * 1024 * 1024,
+        PhysicalIOConfiguration.builder()
+            .useOffHeapBlockStorage(true)
+            .memoryCapacityBytes(64 * 1024 * 1024)
+            .slabPoolCapacityBytes(64 * 1024 * 1024)
+            .build()
+            .getSlabPoolCapacityBytes());
+  }
+
   @Test
   void testToString() {
     PhysicalIOConfiguration configuration =
@@ -64,6 +87,7 @@ public class PhysicalIOConfigurationTest {
         configuration.toString(),
         "PhysicalIO configuration:\n"
             + "\tblobStoreCapacity: 10\n"
+            + "\tmemoryCapacityBytes: 0\n"
             + "\tmetadataStoreCapacity: 50\n"
             + "\tblockSizeBytes: 8388608\n"
             + "\treadAheadBytes: 65536\n"
@@ -72,6 +96,41 @@ public class PhysicalIOConfigurationTest {
             + "\tsequentialPrefetchBase: 2.0\n"
             + "\tsequentialPrefetchSpeed: 1.0\n"
             + "\tblockReadTimeout: 30000\n"
-            + "\tblockReadRetryCount: 20\n");
+            + "\tblockReadRetryCount: 20\n"
+            + "\tuseOffHeapBlockStorage: false\n"
+            + "\tslabSizeBytes: 262144\n"
+            + "\tslabPoolCapacityBytes: 2147483648\n"
+            + "\tdrainPoolSize: 32\n"
+            + "\tdrainQueueDepth: 1024\n"
+            + "\tdrainThreadKeepAliveMs: 60000\n"
+            + "\tblobMemoryCapacityBytes: 0\n"
+            + "\tprefetchDeferThreshold: 0.7\n"
+            + "\tprefetchShrinkThreshold: 0.85\n"
+            + "\tprefetchDropThreshold: 0.95\n"
+            + "\tprefetchDeferTimeoutMs: 1000\n"
+            + "\tdiskCacheDirectory: \n"
+            + "\tdiskCacheCapacityBytes: 10737418240\n"
+            + "\tmetadataStoreTtlMs: 0\n"
+            + "\tmetadataStoreRefreshAheadMs: 0\n"
+            + "\tmetadataStoreNegativeTtlMs: 0\n"
+            + "\talignToBlockSize: false\n"
+            + "\tmaxRangeGapBytes: 0\n"
+            + "\tmaxInFlightRequests: 0\n"
+            + "\tmaxInFlightRequestsPerObject: 0\n"
+            + "\thedgeBudget: 0.0\n"
+            + "\thedgeMinDelayMs: 50\n"
+            + "\tminBlockReadTimeout: 0\n"
+            + "\tretryBaseDelayMs: 0\n"
+            + "\tretryMaxDelayMs: 1000\n"
+            + "\tretryBudget: 0.0\n"
+            + "\theadRetryCount: 0\n"
+            + "\tstallThroughputRatio: 0.0\n"
+            + "\tstallWindowMs: 5000\n"
+            + "\tsequentialProgressionMode: EXPONENTIAL\n"
+            + "\tsequentialPrefetchMinBytes: 2097152\n"
+            + "\tsequentialPrefetchMaxBytes: 134217728\n"
+            + "\treadAheadWindows: 0\n"
+            + "\treadAheadWindowBytes: 8388608\n"
+            + "\treadAheadLowWatermark: 0.5\n");
   }
 }
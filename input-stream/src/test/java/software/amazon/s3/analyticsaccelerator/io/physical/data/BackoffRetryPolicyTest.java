@@ -0,0 +1,145 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.exceptions.ThrottlingException;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class BackoffRetryPolicyTest {
+
+  @Test
+  void testConstructor() {
+    new BackoffRetryPolicy(PhysicalIOConfiguration.DEFAULT, TestTelemetry.DEFAULT);
+    new BackoffRetryPolicy(10, 100, 0.1, new RetryBudget(10), TestTelemetry.DEFAULT);
+  }
+
+  @Test
+  void testConstructorThrowsOnInvalidArguments() {
+    RetryBudget budget = new RetryBudget(10);
+    assertThrows(
+        NullPointerException.class,
+        () -> new BackoffRetryPolicy(null, TestTelemetry.DEFAULT));
+    assertThrows(
+        NullPointerException.class,
+        () -> new BackoffRetryPolicy(PhysicalIOConfiguration.DEFAULT, null));
+    assertThrows(
+        NullPointerException.class,
+        () -> new BackoffRetryPolicy(10, 100, 0, null, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BackoffRetryPolicy(-1, 100, 0, budget, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BackoffRetryPolicy(200, 100, 0, budget, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new BackoffRetryPolicy(10, 100, 1.5, budget, TestTelemetry.DEFAULT));
+  }
+
+  @Test
+  void testErrorsAreClassified() {
+    assertEquals(
+        RetryPolicy.ErrorClass.THROTTLING,
+        RetryPolicy.ErrorClass.of(new IOException(new ThrottlingException("slow down", null))));
+    assertEquals(
+        RetryPolicy.ErrorClass.FATAL,
+        RetryPolicy.ErrorClass.of(new IOException(new FileNotFoundException("missing"))));
+    assertEquals(
+        RetryPolicy.ErrorClass.FATAL, RetryPolicy.ErrorClass.of(new CancellationException()));
+    assertEquals(
+        RetryPolicy.ErrorClass.TRANSIENT,
+        RetryPolicy.ErrorClass.of(new SocketTimeoutException("timed out")));
+    assertEquals(
+        RetryPolicy.ErrorClass.TRANSIENT, RetryPolicy.ErrorClass.of(new IOException("reset")));
+  }
+
+  @Test
+  void testFatalErrorsAreNotRetried() {
+    BackoffRetryPolicy policy =
+        new BackoffRetryPolicy(10, 100, 0, new RetryBudget(10), TestTelemetry.DEFAULT);
+
+    assertEquals(-1, policy.backoffMs(new FileNotFoundException("missing"), 1));
+    assertEquals(-1, RetryPolicy.IMMEDIATE.backoffMs(new FileNotFoundException("missing"), 1));
+    assertEquals(0, RetryPolicy.IMMEDIATE.backoffMs(new IOException("reset"), 1));
+    assertEquals(0, policy.getRetries());
+  }
+
+  @Test
+  void testBackoffIsBoundedByDoublingCeiling() {
+    BackoffRetryPolicy policy =
+        new BackoffRetryPolicy(10, 100, 0, new RetryBudget(10), TestTelemetry.DEFAULT);
+
+    for (int i = 0; i < 100; i++) {
+      long first = policy.backoffMs(new IOException("reset"), 1);
+      assertTrue(0 <= first && first <= 10);
+      long third = policy.backoffMs(new IOException("reset"), 3);
+      assertTrue(0 <= third && third <= 40);
+      long tenth = policy.backoffMs(new IOException("reset"), 10);
+      assertTrue(0 <= tenth && tenth <= 100);
+      long throttled = policy.backoffMs(new ThrottlingException("slow down", null), 1);
+      assertTrue(0 <= throttled && throttled <= 40);
+    }
+    assertEquals(400, policy.getRetries());
+    assertEquals(100, policy.getThrottledRetries());
+  }
+
+  @Test
+  void testBudgetRefusesRetriesOnceSpent() {
+    RetryBudget budget = new RetryBudget(10);
+    BackoffRetryPolicy policy = new BackoffRetryPolicy(0, 0, 0.5, budget, TestTelemetry.DEFAULT);
+
+    // Half of the tokens may be spent without earning any
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, policy.backoffMs(new IOException("reset"), 1));
+    }
+    assertEquals(-1, policy.backoffMs(new IOException("reset"), 1));
+    assertEquals(1, policy.getBudgetRejections());
+
+    // Two successes earn back a retry
+    policy.recordSuccess();
+    policy.recordSuccess();
+    assertEquals(0, policy.backoffMs(new IOException("reset"), 1));
+    assertEquals(6, policy.getRetries());
+  }
+
+  @Test
+  void testBudgetIsCapped() {
+    RetryBudget budget = new RetryBudget(10);
+    budget.deposit(5);
+    assertEquals(10, budget.getTokens());
+    assertTrue(budget.tryWithdraw());
+    assertEquals(9, budget.getTokens());
+    assertThrows(IllegalArgumentException.class, () -> new RetryBudget(0));
+    RetryBudget single = new RetryBudget(1);
+    assertTrue(single.tryWithdraw());
+    assertFalse(single.tryWithdraw());
+  }
+}
@@ -31,8 +31,12 @@ import software.amazon.s3.analyticsaccelerator.TestTelemetry;
 import software.amazon.s3.analyticsaccelerator.common.Metrics;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlan;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanExecution;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanState;
 import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
 import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
+import software.amazon.s3.analyticsaccelerator.request.Range;
 import software.amazon.s3.analyticsaccelerator.request.StreamContext;
 import software.amazon.s3.analyticsaccelerator.util.*;
 
@@ -208,6 +212,136 @@ public class BlobStoreTest {
         initialMemoryUsage, finalMemoryUsage, "Memory usage should decrease after eviction");
   }
 
+  @Test
+  void testEvictionByMemoryCapacity() throws IOException {
+    // Given: a BlobStore which can hold two objects worth of bytes, but many blobs
+    PhysicalIOConfiguration config =
+        PhysicalIOConfiguration.builder().memoryCapacityBytes(2L * TEST_DATA.length()).build();
+    Metrics metrics = new Metrics();
+    BlobStore blobStore =
+        new BlobStore(new FakeObjectClient(TEST_DATA), TestTelemetry.DEFAULT, config, metrics);
+    ObjectKey key1 = ObjectKey.builder().s3URI(S3URI.of("test", "test1")).etag(ETAG).build();
+    ObjectKey key2 = ObjectKey.builder().s3URI(S3URI.of("test", "test2")).etag(ETAG).build();
+    ObjectKey key3 = ObjectKey.builder().s3URI(S3URI.of("test", "test3")).etag(ETAG).build();
+    byte[] data = new byte[TEST_DATA.length()];
+
+    // When: three objects are read, touching the first one again before the third
+    blobStore.get(key1, objectMetadata, mock(StreamContext.class)).read(data, 0, data.length, 0);
+    blobStore.get(key2, objectMetadata, mock(StreamContext.class)).read(data, 0, data.length, 0);
+    blobStore.get(key1, objectMetadata, mock(StreamContext.class));
+    blobStore.get(key3, objectMetadata, mock(StreamContext.class)).read(data, 0, data.length, 0);
+    assertEquals(3L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+
+    // Then: the next access evicts the least recently used blob and releases its bytes
+    blobStore.get(key3, objectMetadata, mock(StreamContext.class));
+    assertEquals(2, blobStore.blobCount());
+    assertEquals(2L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+    assertEquals(3L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE_PEAK));
+    assertFalse(blobStore.evictKey(key2), "Least recently used blob should have been evicted");
+  }
+
+  @Test
+  void testPrefetchesReclaimMemoryHeldByIdleBlobs() throws IOException {
+    // Given: a BlobStore filled up by two blobs, of which only the second one is being read
+    PhysicalIOConfiguration config =
+        PhysicalIOConfiguration.builder().memoryCapacityBytes(2L * TEST_DATA.length()).build();
+    Metrics metrics = new Metrics();
+    BlobStore blobStore =
+        new BlobStore(new FakeObjectClient(TEST_DATA), TestTelemetry.DEFAULT, config, metrics);
+    ObjectKey key1 = ObjectKey.builder().s3URI(S3URI.of("test", "test1")).etag(ETAG).build();
+    ObjectKey key2 = ObjectKey.builder().s3URI(S3URI.of("test", "test2")).etag(ETAG).build();
+    ObjectKey key3 = ObjectKey.builder().s3URI(S3URI.of("test", "test3")).etag(ETAG).build();
+    byte[] data = new byte[TEST_DATA.length()];
+    blobStore.get(key1, objectMetadata, mock(StreamContext.class)).read(data, 0, data.length, 0);
+    Blob reading = blobStore.acquire(key2, objectMetadata, mock(StreamContext.class));
+    reading.read(data, 0, data.length, 0);
+    assertEquals(2L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+
+    // When: a stream on a third object prefetches
+    Blob prefetching = blobStore.acquire(key3, objectMetadata, mock(StreamContext.class));
+    IOPlanExecution execution =
+        prefetching.execute(new IOPlan(new Range(0, TEST_DATA.length() - 1)));
+
+    // Then: the idle blob makes room for the prefetch, while the blob being read is kept
+    assertEquals(IOPlanState.SUBMITTED, execution.getState());
+    assertFalse(blobStore.evictKey(key1), "Idle blob should have been evicted");
+    reading.read(data, 0, data.length, 0);
+    assertEquals(TEST_DATA, new String(data, StandardCharsets.UTF_8));
+    prefetching.release();
+    reading.release();
+  }
+
+  @Test
+  void testBlobsBeingReadAreNotEvictedToMemoryCapacity() throws IOException {
+    // Given: a BlobStore over its memory capacity with two blobs, both of which are being read
+    PhysicalIOConfiguration config =
+        PhysicalIOConfiguration.builder().memoryCapacityBytes(TEST_DATA.length()).build();
+    Metrics metrics = new Metrics();
+    BlobStore blobStore =
+        new BlobStore(new FakeObjectClient(TEST_DATA), TestTelemetry.DEFAULT, config, metrics);
+    ObjectKey key1 = ObjectKey.builder().s3URI(S3URI.of("test", "test1")).etag(ETAG).build();
+    ObjectKey key2 = ObjectKey.builder().s3URI(S3URI.of("test", "test2")).etag(ETAG).build();
+    byte[] data = new byte[TEST_DATA.length()];
+    Blob first = blobStore.acquire(key1, objectMetadata, mock(StreamContext.class));
+    first.read(data, 0, data.length, 0);
+    Blob second = blobStore.acquire(key2, objectMetadata, mock(StreamContext.class));
+    second.read(data, 0, data.length, 0);
+    assertEquals(2L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+
+    // When: each stream looks its blob up again for its next read
+    Blob firstAgain = blobStore.acquire(key1, objectMetadata, mock(StreamContext.class));
+    Blob secondAgain = blobStore.acquire(key2, objectMetadata, mock(StreamContext.class));
+
+    // Then: neither blob is evicted, so the streams keep the data they fetched
+    assertSame(first, firstAgain);
+    assertSame(second, secondAgain);
+    assertEquals(2L * TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+    firstAgain.release();
+    secondAgain.release();
+    first.release();
+    second.release();
+  }
+
+  @Test
+  void testEvictKeyReleasesMemory() throws IOException {
+    // Given: a blob holding data
+    Blob blob = blobStore.get(objectKey, objectMetadata, mock(StreamContext.class));
+    byte[] b = new byte[TEST_DATA.length()];
+    blob.read(b, 0, b.length, 0);
+    assertEquals(TEST_DATA.length(), blobStore.getMetrics().get(MetricKey.MEMORY_USAGE));
+
+    // When: the blob is evicted
+    blobStore.evictKey(objectKey);
+
+    // Then: its memory is released, while the peak is retained
+    assertEquals(0, blobStore.getMetrics().get(MetricKey.MEMORY_USAGE));
+    assertEquals(TEST_DATA.length(), blobStore.getMetrics().get(MetricKey.MEMORY_USAGE_PEAK));
+  }
+
+  @Test
+  void testSecondStreamKeepsReadingAfterFirstStreamEvictsKey() throws IOException {
+    // Given: a stream in the middle of reading the blob of an object
+    Blob blob = blobStore.acquire(objectKey, objectMetadata, mock(StreamContext.class));
+
+    // When: another stream on the same object evicts its key
+    assertTrue(blobStore.evictKey(objectKey));
+
+    // Then: the first stream can still read the blob
+    byte[] b = new byte[TEST_DATA.length()];
+    blob.read(b, 0, b.length, 0);
+    assertEquals(TEST_DATA, new String(b, StandardCharsets.UTF_8));
+
+    // And: the blob is closed, and its memory released, once the stream is done with it
+    blob.release();
+    assertFalse(blob.retain());
+    assertEquals(0, blobStore.getMetrics().get(MetricKey.MEMORY_USAGE));
+
+    // And: the next stream opens a new blob
+    Blob next = blobStore.acquire(objectKey, objectMetadata, mock(StreamContext.class));
+    assertNotSame(blob, next);
+    next.release();
+  }
+
   @Test
   void testConcurrentMemoryUpdates() throws Exception {
     // Given: Multiple threads updating memory
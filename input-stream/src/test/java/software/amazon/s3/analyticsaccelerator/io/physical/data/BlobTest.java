@@ -23,9 +23,11 @@ import static software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanSta
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import software.amazon.s3.analyticsaccelerator.TestTelemetry;
 import software.amazon.s3.analyticsaccelerator.common.Metrics;
@@ -135,6 +137,62 @@ public class BlobTest {
     assertThrows(IllegalArgumentException.class, () -> blob.read(b, b.length + 1, b.length, 1));
   }
 
+  @Test
+  public void testByteBufferReadFillsHeapAndDirectBuffers() throws IOException {
+    // Given: test Blob
+    Blob blob = getTestBlob(TEST_DATA);
+
+    // When: reads into heap and direct buffers are performed
+    ByteBuffer heap = ByteBuffer.allocate(4);
+    int r1 = blob.read(heap, 0);
+    ByteBuffer direct = ByteBuffer.allocateDirect(TEST_DATA.length());
+    direct.position(6);
+    int r2 = blob.read(direct, 5);
+
+    // Then: the buffers hold the correct bytes and were advanced, without reading past the object
+    assertEquals(4, r1);
+    assertFalse(heap.hasRemaining());
+    assertEquals("test", new String(heap.array(), StandardCharsets.UTF_8));
+
+    assertEquals(TEST_DATA.length() - 5, r2);
+    direct.flip().position(6);
+    byte[] b2 = new byte[direct.remaining()];
+    direct.get(b2);
+    assertEquals(TEST_DATA.substring(5), new String(b2, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testReadSliceIsViewWithinOneBlockAndCopyAcrossBlocks() throws IOException {
+    // Given: test Blob whose data is held in two blocks
+    Blob blob =
+        getTestBlob(
+            TEST_DATA,
+            PhysicalIOConfiguration.builder().readAheadBytes(1).maxRangeGapBytes(0).build());
+    List<Range> ranges = new LinkedList<>();
+    ranges.add(new Range(0, 4));
+    ranges.add(new Range(5, TEST_DATA.length() - 1));
+    blob.execute(new IOPlan(ranges));
+
+    // When: slices inside a block and across blocks are requested
+    Optional<ByteBuffer> inside = blob.readSlice(5, 4);
+    Optional<ByteBuffer> across = blob.readSlice(3, 4);
+
+    // Then: both slices are read-only, the one across blocks is a copy of the available blocks
+    assertTrue(inside.isPresent());
+    assertTrue(inside.get().isReadOnly());
+    assertEquals(4, inside.get().remaining());
+    byte[] b = new byte[4];
+    inside.get().get(b);
+    assertEquals("data", new String(b, StandardCharsets.UTF_8));
+    assertTrue(across.isPresent());
+    assertTrue(across.get().isReadOnly());
+    assertFalse(across.get().isDirect());
+    byte[] b2 = new byte[4];
+    across.get().get(b2);
+    assertEquals(TEST_DATA.substring(3, 7), new String(b2, StandardCharsets.UTF_8));
+    assertThrows(IllegalArgumentException.class, () -> blob.readSlice(TEST_DATA.length() - 1, 2));
+  }
+
   @Test
   public void testExecuteSubmitsCorrectRanges() throws IOException {
     // Given: test blob and an IOPlan
@@ -150,8 +208,7 @@ public class BlobTest {
 
     // Then: correct ranges are submitted
     assertEquals(SUBMITTED, execution.getState());
-    verify(blockManager).makeRangeAvailable(0, 101, ReadMode.ASYNC);
-    verify(blockManager).makeRangeAvailable(999, 2, ReadMode.ASYNC);
+    verify(blockManager).makeRangesAvailable(ranges, ReadMode.ASYNC);
   }
 
   @Test
@@ -168,6 +225,10 @@ public class BlobTest {
   }
 
   private Blob getTestBlob(String data) {
+    return getTestBlob(data, PhysicalIOConfiguration.DEFAULT);
+  }
+
+  private Blob getTestBlob(String data, PhysicalIOConfiguration configuration) {
     ObjectMetadata mockMetadataStore =
         ObjectMetadata.builder().contentLength(data.length()).etag(ETAG).build();
     FakeObjectClient fakeObjectClient = new FakeObjectClient(data);
@@ -177,7 +238,7 @@ public class BlobTest {
             fakeObjectClient,
             mockMetadataStore,
             TestTelemetry.DEFAULT,
-            PhysicalIOConfiguration.DEFAULT,
+            configuration,
             mock(Metrics.class));
 
     return new Blob(objectKey, mockMetadataStore, blockManager, TestTelemetry.DEFAULT);
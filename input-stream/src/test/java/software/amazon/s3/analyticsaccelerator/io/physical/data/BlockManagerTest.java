@@ -28,7 +28,15 @@ import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import software.amazon.awssdk.services.s3.model.S3Exception;
@@ -36,6 +44,9 @@ import software.amazon.s3.analyticsaccelerator.TestTelemetry;
 import software.amazon.s3.analyticsaccelerator.common.Metrics;
 import software.amazon.s3.analyticsaccelerator.common.telemetry.Telemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.AccessPattern;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.AccessPatternDetector;
+import software.amazon.s3.analyticsaccelerator.io.physical.prefetcher.StreamPrefetchState;
 import software.amazon.s3.analyticsaccelerator.request.*;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
@@ -188,6 +199,28 @@ public class BlockManagerTest {
     assertEquals(1, lastRequest.getRange().getLength());
   }
 
+  @Test
+  void testMakeRangesAvailableCoalescesRangesSeparatedBySmallGaps() throws IOException {
+    // Given: BM over 64KB, coalescing ranges up to 1KB apart
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient,
+            64 * ONE_KB,
+            PhysicalIOConfiguration.builder().readAheadBytes(100).maxRangeGapBytes(ONE_KB).build());
+
+    // When: two ranges 900 bytes apart and one 10KB further are made available
+    blockManager.makeRangesAvailable(
+        Arrays.asList(new Range(0, 99), new Range(1000, 1099), new Range(12_000, 12_099)),
+        ReadMode.ASYNC);
+
+    // Then: the first two are fetched together, gap included
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(2)).getObject(requestCaptor.capture(), any());
+    assertEquals(new Range(0, 1099), requestCaptor.getAllValues().get(0).getRange());
+    assertEquals(new Range(12_000, 12_099), requestCaptor.getAllValues().get(1).getRange());
+  }
+
   @Test
   void testMakeRangeAvailableThrowsExceptionWhenEtagChanges() throws IOException {
     ObjectClient objectClient = mock(ObjectClient.class);
@@ -245,6 +278,286 @@ public class BlockManagerTest {
                             "block should have been available because it was requested before")));
   }
 
+  @Test
+  void testEvictedBlocksAreFetchedAgain() throws IOException {
+    // Given: BlockManager whose blob may only hold 64KB of blocks
+    final int readAheadBytes = (int) PhysicalIOConfiguration.DEFAULT.getReadAheadBytes();
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient,
+            2 * readAheadBytes,
+            PhysicalIOConfiguration.builder().blobMemoryCapacityBytes(readAheadBytes).build());
+
+    // When: the object is read past the capacity of the blob
+    blockManager.makeRangeAvailable(0, readAheadBytes, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(readAheadBytes, readAheadBytes, ReadMode.SYNC);
+
+    // Then: the first block is evicted, and fetched again when it is read
+    assertFalse(blockManager.getBlock(0).isPresent());
+    assertTrue(blockManager.getBlock(readAheadBytes).isPresent());
+    assertEquals(0, blockManager.getOrFetchBlock(0, 1).getStart());
+    verify(objectClient, times(3)).getObject(any(), any());
+  }
+
+  @Test
+  void testBlocksBeingReadAreNotEvictedByConcurrentReads() throws Exception {
+    // Given: BlockManager whose blob may only hold 64KB of blocks, and a reader in the first block
+    final int readAheadBytes = (int) PhysicalIOConfiguration.DEFAULT.getReadAheadBytes();
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient,
+            2 * readAheadBytes,
+            PhysicalIOConfiguration.builder().blobMemoryCapacityBytes(readAheadBytes).build());
+    blockManager.makeRangeAvailable(0, readAheadBytes, ReadMode.SYNC);
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch evicting = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<Integer> read =
+          executor.submit(
+              () ->
+                  blockManager.readBlock(
+                      0,
+                      1,
+                      block -> {
+                        reading.countDown();
+                        assertTrue(evicting.await(10, TimeUnit.SECONDS));
+                        return block.read(0);
+                      }));
+      assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+      // When: another reader pushes the blob over its capacity while the first block is read
+      blockManager.makeRangeAvailable(readAheadBytes, readAheadBytes, ReadMode.SYNC);
+      evicting.countDown();
+
+      // Then: the block being read is kept, and the read completes
+      assertTrue(blockManager.getBlock(0).isPresent());
+      assertEquals(0, read.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdown();
+    }
+    verify(objectClient, times(2)).getObject(any(), any());
+  }
+
+  @Test
+  void testBackwardReadsArePrefetchedBehind() throws IOException {
+    // Given: BM over 16MB
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager = getTestBlockManager(objectClient, 16 * ONE_MB);
+
+    // When: the object is read backward, 64KB at a time
+    blockManager.makeRangeAvailable(8 * ONE_MB, 64 * ONE_KB, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(8 * ONE_MB - 64 * ONE_KB, 64 * ONE_KB, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(8 * ONE_MB - 128 * ONE_KB, 64 * ONE_KB, ReadMode.SYNC);
+
+    // Then: once the step back repeats, the bytes before the read are fetched with it
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(3)).getObject(requestCaptor.capture(), any());
+    assertEquals(
+        new Range(8 * ONE_MB - 64 * ONE_KB, 8 * ONE_MB - 1),
+        requestCaptor.getAllValues().get(1).getRange());
+    assertEquals(
+        new Range(0, 8 * ONE_MB - 64 * ONE_KB - 1), requestCaptor.getAllValues().get(2).getRange());
+  }
+
+  @Test
+  void testLongBackwardReadsKeepPrefetchingUpToTheMaximum() throws IOException {
+    // Given: BM over 1MB, prefetching no more than 1KB behind backward reads
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient,
+            ONE_MB,
+            PhysicalIOConfiguration.builder()
+                .sequentialPrefetchMinBytes(ONE_KB)
+                .sequentialPrefetchMaxBytes(ONE_KB)
+                .build());
+
+    // When: the object is read backward, a byte every 1KB, for more steps than sizes double
+    int reads = 100;
+    for (int i = 1; i <= reads; i++) {
+      blockManager.makeRangeAvailable(ONE_MB - i * ONE_KB, 1, ReadMode.SYNC);
+    }
+
+    // Then: the last reads still fetch the 1KB behind them
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(reads)).getObject(requestCaptor.capture(), any());
+    assertEquals(
+        new Range(ONE_MB - (reads + 1) * ONE_KB + 1, ONE_MB - reads * ONE_KB),
+        requestCaptor.getAllValues().get(reads - 1).getRange());
+  }
+
+  @Test
+  void testStridedReadsPrefetchTheNextStrides() throws IOException {
+    // Given: BM over 1MB, reading ahead no more than is read
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient, ONE_MB, PhysicalIOConfiguration.builder().readAheadBytes(100).build());
+
+    // When: 100 bytes are read every 10KB
+    blockManager.makeRangeAvailable(0, 100, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(10_000, 100, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(20_000, 100, ReadMode.SYNC);
+
+    // Then: once the stride repeats, the next strides are prefetched
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(7)).getObject(requestCaptor.capture(), any());
+    for (int i = 3; i < 7; i++) {
+      GetRequest request = requestCaptor.getAllValues().get(i);
+      assertEquals(new Range(i * 10_000, i * 10_000 + 99), request.getRange());
+      assertEquals(ReadMode.ASYNC, request.getReferrer().getReadMode());
+    }
+
+    // And: the next read is served from them
+    blockManager.makeRangeAvailable(30_000, 100, ReadMode.SYNC);
+    verify(objectClient, times(7)).getObject(any(), any());
+    assertEquals(1, blockManager.getAccessPatternDetector().getHits(AccessPattern.STRIDED));
+  }
+
+  @Test
+  void testReadsOfAvailablePositionsAreRecorded() throws IOException {
+    // Given: BM over 1MB, all of it available
+    BlockManager blockManager = getTestBlockManager(mock(ObjectClient.class), ONE_MB);
+    blockManager.makeRangeAvailable(0, ONE_MB, ReadMode.SYNC);
+    AccessPatternDetector detector = mock(AccessPatternDetector.class);
+    when(detector.recordRead(any(Long.class), any(Long.class)))
+        .thenReturn(AccessPatternDetector.Detection.RANDOM);
+    StreamPrefetchState prefetchState = mock(StreamPrefetchState.class);
+    when(prefetchState.getAccessPatternDetector()).thenReturn(detector);
+
+    // When: a stream reads a byte already available
+    blockManager.makePositionAvailable(100, ReadMode.SYNC, prefetchState);
+
+    // Then: the read is still part of the pattern of the stream
+    verify(detector).recordRead(100, 1);
+  }
+
+  @Test
+  void testInterleavedStreamsAreRecognizedOnTheirOwn() throws IOException {
+    // Given: BM over 1MB, reading ahead no more than is read, and two streams
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient, ONE_MB, PhysicalIOConfiguration.builder().readAheadBytes(100).build());
+    StreamPrefetchState first =
+        new StreamPrefetchState(PhysicalIOConfiguration.DEFAULT, TestTelemetry.DEFAULT);
+    StreamPrefetchState second =
+        new StreamPrefetchState(PhysicalIOConfiguration.DEFAULT, TestTelemetry.DEFAULT);
+
+    // When: each stream reads 100 bytes every 10KB, their reads interleaving
+    for (int i = 0; i < 3; i++) {
+      blockManager.makeRangeAvailable(i * 10_000, 100, ReadMode.SYNC, first);
+      blockManager.makeRangeAvailable(500_000 + i * 10_000, 100, ReadMode.SYNC, second);
+    }
+
+    // Then: the stride of each stream is recognized, and the next reads are served from it
+    verify(objectClient, times(14)).getObject(any(), any());
+    blockManager.makeRangeAvailable(30_000, 100, ReadMode.SYNC, first);
+    blockManager.makeRangeAvailable(530_000, 100, ReadMode.SYNC, second);
+    verify(objectClient, times(14)).getObject(any(), any());
+    assertEquals(1, first.getAccessPatternDetector().getHits(AccessPattern.STRIDED));
+    assertEquals(1, second.getAccessPatternDetector().getHits(AccessPattern.STRIDED));
+    assertEquals(0, blockManager.getAccessPatternDetector().getHits(AccessPattern.STRIDED));
+  }
+
+  @Test
+  void testSequentialReaderCrossingTheLowWatermarkFetchesTheNextWindow() throws IOException {
+    // Given: BM over 8MB keeping one 1MB read-ahead window in flight
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager =
+        getTestBlockManager(
+            objectClient,
+            8 * ONE_MB,
+            PhysicalIOConfiguration.builder()
+                .readAheadWindows(1)
+                .readAheadWindowBytes(ONE_MB)
+                .readAheadLowWatermark(0.5)
+                .build());
+
+    // When: a sequential read starts the first window, and the reader moves through half of it
+    blockManager.makeRangeAvailable(0, 64 * ONE_KB, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(64 * ONE_KB, 64 * ONE_KB, ReadMode.SYNC);
+    blockManager.makeRangeAvailable(64 * ONE_KB + ONE_MB / 4, 64 * ONE_KB, ReadMode.SYNC);
+    verify(objectClient, times(2)).getObject(any(), any());
+    blockManager.makeRangeAvailable(64 * ONE_KB + ONE_MB / 2, 64 * ONE_KB, ReadMode.SYNC);
+
+    // Then: the next window is fetched asynchronously
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(3)).getObject(requestCaptor.capture(), any());
+    assertEquals(
+        new Range(64 * ONE_KB, 64 * ONE_KB + ONE_MB - 1),
+        requestCaptor.getAllValues().get(1).getRange());
+    GetRequest window = requestCaptor.getAllValues().get(2);
+    assertEquals(new Range(64 * ONE_KB + ONE_MB, 64 * ONE_KB + 2 * ONE_MB - 1), window.getRange());
+    assertEquals(ReadMode.ASYNC, window.getReferrer().getReadMode());
+
+    // And: reads of it are counted, and do not wait for the window which has landed
+    long pos = 64 * ONE_KB + ONE_MB;
+    blockManager.makeRangeAvailable(pos, 64 * ONE_KB, ReadMode.SYNC);
+    blockManager.readBlock(pos, 1, block -> block.read(pos));
+    assertEquals(1, blockManager.getReadAheadWindows().getReads());
+    assertEquals(0, blockManager.getReadAheadWindows().getWaits());
+  }
+
+  @Test
+  void testSequentialStreamsKeepTheirOwnReadAheadWindows() throws IOException {
+    // Given: BM over 8MB keeping one 1MB read-ahead window in flight, and two streams
+    ObjectClient objectClient = mock(ObjectClient.class);
+    PhysicalIOConfiguration configuration =
+        PhysicalIOConfiguration.builder()
+            .readAheadWindows(1)
+            .readAheadWindowBytes(ONE_MB)
+            .readAheadLowWatermark(0.5)
+            .build();
+    BlockManager blockManager = getTestBlockManager(objectClient, 8 * ONE_MB, configuration);
+    StreamPrefetchState first = new StreamPrefetchState(configuration, TestTelemetry.DEFAULT);
+    StreamPrefetchState second = new StreamPrefetchState(configuration, TestTelemetry.DEFAULT);
+
+    // When: each stream starts a window, and the first moves through half of its own
+    blockManager.makeRangeAvailable(0, 64 * ONE_KB, ReadMode.SYNC, first);
+    blockManager.makeRangeAvailable(64 * ONE_KB, 64 * ONE_KB, ReadMode.SYNC, first);
+    blockManager.makeRangeAvailable(4 * ONE_MB, 64 * ONE_KB, ReadMode.SYNC, second);
+    blockManager.makeRangeAvailable(4 * ONE_MB + 64 * ONE_KB, 64 * ONE_KB, ReadMode.SYNC, second);
+    verify(objectClient, times(4)).getObject(any(), any());
+    blockManager.makeRangeAvailable(64 * ONE_KB + ONE_MB / 2, 64 * ONE_KB, ReadMode.SYNC, first);
+
+    // Then: the window of the second stream did not replace the one of the first
+    ArgumentCaptor<GetRequest> requestCaptor = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(5)).getObject(requestCaptor.capture(), any());
+    assertEquals(
+        new Range(64 * ONE_KB + ONE_MB, 64 * ONE_KB + 2 * ONE_MB - 1),
+        requestCaptor.getAllValues().get(4).getRange());
+  }
+
+  @Test
+  void testConcurrentReadsOfTheSameRangeFetchItOnce() throws Exception {
+    // Given
+    final int readAheadBytes = (int) PhysicalIOConfiguration.DEFAULT.getReadAheadBytes();
+    ObjectClient objectClient = mock(ObjectClient.class);
+    BlockManager blockManager = getTestBlockManager(objectClient, readAheadBytes);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // When: many threads read the same range at once
+    List<Future<Block>> blocks = new ArrayList<>();
+    try {
+      for (int i = 0; i < 32; i++) {
+        blocks.add(executor.submit(() -> blockManager.getOrFetchBlock(0, readAheadBytes)));
+      }
+      // Then: they all get the same block, fetched by a single request
+      Block block = blocks.get(0).get();
+      for (Future<Block> other : blocks) {
+        assertSame(block, other.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    verify(objectClient, times(1)).getObject(any(), any());
+  }
+
   private BlockManager getTestBlockManager(int size) throws IOException {
     return getTestBlockManager(mock(ObjectClient.class), size);
   }
@@ -16,10 +16,13 @@
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -33,6 +36,7 @@ import software.amazon.s3.analyticsaccelerator.request.ObjectMetadata;
 import software.amazon.s3.analyticsaccelerator.request.ReadMode;
 import software.amazon.s3.analyticsaccelerator.util.BlockMetricsHandler;
 import software.amazon.s3.analyticsaccelerator.util.FakeObjectClient;
+import software.amazon.s3.analyticsaccelerator.util.MetricKey;
 import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
 import software.amazon.s3.analyticsaccelerator.util.S3URI;
 
@@ -197,6 +201,63 @@ public class BlockStoreTest {
     assertEquals(OptionalLong.of(15), blockStore.findNextLoadedByte(15));
   }
 
+  @SneakyThrows
+  @Test
+  public void test__blockStore__lookupsAcrossManyBlocksAreCorrect() {
+    // Given: BlockStore with blocks (0,9), (20,29), ..., (980,989) added in reverse order
+    final int blockCount = 50;
+    final int objectSize = 1000;
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < objectSize; i++) {
+      data.append('x');
+    }
+    FakeObjectClient fakeObjectClient = new FakeObjectClient(data.toString());
+    ObjectMetadata metadata = ObjectMetadata.builder().contentLength(objectSize).etag(ETAG).build();
+    BlockStore blockStore = new BlockStore(objectKey, metadata, mock(BlockMetricsHandler.class));
+    for (int i = blockCount - 1; i >= 0; i--) {
+      blockStore.add(
+          new Block(
+              objectKey,
+              fakeObjectClient,
+              TestTelemetry.DEFAULT,
+              i * 20L,
+              i * 20L + 9,
+              0,
+              ReadMode.SYNC,
+              DEFAULT_READ_TIMEOUT,
+              DEFAULT_READ_RETRY_COUNT,
+              mock(BlockMetricsHandler.class)));
+    }
+
+    // When & Then: lookups, gap finding and next loaded byte are resolved against the right block
+    assertEquals(blockCount, blockStore.size());
+    assertEquals(500, blockStore.getBlock(505).get().getStart());
+    assertFalse(blockStore.getBlock(515).isPresent());
+    assertEquals(OptionalLong.of(510), blockStore.findNextMissingByte(500));
+    assertEquals(OptionalLong.of(520), blockStore.findNextLoadedByte(510));
+    assertEquals(OptionalLong.of(990), blockStore.findNextMissingByte(985));
+    assertEquals(OptionalLong.empty(), blockStore.findNextLoadedByte(985 + 5));
+  }
+
+  @Test
+  public void test__blockStore__addReplacesAndClosesBlockWithSameStart() {
+    // Given: BlockStore with a block starting at 0
+    ObjectMetadata mockMetadataStore =
+        ObjectMetadata.builder().contentLength(OBJECT_SIZE).etag(ETAG).build();
+    BlockStore blockStore =
+        new BlockStore(objectKey, mockMetadataStore, mock(BlockMetricsHandler.class));
+    Block b1 = mock(Block.class);
+    Block b2 = mock(Block.class);
+    blockStore.add(b1);
+
+    // When: another block starting at the same position is added
+    blockStore.add(b2);
+
+    // Then: the first block is closed and only one block remains
+    verify(b1, times(1)).close();
+    assertEquals(1, blockStore.size());
+  }
+
   @Test
   public void test__blockStore__closesBlocks() {
     // Given: BlockStore with a block
@@ -233,4 +294,113 @@ public class BlockStoreTest {
     // Then: 1\ blockStore.close did not throw, 2\ b2 was closed
     verify(b2, times(1)).close();
   }
+
+  @Test
+  public void test__blockStore__evictsConsumedBlocksFirst() {
+    // Given: BlockStore with room for two blocks of ten bytes, holding three
+    BlockMetricsHandler metricsHandler = mock(BlockMetricsHandler.class);
+    BlockStore blockStore = getBoundedBlockStore(metricsHandler, 20);
+    Block b1 = mockBlock(0, 9, false);
+    Block b2 = mockBlock(10, 19, true);
+    Block b3 = mockBlock(20, 29, false);
+    blockStore.add(b1);
+    blockStore.add(b2);
+    blockStore.add(b3);
+
+    // When: the store is brought back to capacity while the last block is being read
+    int evicted = blockStore.evictToCapacity(20, 29);
+
+    // Then: the block a reader has consumed is the one evicted
+    assertEquals(1, evicted);
+    verify(b2, times(1)).close();
+    verify(b1, never()).close();
+    assertFalse(blockStore.getBlock(15).isPresent());
+    assertEquals(20, blockStore.getHeldBytes());
+    verify(metricsHandler, times(1)).updateMetrics(MetricKey.BLOCK_EVICTION, 1L);
+  }
+
+  @Test
+  public void test__blockStore__clockGivesRecentlyUsedBlocksSecondChance() {
+    // Given: BlockStore with room for two blocks of ten bytes, which has already evicted once
+    BlockStore blockStore = getBoundedBlockStore(mock(BlockMetricsHandler.class), 20);
+    Block b1 = mockBlock(0, 9, false);
+    Block b2 = mockBlock(10, 19, false);
+    Block b3 = mockBlock(20, 29, false);
+    blockStore.add(b1);
+    blockStore.add(b2);
+    blockStore.add(b3);
+    assertEquals(1, blockStore.evictToCapacity(20, 29));
+    verify(b1, times(1)).close();
+
+    // When: the second block is used before a fourth one is added
+    assertTrue(blockStore.getBlock(15).isPresent());
+    Block b4 = mockBlock(30, 39, false);
+    blockStore.add(b4);
+    int evicted = blockStore.evictToCapacity(30, 39);
+
+    // Then: the third block, which was not used since the clock hand passed it, is evicted
+    assertEquals(1, evicted);
+    verify(b3, times(1)).close();
+    verify(b2, never()).close();
+    assertTrue(blockStore.getBlock(15).isPresent());
+    assertTrue(blockStore.getBlock(35).isPresent());
+  }
+
+  @Test
+  public void test__blockStore__neverEvictsProtectedBlocksOrWithoutCapacity() {
+    // Given: a bounded and an unbounded BlockStore holding more than the bound
+    BlockStore bounded = getBoundedBlockStore(mock(BlockMetricsHandler.class), 10);
+    BlockStore unbounded = getBoundedBlockStore(mock(BlockMetricsHandler.class), 0);
+    for (BlockStore blockStore : new BlockStore[] {bounded, unbounded}) {
+      blockStore.add(mockBlock(0, 9, true));
+      blockStore.add(mockBlock(10, 19, true));
+    }
+
+    // When / Then: nothing is evicted while both blocks are being read, or without a capacity
+    assertEquals(0, bounded.evictToCapacity(0, 19));
+    assertEquals(2, bounded.size());
+    assertEquals(0, unbounded.evictToCapacity(0, 0));
+    assertEquals(2, unbounded.size());
+  }
+
+  @Test
+  public void test__blockStore__neverEvictsPinnedBlocks() {
+    // Given: BlockStore with room for one block of ten bytes, holding two consumed blocks
+    BlockStore blockStore = getBoundedBlockStore(mock(BlockMetricsHandler.class), 10);
+    Block b1 = mockBlock(0, 9, true);
+    Block b2 = mockBlock(10, 19, true);
+    when(b1.isPinned()).thenReturn(true);
+    blockStore.add(b1);
+    blockStore.add(b2);
+
+    // When: the store is brought back to capacity while a reader has the first block pinned
+    int evicted = blockStore.evictToCapacity(20, 29);
+
+    // Then: the pinned block is kept
+    assertEquals(1, evicted);
+    verify(b1, never()).close();
+    verify(b2, times(1)).close();
+    assertTrue(blockStore.getBlock(5).isPresent());
+  }
+
+  private BlockStore getBoundedBlockStore(
+      BlockMetricsHandler metricsHandler, long memoryCapacityBytes) {
+    ObjectMetadata mockMetadataStore =
+        ObjectMetadata.builder().contentLength(OBJECT_SIZE).etag(ETAG).build();
+    return new BlockStore(objectKey, mockMetadataStore, metricsHandler, memoryCapacityBytes);
+  }
+
+  private static Block mockBlock(long start, long end, boolean consumed) {
+    Block block = mock(Block.class);
+    when(block.getStart()).thenReturn(start);
+    when(block.getEnd()).thenReturn(end);
+    when(block.isConsumed()).thenReturn(consumed);
+    when(block.contains(anyLong()))
+        .thenAnswer(
+            invocation -> {
+              long pos = invocation.getArgument(0);
+              return start <= pos && pos <= end;
+            });
+    return block;
+  }
 }
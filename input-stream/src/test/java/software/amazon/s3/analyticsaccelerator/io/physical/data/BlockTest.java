@@ -16,16 +16,35 @@
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.common.Metrics;
+import software.amazon.s3.analyticsaccelerator.request.GetRequest;
 import software.amazon.s3.analyticsaccelerator.request.ObjectClient;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.Range;
 import software.amazon.s3.analyticsaccelerator.request.ReadMode;
 import software.amazon.s3.analyticsaccelerator.util.*;
 
@@ -101,6 +120,39 @@ public class BlockTest {
     assertEquals("data", new String(b2, StandardCharsets.UTF_8));
   }
 
+  @Test
+  public void testByteBufferReadAndSliceReturnCorrectBytes() throws IOException {
+    // Given: a Block containing "test-data"
+    final String TEST_DATA = "test-data";
+    ObjectClient fakeObjectClient = new FakeObjectClient(TEST_DATA);
+    Block block =
+        new Block(
+            objectKey,
+            fakeObjectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length() - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            mock(BlockMetricsHandler.class));
+
+    // When: bytes are requested into a direct buffer and as a slice
+    ByteBuffer direct = ByteBuffer.allocateDirect(16);
+    int r1 = block.read(direct, 5);
+    ByteBuffer slice = block.slice(0, 4).get();
+
+    // Then: the buffer is filled up to the end of the block and the slice is a read-only view
+    assertEquals(4, r1);
+    assertEquals(4, direct.position());
+    assertEquals('d', direct.get(0));
+    assertTrue(slice.isReadOnly());
+    assertEquals(4, slice.remaining());
+    assertEquals('t', slice.get(0));
+    assertFalse(block.slice(5, 5).isPresent());
+  }
+
   @Test
   void testNulls() {
     final String TEST_DATA = "test-data";
@@ -327,6 +379,16 @@ public class BlockTest {
     assertThrows(IOException.class, () -> block.read(4));
   }
 
+  @Test
+  void testTimedOutReadsAreRetriedAndCounted() throws IOException {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    BlockResources resources = BlockResources.builder().readTimeoutEstimator(estimator).build();
+    Block block = createBlock(new FakeStuckObjectClient("test-data"), 0, 8, resources);
+
+    assertThrows(IOException.class, () -> block.read(4));
+    assertEquals(DEFAULT_READ_RETRY_COUNT - 1, estimator.getTimeoutRetries());
+  }
+
   @SneakyThrows
   @Test
   void testClose() {
@@ -347,4 +409,521 @@ public class BlockTest {
     block.close();
     block.close();
   }
+
+  @SneakyThrows
+  @Test
+  void testMemoryIsChargedWhenDataLandsAndReleasedOnceOnClose() {
+    final String TEST_DATA = "test-data";
+    ObjectClient fakeObjectClient = new FakeObjectClient(TEST_DATA);
+    Metrics metrics = new Metrics();
+    Block block =
+        new Block(
+            objectKey,
+            fakeObjectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length() - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            new BlockMetricsHandler(new Metrics(), metrics));
+
+    block.read(0);
+    assertEquals(TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE));
+
+    block.close();
+    block.close();
+    assertEquals(0, metrics.get(MetricKey.MEMORY_USAGE));
+    assertEquals(TEST_DATA.length(), metrics.get(MetricKey.MEMORY_USAGE_PEAK));
+  }
+
+  @SneakyThrows
+  @Test
+  void testOffHeapReadsAcrossSlabsAndReturnsSlabsOnClose() {
+    // Given: a Block storing "test-data" off-heap in slabs smaller than the block
+    final String TEST_DATA = "test-data";
+    ObjectClient fakeObjectClient = new FakeObjectClient(TEST_DATA);
+    SlabAllocator slabAllocator = new SlabAllocator(4, 64, TestTelemetry.DEFAULT);
+    Block block =
+        new Block(
+            objectKey,
+            fakeObjectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length() - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            mock(BlockMetricsHandler.class),
+            null,
+            BlockResources.builder().slabAllocator(slabAllocator).build());
+
+    // When: bytes are requested from the block
+    byte[] buffer = new byte[TEST_DATA.length()];
+    int r1 = block.read(buffer, 0, buffer.length, 0);
+    int r2 = block.read(TEST_DATA.length() - 1);
+
+    // Then: they are the correct bytes, and the slabs go back to the pool on close
+    assertEquals(TEST_DATA.length(), r1);
+    assertEquals(TEST_DATA, new String(buffer, StandardCharsets.UTF_8));
+    assertEquals(97, r2); // 'a' = 97
+    assertEquals(3, slabAllocator.getLeasedSlabs());
+    assertFalse(block.slice(0, 4).isPresent());
+
+    block.close();
+    assertEquals(0, slabAllocator.getLeasedSlabs());
+    assertThrows(IOException.class, () -> block.read(0));
+  }
+
+  @SneakyThrows
+  @Test
+  void testReadReturnsOnceBytesLandWithoutWaitingForWholeBlock() {
+    // Given: a Block whose response stalls after its first four bytes
+    final byte[] TEST_DATA = "test-data".getBytes(StandardCharsets.UTF_8);
+    CountDownLatch stall = new CountDownLatch(1);
+    InputStream stream =
+        new InputStream() {
+          private int position;
+
+          @Override
+          public int read() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            if (position == 4) {
+              try {
+                stall.await(DEFAULT_READ_TIMEOUT, TimeUnit.MILLISECONDS);
+              } catch (InterruptedException e) {
+                throw new IOException(e);
+              }
+            }
+            if (position == TEST_DATA.length) {
+              return -1;
+            }
+            int count = Math.min(len, position == 0 ? 4 : TEST_DATA.length - position);
+            System.arraycopy(TEST_DATA, position, b, off, count);
+            position += count;
+            return count;
+          }
+        };
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenReturn(
+            CompletableFuture.supplyAsync(() -> ObjectContent.builder().stream(stream).build()));
+    Block block =
+        new Block(
+            objectKey,
+            objectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            mock(BlockMetricsHandler.class),
+            null);
+
+    // When: the first four bytes are read while the rest of the block is still in flight
+    byte[] head = new byte[4];
+    int r1 = block.read(head, 0, head.length, 0);
+
+    // Then: they are returned straight away, and the rest once it has landed
+    assertEquals(4, r1);
+    assertEquals("test", new String(head, StandardCharsets.UTF_8));
+    assertEquals(1, stall.getCount());
+
+    stall.countDown();
+    byte[] tail = new byte[5];
+    assertEquals(5, block.read(tail, 0, tail.length, 4));
+    assertEquals("-data", new String(tail, StandardCharsets.UTF_8));
+  }
+
+  @SneakyThrows
+  @Test
+  void testFailedFetchResumesFromTheBytesThatLanded() {
+    // Given: a Block stored in slabs, whose first response fails after its first four bytes
+    final byte[] TEST_DATA = "test-data".getBytes(StandardCharsets.UTF_8);
+    InputStream failing =
+        new InputStream() {
+          private boolean landed;
+
+          @Override
+          public int read() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            if (landed) {
+              throw new IOException("Connection reset");
+            }
+            landed = true;
+            System.arraycopy(TEST_DATA, 0, b, off, 4);
+            return 4;
+          }
+        };
+    InputStream rest = new ByteArrayInputStream(TEST_DATA, 4, TEST_DATA.length - 4);
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenReturn(
+            CompletableFuture.completedFuture(ObjectContent.builder().stream(failing).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(ObjectContent.builder().stream(rest).build()));
+    SlabAllocator slabAllocator = new SlabAllocator(4, 64, TestTelemetry.DEFAULT);
+    Metrics metrics = new Metrics();
+    Block block =
+        new Block(
+            objectKey,
+            objectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            new BlockMetricsHandler(new Metrics(), metrics),
+            null,
+            BlockResources.builder().slabAllocator(slabAllocator).build());
+
+    // When: the block is read
+    byte[] buffer = new byte[TEST_DATA.length];
+    int r1 = block.read(buffer, 0, buffer.length, 0);
+
+    // Then: the retry only fetched the missing suffix into the same slabs
+    assertEquals(TEST_DATA.length, r1);
+    assertArrayEquals(TEST_DATA, buffer);
+    ArgumentCaptor<GetRequest> requests = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(2)).getObject(requests.capture(), any());
+    assertEquals(new Range(0, 8), requests.getAllValues().get(0).getRange());
+    assertEquals(new Range(4, 8), requests.getAllValues().get(1).getRange());
+    assertEquals(4, metrics.get(MetricKey.BYTES_SALVAGED));
+    assertEquals(3, slabAllocator.getLeasedSlabs());
+
+    block.close();
+    assertEquals(0, slabAllocator.getLeasedSlabs());
+  }
+
+  @SneakyThrows
+  @Test
+  void testStalledResponseIsAbortedAndResumedOnNewConnection() {
+    // Given: a Block whose first response trickles after its first four bytes, well below the
+    // throughput observed so far
+    final byte[] TEST_DATA = "test-data".getBytes(StandardCharsets.UTF_8);
+    InputStream trickling =
+        new InputStream() {
+          private int position;
+
+          @Override
+          public int read() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= 4) {
+              try {
+                Thread.sleep(5);
+              } catch (InterruptedException e) {
+                throw new IOException(e);
+              }
+            }
+            int count = position == 0 ? 4 : 1;
+            System.arraycopy(TEST_DATA, position, b, off, count);
+            position += count;
+            return count;
+          }
+        };
+    InputStream rest = new ByteArrayInputStream(TEST_DATA, 4, TEST_DATA.length - 4);
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenReturn(
+            CompletableFuture.completedFuture(ObjectContent.builder().stream(trickling).build()))
+        .thenReturn(
+            CompletableFuture.completedFuture(ObjectContent.builder().stream(rest).build()));
+    StallDetector stallDetector = new StallDetector(0.5, 1, TestTelemetry.DEFAULT);
+    stallDetector.record(1024 * 1024, TimeUnit.MILLISECONDS.toNanos(1));
+    Block block =
+        createBlock(
+            objectClient,
+            0,
+            TEST_DATA.length - 1,
+            BlockResources.builder().stallDetector(stallDetector).build());
+
+    // When: the block is read
+    byte[] buffer = new byte[TEST_DATA.length];
+    int r1 = block.read(buffer, 0, buffer.length, 0);
+
+    // Then: the stalled response was aborted and the rest fetched on a new request
+    assertEquals(TEST_DATA.length, r1);
+    assertArrayEquals(TEST_DATA, buffer);
+    ArgumentCaptor<GetRequest> requests = ArgumentCaptor.forClass(GetRequest.class);
+    verify(objectClient, times(2)).getObject(requests.capture(), any());
+    assertEquals(new Range(4, 8), requests.getAllValues().get(1).getRange());
+    assertEquals(1, stallDetector.getStalls());
+    assertEquals(1, stallDetector.getRecoveries());
+  }
+
+  @SneakyThrows
+  @Test
+  void testBlocksAreSpilledToDiskAndServedFromIt(@TempDir Path directory) {
+    // Given: a disk cache and a Block fetching "test-data" from S3
+    final String TEST_DATA = "test-data";
+    DiskBlockCache diskCache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    BlockResources resources = BlockResources.builder().diskCache(diskCache).build();
+    Block fetched =
+        new Block(
+            objectKey,
+            new FakeObjectClient(TEST_DATA),
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length() - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            mock(BlockMetricsHandler.class),
+            null,
+            resources);
+
+    // When: the block has landed and been spilled
+    assertEquals(116, fetched.read(0)); // 't' = 116
+    long deadline = System.currentTimeMillis() + DEFAULT_READ_TIMEOUT;
+    while (diskCache.getHeldBytes() < TEST_DATA.length() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    // Then: a new block for the same range is served from disk without a GET
+    ObjectClient objectClient = mock(ObjectClient.class);
+    Block cached =
+        new Block(
+            objectKey,
+            objectClient,
+            TestTelemetry.DEFAULT,
+            0,
+            TEST_DATA.length() - 1,
+            0,
+            ReadMode.SYNC,
+            DEFAULT_READ_TIMEOUT,
+            DEFAULT_READ_RETRY_COUNT,
+            mock(BlockMetricsHandler.class),
+            null,
+            resources);
+    byte[] buffer = new byte[TEST_DATA.length()];
+    assertEquals(TEST_DATA.length(), cached.read(buffer, 0, buffer.length, 0));
+    assertEquals(TEST_DATA, new String(buffer, StandardCharsets.UTF_8));
+    verify(objectClient, never()).getObject(any(), any());
+    assertEquals(TEST_DATA.length(), diskCache.getBytesFromDisk());
+    assertEquals(0, cached.getS3Waits());
+  }
+
+  @SneakyThrows
+  @Test
+  void testGetWaitsForPermitOfRequestScheduler() {
+    // Given: a scheduler letting one request through, held by a block whose GET never completes
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any())).thenReturn(new CompletableFuture<>());
+    RequestScheduler scheduler = new RequestScheduler(1, 0, TestTelemetry.DEFAULT);
+    BlockResources resources = BlockResources.builder().requestScheduler(scheduler).build();
+    Block first = createBlock(objectClient, 0, 99, resources);
+
+    // When: a second block is created
+    Block second = createBlock(objectClient, 100, 199, resources);
+
+    // Then: its GET is only issued once the first block is closed
+    verify(objectClient, times(1)).getObject(any(), any());
+    assertEquals(1, scheduler.getQueueDepth());
+    first.close();
+    verify(objectClient, times(2)).getObject(any(), any());
+    assertEquals(1, scheduler.getInFlight());
+    second.close();
+    assertEquals(0, scheduler.getInFlight());
+  }
+
+  @SneakyThrows
+  @Test
+  void testReadsWaitingForS3AreCounted() {
+    // Given: a Block whose GET completes once a reader is waiting for it
+    final String TEST_DATA = "test-data";
+    CompletableFuture<ObjectContent> response = new CompletableFuture<>();
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any())).thenReturn(response);
+    Block block = createBlock(objectClient, 0, TEST_DATA.length() - 1, BlockResources.DEFAULT);
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    executor.schedule(
+        () ->
+            response.complete(
+                ObjectContent.builder()
+                    .stream(new ByteArrayInputStream(TEST_DATA.getBytes(StandardCharsets.UTF_8)))
+                    .build()),
+        200,
+        TimeUnit.MILLISECONDS);
+
+    // When: the block is read before and after its data landed
+    byte[] buffer = new byte[TEST_DATA.length()];
+    assertEquals(TEST_DATA.length(), block.read(buffer, 0, buffer.length, 0));
+    assertEquals(116, block.read(0)); // 't' = 116
+
+    // Then: only the first read waited for S3
+    assertEquals(1, block.getS3Waits());
+    executor.shutdown();
+  }
+
+  @SneakyThrows
+  @Test
+  void testFetchRetriesAreScheduledInsteadOfBlockingTheConstructor() {
+    // Given: a GET failing once before it is issued, and a policy backing off before a retry
+    final String TEST_DATA = "test-data";
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenThrow(new IllegalStateException("connection refused"))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                ObjectContent.builder()
+                    .stream(new ByteArrayInputStream(TEST_DATA.getBytes(StandardCharsets.UTF_8)))
+                    .build()));
+    RetryPolicy retryPolicy = mock(RetryPolicy.class);
+    when(retryPolicy.backoffMs(any(), anyInt())).thenReturn(200L);
+    StreamDrainExecutor drainExecutor = new StreamDrainExecutor(1, 1, 1, TestTelemetry.DEFAULT);
+    BlockResources resources =
+        BlockResources.builder().retryPolicy(retryPolicy).drainExecutor(drainExecutor).build();
+
+    // When: the block is created
+    Block block = createBlock(objectClient, 0, TEST_DATA.length() - 1, resources);
+
+    // Then: the retry is left to the drain executor, and readers wait for it to land the data
+    verify(objectClient, times(1)).getObject(any(), any());
+    byte[] buffer = new byte[TEST_DATA.length()];
+    assertEquals(TEST_DATA.length(), block.read(buffer, 0, buffer.length, 0));
+    assertEquals(TEST_DATA, new String(buffer, StandardCharsets.UTF_8));
+    verify(objectClient, times(2)).getObject(any(), any());
+    block.close();
+    drainExecutor.close();
+  }
+
+  @SneakyThrows
+  @Test
+  void testClosingTheBlockCancelsItsScheduledRetry() {
+    // Given: a block whose GET failed and is waiting out a long backoff before a retry
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenThrow(new IllegalStateException("connection refused"));
+    RetryPolicy retryPolicy = mock(RetryPolicy.class);
+    when(retryPolicy.backoffMs(any(), anyInt()))
+        .thenAnswer(
+            invocation ->
+                RetryPolicy.ErrorClass.of(invocation.getArgument(0)) == RetryPolicy.ErrorClass.FATAL
+                    ? -1L
+                    : 60_000L);
+    StreamDrainExecutor drainExecutor = new StreamDrainExecutor(1, 1, 1, TestTelemetry.DEFAULT);
+    BlockResources resources =
+        BlockResources.builder().retryPolicy(retryPolicy).drainExecutor(drainExecutor).build();
+    Block block = createBlock(objectClient, 0, 99, resources);
+
+    // When: the block is closed
+    block.close();
+
+    // Then: readers fail instead of waiting for the retry
+    assertThrows(IOException.class, () -> block.read(0));
+    verify(objectClient, times(1)).getObject(any(), any());
+    drainExecutor.close();
+  }
+
+  @SneakyThrows
+  @Test
+  void testFailedReadsAndFetchesShareTheRetryBudget() {
+    // Given: a GET whose response fails, after which every GET fails before it is issued
+    CompletableFuture<ObjectContent> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("connection reset"));
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenReturn(failed)
+        .thenThrow(new IllegalStateException("connection refused"));
+    Block block = createBlock(objectClient, 0, 99, BlockResources.builder().build());
+
+    // When: the block is read
+    assertThrows(IOException.class, () -> block.read(0));
+
+    // Then: the retries of the read and of issuing the fetch make at most the configured attempts
+    verify(objectClient, times(DEFAULT_READ_RETRY_COUNT)).getObject(any(), any());
+  }
+
+  @SneakyThrows
+  @Test
+  void testOnlyPlainIOExceptionsOfReadsAreRetried() {
+    // Given: a GET whose response ends early
+    CompletableFuture<ObjectContent> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new UncheckedIOException(new EOFException("premature end")));
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any())).thenReturn(failed);
+    Block block = createBlock(objectClient, 0, 99, BlockResources.builder().build());
+
+    // When: the block is read
+    assertThrows(EOFException.class, () -> block.read(0));
+
+    // Then: the read fails fast rather than fetching again
+    verify(objectClient, times(1)).getObject(any(), any());
+  }
+
+  @SneakyThrows
+  @Test
+  void testReadRetriesAreScheduledInsteadOfSleepingOnTheReader() {
+    // Given: a GET whose response fails, and a policy backing off before a retry
+    final String TEST_DATA = "test-data";
+    CompletableFuture<ObjectContent> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("connection reset"));
+    Thread reader = Thread.currentThread();
+    AtomicReference<Thread> retriedOn = new AtomicReference<>();
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.getObject(any(), any()))
+        .thenReturn(failed)
+        .thenAnswer(
+            invocation -> {
+              retriedOn.set(Thread.currentThread());
+              return CompletableFuture.completedFuture(
+                  ObjectContent.builder()
+                      .stream(new ByteArrayInputStream(TEST_DATA.getBytes(StandardCharsets.UTF_8)))
+                      .build());
+            });
+    RetryPolicy retryPolicy = mock(RetryPolicy.class);
+    when(retryPolicy.backoffMs(any(), anyInt())).thenReturn(200L);
+    StreamDrainExecutor drainExecutor = new StreamDrainExecutor(1, 1, 1, TestTelemetry.DEFAULT);
+    BlockResources resources =
+        BlockResources.builder().retryPolicy(retryPolicy).drainExecutor(drainExecutor).build();
+    Block block = createBlock(objectClient, 0, TEST_DATA.length() - 1, resources);
+
+    // When: the block is read
+    byte[] buffer = new byte[TEST_DATA.length()];
+    assertEquals(TEST_DATA.length(), block.read(buffer, 0, buffer.length, 0));
+
+    // Then: the retry was issued by the drain executor once the backoff passed
+    assertEquals(TEST_DATA, new String(buffer, StandardCharsets.UTF_8));
+    verify(objectClient, times(2)).getObject(any(), any());
+    assertNotSame(reader, retriedOn.get());
+    block.close();
+    drainExecutor.close();
+  }
+
+  private static Block createBlock(
+      ObjectClient objectClient, long start, long end, BlockResources resources)
+      throws IOException {
+    return new Block(
+        objectKey,
+        objectClient,
+        TestTelemetry.DEFAULT,
+        start,
+        end,
+        0,
+        ReadMode.ASYNC,
+        DEFAULT_READ_TIMEOUT,
+        DEFAULT_READ_RETRY_COUNT,
+        mock(BlockMetricsHandler.class),
+        null,
+        resources);
+  }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+import software.amazon.s3.analyticsaccelerator.util.ObjectKey;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class DiskBlockCacheTest {
+  private static final ObjectKey OBJECT_KEY =
+      ObjectKey.builder().s3URI(S3URI.of("foo", "bar")).etag("etag").build();
+  private static final byte[] TEST_DATA = "test-data".getBytes(StandardCharsets.UTF_8);
+
+  @TempDir Path directory;
+
+  @SneakyThrows
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new DiskBlockCache(directory, 0, TestTelemetry.DEFAULT));
+    assertThrows(
+        NullPointerException.class, () -> new DiskBlockCache(null, 16, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new DiskBlockCache(directory, 16, null));
+  }
+
+  @SneakyThrows
+  @Test
+  void testCachedRangesAreServedFromDisk() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+
+    assertFalse(cache.get(OBJECT_KEY, new Range(0, 8)).isPresent());
+    cache.put(OBJECT_KEY, new Range(0, 8), new HeapBlockBuffer(TEST_DATA));
+
+    assertEquals("test-data", read(cache.get(OBJECT_KEY, new Range(0, 8))));
+    assertEquals("data", read(cache.get(OBJECT_KEY, new Range(5, 8))));
+    assertFalse(cache.get(OBJECT_KEY, new Range(5, 9)).isPresent());
+    ObjectKey otherEtag = ObjectKey.builder().s3URI(S3URI.of("foo", "bar")).etag("other").build();
+    assertFalse(cache.get(otherEtag, new Range(0, 8)).isPresent());
+
+    assertEquals(TEST_DATA.length, cache.getHeldBytes());
+    assertEquals(40, cache.getHitRate());
+    assertEquals(13, cache.getBytesFromDisk());
+    assertEquals(9 + 5 + 9, cache.getBytesFromS3());
+  }
+
+  @SneakyThrows
+  @Test
+  void testLeastRecentlyUsedRangesAreEvictedOverCapacity() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 20, TestTelemetry.DEFAULT);
+
+    cache.put(OBJECT_KEY, new Range(0, 8), new HeapBlockBuffer(TEST_DATA));
+    cache.put(OBJECT_KEY, new Range(100, 108), new HeapBlockBuffer(TEST_DATA));
+    assertEquals("test-data", read(cache.get(OBJECT_KEY, new Range(0, 8))));
+    cache.put(OBJECT_KEY, new Range(200, 208), new HeapBlockBuffer(TEST_DATA));
+
+    assertEquals(18, cache.getHeldBytes());
+    assertEquals("test-data", read(cache.get(OBJECT_KEY, new Range(0, 8))));
+    assertFalse(cache.get(OBJECT_KEY, new Range(100, 108)).isPresent());
+    assertEquals("test-data", read(cache.get(OBJECT_KEY, new Range(200, 208))));
+    assertEquals(2, countFiles());
+  }
+
+  @SneakyThrows
+  @Test
+  void testIndexIsRecoveredAndIncompleteFilesAreDeleted() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    cache.put(OBJECT_KEY, new Range(0, 8), new HeapBlockBuffer(TEST_DATA));
+    cache.put(OBJECT_KEY, new Range(100, 108), new HeapBlockBuffer(TEST_DATA));
+
+    // Simulate a crash in the middle of writes: a temporary file and a truncated range file, next
+    // to the temporary file of a write of another process still in progress
+    Path objectDirectory = objectDirectory();
+    Path abandoned = objectDirectory.resolve("block123.tmp");
+    Files.write(abandoned, TEST_DATA);
+    Files.setLastModifiedTime(abandoned, FileTime.fromMillis(0));
+    Files.write(objectDirectory.resolve("block456.tmp"), TEST_DATA);
+    Files.write(objectDirectory.resolve("100-108"), new byte[] {1, 2, 3});
+
+    DiskBlockCache recovered = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    assertEquals(TEST_DATA.length, recovered.getHeldBytes());
+    assertEquals("test-data", read(recovered.get(OBJECT_KEY, new Range(0, 8))));
+    assertFalse(recovered.get(OBJECT_KEY, new Range(100, 108)).isPresent());
+    assertFalse(Files.exists(abandoned));
+    assertTrue(Files.exists(objectDirectory.resolve("block456.tmp")));
+    assertEquals(2, countFiles());
+  }
+
+  @SneakyThrows
+  @Test
+  void testRecoveredRangesWhoseDataWasLostAreDroppedOnRead() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    cache.put(OBJECT_KEY, new Range(0, 8), new HeapBlockBuffer(TEST_DATA));
+
+    // Simulate a crash of the OS which left the extents of the file unwritten
+    Path file = objectDirectory().resolve("0-8");
+    Files.write(file, new byte[(int) Files.size(file)]);
+
+    // The range has the right length so it is recovered, but fails its checksum once read
+    DiskBlockCache recovered = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    Optional<ObjectContent> content = recovered.get(OBJECT_KEY, new Range(0, 8));
+    assertTrue(content.isPresent());
+    assertThrows(IOException.class, () -> content.get().getStream().read());
+
+    assertEquals(0, recovered.getHeldBytes());
+    assertFalse(recovered.get(OBJECT_KEY, new Range(0, 8)).isPresent());
+    assertEquals(0, countFiles());
+  }
+
+  @SneakyThrows
+  @Test
+  void testIncompleteBuffersAreNotCached() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+
+    cache.put(OBJECT_KEY, new Range(0, 9), new HeapBlockBuffer(TEST_DATA));
+
+    assertEquals(0, cache.getHeldBytes());
+    assertFalse(cache.get(OBJECT_KEY, new Range(0, 8)).isPresent());
+  }
+
+  @SneakyThrows
+  @Test
+  void testLookupsDoNoIoAndUnreadableFilesAreDropped() {
+    DiskBlockCache cache = new DiskBlockCache(directory, 1024, TestTelemetry.DEFAULT);
+    cache.put(OBJECT_KEY, new Range(0, 8), new HeapBlockBuffer(TEST_DATA));
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.filter(Files::isRegularFile).toArray(Path[]::new)) {
+        Files.delete(file);
+      }
+    }
+
+    // The lookup is served from the index, the missing file only fails the read
+    Optional<ObjectContent> content = cache.get(OBJECT_KEY, new Range(0, 8));
+    assertTrue(content.isPresent());
+    assertThrows(IOException.class, () -> content.get().getStream().read());
+
+    assertEquals(0, cache.getHeldBytes());
+    assertFalse(cache.get(OBJECT_KEY, new Range(0, 8)).isPresent());
+  }
+
+  @SneakyThrows
+  private Path objectDirectory() {
+    try (Stream<Path> objectDirectories = Files.list(directory)) {
+      return objectDirectories.findFirst().get();
+    }
+  }
+
+  @SneakyThrows
+  private long countFiles() {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+
+  @SneakyThrows
+  private static String read(Optional<ObjectContent> content) {
+    assertTrue(content.isPresent());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream stream = content.get().getStream()) {
+      byte[] buffer = new byte[4];
+      int read;
+      while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+public class HeapBlockBufferTest {
+  private static final byte[] TEST_DATA = "test-data".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testBufferOverContentIsFullAndSealed() throws Exception {
+    HeapBlockBuffer buffer = new HeapBlockBuffer(TEST_DATA);
+
+    assertEquals(TEST_DATA.length, buffer.length());
+    assertEquals(TEST_DATA.length, buffer.awaitLength(TEST_DATA.length + 1, 10_000));
+    assertThrows(IOException.class, () -> buffer.writer().write(1));
+    assertEquals(ByteBuffer.wrap(TEST_DATA, 5, 4), buffer.slice(5, 4).get());
+  }
+
+  @SneakyThrows
+  @Test
+  void testWatermarkAdvancesAsBytesAreWritten() {
+    HeapBlockBuffer buffer = new HeapBlockBuffer(TEST_DATA.length);
+    OutputStream writer = buffer.writer();
+
+    writer.write(TEST_DATA, 0, 4);
+    assertEquals(4, buffer.length());
+    assertEquals(4, buffer.awaitLength(4, 10_000));
+    assertEquals(4, buffer.awaitLength(5, 10));
+
+    writer.write(TEST_DATA, 4, TEST_DATA.length - 4);
+    byte[] read = new byte[TEST_DATA.length];
+    buffer.get(0, read, 0, read.length);
+    assertArrayEquals(TEST_DATA, read);
+    assertThrows(IOException.class, () -> writer.write(1));
+  }
+
+  @SneakyThrows
+  @Test
+  void testFencedWriterCannotWriteAndNextWriterResumes() {
+    HeapBlockBuffer buffer = new HeapBlockBuffer(TEST_DATA.length);
+    OutputStream failed = buffer.writer();
+    failed.write(TEST_DATA, 0, 4);
+
+    assertEquals(4, buffer.fence());
+    assertThrows(IOException.class, () -> failed.write(TEST_DATA, 4, 1));
+
+    buffer.writer().write(TEST_DATA, 4, TEST_DATA.length - 4);
+    byte[] read = new byte[TEST_DATA.length];
+    buffer.get(0, read, 0, read.length);
+    assertArrayEquals(TEST_DATA, read);
+  }
+
+  @SneakyThrows
+  @Test
+  void testWaitersAreWokenByWritesAndBySealing() {
+    HeapBlockBuffer buffer = new HeapBlockBuffer(TEST_DATA.length);
+    Thread writer =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(20);
+                buffer.writer().write(TEST_DATA, 0, 4);
+                Thread.sleep(20);
+                buffer.seal();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } catch (IOException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    writer.start();
+
+    assertEquals(4, buffer.awaitLength(4, 10_000));
+    assertEquals(4, buffer.awaitLength(TEST_DATA.length, 10_000));
+    writer.join();
+  }
+}
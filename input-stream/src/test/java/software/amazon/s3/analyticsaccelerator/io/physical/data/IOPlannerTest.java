@@ -45,6 +45,8 @@ public class IOPlannerTest {
   @Test
   void testCreateBoundaries() {
     assertThrows(NullPointerException.class, () -> new IOPlanner(null));
+    assertThrows(NullPointerException.class, () -> new IOPlanner(null, 100));
+    assertThrows(IllegalArgumentException.class, () -> new IOPlanner(mock(BlockStore.class), -1));
   }
 
   @Test
@@ -137,4 +139,61 @@ public class IOPlannerTest {
 
     assertEquals(expected, missingRanges);
   }
+
+  @Test
+  public void testPlanReadAlignsToGridAndClampsToObjectSize() throws IOException {
+    // Given: an empty BlockStore and a planner aligning to 1000 byte cells
+    final int OBJECT_SIZE = 2_500;
+    ObjectMetadata mockMetadataStore =
+        ObjectMetadata.builder().contentLength(OBJECT_SIZE).etag(ETAG).build();
+    BlockStore blockStore =
+        new BlockStore(objectKey, mockMetadataStore, mock(BlockMetricsHandler.class));
+    IOPlanner ioPlanner = new IOPlanner(blockStore, 1000);
+
+    // When: a read plan is requested for a range (1500, 2100)
+    List<Range> missingRanges = ioPlanner.planRead(1500, 2100, OBJECT_SIZE - 1);
+
+    // Then: the range is widened to (1000, 2499) and cut at the grid boundary
+    List<Range> expected = new LinkedList<>();
+    expected.add(new Range(1000, 1999));
+    expected.add(new Range(2000, 2499));
+
+    assertEquals(expected, missingRanges);
+  }
+
+  @Test
+  public void testPlanReadAlignedIsTrimmedAgainstExistingBlocks() throws IOException {
+    // Given: a BlockStore with a (1000,1999) block in it and a planner aligning to 1000 byte cells
+    final int OBJECT_SIZE = 10_000;
+    byte[] content = new byte[OBJECT_SIZE];
+    ObjectMetadata mockMetadataStore =
+        ObjectMetadata.builder().contentLength(OBJECT_SIZE).etag(ETAG).build();
+    BlockStore blockStore =
+        new BlockStore(objectKey, mockMetadataStore, mock(BlockMetricsHandler.class));
+    FakeObjectClient fakeObjectClient =
+        new FakeObjectClient(new String(content, StandardCharsets.UTF_8));
+    blockStore.add(
+        new Block(
+            objectKey,
+            fakeObjectClient,
+            TestTelemetry.DEFAULT,
+            1000,
+            1999,
+            0,
+            ReadMode.SYNC,
+            120_000,
+            20,
+            mock(BlockMetricsHandler.class)));
+    IOPlanner ioPlanner = new IOPlanner(blockStore, 1000);
+
+    // When: a read plan is requested for a range (500, 2500)
+    List<Range> missingRanges = ioPlanner.planRead(500, 2500, OBJECT_SIZE - 1);
+
+    // Then: only the whole cells around the existing block are requested
+    List<Range> expected = new LinkedList<>();
+    expected.add(new Range(0, 999));
+    expected.add(new Range(2000, 2999));
+
+    assertEquals(expected, missingRanges);
+  }
 }
@@ -15,7 +15,9 @@
  */
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -24,9 +26,14 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.Test;
 import software.amazon.s3.analyticsaccelerator.TestTelemetry;
 import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
@@ -111,4 +118,144 @@ public class MetadataStoreTest {
     result = metadataStore.evictKey(key);
     assertFalse(result, "Evicting existing key should return false");
   }
+
+  @Test
+  void testExpiredMetadataIsFetchedAgain() throws IOException {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    when(objectClient.headObject(any()))
+        .thenReturn(CompletableFuture.completedFuture(ObjectMetadata.builder().etag("1").build()));
+    AtomicLong now = new AtomicLong();
+    MetadataStore metadataStore =
+        new MetadataStore(
+            objectClient,
+            TestTelemetry.DEFAULT,
+            PhysicalIOConfiguration.builder().metadataStoreTtlMs(1000).build(),
+            now::get);
+    S3URI key = S3URI.of("foo", "bar");
+
+    metadataStore.get(key);
+    now.set(TimeUnit.MILLISECONDS.toNanos(999));
+    metadataStore.get(key);
+    verify(objectClient, times(1)).headObject(any());
+
+    now.set(TimeUnit.MILLISECONDS.toNanos(1000));
+    metadataStore.get(key);
+    verify(objectClient, times(2)).headObject(any());
+    assertEquals(1, metadataStore.getExpiries());
+    assertEquals(1, metadataStore.getHits());
+    assertEquals(2, metadataStore.getMisses());
+  }
+
+  @Test
+  void testFailedLookupIsNotCached() throws IOException {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    CompletableFuture<ObjectMetadata> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("throttled"));
+    ObjectMetadata objectMetadata = ObjectMetadata.builder().etag("random").build();
+    when(objectClient.headObject(any()))
+        .thenReturn(failed)
+        .thenReturn(CompletableFuture.completedFuture(objectMetadata));
+    MetadataStore metadataStore =
+        new MetadataStore(objectClient, TestTelemetry.DEFAULT, PhysicalIOConfiguration.DEFAULT);
+    S3URI key = S3URI.of("foo", "bar");
+
+    assertThrows(CompletionException.class, () -> metadataStore.asyncGet(key).join());
+    assertEquals(objectMetadata, metadataStore.get(key));
+    verify(objectClient, times(2)).headObject(any());
+  }
+
+  @Test
+  void testFailedLookupIsRetried() throws IOException {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    CompletableFuture<ObjectMetadata> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("throttled"));
+    ObjectMetadata objectMetadata = ObjectMetadata.builder().etag("random").build();
+    when(objectClient.headObject(any()))
+        .thenReturn(failed)
+        .thenReturn(CompletableFuture.completedFuture(objectMetadata));
+    MetadataStore metadataStore =
+        new MetadataStore(
+            objectClient,
+            TestTelemetry.DEFAULT,
+            PhysicalIOConfiguration.builder().headRetryCount(1).build());
+    S3URI key = S3URI.of("foo", "bar");
+
+    assertEquals(objectMetadata, metadataStore.get(key));
+    verify(objectClient, times(2)).headObject(any());
+  }
+
+  @Test
+  void testFailedLookupFailsOnceRetriesAreExhausted() {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    CompletableFuture<ObjectMetadata> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("throttled"));
+    when(objectClient.headObject(any())).thenReturn(failed);
+    MetadataStore metadataStore =
+        new MetadataStore(
+            objectClient,
+            TestTelemetry.DEFAULT,
+            PhysicalIOConfiguration.builder().headRetryCount(2).build());
+    S3URI key = S3URI.of("foo", "bar");
+
+    assertThrows(CompletionException.class, () -> metadataStore.asyncGet(key).join());
+    verify(objectClient, times(3)).headObject(any());
+  }
+
+  @Test
+  void testMissingObjectIsCachedForNegativeTtl() {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    CompletableFuture<ObjectMetadata> notFound = new CompletableFuture<>();
+    notFound.completeExceptionally(
+        new UncheckedIOException(new FileNotFoundException("Request failed: NoSuchKey")));
+    when(objectClient.headObject(any())).thenReturn(notFound);
+    AtomicLong now = new AtomicLong();
+    MetadataStore metadataStore =
+        new MetadataStore(
+            objectClient,
+            TestTelemetry.DEFAULT,
+            PhysicalIOConfiguration.builder().metadataStoreNegativeTtlMs(100).build(),
+            now::get);
+    S3URI key = S3URI.of("foo", "bar");
+
+    assertThrows(CompletionException.class, () -> metadataStore.asyncGet(key).join());
+    assertThrows(CompletionException.class, () -> metadataStore.asyncGet(key).join());
+    verify(objectClient, times(1)).headObject(any());
+
+    now.set(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThrows(CompletionException.class, () -> metadataStore.asyncGet(key).join());
+    verify(objectClient, times(2)).headObject(any());
+  }
+
+  @Test
+  void testMetadataIsRefreshedBeforeExpiry() throws IOException {
+    ObjectClient objectClient = mock(ObjectClient.class);
+    ObjectMetadata first = ObjectMetadata.builder().etag("1").build();
+    ObjectMetadata second = ObjectMetadata.builder().etag("2").build();
+    when(objectClient.headObject(any()))
+        .thenReturn(CompletableFuture.completedFuture(first))
+        .thenReturn(CompletableFuture.completedFuture(second));
+    AtomicLong now = new AtomicLong();
+    MetadataStore metadataStore =
+        new MetadataStore(
+            objectClient,
+            TestTelemetry.DEFAULT,
+            PhysicalIOConfiguration.builder()
+                .metadataStoreTtlMs(1000)
+                .metadataStoreRefreshAheadMs(200)
+                .build(),
+            now::get);
+    S3URI key = S3URI.of("foo", "bar");
+
+    assertEquals(first, metadataStore.get(key));
+    now.set(TimeUnit.MILLISECONDS.toNanos(700));
+    assertEquals(first, metadataStore.get(key));
+    verify(objectClient, times(1)).headObject(any());
+
+    // Within 200ms of the expiry, the cached metadata is served while it is refreshed
+    now.set(TimeUnit.MILLISECONDS.toNanos(900));
+    assertEquals(first, metadataStore.get(key));
+    assertEquals(second, metadataStore.get(key));
+    verify(objectClient, times(2)).headObject(any());
+    assertEquals(1, metadataStore.getRefreshes());
+  }
 }
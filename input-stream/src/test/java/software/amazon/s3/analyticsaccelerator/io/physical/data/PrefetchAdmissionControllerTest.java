@@ -0,0 +1,204 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlan;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanExecution;
+import software.amazon.s3.analyticsaccelerator.io.physical.plan.IOPlanState;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class PrefetchAdmissionControllerTest {
+  private static final PhysicalIOConfiguration CONFIGURATION =
+      PhysicalIOConfiguration.builder()
+          .memoryCapacityBytes(1000)
+          .prefetchDeferThreshold(0.5)
+          .prefetchShrinkThreshold(0.7)
+          .prefetchDropThreshold(0.9)
+          .prefetchDeferTimeoutMs(60_000)
+          .build();
+  private static final IOPlan PLAN =
+      new IOPlan(Arrays.asList(new Range(0, 99), new Range(200, 299)));
+
+  private final AtomicLong memoryUsage = new AtomicLong();
+  private final List<IOPlan> submitted = new ArrayList<>();
+  private final PrefetchAdmissionController controller =
+      new PrefetchAdmissionController(CONFIGURATION, memoryUsage::get, TestTelemetry.DEFAULT);
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        NullPointerException.class,
+        () -> new PrefetchAdmissionController(null, () -> 0, TestTelemetry.DEFAULT));
+    assertThrows(
+        NullPointerException.class,
+        () -> new PrefetchAdmissionController(CONFIGURATION, null, TestTelemetry.DEFAULT));
+    assertThrows(
+        NullPointerException.class,
+        () -> new PrefetchAdmissionController(CONFIGURATION, () -> 0, null));
+    assertThrows(
+        NullPointerException.class,
+        () -> new PrefetchAdmissionController(CONFIGURATION, () -> 0, null, TestTelemetry.DEFAULT));
+  }
+
+  @Test
+  void testPlanIsSubmittedWhileMemoryIsAvailable() {
+    memoryUsage.set(499);
+
+    assertEquals(IOPlanState.SUBMITTED, controller.submit(PLAN, this::submit).getState());
+    assertEquals(1, submitted.size());
+    assertSame(PLAN, submitted.get(0));
+  }
+
+  @Test
+  void testEveryPlanIsSubmittedWithoutMemoryCapacity() {
+    PrefetchAdmissionController unlimited =
+        new PrefetchAdmissionController(
+            PhysicalIOConfiguration.DEFAULT, memoryUsage::get, TestTelemetry.DEFAULT);
+    memoryUsage.set(Long.MAX_VALUE);
+
+    assertEquals(IOPlanState.SUBMITTED, unlimited.submit(PLAN, this::submit).getState());
+    assertEquals(1, submitted.size());
+    assertEquals(0, unlimited.getDeferredPlans());
+  }
+
+  @Test
+  void testPlanIsDeferredUntilMemoryIsFreed() {
+    memoryUsage.set(600);
+
+    assertEquals(IOPlanState.DEFERRED, controller.submit(PLAN, this::submit).getState());
+    assertTrue(submitted.isEmpty());
+    assertEquals(1, controller.getDeferredPlans());
+
+    controller.runDeferred();
+    assertTrue(submitted.isEmpty());
+
+    memoryUsage.set(100);
+    controller.runDeferred();
+    assertEquals(1, submitted.size());
+    assertSame(PLAN, submitted.get(0));
+    assertEquals(0, controller.getDeferredPlans());
+  }
+
+  @Test
+  void testPlanIsShrunkToMemoryLeftBelowDropThreshold() {
+    memoryUsage.set(750);
+
+    assertEquals(IOPlanState.THROTTLED, controller.submit(PLAN, this::submit).getState());
+    assertEquals(1, submitted.size());
+    assertEquals(
+        Arrays.asList(new Range(0, 99), new Range(200, 249)),
+        submitted.get(0).getPrefetchRanges());
+  }
+
+  @Test
+  void testPlanIsDroppedWhenMemoryIsShort() {
+    memoryUsage.set(900);
+
+    assertEquals(IOPlanState.DROPPED, controller.submit(PLAN, this::submit).getState());
+    assertTrue(submitted.isEmpty());
+    assertEquals(0, controller.getDeferredPlans());
+  }
+
+  @Test
+  void testIdleMemoryIsReclaimedBeforeDeciding() {
+    // Memory above 200 bytes is held by idle data
+    List<Long> targets = new ArrayList<>();
+    PrefetchAdmissionController reclaiming =
+        new PrefetchAdmissionController(
+            CONFIGURATION,
+            memoryUsage::get,
+            targetBytes -> {
+              targets.add(targetBytes);
+              memoryUsage.set(Math.max(200, targetBytes));
+            },
+            TestTelemetry.DEFAULT);
+    memoryUsage.set(1000);
+
+    assertEquals(IOPlanState.SUBMITTED, reclaiming.submit(PLAN, this::submit).getState());
+    assertEquals(Arrays.asList(499L), targets);
+    assertSame(PLAN, submitted.get(0));
+
+    // Nothing is reclaimed below the defer threshold
+    reclaiming.submit(PLAN, this::submit);
+    assertEquals(1, targets.size());
+  }
+
+  @Test
+  void testRunningDeferredPlansOnReleaseNeverReclaims() {
+    List<Long> targets = new ArrayList<>();
+    PrefetchAdmissionController reclaiming =
+        new PrefetchAdmissionController(
+            CONFIGURATION, memoryUsage::get, targets::add, TestTelemetry.DEFAULT);
+
+    // Nothing is deferred, so releasing memory has nothing to do
+    memoryUsage.set(1000);
+    reclaiming.runDeferred();
+    assertTrue(targets.isEmpty());
+
+    memoryUsage.set(600);
+    assertEquals(IOPlanState.DEFERRED, reclaiming.submit(PLAN, this::submit).getState());
+    targets.clear();
+
+    // Once memory is released, the deferred plan goes through on the memory left
+    memoryUsage.set(100);
+    reclaiming.runDeferred();
+    assertTrue(targets.isEmpty());
+    assertSame(PLAN, submitted.get(0));
+    assertEquals(0, reclaiming.getDeferredPlans());
+  }
+
+  @Test
+  void testDeferredPlansAreDroppedOnceTheyExpire() throws InterruptedException {
+    PrefetchAdmissionController expiring =
+        new PrefetchAdmissionController(
+            PhysicalIOConfiguration.builder()
+                .memoryCapacityBytes(1000)
+                .prefetchDeferThreshold(0.5)
+                .prefetchShrinkThreshold(0.7)
+                .prefetchDropThreshold(0.9)
+                .prefetchDeferTimeoutMs(1)
+                .build(),
+            memoryUsage::get,
+            TestTelemetry.DEFAULT);
+    memoryUsage.set(600);
+    assertEquals(IOPlanState.DEFERRED, expiring.submit(PLAN, this::submit).getState());
+
+    Thread.sleep(10);
+    memoryUsage.set(0);
+    expiring.runDeferred();
+
+    assertTrue(submitted.isEmpty());
+    assertEquals(0, expiring.getDeferredPlans());
+  }
+
+  private IOPlanExecution submit(IOPlan plan) {
+    submitted.add(plan);
+    return IOPlanExecution.builder().state(IOPlanState.SUBMITTED).build();
+  }
+}
@@ -16,6 +16,7 @@
 package software.amazon.s3.analyticsaccelerator.io.physical.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_KB;
 import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
 
 import java.util.LinkedList;
@@ -59,4 +60,68 @@ public class RangeOptimiserTest {
     expected.add(new Range(8 * ONE_MB, 16 * ONE_MB - 1));
     assertEquals(expected, splitRanges);
   }
+
+  @Test
+  public void test__coalesceRanges__rangesWithSmallGapsAreMerged() {
+    // Given: unsorted ranges, some separated by gaps of up to 1KB
+    RangeOptimiser rangeOptimiser =
+        new RangeOptimiser(PhysicalIOConfiguration.builder().maxRangeGapBytes(ONE_KB).build());
+    List<Range> ranges = new LinkedList<>();
+    ranges.add(new Range(5000, 5099));
+    ranges.add(new Range(0, 99));
+    ranges.add(new Range(1124, 1199));
+    ranges.add(new Range(100, 199));
+
+    // When: coalesceRanges is called
+    List<Range> coalesced = rangeOptimiser.coalesceRanges(ranges);
+
+    // Then: ranges up to 1KB apart are merged, the far one is left alone
+    List<Range> expected = new LinkedList<>();
+    expected.add(new Range(0, 1199));
+    expected.add(new Range(5000, 5099));
+    assertEquals(expected, coalesced);
+    assertEquals(924, RangeOptimiser.coveredBytes(coalesced) - RangeOptimiser.coveredBytes(ranges));
+  }
+
+  @Test
+  public void test__coalesceRanges__mergedRangesDoNotExceedMaxRangeSize() {
+    // Given: two 6MB ranges next to each other
+    RangeOptimiser rangeOptimiser = new RangeOptimiser(PhysicalIOConfiguration.DEFAULT);
+    List<Range> ranges = new LinkedList<>();
+    ranges.add(new Range(0, 6 * ONE_MB - 1));
+    ranges.add(new Range(6 * ONE_MB, 12 * ONE_MB - 1));
+
+    // When: coalesceRanges is called
+    List<Range> coalesced = rangeOptimiser.coalesceRanges(ranges);
+
+    // Then: they are not merged past the 8MB maximum range size
+    assertEquals(ranges, coalesced);
+  }
+
+  @Test
+  public void test__coalesceRanges__zeroGapTurnsCoalescingOff() {
+    // Given: adjacent ranges
+    RangeOptimiser rangeOptimiser =
+        new RangeOptimiser(PhysicalIOConfiguration.builder().maxRangeGapBytes(0).build());
+    List<Range> ranges = new LinkedList<>();
+    ranges.add(new Range(200, 300));
+    ranges.add(new Range(0, 199));
+
+    // When: coalesceRanges is called
+    List<Range> coalesced = rangeOptimiser.coalesceRanges(ranges);
+
+    // Then: nothing happens
+    assertEquals(ranges, coalesced);
+  }
+
+  @Test
+  public void test__coveredBytes__overlappingBytesAreCountedOnce() {
+    List<Range> ranges = new LinkedList<>();
+    ranges.add(new Range(50, 149));
+    ranges.add(new Range(0, 99));
+    ranges.add(new Range(60, 70));
+    ranges.add(new Range(200, 209));
+
+    assertEquals(160, RangeOptimiser.coveredBytes(ranges));
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class ReadTimeoutEstimatorTest {
+  private static final long MAX_TIMEOUT_MS = 30_000;
+  private static final long ONE_MS_NANOS = 1_000_000;
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new ReadTimeoutEstimator(-1, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new ReadTimeoutEstimator(0, null));
+  }
+
+  @Test
+  void testFixedEstimatorAlwaysUsesMaxTimeout() {
+    ReadTimeoutEstimator estimator = ReadTimeoutEstimator.FIXED;
+    estimator.record(1024, ONE_MS_NANOS, ONE_MS_NANOS);
+
+    assertEquals(MAX_TIMEOUT_MS, estimator.timeoutMs(1024, MAX_TIMEOUT_MS));
+  }
+
+  @Test
+  void testMaxTimeoutIsUsedUntilReadIsObserved() {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(100, TestTelemetry.DEFAULT);
+
+    assertEquals(MAX_TIMEOUT_MS, estimator.timeoutMs(1024, MAX_TIMEOUT_MS));
+  }
+
+  @Test
+  void testTimeoutGrowsWithLengthBetweenMinAndMax() {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(100, TestTelemetry.DEFAULT);
+    // 20ms to the first byte, then 1ms per KB
+    estimator.record(1024 * 1024, 20 * ONE_MS_NANOS, 1024 * ONE_MS_NANOS);
+
+    assertEquals(100, estimator.timeoutMs(1024, MAX_TIMEOUT_MS));
+    assertEquals(4 * (20 + 1024), estimator.timeoutMs(1024 * 1024, MAX_TIMEOUT_MS));
+    assertEquals(MAX_TIMEOUT_MS, estimator.timeoutMs(64 * 1024 * 1024, MAX_TIMEOUT_MS));
+  }
+
+  @Test
+  void testEstimateFollowsRecentReads() {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(1, TestTelemetry.DEFAULT);
+    estimator.record(1024, 100 * ONE_MS_NANOS, 0);
+    long before = estimator.timeoutMs(1024, MAX_TIMEOUT_MS);
+    for (int i = 0; i < 20; i++) {
+      estimator.record(1024, 10 * ONE_MS_NANOS, 0);
+    }
+
+    assertEquals(400, before);
+    assertTrue(estimator.timeoutMs(1024, MAX_TIMEOUT_MS) < 50);
+  }
+
+  @Test
+  void testFirstByteLatencyIsAveragedOnceObserved() {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    assertTrue(estimator.getFirstByteNanos() < 0);
+
+    estimator.record(1024, 10 * ONE_MS_NANOS, 0);
+    assertEquals(10 * ONE_MS_NANOS, estimator.getFirstByteNanos());
+    estimator.record(1024, 20 * ONE_MS_NANOS, 0);
+    assertTrue(estimator.getFirstByteNanos() > 10 * ONE_MS_NANOS);
+    assertTrue(estimator.getFirstByteNanos() < 20 * ONE_MS_NANOS);
+  }
+}
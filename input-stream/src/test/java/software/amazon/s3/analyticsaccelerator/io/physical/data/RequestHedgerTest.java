@@ -0,0 +1,220 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.ReadMode;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+import software.amazon.s3.analyticsaccelerator.util.StreamDrainExecutor;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class RequestHedgerTest {
+  private static final S3URI S3_URI = S3URI.of("bucket", "key");
+  private static final long LENGTH = 1024;
+  private static final int WARM_UP_REQUESTS = 32;
+
+  @Test
+  void testConstructorChecks() {
+    StreamDrainExecutor timer = StreamDrainExecutor.getDefault();
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new RequestHedger(-0.1, 0, timer, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new RequestHedger(1.1, 0, timer, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new RequestHedger(0.5, -1, timer, TestTelemetry.DEFAULT));
+    assertThrows(
+        NullPointerException.class, () -> new RequestHedger(0.5, 0, null, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new RequestHedger(0.5, 0, timer, null));
+  }
+
+  @Test
+  void testSlowRequestIsHedgedAndFirstResponseWins() {
+    StreamDrainExecutor timer = mock(StreamDrainExecutor.class);
+    RequestHedger hedger = new RequestHedger(1, 10, timer, TestTelemetry.DEFAULT);
+    warmUp(hedger);
+
+    CompletableFuture<ObjectContent> slow = new CompletableFuture<>();
+    ObjectContent fast = content();
+    AtomicInteger issued = new AtomicInteger();
+    CompletableFuture<ObjectContent> response =
+        hedger.fetch(
+            S3_URI,
+            LENGTH,
+            () ->
+                issued.getAndIncrement() == 0 ? slow : CompletableFuture.completedFuture(fast));
+    assertEquals(1, issued.get());
+
+    fireHedge(timer, 10);
+    assertSame(fast, response.join());
+    assertEquals(2, issued.get());
+    assertTrue(slow.isCancelled());
+    assertEquals(1, hedger.getHedgesIssued());
+    assertEquals(1, hedger.getHedgesWon());
+  }
+
+  @Test
+  void testHedgesStayWithinBudget() {
+    StreamDrainExecutor timer = mock(StreamDrainExecutor.class);
+    RequestHedger hedger = new RequestHedger(0.01, 0, timer, TestTelemetry.DEFAULT);
+    warmUp(hedger);
+
+    CompletableFuture<ObjectContent> slow = new CompletableFuture<>();
+    AtomicInteger issued = new AtomicInteger();
+    CompletableFuture<ObjectContent> response =
+        hedger.fetch(
+            S3_URI,
+            LENGTH,
+            () -> {
+              issued.incrementAndGet();
+              return slow;
+            });
+
+    fireHedge(timer, 0);
+    assertEquals(1, issued.get());
+    assertEquals(0, hedger.getHedgesIssued());
+    ObjectContent content = content();
+    slow.complete(content);
+    assertSame(content, response.join());
+  }
+
+  @Test
+  void testHedgesTakeAPermitOnlyIfNoRequestIsWaiting() {
+    StreamDrainExecutor timer = mock(StreamDrainExecutor.class);
+    RequestScheduler scheduler = new RequestScheduler(2, 0, TestTelemetry.DEFAULT);
+    RequestHedger hedger = new RequestHedger(1, 0, timer, scheduler, TestTelemetry.DEFAULT);
+    warmUp(hedger);
+    RequestScheduler.Permit held = scheduler.acquire(S3_URI, ReadMode.SYNC).join();
+
+    // A hedge is issued with the last permit, which is released once the request is decided
+    CompletableFuture<ObjectContent> first = new CompletableFuture<>();
+    CompletableFuture<ObjectContent> second = new CompletableFuture<>();
+    AtomicInteger issued = new AtomicInteger();
+    CompletableFuture<ObjectContent> response =
+        hedger.fetch(S3_URI, LENGTH, () -> issued.getAndIncrement() == 0 ? first : second);
+    fireHedge(timer, 0);
+    assertEquals(2, issued.get());
+    assertEquals(2, scheduler.getInFlight());
+    ObjectContent content = content();
+    second.complete(content);
+    assertSame(content, response.join());
+    assertTrue(first.isCancelled());
+    assertEquals(1, scheduler.getInFlight());
+
+    // No hedge is issued while a request waits for a permit
+    RequestScheduler.Permit other = scheduler.acquire(S3_URI, ReadMode.ASYNC).join();
+    CompletableFuture<RequestScheduler.Permit> waiting = scheduler.acquire(S3_URI, ReadMode.ASYNC);
+    CompletableFuture<ObjectContent> slow = new CompletableFuture<>();
+    AtomicInteger slowIssued = new AtomicInteger();
+    hedger.fetch(
+        S3_URI,
+        LENGTH,
+        () -> {
+          slowIssued.incrementAndGet();
+          return slow;
+        });
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    verify(timer, times(2)).schedule(hedge.capture(), eq(0L));
+    hedge.getValue().run();
+    assertEquals(1, slowIssued.get());
+    assertEquals(1, hedger.getHedgesIssued());
+
+    waiting.cancel(false);
+    other.release();
+    held.release();
+  }
+
+  @Test
+  void testResponseFailsOnlyOnceBothRequestsFailed() {
+    StreamDrainExecutor timer = mock(StreamDrainExecutor.class);
+    RequestHedger hedger = new RequestHedger(1, 0, timer, TestTelemetry.DEFAULT);
+    warmUp(hedger);
+
+    CompletableFuture<ObjectContent> first = new CompletableFuture<>();
+    CompletableFuture<ObjectContent> second = new CompletableFuture<>();
+    AtomicInteger issued = new AtomicInteger();
+    CompletableFuture<ObjectContent> response =
+        hedger.fetch(S3_URI, LENGTH, () -> issued.getAndIncrement() == 0 ? first : second);
+
+    fireHedge(timer, 0);
+    first.completeExceptionally(new IllegalStateException("first"));
+    assertFalse(response.isDone());
+    second.completeExceptionally(new IllegalStateException("second"));
+    assertTrue(response.isCompletedExceptionally());
+    assertEquals(0, hedger.getHedgesWon());
+  }
+
+  @Test
+  void testCancellingResponseCancelsAllRequests() {
+    StreamDrainExecutor timer = mock(StreamDrainExecutor.class);
+    RequestHedger hedger = new RequestHedger(1, 0, timer, TestTelemetry.DEFAULT);
+    warmUp(hedger);
+
+    CompletableFuture<ObjectContent> first = new CompletableFuture<>();
+    CompletableFuture<ObjectContent> second = new CompletableFuture<>();
+    AtomicInteger issued = new AtomicInteger();
+    CompletableFuture<ObjectContent> response =
+        hedger.fetch(S3_URI, LENGTH, () -> issued.getAndIncrement() == 0 ? first : second);
+
+    fireHedge(timer, 0);
+    response.cancel(false);
+    assertTrue(first.isCancelled());
+    assertTrue(second.isCancelled());
+  }
+
+  @Test
+  void testDisabledHedgerIssuesRequestOnce() {
+    CompletableFuture<ObjectContent> slow = new CompletableFuture<>();
+    for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+      assertSame(slow, RequestHedger.DISABLED.fetch(S3_URI, LENGTH, () -> slow));
+    }
+    assertEquals(0, RequestHedger.DISABLED.getHedgesIssued());
+  }
+
+  private static void warmUp(RequestHedger hedger) {
+    for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+      hedger.fetch(S3_URI, LENGTH, () -> CompletableFuture.completedFuture(content())).join();
+    }
+  }
+
+  // Runs the hedge the timer was asked to issue after the given delay
+  private static void fireHedge(StreamDrainExecutor timer, long delayMs) {
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    verify(timer).schedule(hedge.capture(), eq(delayMs));
+    hedge.getValue().run();
+  }
+
+  private static ObjectContent content() {
+    return ObjectContent.builder().stream(new ByteArrayInputStream(new byte[0])).build();
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.request.ReadMode;
+import software.amazon.s3.analyticsaccelerator.util.S3URI;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class RequestSchedulerTest {
+  private static final S3URI FIRST = S3URI.of("bucket", "first");
+  private static final S3URI SECOND = S3URI.of("bucket", "second");
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new RequestScheduler(-1, 0, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class, () -> new RequestScheduler(0, -1, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new RequestScheduler(0, 0, null));
+  }
+
+  @Test
+  void testRequestsOverTheLimitWaitInOrder() {
+    RequestScheduler scheduler = new RequestScheduler(2, 0, TestTelemetry.DEFAULT);
+
+    CompletableFuture<RequestScheduler.Permit> p1 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p2 = scheduler.acquire(SECOND, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p3 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p4 = scheduler.acquire(SECOND, ReadMode.SYNC);
+
+    assertTrue(p1.isDone() && p2.isDone());
+    assertFalse(p3.isDone() || p4.isDone());
+    assertEquals(2, scheduler.getInFlight());
+    assertEquals(2, scheduler.getQueueDepth());
+
+    p2.join().release();
+    p2.join().release();
+    assertTrue(p3.isDone());
+    assertFalse(p4.isDone());
+
+    p1.join().release();
+    assertTrue(p4.isDone());
+    assertEquals(0, scheduler.getQueueDepth());
+  }
+
+  @Test
+  void testObjectAtItsLimitDoesNotHoldUpOtherObjects() {
+    RequestScheduler scheduler = new RequestScheduler(3, 1, TestTelemetry.DEFAULT);
+
+    CompletableFuture<RequestScheduler.Permit> p1 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p2 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p3 = scheduler.acquire(SECOND, ReadMode.SYNC);
+
+    assertTrue(p1.isDone());
+    assertFalse(p2.isDone());
+    assertTrue(p3.isDone());
+
+    p1.join().release();
+    assertTrue(p2.isDone());
+    assertEquals(2, scheduler.getInFlight());
+  }
+
+  @Test
+  void testCancelledRequestGivesUpItsPlace() {
+    RequestScheduler scheduler = new RequestScheduler(1, 0, TestTelemetry.DEFAULT);
+
+    CompletableFuture<RequestScheduler.Permit> p1 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p2 = scheduler.acquire(FIRST, ReadMode.SYNC);
+    CompletableFuture<RequestScheduler.Permit> p3 = scheduler.acquire(SECOND, ReadMode.SYNC);
+
+    p2.cancel(false);
+    assertEquals(1, scheduler.getQueueDepth());
+    p1.join().release();
+
+    assertTrue(p3.isDone());
+    assertEquals(1, scheduler.getInFlight());
+  }
+
+  @Test
+  void testSchedulerWithoutLimitsLetsEveryRequestThrough() {
+    RequestScheduler scheduler = new RequestScheduler(0, 0, TestTelemetry.DEFAULT);
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(scheduler.acquire(FIRST, ReadMode.SYNC).isDone());
+    }
+    assertEquals(1000, scheduler.getInFlight());
+  }
+
+  @Test
+  void testSyncRequestsGoAheadOfWaitingAsyncRequests() {
+    RequestScheduler scheduler = new RequestScheduler(1, 0, TestTelemetry.DEFAULT);
+
+    CompletableFuture<RequestScheduler.Permit> p1 = scheduler.acquire(FIRST, ReadMode.ASYNC);
+    CompletableFuture<RequestScheduler.Permit> p2 = scheduler.acquire(FIRST, ReadMode.ASYNC);
+    CompletableFuture<RequestScheduler.Permit> p3 = scheduler.acquire(SECOND, ReadMode.SYNC);
+    assertEquals(2, scheduler.getQueueDepth());
+
+    p1.join().release();
+    assertTrue(p3.isDone());
+    assertFalse(p2.isDone());
+
+    p3.join().release();
+    assertTrue(p2.isDone());
+  }
+
+  @Test
+  void testTryAcquireNeverWaitsNorGoesAheadOfWaitingRequests() {
+    RequestScheduler scheduler = new RequestScheduler(2, 1, TestTelemetry.DEFAULT);
+
+    CompletableFuture<RequestScheduler.Permit> p1 = scheduler.acquire(FIRST, ReadMode.ASYNC);
+    assertFalse(scheduler.tryAcquire(FIRST).isPresent());
+    CompletableFuture<RequestScheduler.Permit> p2 = scheduler.acquire(FIRST, ReadMode.ASYNC);
+
+    // SECOND is below both limits, but a request is waiting
+    assertFalse(scheduler.tryAcquire(SECOND).isPresent());
+    p2.cancel(false);
+    RequestScheduler.Permit permit = scheduler.tryAcquire(SECOND).get();
+    assertEquals(2, scheduler.getInFlight());
+
+    permit.release();
+    p1.join().release();
+    assertEquals(0, scheduler.getInFlight());
+  }
+}
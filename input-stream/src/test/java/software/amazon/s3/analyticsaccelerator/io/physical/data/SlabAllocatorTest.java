@@ -0,0 +1,139 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class SlabAllocatorTest {
+  private static final int SLAB_SIZE = 4;
+  private static final long TIMEOUT = 100;
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new SlabAllocator(0, 16, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new SlabAllocator(SLAB_SIZE, SLAB_SIZE - 1, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new SlabAllocator(SLAB_SIZE, 16, null));
+  }
+
+  @SneakyThrows
+  @Test
+  void testLeaseWriteAndRead() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 16, TestTelemetry.DEFAULT);
+    byte[] data = "test-data".getBytes(StandardCharsets.UTF_8);
+
+    SlabBlockBuffer buffer = allocator.lease(data.length, TIMEOUT);
+    OutputStream writer = buffer.writer();
+    writer.write(data, 0, 5);
+    writer.write(data, 5, data.length - 5);
+    buffer.seal();
+
+    assertEquals(3, allocator.getLeasedSlabs());
+    assertEquals(data.length, buffer.length());
+    assertEquals('d', buffer.get(5));
+    byte[] read = new byte[data.length];
+    buffer.get(0, read, 0, read.length);
+    assertArrayEquals(data, read);
+  }
+
+  @SneakyThrows
+  @Test
+  void testWritesFailPastCapacityOrOnceSealed() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 16, TestTelemetry.DEFAULT);
+
+    SlabBlockBuffer buffer = allocator.lease(6, TIMEOUT);
+    OutputStream writer = buffer.writer();
+    assertThrows(IOException.class, () -> writer.write(new byte[7]));
+
+    writer.write(new byte[3]);
+    buffer.seal();
+    assertThrows(IOException.class, () -> writer.write(1));
+    assertEquals(3, buffer.length());
+  }
+
+  @SneakyThrows
+  @Test
+  void testSlabsAreReusedOnceLastReferenceIsReleased() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 16, TestTelemetry.DEFAULT);
+
+    SlabBlockBuffer buffer = allocator.lease(8, TIMEOUT);
+    assertTrue(buffer.retain());
+    buffer.release();
+    assertEquals(2, allocator.getLeasedSlabs());
+
+    buffer.release();
+    assertEquals(0, allocator.getLeasedSlabs());
+    assertFalse(buffer.retain());
+
+    allocator.lease(8, TIMEOUT);
+    assertEquals(2, allocator.getAllocatedSlabs());
+  }
+
+  @SneakyThrows
+  @Test
+  void testLeaseTimesOutWhenPoolIsExhausted() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 8, TestTelemetry.DEFAULT);
+
+    SlabBlockBuffer buffer = allocator.lease(8, TIMEOUT);
+    assertThrows(IOException.class, () -> allocator.lease(1, TIMEOUT));
+    assertThrows(IOException.class, () -> allocator.lease(9, TIMEOUT));
+
+    buffer.release();
+    assertEquals(SLAB_SIZE, allocator.lease(SLAB_SIZE, TIMEOUT).capacity());
+  }
+
+  @SneakyThrows
+  @Test
+  void testLeaseWaitsForSlabsToBeFreed() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 8, TestTelemetry.DEFAULT);
+
+    SlabBlockBuffer buffer = allocator.lease(8, TIMEOUT);
+    Thread releaser =
+        new Thread(
+            () -> {
+              try {
+                Thread.sleep(20);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              buffer.release();
+            });
+    releaser.start();
+
+    assertEquals(2, allocator.lease(8, 10_000).capacity() / SLAB_SIZE);
+    releaser.join();
+  }
+
+  @Test
+  void testLeaseFailsOnceClosed() {
+    SlabAllocator allocator = new SlabAllocator(SLAB_SIZE, 16, TestTelemetry.DEFAULT);
+    allocator.close();
+    assertThrows(IOException.class, () -> allocator.lease(1, TIMEOUT));
+  }
+}
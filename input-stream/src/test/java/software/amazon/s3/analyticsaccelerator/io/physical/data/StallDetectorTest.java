@@ -0,0 +1,160 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class StallDetectorTest {
+  private static final long ONE_MB = 1024 * 1024;
+
+  @Test
+  void testConstructor() {
+    new StallDetector(0, 1, TestTelemetry.DEFAULT);
+    new StallDetector(0.1, 5_000, TestTelemetry.DEFAULT);
+  }
+
+  @Test
+  void testConstructorThrowsOnInvalidArguments() {
+    assertThrows(NullPointerException.class, () -> new StallDetector(0.1, 1, null));
+    assertThrows(
+        IllegalArgumentException.class, () -> new StallDetector(-0.1, 1, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class, () -> new StallDetector(1.1, 1, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class, () -> new StallDetector(0.1, 0, TestTelemetry.DEFAULT));
+  }
+
+  @Test
+  void testDisabledDetectorDoesNotWrapStreams() {
+    InputStream stream = new ByteArrayInputStream(new byte[10]);
+
+    assertSame(stream, StallDetector.DISABLED.monitor(stream, () -> {}));
+    assertSame(stream, new StallDetector(0, 1, TestTelemetry.DEFAULT).monitor(stream, () -> {}));
+  }
+
+  @Test
+  void testSlowResponseIsNotAbortedUntilThroughputIsObserved() throws IOException {
+    StallDetector detector = new StallDetector(0.5, 1, TestTelemetry.DEFAULT);
+    // Too small a response to tell the throughput of the connection
+    detector.record(1024, 1);
+
+    InputStream stream = detector.monitor(new TricklingInputStream(5), () -> {});
+
+    assertEquals(5, drain(stream));
+    assertEquals(0, detector.getStalls());
+  }
+
+  @Test
+  void testTricklingResponseIsAborted() {
+    StallDetector detector = new StallDetector(0.5, 1, TestTelemetry.DEFAULT);
+    detector.record(ONE_MB, TimeUnit.MILLISECONDS.toNanos(1));
+    TricklingInputStream trickling = new TricklingInputStream(5);
+    AtomicBoolean onStallCalled = new AtomicBoolean();
+
+    InputStream stream = detector.monitor(trickling, () -> onStallCalled.set(true));
+
+    assertThrows(IOException.class, () -> drain(stream));
+    assertTrue(onStallCalled.get());
+    assertTrue(trickling.closed);
+    assertEquals(1, detector.getStalls());
+  }
+
+  @Test
+  void testResponsesAtTheObservedThroughputAreNotAborted() throws IOException {
+    StallDetector detector = new StallDetector(0.5, 1_000, TestTelemetry.DEFAULT);
+    detector.record(ONE_MB, TimeUnit.MILLISECONDS.toNanos(1));
+
+    InputStream stream =
+        detector.monitor(new ByteArrayInputStream(new byte[(int) ONE_MB]), () -> {});
+
+    assertEquals(ONE_MB, drain(stream));
+    assertEquals(0, detector.getStalls());
+  }
+
+  @Test
+  void testRecoveriesAreCounted() {
+    StallDetector detector = new StallDetector(0.5, 1, TestTelemetry.DEFAULT);
+
+    detector.recordRecovery(TimeUnit.MILLISECONDS.toNanos(20));
+
+    assertEquals(1, detector.getRecoveries());
+  }
+
+  private static long drain(InputStream stream) throws IOException {
+    byte[] buffer = new byte[8192];
+    long total = 0;
+    int numBytesRead;
+    while ((numBytesRead = stream.read(buffer, 0, buffer.length)) != -1) {
+      total += numBytesRead;
+    }
+    return total;
+  }
+
+  /** A stream returning a byte every few milliseconds */
+  private static final class TricklingInputStream extends InputStream {
+    private final AtomicInteger remaining;
+    private volatile boolean closed;
+
+    private TricklingInputStream(int length) {
+      this.remaining = new AtomicInteger(length);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining.getAndDecrement() <= 0) {
+        return -1;
+      }
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      return 0;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int value = read();
+      if (value == -1) {
+        return -1;
+      }
+      b[off] = (byte) value;
+      return 1;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class AccessPatternDetectorTest {
+
+  @Test
+  void testChecks() {
+    assertThrows(NullPointerException.class, () -> new AccessPatternDetector(null));
+
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+    assertThrows(IllegalArgumentException.class, () -> detector.recordRead(-1, 100));
+    assertThrows(IllegalArgumentException.class, () -> detector.recordRead(0, -1));
+    assertThrows(NullPointerException.class, () -> detector.recordPrefetch(null, 0, 100));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> detector.recordPrefetch(AccessPattern.FORWARD, 100, 0));
+  }
+
+  @Test
+  void testForwardReads() {
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(0, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.FORWARD, 1, 0),
+        detector.recordRead(100, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.FORWARD, 2, 0),
+        detector.recordRead(200, 100));
+  }
+
+  @Test
+  void testBackwardReadsAreReportedOnceRepeated() {
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(1000, 100));
+    // A single step back may be a random read
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(900, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.BACKWARD, 2, 0),
+        detector.recordRead(800, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.BACKWARD, 3, 0),
+        detector.recordRead(750, 50));
+  }
+
+  @Test
+  void testStridedReadsAreReportedOnceTheStrideRepeats() {
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(0, 100));
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(1000, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.STRIDED, 2, 1000),
+        detector.recordRead(2000, 100));
+
+    // A different stride starts over
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(5000, 100));
+    assertEquals(AccessPatternDetector.Detection.RANDOM, detector.recordRead(3000, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.STRIDED, 2, -2000),
+        detector.recordRead(1000, 100));
+  }
+
+  @Test
+  void testInterleavedCursors() {
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+
+    detector.recordRead(0, 100);
+    detector.recordRead(10_000, 100);
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.MULTI_CURSOR, 1, 0),
+        detector.recordRead(100, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.MULTI_CURSOR, 1, 0),
+        detector.recordRead(10_100, 100));
+    assertEquals(
+        new AccessPatternDetector.Detection(AccessPattern.MULTI_CURSOR, 2, 0),
+        detector.recordRead(200, 100));
+  }
+
+  @Test
+  void testHitsAndMissesArePerPattern() {
+    AccessPatternDetector detector = new AccessPatternDetector(TestTelemetry.DEFAULT);
+    detector.recordPrefetch(AccessPattern.FORWARD, 0, 999);
+    detector.recordPrefetch(AccessPattern.STRIDED, 5000, 5099);
+
+    // Reads covered by either prediction hit its pattern
+    detector.recordRead(100, 100);
+    detector.recordRead(5000, 100);
+    assertEquals(1, detector.getHits(AccessPattern.FORWARD));
+    assertEquals(1, detector.getHits(AccessPattern.STRIDED));
+
+    // A read covered by none misses the latest pattern, and drops the predictions
+    detector.recordRead(900, 200);
+    detector.recordRead(100, 100);
+    assertEquals(0, detector.getMisses(AccessPattern.FORWARD));
+    assertEquals(1, detector.getMisses(AccessPattern.STRIDED));
+    assertEquals(1, detector.getHits(AccessPattern.FORWARD));
+  }
+}
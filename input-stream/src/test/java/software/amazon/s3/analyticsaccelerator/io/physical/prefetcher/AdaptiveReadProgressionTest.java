@@ -0,0 +1,119 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static software.amazon.s3.analyticsaccelerator.util.Constants.ONE_MB;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.io.physical.data.ReadTimeoutEstimator;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class AdaptiveReadProgressionTest {
+  private static final long ONE_S_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  void testConstructorChecks() {
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    assertThrows(NullPointerException.class, () -> new AdaptiveReadProgression(null, estimator));
+    assertThrows(
+        NullPointerException.class,
+        () -> new AdaptiveReadProgression(PhysicalIOConfiguration.DEFAULT, null));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PhysicalIOConfiguration.builder()
+                .sequentialPrefetchMinBytes(2 * ONE_MB)
+                .sequentialPrefetchMaxBytes(ONE_MB)
+                .build());
+  }
+
+  @Test
+  void testExponentialSizesAreUsedUntilRatesAreObserved() {
+    AtomicLong clock = new AtomicLong();
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    AdaptiveReadProgression progression =
+        new AdaptiveReadProgression(PhysicalIOConfiguration.DEFAULT, estimator, clock::get);
+
+    // No latency has been observed, so the rate of the reader is not enough
+    assertEquals(4 * ONE_MB, progression.getSizeForRead(0, 1));
+    clock.addAndGet(ONE_S_NANOS);
+    assertEquals(8 * ONE_MB, progression.getSizeForRead(4 * ONE_MB, 2));
+  }
+
+  @Test
+  void testSizeCoversReaderRateOverFetchLatencies() {
+    AtomicLong clock = new AtomicLong();
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    // Durations are powers of two, so that rates are exact
+    estimator.record(ONE_MB, 1L << 27, 0);
+    AdaptiveReadProgression progression =
+        new AdaptiveReadProgression(PhysicalIOConfiguration.DEFAULT, estimator, clock::get);
+
+    // A reader consuming 32 MB every 8 fetch latencies reads 4 MB per fetch latency
+    progression.getSizeForRead(0, 1);
+    clock.addAndGet(1L << 30);
+    assertEquals(16 * ONE_MB, progression.getSizeForRead(32 * ONE_MB, 2));
+  }
+
+  @Test
+  void testSizesStayWithinConfiguredBounds() {
+    AtomicLong clock = new AtomicLong();
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    estimator.record(ONE_MB, TimeUnit.MILLISECONDS.toNanos(100), 0);
+    PhysicalIOConfiguration configuration =
+        PhysicalIOConfiguration.builder()
+            .sequentialPrefetchMinBytes(ONE_MB)
+            .sequentialPrefetchMaxBytes(32 * ONE_MB)
+            .build();
+
+    // A slow reader, consuming 1 MB in ten seconds
+    AdaptiveReadProgression slow =
+        new AdaptiveReadProgression(configuration, estimator, clock::get);
+    slow.getSizeForRead(0, 1);
+    clock.addAndGet(10 * ONE_S_NANOS);
+    assertEquals(ONE_MB, slow.getSizeForRead(ONE_MB, 2));
+
+    // A fast reader, consuming 1 GB in a second
+    AdaptiveReadProgression fast =
+        new AdaptiveReadProgression(configuration, estimator, clock::get);
+    fast.getSizeForRead(0, 1);
+    clock.addAndGet(ONE_S_NANOS);
+    assertEquals(32 * ONE_MB, fast.getSizeForRead(1024 * ONE_MB, 2));
+  }
+
+  @Test
+  void testOnlyConsecutivePrefetchesMeasureTheReader() {
+    AtomicLong clock = new AtomicLong();
+    ReadTimeoutEstimator estimator = new ReadTimeoutEstimator(0, TestTelemetry.DEFAULT);
+    estimator.record(ONE_MB, TimeUnit.MILLISECONDS.toNanos(100), 0);
+    AdaptiveReadProgression progression =
+        new AdaptiveReadProgression(PhysicalIOConfiguration.DEFAULT, estimator, clock::get);
+
+    // A new sequential read starting further in the object does not tell the rate of the reader
+    progression.getSizeForRead(0, 1);
+    clock.addAndGet(ONE_S_NANOS);
+    assertEquals(4 * ONE_MB, progression.getSizeForRead(512 * ONE_MB, 1));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.io.physical.prefetcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class ReadAheadWindowsTest {
+  private static final PhysicalIOConfiguration CONFIGURATION =
+      PhysicalIOConfiguration.builder()
+          .readAheadWindows(2)
+          .readAheadWindowBytes(100)
+          .readAheadLowWatermark(0.5)
+          .build();
+
+  @Test
+  void testChecks() {
+    assertThrows(
+        NullPointerException.class, () -> new ReadAheadWindows(null, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new ReadAheadWindows(CONFIGURATION, null));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PhysicalIOConfiguration.builder().readAheadWindows(-1).build());
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PhysicalIOConfiguration.builder().readAheadLowWatermark(1.5).build());
+  }
+
+  @Test
+  void testReadAheadIsOffByDefault() {
+    ReadAheadWindows windows =
+        new ReadAheadWindows(PhysicalIOConfiguration.DEFAULT, TestTelemetry.DEFAULT);
+    windows.start(0, 99);
+
+    assertFalse(windows.isEnabled());
+    assertEquals(Collections.emptyList(), windows.advance(90, 10, 999));
+  }
+
+  @Test
+  void testWindowsAreFetchedOnceTheReaderCrossesTheLowWatermark() {
+    ReadAheadWindows windows = new ReadAheadWindows(CONFIGURATION, TestTelemetry.DEFAULT);
+    windows.start(0, 99);
+
+    // Below the watermark of the first window
+    assertEquals(Collections.emptyList(), windows.advance(10, 10, 999));
+
+    // Past it, the two next windows are fetched
+    assertEquals(
+        Arrays.asList(new Range(100, 199), new Range(200, 299)), windows.advance(50, 10, 999));
+    assertTrue(windows.isFetchedAhead(150));
+    assertFalse(windows.isFetchedAhead(50));
+
+    // The reader moves into the next window, and past its watermark
+    assertEquals(Collections.emptyList(), windows.advance(120, 10, 999));
+    assertEquals(Collections.singletonList(new Range(300, 399)), windows.advance(160, 10, 999));
+  }
+
+  @Test
+  void testWindowsStopAtTheEndOfTheObject() {
+    ReadAheadWindows windows = new ReadAheadWindows(CONFIGURATION, TestTelemetry.DEFAULT);
+    windows.start(0, 99);
+
+    assertEquals(
+        Arrays.asList(new Range(100, 199), new Range(200, 249)), windows.advance(50, 10, 249));
+    assertEquals(Collections.emptyList(), windows.advance(230, 10, 249));
+  }
+
+  @Test
+  void testReadOutsideOfTheWindowsStopsReadAhead() {
+    ReadAheadWindows windows = new ReadAheadWindows(CONFIGURATION, TestTelemetry.DEFAULT);
+    windows.start(0, 99);
+    windows.advance(50, 10, 999);
+
+    assertEquals(Collections.emptyList(), windows.advance(5000, 10, 999));
+    assertFalse(windows.isFetchedAhead(150));
+    assertEquals(Collections.emptyList(), windows.advance(150, 10, 999));
+  }
+
+  @Test
+  void testReaderWaitsAreCounted() {
+    ReadAheadWindows windows = new ReadAheadWindows(CONFIGURATION, TestTelemetry.DEFAULT);
+    windows.recordRead(false);
+    windows.recordRead(true);
+    windows.recordRead(false);
+
+    assertEquals(3, windows.getReads());
+    assertEquals(1, windows.getWaits());
+  }
+}
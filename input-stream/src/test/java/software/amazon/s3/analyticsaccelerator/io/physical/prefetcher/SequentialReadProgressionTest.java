@@ -35,4 +35,19 @@ public class SequentialReadProgressionTest {
     assertEquals(8 * ONE_MB, sequentialReadProgression.getSizeForGeneration(2));
     assertEquals(16 * ONE_MB, sequentialReadProgression.getSizeForGeneration(3));
   }
+
+  @Test
+  public void test__sequentialReadProgression__isCappedForLongReads() {
+    // Given: a SequentialReadProgression
+    SequentialReadProgression sequentialReadProgression =
+        new SequentialReadProgression(PhysicalIOConfiguration.DEFAULT);
+    long maxBytes = PhysicalIOConfiguration.DEFAULT.getSequentialPrefetchMaxBytes();
+
+    // When & Then: size is requested for generations past the maximum --> size is the maximum
+    assertEquals(maxBytes, sequentialReadProgression.getSizeForGeneration(6));
+    assertEquals(maxBytes, sequentialReadProgression.getSizeForGeneration(7));
+    assertEquals(maxBytes, sequentialReadProgression.getSizeForGeneration(43));
+    assertEquals(maxBytes, sequentialReadProgression.getSizeForGeneration(Long.MAX_VALUE));
+    assertEquals(maxBytes, sequentialReadProgression.getSizeForRead(0, 1_000));
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class ShardedLruCacheTest {
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(IllegalArgumentException.class, () -> new ShardedLruCache<>(0, value -> {}));
+    assertThrows(IllegalArgumentException.class, () -> new ShardedLruCache<>(8, 3, value -> {}));
+    assertThrows(IllegalArgumentException.class, () -> new ShardedLruCache<>(8, 0, value -> {}));
+    assertThrows(NullPointerException.class, () -> new ShardedLruCache<>(8, 4, null));
+  }
+
+  @Test
+  void testLeastRecentlyUsedEntryIsEvictedAcrossShards() {
+    List<String> evicted = new ArrayList<>();
+    ShardedLruCache<Integer, String> cache = new ShardedLruCache<>(3, 4, evicted::add);
+
+    cache.put(1, "one");
+    cache.put(2, "two");
+    cache.put(3, "three");
+    assertEquals("one", cache.get(1));
+    cache.put(4, "four");
+
+    assertEquals(Arrays.asList("two"), evicted);
+    assertEquals(3, cache.size());
+    assertNull(cache.get(2));
+    assertEquals("four", cache.get(4));
+  }
+
+  @Test
+  void testPinnedEntriesAreNotEvicted() {
+    List<String> evicted = new ArrayList<>();
+    ShardedLruCache<Integer, String> cache = new ShardedLruCache<>(8, 4, evicted::add);
+    cache.put(1, "one");
+    cache.put(2, "two");
+
+    assertTrue(cache.evictEldest(key -> key == 1));
+    assertFalse(cache.evictEldest(key -> key == 1));
+
+    assertEquals(Arrays.asList("two"), evicted);
+    assertEquals("one", cache.get(1));
+  }
+
+  @Test
+  void testRemoveDoesNotCallEvictionListener() {
+    List<String> evicted = new ArrayList<>();
+    ShardedLruCache<Integer, String> cache = new ShardedLruCache<>(8, 4, evicted::add);
+    cache.put(1, "one");
+
+    assertEquals("one", cache.remove(1));
+    assertNull(cache.remove(1));
+    assertEquals(0, cache.size());
+    assertTrue(evicted.isEmpty());
+  }
+
+  @Test
+  void testConditionalRemoveAndReplaceCompareValues() {
+    ShardedLruCache<Integer, String> cache = new ShardedLruCache<>(8, 4, value -> {});
+    String one = "one";
+    cache.put(1, one);
+
+    assertFalse(cache.replace(1, "other", "uno"));
+    assertTrue(cache.replace(1, one, "uno"));
+    assertEquals("uno", cache.get(1));
+
+    assertFalse(cache.remove(1, one));
+    assertTrue(cache.remove(1, cache.get(1)));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testComputeIfAbsentCreatesOneValuePerKey() throws Exception {
+    ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(64, 8, value -> {});
+    AtomicInteger computations = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    List<Future<Integer>> values = new ArrayList<>();
+    try {
+      for (int i = 0; i < 256; i++) {
+        int key = i % 16;
+        values.add(
+            executor.submit(
+                () ->
+                    cache.computeIfAbsent(
+                        key,
+                        k -> {
+                          computations.incrementAndGet();
+                          return k * 10;
+                        })));
+      }
+      for (int i = 0; i < values.size(); i++) {
+        assertEquals((i % 16) * 10, values.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(16, computations.get());
+    assertEquals(16, cache.size());
+    assertEquals(16, cache.values().size());
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import software.amazon.s3.analyticsaccelerator.TestTelemetry;
+import software.amazon.s3.analyticsaccelerator.io.physical.PhysicalIOConfiguration;
+import software.amazon.s3.analyticsaccelerator.request.ObjectContent;
+import software.amazon.s3.analyticsaccelerator.request.Range;
+
+@SuppressFBWarnings(
+    value = "NP_NONNULL_PARAM_VIOLATION",
+    justification = "We mean to pass nulls to checks")
+public class StreamDrainExecutorTest {
+  private static final long TIMEOUT_MILLIS = 1_000;
+
+  @Test
+  void testConstructorChecks() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StreamDrainExecutor(0, 1, 1, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StreamDrainExecutor(1, 0, 1, TestTelemetry.DEFAULT));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new StreamDrainExecutor(1, 1, 0, TestTelemetry.DEFAULT));
+    assertThrows(NullPointerException.class, () -> new StreamDrainExecutor(1, 1, 1, null));
+    assertThrows(
+        NullPointerException.class,
+        () -> new StreamDrainExecutor((PhysicalIOConfiguration) null, TestTelemetry.DEFAULT));
+  }
+
+  @SneakyThrows
+  @Test
+  void testSubmitReturnsResultOfTask() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(PhysicalIOConfiguration.DEFAULT, TestTelemetry.DEFAULT)) {
+      assertEquals(
+          "s3-analytics-accelerator-drain-1",
+          executor.submit(() -> Thread.currentThread().getName(), TIMEOUT_MILLIS).get());
+    }
+  }
+
+  @Test
+  void testSubmitTimesOutAndInterruptsTask() throws Exception {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(1, 1, 1_000, TestTelemetry.DEFAULT)) {
+      CountDownLatch interrupted = new CountDownLatch(1);
+      CompletableFuture<Void> future =
+          executor.submit(
+              () -> {
+                try {
+                  Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                  interrupted.countDown();
+                }
+                return null;
+              },
+              50);
+
+      ExecutionException e = assertThrows(ExecutionException.class, future::get);
+      assertInstanceOf(TimeoutException.class, e.getCause());
+      assertTrue(interrupted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void testThreadsAreReusedAcrossTasks() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(2, 1_000, 60_000, TestTelemetry.DEFAULT)) {
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        final int value = i;
+        futures.add(executor.submit(() -> value, TIMEOUT_MILLIS));
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        assertEquals(i, futures.get(i).get());
+      }
+
+      assertTrue(executor.getThreadsCreated() <= 2);
+      assertTrue(executor.getPoolSize() <= 2);
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void testTaskRunsOnCallerWhenQueueIsFull() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(1, 1, 1_000, TestTelemetry.DEFAULT)) {
+      CountDownLatch release = new CountDownLatch(1);
+      // Occupy the only thread and the only queue slot
+      executor.submit(() -> release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), TIMEOUT_MILLIS);
+      executor.submit(() -> null, TIMEOUT_MILLIS);
+
+      String caller = Thread.currentThread().getName();
+      assertEquals(
+          caller, executor.submit(() -> Thread.currentThread().getName(), TIMEOUT_MILLIS).get());
+      assertEquals(1, executor.getCallerRuns());
+      release.countDown();
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void testTimeSpentQueuedCountsAgainstTheTimeout() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(1, 1, 1_000, TestTelemetry.DEFAULT)) {
+      CountDownLatch release = new CountDownLatch(1);
+      // Occupy the only thread, so that the next task waits in the queue
+      executor.submit(() -> release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), TIMEOUT_MILLIS);
+      AtomicBoolean ran = new AtomicBoolean();
+      CompletableFuture<Void> queued =
+          executor.submit(
+              () -> {
+                ran.set(true);
+                return null;
+              },
+              50);
+
+      ExecutionException e = assertThrows(ExecutionException.class, queued::get);
+      assertInstanceOf(TimeoutException.class, e.getCause());
+      release.countDown();
+      assertFalse(ran.get());
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void testDrainOfStalledStreamOnCallerTimesOut() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(1, 1, 1_000, TestTelemetry.DEFAULT)) {
+      CountDownLatch release = new CountDownLatch(1);
+      // Occupy the only thread and the only queue slot
+      executor.submit(() -> release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), TIMEOUT_MILLIS);
+      executor.submit(() -> null, TIMEOUT_MILLIS);
+      StalledInputStream stream = new StalledInputStream();
+      ObjectContent objectContent = ObjectContent.builder().stream(stream).build();
+      ObjectKey objectKey =
+          ObjectKey.builder().s3URI(S3URI.of("test-bucket", "test-key")).etag("etag").build();
+
+      assertThrows(
+          TimeoutException.class,
+          () -> StreamUtils.toByteArray(objectContent, objectKey, new Range(0, 10), 50, executor));
+      assertEquals(1, executor.getCallerRuns());
+      assertTrue(stream.isClosed());
+      release.countDown();
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void testStreamUtilsDrainsOnGivenExecutor() {
+    try (StreamDrainExecutor executor =
+        new StreamDrainExecutor(1, 1, 1_000, TestTelemetry.DEFAULT)) {
+      ObjectContent objectContent =
+          ObjectContent.builder()
+              .stream(new ByteArrayInputStream("Hello World".getBytes(StandardCharsets.UTF_8)))
+              .build();
+      ObjectKey objectKey =
+          ObjectKey.builder().s3URI(S3URI.of("test-bucket", "test-key")).etag("etag").build();
+
+      byte[] buf =
+          StreamUtils.toByteArray(
+              objectContent, objectKey, new Range(0, 10), TIMEOUT_MILLIS, executor);
+
+      assertEquals("Hello World", new String(buf, StandardCharsets.UTF_8));
+      assertEquals(1, executor.getThreadsCreated());
+    }
+  }
+
+  /** A stream whose reads do not return until it is closed, like a stalled response */
+  private static final class StalledInputStream extends InputStream {
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @Override
+    public int read() throws IOException {
+      try {
+        if (closed.await(10 * TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          throw new IOException("Stream closed");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return -1;
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+
+    private boolean isClosed() {
+      return closed.getCount() == 0;
+    }
+  }
+}
@@ -41,11 +41,17 @@ public enum ExceptionHandler {
 
   S3_SERVICE(
       S3Exception.class,
-      (cause, uri) -> createIOException("Server error accessing %s", uri, cause)),
+      (cause, uri) ->
+          isThrottling((S3Exception) cause)
+              ? new ThrottlingException(String.format("Throttled accessing %s", uri), cause)
+              : createIOException("Server error accessing %s", uri, cause)),
 
   SDK_GENERAL(
       SdkException.class, (cause, uri) -> createIOException("SDK error accessing %s", uri, cause));
 
+  // Status code of the SlowDown error S3 returns when it throttles requests
+  private static final int SERVICE_UNAVAILABLE = 503;
+
   private final Class<? extends Exception> exceptionClass;
   private final ExceptionMapper mapper;
 
@@ -90,6 +96,10 @@ public enum ExceptionHandler {
     };
   }
 
+  private static boolean isThrottling(S3Exception exception) {
+    return exception.isThrottlingException() || exception.statusCode() == SERVICE_UNAVAILABLE;
+  }
+
   private static IOException createIOException(String message, S3URI uri, Throwable cause) {
     return new IOException(String.format(message, uri), cause);
   }
@@ -0,0 +1,36 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.s3.analyticsaccelerator.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Signals that S3 rejected a request because requests are being made too fast, so retries should
+ * back off rather than add to the load.
+ */
+public class ThrottlingException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new instance of {@link ThrottlingException}.
+   *
+   * @param message the detail message
+   * @param cause the error returned by S3
+   */
+  public ThrottlingException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
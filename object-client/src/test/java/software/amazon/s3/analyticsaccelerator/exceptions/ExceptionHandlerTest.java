@@ -64,6 +64,18 @@ public class ExceptionHandlerTest {
     assertSame(cause, exception.getCause());
   }
 
+  @Test
+  void testHandleThrottlingS3Exception() {
+    AwsServiceException slowDown = S3Exception.builder().statusCode(503).build();
+    IOException exception = ExceptionHandler.toIOException(slowDown, TEST_URI);
+    assertInstanceOf(ThrottlingException.class, exception);
+    assertSame(slowDown, exception.getCause());
+
+    AwsServiceException tooManyRequests = S3Exception.builder().statusCode(429).build();
+    assertInstanceOf(
+        ThrottlingException.class, ExceptionHandler.toIOException(tooManyRequests, TEST_URI));
+  }
+
   @Test
   void testHandleSdkException() {
     RuntimeException cause = SdkException.builder().build();